@@ -31,6 +31,8 @@ import com.hartwig.hmftools.common.amber.AmberSitesFile;
 import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
 import com.hartwig.hmftools.common.genome.region.GenomeRegion;
 import com.hartwig.hmftools.common.utils.Doubles;
+import com.hartwig.hmftools.common.utils.MetricsRegistry;
+import com.hartwig.hmftools.common.utils.PerformanceCounter;
 import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
 import com.hartwig.hmftools.common.region.BaseRegion;
 import com.hartwig.hmftools.common.utils.version.VersionInfo;
@@ -59,14 +61,24 @@ public class AmberApplication implements AutoCloseable
 
         mPersistence = new ResultsWriter(mConfig);
 
+        PerformanceCounter sitesPerf = new PerformanceCounter("LoadSites");
+        sitesPerf.start();
+
         mChromosomeSites = loadAmberSites();
 
+        sitesPerf.stop();
+        sitesPerf.addInputBytes(new File(mConfig.BafLociPath).length());
+        MetricsRegistry.register(sitesPerf);
+
         if(!mConfig.isValid())
         {
             AMB_LOGGER.error(" invalid config, exiting");
             return 1;
         }
 
+        PerformanceCounter bafPerf = new PerformanceCounter("BafCalling");
+        bafPerf.start();
+
         if(mConfig.isTumorOnly())
         {
             runTumorOnly();
@@ -80,6 +92,13 @@ public class AmberApplication implements AutoCloseable
             runNormalMode();
         }
 
+        bafPerf.stop();
+
+        long bamBytes = mConfig.TumorBam != null ? new File(mConfig.TumorBam).length() : 0;
+        bamBytes += mConfig.ReferenceBams.stream().mapToLong(x -> new File(x).length()).sum();
+        bafPerf.addInputBytes(bamBytes);
+        MetricsRegistry.register(bafPerf);
+
         AMB_LOGGER.info("Amber complete, mins({})", runTimeMinsStr(startTimeMs));
 
         return 0;
@@ -296,6 +315,8 @@ public class AmberApplication implements AutoCloseable
 
         configBuilder.checkAndParseCommandLine(args);
 
+        MetricsRegistry.initialise(configBuilder, APP_NAME);
+
         AmberApplication amberApp = new AmberApplication(configBuilder);
         amberApp.run();
     }
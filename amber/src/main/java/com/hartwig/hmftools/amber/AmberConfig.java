@@ -26,6 +26,8 @@ import static com.hartwig.hmftools.common.utils.config.ConfigUtils.addLoggingOpt
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.addOutputDir;
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.checkCreateOutputDir;
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.parseOutputDir;
+import static com.hartwig.hmftools.common.utils.pcf.PCFSegmenter.USE_R_SEGMENTATION;
+import static com.hartwig.hmftools.common.utils.pcf.PCFSegmenter.USE_R_SEGMENTATION_DESC;
 
 import java.io.File;
 import java.util.Arrays;
@@ -37,6 +39,7 @@ import org.apache.logging.log4j.Logger;
 import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion;
 import com.hartwig.hmftools.common.samtools.BamUtils;
+import com.hartwig.hmftools.common.utils.MetricsRegistry;
 import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
 
 import htsjdk.samtools.ValidationStringency;
@@ -63,6 +66,7 @@ public class AmberConfig
     public final double MinHetAfPercent;
     public final double MaxHetAfPercent;
     public final boolean WriteUnfilteredGermline;
+    public final boolean UseRSegmentation;
     public final int PositionGap;
 
     public final String OutputDir;
@@ -138,6 +142,7 @@ public class AmberConfig
         PositionGap = configBuilder.getInteger(POSITION_GAP);
 
         WriteUnfilteredGermline = configBuilder.hasFlag(WRITE_UNFILTERED_GERMLINE);
+        UseRSegmentation = configBuilder.hasFlag(USE_R_SEGMENTATION);
 
         OutputDir = parseOutputDir(configBuilder);
         Threads = parseThreads(configBuilder);
@@ -187,11 +192,13 @@ public class AmberConfig
         configBuilder.addDecimal(MAX_HIT_AT_PERC, "Max heterozygous AF%", DEFAULT_MAX_HET_AF_PERCENTAGE);
 
         configBuilder.addFlag(WRITE_UNFILTERED_GERMLINE, "Write all (unfiltered) germline points");
+        configBuilder.addFlag(USE_R_SEGMENTATION, USE_R_SEGMENTATION_DESC);
 
         addOutputDir(configBuilder);
         addThreadOptions(configBuilder);
         addValidationStringencyOption(configBuilder);
         addLoggingOptions(configBuilder);
+        MetricsRegistry.addConfig(configBuilder);
 
         addSpecificChromosomesRegionsConfig(configBuilder);
     }
@@ -3,20 +3,36 @@ package com.hartwig.hmftools.amber;
 import java.io.IOException;
 
 import com.hartwig.hmftools.common.utils.pcf.PCFFile;
+import com.hartwig.hmftools.common.utils.pcf.PCFSegmenter;
 import com.hartwig.hmftools.common.utils.r.RExecutor;
 
 public class BAFSegmentation
 {
+    private static final String BAF_COLUMN = "tumorModifiedBAF";
+    private static final double BAF_GAMMA = 100;
+
     private final String mOutputDir;
+    private final boolean mUseR;
+    private final int mThreads;
 
-    public BAFSegmentation(final String outputDir)
+    public BAFSegmentation(final String outputDir, boolean useR, int threads)
     {
         mOutputDir = outputDir;
+        mUseR = useR;
+        mThreads = threads;
     }
 
     public void applySegmentation(final String tumor, final String ratioFile) throws InterruptedException, IOException
     {
         final String pcfFile = PCFFile.generateBAFFilename(mOutputDir, tumor);
+
+        if(!mUseR)
+        {
+            // the BAF column name is carried through as the sample label, as with copynumber's pcf
+            new PCFSegmenter(BAF_COLUMN, BAF_GAMMA, mThreads).segment(ratioFile, BAF_COLUMN, x -> x, pcfFile);
+            return;
+        }
+
         int result = RExecutor.executeFromClasspath("r/bafSegmentation.R", ratioFile, pcfFile);
         if(result != 0)
         {
@@ -40,7 +40,7 @@ public class ResultsWriter
         if(mConfig.TumorId != null)
         {
             AMB_LOGGER.info("applying pcf segmentation");
-            new BAFSegmentation(mConfig.OutputDir).applySegmentation(mConfig.TumorId, filename);
+            new BAFSegmentation(mConfig.OutputDir, mConfig.UseRSegmentation, mConfig.Threads).applySegmentation(mConfig.TumorId, filename);
         }
     }
 
@@ -96,6 +96,12 @@ public class BamCompare
         BT_LOGGER.info("summary: reads(ref={} new={}) diffs({})",
                 combinedStats.RefReadCount, combinedStats.NewReadCount, combinedStats.DiffCount);
 
+        if(mConfig.Fingerprint)
+        {
+            BT_LOGGER.info("partition fingerprints: matched({}) compared({})",
+                    combinedStats.FingerprintMatchCount, combinedStats.FingerprintDiffCount);
+        }
+
         BT_LOGGER.info("BamCompare complete, mins({})", runTimeMinsStr(startTimeMs));
     }
 
@@ -32,6 +32,7 @@ public class CompareConfig
     public final boolean ExcludeRegions;
     public final boolean IgnoreDupDiffs;
     public final boolean IgnoreAlterations; // consensus reads and internal unmappings
+    public final boolean Fingerprint; // compare reads only in partitions whose fingerprints differ
 
     public final int Threads;
     public final List<String> LogReadIds;
@@ -46,6 +47,7 @@ public class CompareConfig
     private static final String MAX_PARTITION_READS = "max_partition_reads";
     private static final String IGNORE_DUP_DIFFS = "ignore_dup_diffs";
     private static final String IGNORE_ALTERATIONS = "ignore_alterations";
+    private static final String FINGERPRINT = "fingerprint";
 
     private static final int DEFAULT_CHR_PARTITION_SIZE = 100000;
 
@@ -72,6 +74,7 @@ public class CompareConfig
         MaxPartitionReads = configBuilder.getInteger(MAX_PARTITION_READS);
         IgnoreDupDiffs = configBuilder.hasFlag(IGNORE_DUP_DIFFS);
         IgnoreAlterations = configBuilder.hasFlag(IGNORE_ALTERATIONS);
+        Fingerprint = configBuilder.hasFlag(FINGERPRINT);
 
         SpecificChrRegions = SpecificRegions.from(configBuilder);
 
@@ -97,6 +100,7 @@ public class CompareConfig
         configBuilder.addFlag(EXCLUDE_REGIONS, "Ignore excluded regions");
         configBuilder.addFlag(IGNORE_DUP_DIFFS, "Ignore duplicate diffs");
         configBuilder.addFlag(IGNORE_ALTERATIONS, "Ignore consensus reads and internal unmappings");
+        configBuilder.addFlag(FINGERPRINT, "Compare partition fingerprints first, only comparing reads in partitions which differ");
 
         addRefGenomeConfig(configBuilder, true);;
         addSpecificChromosomesRegionsConfig(configBuilder);
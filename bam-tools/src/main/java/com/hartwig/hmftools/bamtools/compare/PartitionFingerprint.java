@@ -0,0 +1,103 @@
+package com.hartwig.hmftools.bamtools.compare;
+
+import static com.hartwig.hmftools.bamtools.compare.PartitionReader.KEY_ATTRIBUTES;
+
+import static htsjdk.samtools.SAMFlag.DUPLICATE_READ;
+
+import java.nio.charset.StandardCharsets;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import htsjdk.samtools.SAMRecord;
+
+// an order-independent 128-bit fingerprint of a partition's reads, formed by summing a hash of each read's compared fields, so
+// two BAMs' partitions can be checked for equality without holding any of their reads
+public class PartitionFingerprint
+{
+    private final boolean mIgnoreDupDiffs;
+
+    private long mHashLow;
+    private long mHashHigh;
+    private int mReadCount;
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    public PartitionFingerprint(boolean ignoreDupDiffs)
+    {
+        mIgnoreDupDiffs = ignoreDupDiffs;
+        mHashLow = 0;
+        mHashHigh = 0;
+        mReadCount = 0;
+    }
+
+    public int readCount() { return mReadCount; }
+
+    public void addRead(final SAMRecord read)
+    {
+        // covers every field used to match reads and check their details, so equal fingerprints imply no diffs would be found
+        int flags = read.getFlags();
+
+        if(mIgnoreDupDiffs)
+            flags &= ~DUPLICATE_READ.intValue();
+
+        Hasher hasher = HASH_FUNCTION.newHasher()
+                .putInt(flags)
+                .putInt(read.getAlignmentStart())
+                .putInt(read.getMappingQuality())
+                .putInt(read.getInferredInsertSize());
+
+        putString(hasher, read.getReadName());
+        putString(hasher, read.getCigarString());
+
+        for(String attribute : KEY_ATTRIBUTES)
+        {
+            putString(hasher, read.getStringAttribute(attribute));
+        }
+
+        HashCode hashCode = hasher.hash();
+        byte[] hashBytes = hashCode.asBytes();
+
+        mHashLow += toLong(hashBytes, 0);
+        mHashHigh += toLong(hashBytes, 8);
+        ++mReadCount;
+    }
+
+    private static void putString(final Hasher hasher, final String value)
+    {
+        // prefix with the length so adjacent strings cannot run together, and a missing value differs from an empty one
+        if(value == null)
+        {
+            hasher.putInt(-1);
+            return;
+        }
+
+        hasher.putInt(value.length());
+        hasher.putString(value, StandardCharsets.UTF_8);
+    }
+
+    // hash bytes are little-endian
+    private static long toLong(final byte[] bytes, int offset)
+    {
+        long value = 0;
+
+        for(int i = 7; i >= 0; --i)
+        {
+            value = (value << 8) | (bytes[offset + i] & 0xff);
+        }
+
+        return value;
+    }
+
+    public boolean matches(final PartitionFingerprint other)
+    {
+        return mReadCount == other.mReadCount && mHashLow == other.mHashLow && mHashHigh == other.mHashHigh;
+    }
+
+    public String toString()
+    {
+        return String.format("reads(%d) hash(%016x%016x)", mReadCount, mHashHigh, mHashLow);
+    }
+}
@@ -72,6 +72,9 @@ public class PartitionReader
     {
         BT_LOGGER.debug("processing region({})", mRegion);
 
+        if(mConfig.Fingerprint && fingerprintsMatch())
+            return;
+
         mBamSlicer.slice(mRefSamReader, Lists.newArrayList(mRegion), this::processRefRecord);
 
         mBamSlicer.slice(mNewSamReader, Lists.newArrayList(mRegion), this::processNewRecord);
@@ -88,23 +91,60 @@ public class PartitionReader
                 mRegion, mStats.RefReadCount, mStats.NewReadCount, mStats.DiffCount);
     }
 
-    private void processRefRecord(final SAMRecord refRead)
+    private boolean fingerprintsMatch()
     {
-        if(!mRegion.containsPosition(refRead.getAlignmentStart()))
-            return;
+        // a first pass over both BAMs without holding any reads, so only partitions with differences need their reads compared
+        PartitionFingerprint refFingerprint = new PartitionFingerprint(mConfig.IgnoreDupDiffs);
+        mBamSlicer.slice(mRefSamReader, Lists.newArrayList(mRegion), x -> addFingerprintRead(refFingerprint, x, "ref"));
 
-        if(mExcludedRegion != null && mExcludedRegion.containsPosition(refRead.getAlignmentStart()))
-            return;
+        PartitionFingerprint newFingerprint = new PartitionFingerprint(mConfig.IgnoreDupDiffs);
+        mBamSlicer.slice(mNewSamReader, Lists.newArrayList(mRegion), x -> addFingerprintRead(newFingerprint, x, "new"));
+
+        if(!refFingerprint.matches(newFingerprint))
+        {
+            BT_LOGGER.debug("region({}) fingerprints differ: ref({}) new({})", mRegion, refFingerprint, newFingerprint);
+            ++mStats.FingerprintDiffCount;
+            return false;
+        }
 
-        if(exceededMaxReads("ref", mStats.RefReadCount))
+        mStats.RefReadCount += refFingerprint.readCount();
+        mStats.NewReadCount += newFingerprint.readCount();
+        ++mStats.FingerprintMatchCount;
+
+        BT_LOGGER.debug("region({}) fingerprints match: reads({})", mRegion, refFingerprint.readCount());
+        return true;
+    }
+
+    private void addFingerprintRead(final PartitionFingerprint fingerprint, final SAMRecord read, final String source)
+    {
+        if(!acceptRead(read, source, fingerprint.readCount()))
             return;
 
-        if(mLogReadIds && mConfig.LogReadIds.contains(refRead.getReadName()))
+        fingerprint.addRead(read);
+    }
+
+    private boolean acceptRead(final SAMRecord read, final String source, int readCount)
+    {
+        if(!mRegion.containsPosition(read.getAlignmentStart()))
+            return false;
+
+        if(mExcludedRegion != null && mExcludedRegion.containsPosition(read.getAlignmentStart()))
+            return false;
+
+        if(exceededMaxReads(source, readCount))
+            return false;
+
+        if(mLogReadIds && mConfig.LogReadIds.contains(read.getReadName()))
         {
-            BT_LOGGER.debug("specific readId({})", refRead.getReadName());
+            BT_LOGGER.debug("specific readId({})", read.getReadName());
         }
 
-        if(excludeRead(refRead))
+        return !excludeRead(read);
+    }
+
+    private void processRefRecord(final SAMRecord refRead)
+    {
+        if(!acceptRead(refRead, "ref", mStats.RefReadCount))
             return;
 
         ++mStats.RefReadCount;
@@ -129,21 +169,7 @@ public class PartitionReader
 
     private void processNewRecord(final SAMRecord newRead)
     {
-        if(!mRegion.containsPosition(newRead.getAlignmentStart()))
-            return;
-
-        if(mExcludedRegion != null && mExcludedRegion.containsPosition(newRead.getAlignmentStart()))
-            return;
-
-        if(exceededMaxReads("new", mStats.NewReadCount))
-            return;
-
-        if(mLogReadIds && mConfig.LogReadIds.contains(newRead.getReadName()))
-        {
-            BT_LOGGER.debug("specific readId({})", newRead.getReadName());
-        }
-
-        if(excludeRead(newRead))
+        if(!acceptRead(newRead, "new", mStats.NewReadCount))
             return;
 
         ++mStats.NewReadCount;
@@ -224,7 +250,7 @@ public class PartitionReader
         return true;
     }
 
-    private static final List<String> KEY_ATTRIBUTES = List.of(SUPPLEMENTARY_ATTRIBUTE, MATE_CIGAR_ATTRIBUTE);
+    static final List<String> KEY_ATTRIBUTES = List.of(SUPPLEMENTARY_ATTRIBUTE, MATE_CIGAR_ATTRIBUTE);
 
     private boolean flagsMatch(final int flags1, final int flags2)
     {
@@ -5,12 +5,16 @@ public class Statistics
     public int RefReadCount;
     public int NewReadCount;
     public int DiffCount;
+    public int FingerprintMatchCount;
+    public int FingerprintDiffCount;
 
     public Statistics()
     {
         RefReadCount = 0;
         NewReadCount = 0;
         DiffCount = 0;
+        FingerprintMatchCount = 0;
+        FingerprintDiffCount = 0;
     }
 
     public void merge(final Statistics other)
@@ -18,5 +22,7 @@ public class Statistics
         RefReadCount += other.RefReadCount;
         NewReadCount += other.NewReadCount;
         DiffCount += other.DiffCount;
+        FingerprintMatchCount += other.FingerprintMatchCount;
+        FingerprintDiffCount += other.FingerprintDiffCount;
     }
 }
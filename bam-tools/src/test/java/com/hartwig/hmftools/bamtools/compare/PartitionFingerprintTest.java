@@ -0,0 +1,89 @@
+package com.hartwig.hmftools.bamtools.compare;
+
+import static com.hartwig.hmftools.common.samtools.SamRecordUtils.MATE_CIGAR_ATTRIBUTE;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_1;
+import static com.hartwig.hmftools.common.test.SamRecordTestUtils.createSamRecord;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import htsjdk.samtools.SAMRecord;
+
+public class PartitionFingerprintTest
+{
+    private static final String READ_BASES = "";
+    private static final String READ_CIGAR = "100M";
+
+    @Test
+    public void testFingerprintIsOrderIndependent()
+    {
+        List<SAMRecord> reads = List.of(
+                createRead("READ_01", 100), createRead("READ_02", 100), createRead("READ_03", 250), createRead("READ_03", 250));
+
+        PartitionFingerprint fingerprint1 = new PartitionFingerprint(false);
+        reads.forEach(fingerprint1::addRead);
+
+        PartitionFingerprint fingerprint2 = new PartitionFingerprint(false);
+
+        for(int i = reads.size() - 1; i >= 0; --i)
+        {
+            fingerprint2.addRead(createRead(reads.get(i).getReadName(), reads.get(i).getAlignmentStart()));
+        }
+
+        assertEquals(4, fingerprint1.readCount());
+        assertTrue(fingerprint1.matches(fingerprint2));
+
+        // a missing read is detected
+        PartitionFingerprint fingerprint3 = new PartitionFingerprint(false);
+        reads.subList(0, 3).forEach(fingerprint3::addRead);
+        assertFalse(fingerprint1.matches(fingerprint3));
+    }
+
+    @Test
+    public void testFingerprintDetectsReadDiffs()
+    {
+        SAMRecord read = createRead("READ_01", 100);
+
+        PartitionFingerprint refFingerprint = new PartitionFingerprint(false);
+        refFingerprint.addRead(read);
+
+        SAMRecord diffRead = createRead("READ_01", 100);
+        diffRead.setMappingQuality(10);
+        assertFalse(refFingerprint.matches(fingerprint(diffRead, false)));
+
+        diffRead = createRead("READ_01", 100);
+        diffRead.setCigarString("50M1I49M");
+        assertFalse(refFingerprint.matches(fingerprint(diffRead, false)));
+
+        diffRead = createRead("READ_01", 100);
+        diffRead.setAttribute(MATE_CIGAR_ATTRIBUTE, "90M10S");
+        assertFalse(refFingerprint.matches(fingerprint(diffRead, false)));
+
+        diffRead = createRead("READ_01", 100);
+        diffRead.setDuplicateReadFlag(true);
+        assertFalse(refFingerprint.matches(fingerprint(diffRead, false)));
+
+        // duplicate diffs can be ignored
+        PartitionFingerprint ignoreDupsFingerprint = new PartitionFingerprint(true);
+        ignoreDupsFingerprint.addRead(read);
+        assertTrue(ignoreDupsFingerprint.matches(fingerprint(diffRead, true)));
+    }
+
+    private static PartitionFingerprint fingerprint(final SAMRecord read, boolean ignoreDupDiffs)
+    {
+        PartitionFingerprint fingerprint = new PartitionFingerprint(ignoreDupDiffs);
+        fingerprint.addRead(read);
+        return fingerprint;
+    }
+
+    private static SAMRecord createRead(final String readId, int readStart)
+    {
+        return createSamRecord(
+                readId, CHR_1, readStart, READ_BASES, READ_CIGAR, CHR_1, readStart + 200, false, false, null, true, READ_CIGAR);
+    }
+}
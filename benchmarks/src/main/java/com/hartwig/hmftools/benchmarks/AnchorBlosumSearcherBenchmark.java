@@ -0,0 +1,210 @@
+package com.hartwig.hmftools.benchmarks;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.cider.AnchorBlosumMatch;
+import com.hartwig.hmftools.cider.AnchorBlosumSearcher;
+import com.hartwig.hmftools.cider.BlosumSimilarityCalc;
+import com.hartwig.hmftools.cider.CiderConstants;
+import com.hartwig.hmftools.cider.CiderGeneDataLoader;
+import com.hartwig.hmftools.cider.CiderGeneDatastore;
+import com.hartwig.hmftools.cider.IAnchorBlosumSearcher;
+import com.hartwig.hmftools.cider.VJ;
+import com.hartwig.hmftools.cider.VJGeneType;
+import com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// searches reads from the IG/TCR loci for V and J anchors in CIDER, comparing the previous search which scores every template
+// anchor at every offset with AnchorBlosumSearcher's seed index
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnchorBlosumSearcherBenchmark
+{
+    @Param({"1000"})
+    public int Reads;
+
+    @Param({"ALLOW_NEG_SIMILARITY", "DISALLOW_NEG_SIMILARITY"})
+    public IAnchorBlosumSearcher.Mode SearchMode;
+
+    private static final String BASES = "ACGT";
+    private static final int MIN_PARTIAL_ANCHOR_BASE_LENGTH = CiderConstants.CANDIDATE_MIN_PARTIAL_ANCHOR_AA_LENGTH * 3;
+
+    private CiderGeneDatastore mGeneDatastore;
+    private AnchorBlosumSearcher mSearcher;
+    private List<String> mReads;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        Random random = new Random(1);
+
+        mGeneDatastore = new CiderGeneDatastore(CiderGeneDataLoader.INSTANCE.loadAnchorTemplates(RefGenomeVersion.V38), List.of());
+        mSearcher = new AnchorBlosumSearcher(mGeneDatastore, CiderConstants.CANDIDATE_MIN_PARTIAL_ANCHOR_AA_LENGTH);
+        mReads = generateReads(random, Reads);
+    }
+
+    @Benchmark
+    public int exhaustiveSearch()
+    {
+        int matches = 0;
+
+        for(String read : mReads)
+        {
+            if(searchExhaustive(read) != null)
+                ++matches;
+        }
+
+        return matches;
+    }
+
+    @Benchmark
+    public int seedIndexSearch()
+    {
+        int matches = 0;
+
+        for(String read : mReads)
+        {
+            if(mSearcher.searchForAnchor(read, SearchMode) != null)
+                ++matches;
+        }
+
+        return matches;
+    }
+
+    // reads of the IG/TCR loci, most without an anchor, and the rest with a mutated anchor of any gene type which may run off
+    // either end of the read
+    private List<String> generateReads(final Random random, int count)
+    {
+        List<String> anchorSeqs = Lists.newArrayList();
+
+        for(VJGeneType geneType : VJGeneType.values())
+        {
+            anchorSeqs.addAll(mGeneDatastore.getAnchorSequenceSet(geneType));
+        }
+
+        int readLength = SyntheticData.READ_LENGTH;
+        List<String> reads = Lists.newArrayListWithExpectedSize(count);
+
+        for(int r = 0; r < count; ++r)
+        {
+            StringBuilder read = new StringBuilder(readLength);
+
+            for(int i = 0; i < readLength; ++i)
+            {
+                read.append(BASES.charAt(random.nextInt(BASES.length())));
+            }
+
+            if(random.nextInt(3) == 0)
+            {
+                String anchorSeq = anchorSeqs.get(random.nextInt(anchorSeqs.size()));
+                int anchorPos = random.nextInt(readLength + anchorSeq.length()) - anchorSeq.length();
+
+                for(int i = 0; i < anchorSeq.length(); ++i)
+                {
+                    if(anchorPos + i >= 0 && anchorPos + i < readLength)
+                    {
+                        char base = random.nextInt(20) == 0 ? BASES.charAt(random.nextInt(BASES.length())) : anchorSeq.charAt(i);
+                        read.setCharAt(anchorPos + i, base);
+                    }
+                }
+            }
+
+            // unknown bases are scored separately
+            if(random.nextInt(10) == 0)
+                read.setCharAt(random.nextInt(readLength), 'N');
+
+            reads.add(read.toString());
+        }
+
+        return reads;
+    }
+
+    // the previous search, scoring every template anchor at every offset of the read
+    private AnchorBlosumMatch searchExhaustive(final String read)
+    {
+        AnchorBlosumMatch bestMatch = null;
+
+        for(VJGeneType geneType : Arrays.asList(VJGeneType.values()))
+        {
+            for(int i = 0; i < read.length(); ++i)
+            {
+                for(String templateAnchorSeq : mGeneDatastore.getAnchorSequenceSet(geneType))
+                {
+                    int anchorPos = geneType.getVj() == VJ.V ? i - templateAnchorSeq.length() + 1 : i;
+
+                    AnchorBlosumMatch match = tryMatchWithBlosum(geneType, read, anchorPos, templateAnchorSeq);
+
+                    if(match != null && (bestMatch == null || match.getSimilarityScore() > bestMatch.getSimilarityScore()))
+                        bestMatch = match;
+                }
+            }
+        }
+
+        return bestMatch;
+    }
+
+    private AnchorBlosumMatch tryMatchWithBlosum(final VJGeneType geneType, final String read, int anchorPos, final String templateAnchorSeq)
+    {
+        int anchorStart = anchorPos;
+        int anchorEnd = anchorPos + templateAnchorSeq.length();
+        String trimmedTemplateAnchorSeq = templateAnchorSeq;
+
+        if(anchorStart < 0)
+        {
+            if(geneType.getVj() == VJ.J)
+                return null;
+
+            int leftTrim = roundUpToMultipleOf3(-anchorStart);
+            anchorStart += leftTrim;
+            trimmedTemplateAnchorSeq = trimmedTemplateAnchorSeq.substring(leftTrim);
+        }
+
+        if(anchorEnd >= read.length())
+        {
+            if(geneType.getVj() == VJ.V)
+                return null;
+
+            int rightTrim = roundUpToMultipleOf3(anchorEnd - read.length());
+            anchorEnd -= rightTrim;
+            trimmedTemplateAnchorSeq = trimmedTemplateAnchorSeq.substring(0, Math.max(trimmedTemplateAnchorSeq.length() - rightTrim, 0));
+        }
+
+        String potentialAnchor = read.substring(anchorStart, anchorEnd);
+
+        if(trimmedTemplateAnchorSeq.length() < templateAnchorSeq.length() && potentialAnchor.length() < MIN_PARTIAL_ANCHOR_BASE_LENGTH)
+            return null;
+
+        int score = BlosumSimilarityCalc.INSTANCE.calcSimilarityScore(geneType.getVj(), trimmedTemplateAnchorSeq, potentialAnchor);
+
+        if(score < 0 && SearchMode != IAnchorBlosumSearcher.Mode.ALLOW_NEG_SIMILARITY)
+            return null;
+
+        return new AnchorBlosumMatch(
+                anchorStart, anchorEnd, templateAnchorSeq, mGeneDatastore.getByAnchorSequence(geneType, templateAnchorSeq), score);
+    }
+
+    private static int roundUpToMultipleOf3(int value)
+    {
+        return (value + 2) / 3 * 3;
+    }
+}
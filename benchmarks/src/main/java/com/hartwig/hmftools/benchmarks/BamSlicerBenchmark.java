@@ -0,0 +1,113 @@
+package com.hartwig.hmftools.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.hartwig.hmftools.common.region.ChrBaseRegion;
+import com.hartwig.hmftools.common.samtools.BamSlicer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
+import htsjdk.samtools.ValidationStringency;
+
+// slices a synthetic indexed BAM through the BamSlicer's query and read filters
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BamSlicerBenchmark
+{
+    @Param({"50000"})
+    public int ReadsPerContig;
+
+    private static final int CONTIG_COUNT = 2;
+    private static final int CONTIG_LENGTH = 5_000_000;
+
+    private Path mTempDir;
+    private SamReader mSamReader;
+    private BamSlicer mFilteringSlicer;
+    private BamSlicer mKeepAllSlicer;
+    private List<ChrBaseRegion> mWholeContigs;
+    private List<ChrBaseRegion> mSmallRegions;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException
+    {
+        mTempDir = SyntheticData.createTempDir();
+
+        Map<String,Integer> contigLengths = Maps.newLinkedHashMap();
+
+        for(int c = 1; c <= CONTIG_COUNT; ++c)
+        {
+            contigLengths.put(String.valueOf(c), CONTIG_LENGTH);
+        }
+
+        SAMFileHeader header = SyntheticData.createBamHeader(contigLengths);
+        String bamFile = SyntheticData.writeBam(mTempDir, header, SyntheticData.generateReads(new Random(0), header, ReadsPerContig));
+
+        mSamReader = SamReaderFactory.makeDefault().validationStringency(ValidationStringency.SILENT).open(new File(bamFile));
+
+        mFilteringSlicer = new BamSlicer(10, false, false, false);
+        mKeepAllSlicer = new BamSlicer(0, true, true, true);
+
+        mWholeContigs = List.of(new ChrBaseRegion("1", 1, CONTIG_LENGTH), new ChrBaseRegion("2", 1, CONTIG_LENGTH));
+
+        // 1kb regions typical of panel targets
+        mSmallRegions = Lists.newArrayList();
+
+        for(int start = 1; start < CONTIG_LENGTH; start += 50_000)
+        {
+            mSmallRegions.add(new ChrBaseRegion("1", start, start + 999));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException
+    {
+        mSamReader.close();
+        SyntheticData.deleteDir(mTempDir);
+    }
+
+    @Benchmark
+    public void sliceWholeContigsFiltered(final Blackhole blackhole)
+    {
+        mFilteringSlicer.slice(mSamReader, mWholeContigs, blackhole::consume);
+    }
+
+    @Benchmark
+    public void sliceWholeContigsUnfiltered(final Blackhole blackhole)
+    {
+        mKeepAllSlicer.slice(mSamReader, mWholeContigs, blackhole::consume);
+    }
+
+    @Benchmark
+    public void sliceSmallRegions(final Blackhole blackhole)
+    {
+        mFilteringSlicer.slice(mSamReader, mSmallRegions, blackhole::consume);
+    }
+}
@@ -0,0 +1,259 @@
+package com.hartwig.hmftools.benchmarks;
+
+import static java.lang.String.format;
+
+import static com.hartwig.hmftools.neo.bind.BindConstants.AMINO_ACIDS;
+import static com.hartwig.hmftools.neo.bind.BindConstants.AMINO_ACID_COUNT;
+import static com.hartwig.hmftools.neo.bind.BindConstants.AMINO_ACID_INDICES;
+import static com.hartwig.hmftools.neo.bind.BindConstants.encodeAminoAcids;
+import static com.hartwig.hmftools.neo.bind.RandomDistributionTask.generateDistribution;
+import static com.hartwig.hmftools.neo.bind.RandomDistributionTask.generateDistributionBuckets;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.utils.Doubles;
+import com.hartwig.hmftools.common.utils.VectorUtils;
+import com.hartwig.hmftools.neo.bind.BindScoreMatrix;
+import com.hartwig.hmftools.neo.bind.ScoreDistribution;
+import com.hartwig.hmftools.neo.bind.ScoreDistributionData;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// scores and ranks neoepitope peptides against each of a sample's alleles in Neo, comparing the previous character lookups and
+// linear distribution walks with encoded peptides and binary searches, and building a random peptide score distribution by
+// sorted insertion versus a single sort
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BindScorerBenchmark
+{
+    @Param({"50000"})
+    public int Peptides;
+
+    @Param({"6"})
+    public int Alleles;
+
+    @Param({"20000", "100000"})
+    public int RandomPeptides;
+
+    private static final int PEPTIDE_LENGTH = 9;
+
+    private BindScoreMatrix[] mMatrices;
+    private List<List<ScoreDistributionData>> mDistributionLists;
+    private ScoreDistribution[] mDistributions;
+    private List<String> mPeptides;
+    private double[] mRandomScores;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        Random random = new Random(0);
+
+        mMatrices = new BindScoreMatrix[Alleles];
+        mDistributionLists = Lists.newArrayList();
+        mDistributions = new ScoreDistribution[Alleles];
+
+        List<String> randomPeptides = generatePeptides(random, RandomPeptides);
+
+        for(int a = 0; a < Alleles; ++a)
+        {
+            BindScoreMatrix matrix = new BindScoreMatrix(format("A%04d", a), PEPTIDE_LENGTH);
+
+            for(double[] aaWeights : matrix.getBindScores())
+            {
+                for(int pos = 0; pos < PEPTIDE_LENGTH; ++pos)
+                {
+                    aaWeights[pos] = random.nextGaussian();
+                }
+            }
+
+            mMatrices[a] = matrix;
+
+            double[] randomScores = randomPeptides.stream().mapToDouble(matrix::calcScore).toArray();
+
+            if(a == 0)
+                mRandomScores = randomScores;
+
+            List<ScoreDistributionData> distribution = generateDistribution(
+                    matrix.Allele, PEPTIDE_LENGTH, sortDescending(randomScores), generateDistributionBuckets());
+
+            mDistributionLists.add(distribution);
+            mDistributions[a] = new ScoreDistribution(distribution);
+        }
+
+        mPeptides = generatePeptides(random, Peptides);
+    }
+
+    @Benchmark
+    public double scoreByCharLinearRank()
+    {
+        double total = 0;
+
+        for(String peptide : mPeptides)
+        {
+            for(int a = 0; a < Alleles; ++a)
+            {
+                double score = calcScoreByChar(mMatrices[a], peptide);
+                total += getRankLinear(mDistributionLists.get(a), score);
+            }
+        }
+
+        return total;
+    }
+
+    @Benchmark
+    public double scoreEncodedBinarySearchRank()
+    {
+        double total = 0;
+
+        for(String peptide : mPeptides)
+        {
+            byte[] aminoAcids = encodeAminoAcids(peptide);
+
+            for(int a = 0; a < Alleles; ++a)
+            {
+                double score = mMatrices[a].calcScore(aminoAcids);
+                total += mDistributions[a].getRank(score);
+            }
+        }
+
+        return total;
+    }
+
+    @Benchmark
+    public List<Double> distributionSortedInsert()
+    {
+        List<Double> scores = Lists.newArrayListWithExpectedSize(mRandomScores.length);
+
+        for(double score : mRandomScores)
+        {
+            VectorUtils.optimisedAdd(scores, score, false);
+        }
+
+        return scores;
+    }
+
+    @Benchmark
+    public List<Double> distributionSort()
+    {
+        return sortDescending(mRandomScores);
+    }
+
+    private static List<Double> sortDescending(final double[] scores)
+    {
+        double[] sortedScores = scores.clone();
+        Arrays.sort(sortedScores);
+
+        List<Double> sortedList = Lists.newArrayListWithExpectedSize(sortedScores.length);
+
+        for(int i = sortedScores.length - 1; i >= 0; --i)
+        {
+            sortedList.add(sortedScores[i]);
+        }
+
+        return sortedList;
+    }
+
+    private static List<String> generatePeptides(final Random random, int count)
+    {
+        List<String> peptides = Lists.newArrayListWithExpectedSize(count);
+        char[] aminoAcids = new char[PEPTIDE_LENGTH];
+
+        for(int i = 0; i < count; ++i)
+        {
+            for(int pos = 0; pos < PEPTIDE_LENGTH; ++pos)
+            {
+                aminoAcids[pos] = AMINO_ACIDS.get(random.nextInt(AMINO_ACID_COUNT));
+            }
+
+            peptides.add(new String(aminoAcids));
+        }
+
+        return peptides;
+    }
+
+    // the previous scoring by character
+    private static double calcScoreByChar(final BindScoreMatrix matrix, final String peptide)
+    {
+        double[][] posWeights = matrix.getBindScores();
+        double score = 0;
+
+        for(int i = 0; i < peptide.length(); ++i)
+        {
+            Integer aaIndex = AMINO_ACID_INDICES.get(peptide.charAt(i));
+
+            if(aaIndex == null)
+                return -1000;
+
+            score += posWeights[aaIndex][i];
+        }
+
+        return score;
+    }
+
+    // the previous rank lookup walking the distribution
+    private static double getRankLinear(final List<ScoreDistributionData> distribution, double score)
+    {
+        boolean isAscending = distribution.get(0).Score < distribution.get(1).Score;
+
+        if((isAscending && score < distribution.get(0).Score) || (!isAscending && score > distribution.get(0).Score))
+            return 0;
+
+        int distSize = distribution.size();
+        if((isAscending && score > distribution.get(distSize - 1).Score) || (!isAscending && score < distribution.get(distSize - 1).Score))
+            return 1;
+
+        for(int i = 0; i < distribution.size(); ++i)
+        {
+            ScoreDistributionData scoreData = distribution.get(i);
+
+            if(Doubles.equal(score, scoreData.Score))
+                return scoreData.ScoreBucket;
+
+            ScoreDistributionData nextScoreData = i < distribution.size() - 1 ? distribution.get(i + 1) : null;
+
+            if(nextScoreData != null && Doubles.equal(score, nextScoreData.Score))
+                return nextScoreData.ScoreBucket;
+
+            if((isAscending && score > scoreData.Score) || (!isAscending && score < scoreData.Score))
+            {
+                if(nextScoreData == null)
+                    break;
+
+                if((isAscending && score < nextScoreData.Score) || (!isAscending && score > nextScoreData.Score))
+                {
+                    if(isAscending)
+                    {
+                        double upperPerc = (score - scoreData.Score) / (nextScoreData.Score - scoreData.Score);
+                        return upperPerc * nextScoreData.ScoreBucket + (1 - upperPerc) * scoreData.ScoreBucket;
+                    }
+                    else
+                    {
+                        double upperPerc = (score - nextScoreData.Score) / (scoreData.Score - nextScoreData.Score);
+                        return upperPerc * scoreData.ScoreBucket + (1 - upperPerc) * nextScoreData.ScoreBucket;
+                    }
+                }
+            }
+        }
+
+        return 1;
+    }
+}
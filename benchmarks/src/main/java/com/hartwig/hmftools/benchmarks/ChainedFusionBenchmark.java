@@ -0,0 +1,233 @@
+package com.hartwig.hmftools.benchmarks;
+
+import static java.lang.String.format;
+
+import static com.hartwig.hmftools.common.fusion.FusionCommon.NEG_STRAND;
+import static com.hartwig.hmftools.common.fusion.FusionCommon.POS_STRAND;
+import static com.hartwig.hmftools.common.gene.TranscriptProteinData.BIOTYPE_PROTEIN_CODING;
+import static com.hartwig.hmftools.common.purple.Gender.MALE;
+import static com.hartwig.hmftools.common.sv.StructuralVariantFactory.PASS;
+import static com.hartwig.hmftools.common.sv.StructuralVariantType.DEL;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.addGeneData;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.addTransExonData;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.createEnsemblGeneData;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.createGeneDataCache;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.createTransExons;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.generateExonStarts;
+import static com.hartwig.hmftools.linx.analysis.ClusteringPrep.linkSglMappedInferreds;
+import static com.hartwig.hmftools.linx.analysis.ClusteringPrep.populateChromosomeBreakendMap;
+import static com.hartwig.hmftools.linx.analysis.SvUtilities.getChromosomalArm;
+import static com.hartwig.hmftools.linx.fusion.FusionConstants.PRE_GENE_PROMOTOR_DISTANCE;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.hartwig.hmftools.common.ensemblcache.EnsemblDataCache;
+import com.hartwig.hmftools.common.sv.ImmutableStructuralVariantData;
+import com.hartwig.hmftools.common.sv.StructuralVariantData;
+import com.hartwig.hmftools.linx.CohortDataWriter;
+import com.hartwig.hmftools.linx.LinxConfig;
+import com.hartwig.hmftools.linx.analysis.ClusterAnalyser;
+import com.hartwig.hmftools.linx.annotators.LineElementAnnotator;
+import com.hartwig.hmftools.linx.cn.CnDataLoader;
+import com.hartwig.hmftools.linx.cn.CnSegmentBuilder;
+import com.hartwig.hmftools.linx.cn.SvCNData;
+import com.hartwig.hmftools.linx.fusion.FusionConfig;
+import com.hartwig.hmftools.linx.fusion.FusionDisruptionAnalyser;
+import com.hartwig.hmftools.linx.fusion.FusionResources;
+import com.hartwig.hmftools.linx.gene.BreakendGenePrep;
+import com.hartwig.hmftools.linx.types.SvVarData;
+import com.hartwig.hmftools.linx.visualiser.file.VisSampleData;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// runs Linx's fusion search on a single highly rearranged cluster - a long assembled chain of templated insertions where only
+// the breakends at the start of the chain fall in genes, so the chained fusion search dominates
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChainedFusionBenchmark
+{
+    @Param({"250", "500", "1000", "2000"})
+    public int SvCount;
+
+    private static final String SAMPLE_ID = "TEST";
+    private static final String CHROMOSOME = "1";
+    private static final int EXON_LENGTH = 100;
+
+    private List<SvVarData> mVariants;
+    private ClusterAnalyser mAnalyser;
+    private FusionDisruptionAnalyser mFusionAnalyser;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        LinxConfig config = new LinxConfig(false);
+        LinxConfig.addConfig(config.CmdLineConfig);
+        FusionConfig.addConfig(config.CmdLineConfig);
+
+        mVariants = Lists.newArrayList();
+
+        CnDataLoader cnDataLoader = new CnDataLoader("", null);
+        mAnalyser = new ClusterAnalyser(config, null);
+        mAnalyser.setCnDataLoader(cnDataLoader);
+        mAnalyser.setLineAnnotator(new LineElementAnnotator(config.ProximityDistance));
+        mAnalyser.setRunValidationChecks(false);
+
+        EnsemblDataCache geneTransCache = createGeneDataCache();
+        addGenes(geneTransCache);
+
+        VisSampleData visData = new VisSampleData();
+
+        mFusionAnalyser = new FusionDisruptionAnalyser(
+                config, geneTransCache, new FusionResources(config.CmdLineConfig), new CohortDataWriter(config, null), visData);
+
+        // DELs 100 bases long, each assembled to the next 100 bases on
+        SvVarData prevVar = null;
+
+        for(int i = 0; i < SvCount; ++i)
+        {
+            int posStart = 500 + i * 200;
+            SvVarData var = createDel(i, posStart, posStart + 100);
+
+            if(prevVar != null)
+            {
+                String assemblyInfo = format("asmb_%d", i);
+                prevVar.setAssemblyData(false, assemblyInfo);
+                var.setAssemblyData(true, assemblyInfo);
+            }
+
+            mVariants.add(var);
+            prevVar = var;
+        }
+
+        // the clustering preparation as the Linx test harness applies it, with copy number derived from the SVs
+        mAnalyser.getState().reset();
+        linkSglMappedInferreds(mVariants);
+        populateChromosomeBreakendMap(mVariants, mAnalyser.getState());
+
+        CnSegmentBuilder cnSegmentBuilder = new CnSegmentBuilder();
+        cnSegmentBuilder.createCopyNumberData(cnDataLoader, mAnalyser.getState().getChrBreakendMap());
+        cnSegmentBuilder.setSamplePurity(cnDataLoader, 1, 2, MALE);
+        cnDataLoader.createChrCopyNumberMap();
+
+        SvCNData.setSvCopyNumberData(
+                mVariants, cnDataLoader.getSvJcnCalcMap(), cnDataLoader.getSvIdCnDataMap(), cnDataLoader.getChrCnDataMap());
+
+        mAnalyser.setSampleData(SAMPLE_ID, mVariants);
+        mAnalyser.preClusteringPreparation();
+        mAnalyser.clusterAndAnalyse();
+
+        BreakendGenePrep.setSvGeneData(mVariants, geneTransCache, PRE_GENE_PROMOTOR_DISTANCE, Maps.newHashMap());
+        mFusionAnalyser.annotateTranscripts(mVariants, true);
+    }
+
+    @Benchmark
+    public int chainedFusions()
+    {
+        mFusionAnalyser.run(SAMPLE_ID, mVariants, mAnalyser.getClusters(), mAnalyser.getState().getChrBreakendMap());
+        return mFusionAnalyser.getFusions().size();
+    }
+
+    // two upstream genes and a downstream gene at the start of the chain, as in Linx's fusion tests
+    private static void addGenes(final EnsemblDataCache geneTransCache)
+    {
+        addGeneData(geneTransCache, CHROMOSOME, Lists.newArrayList(
+                createEnsemblGeneData("ENSG0001", "GENE1", CHROMOSOME, POS_STRAND, 1000, 2000),
+                createEnsemblGeneData("ENSG0002", "GENE2", CHROMOSOME, POS_STRAND, 10000, 11000),
+                createEnsemblGeneData("ENSG0003", "GENE3", CHROMOSOME, NEG_STRAND, 20000, 21000)));
+
+        addTransExonData(geneTransCache, "ENSG0001", Lists.newArrayList(createTransExons(
+                "ENSG0001", 1, POS_STRAND, generateExonStarts(1000, 7, EXON_LENGTH, 100),
+                EXON_LENGTH, 1250, 2450, true, BIOTYPE_PROTEIN_CODING)));
+
+        addTransExonData(geneTransCache, "ENSG0002", Lists.newArrayList(createTransExons(
+                "ENSG0002", 2, POS_STRAND, generateExonStarts(10000, 5, EXON_LENGTH, 100),
+                EXON_LENGTH, 10250, 10850, true, BIOTYPE_PROTEIN_CODING)));
+
+        addTransExonData(geneTransCache, "ENSG0003", Lists.newArrayList(createTransExons(
+                "ENSG0003", 3, NEG_STRAND, generateExonStarts(20000, 3, EXON_LENGTH, 100),
+                EXON_LENGTH, 20250, 20850, true, BIOTYPE_PROTEIN_CODING)));
+    }
+
+    private static SvVarData createDel(int varId, int posStart, int posEnd)
+    {
+        StructuralVariantData svData = ImmutableStructuralVariantData.builder()
+                .id(varId)
+                .startChromosome(CHROMOSOME)
+                .endChromosome(CHROMOSOME)
+                .startPosition(posStart)
+                .endPosition(posEnd)
+                .startOrientation((byte)1)
+                .endOrientation((byte)-1)
+                .startHomologySequence("")
+                .endHomologySequence("")
+                .startAF(1.0)
+                .endAF(1.0)
+                .junctionCopyNumber(1)
+                .adjustedStartAF(1.0)
+                .adjustedEndAF(1.0)
+                .adjustedStartCopyNumber(2)
+                .adjustedEndCopyNumber(2)
+                .adjustedStartCopyNumberChange(1)
+                .adjustedEndCopyNumberChange(1)
+                .insertSequence("")
+                .type(DEL)
+                .filter(PASS)
+                .imprecise(false)
+                .qualityScore(0.0)
+                .event("")
+                .startTumorVariantFragmentCount(10)
+                .startTumorReferenceFragmentCount(10)
+                .startNormalVariantFragmentCount(10)
+                .startNormalReferenceFragmentCount(10)
+                .endTumorVariantFragmentCount(10)
+                .endTumorReferenceFragmentCount(10)
+                .endNormalVariantFragmentCount(10)
+                .endNormalReferenceFragmentCount(10)
+                .startIntervalOffsetStart(0)
+                .startIntervalOffsetEnd(0)
+                .endIntervalOffsetStart(0)
+                .endIntervalOffsetEnd(0)
+                .inexactHomologyOffsetStart(0)
+                .inexactHomologyOffsetEnd(0)
+                .startLinkedBy("")
+                .endLinkedBy("")
+                .vcfId("")
+                .startRefContext("")
+                .endRefContext("")
+                .recovered(false)
+                .recoveryMethod("")
+                .recoveryFilter("")
+                .insertSequenceAlignments("")
+                .insertSequenceRepeatClass("")
+                .insertSequenceRepeatType("")
+                .insertSequenceRepeatOrientation((byte)0)
+                .insertSequenceRepeatCoverage(0.0)
+                .startAnchoringSupportDistance(0)
+                .endAnchoringSupportDistance(0)
+                .ponCount(0)
+                .build();
+
+        SvVarData var = new SvVarData(svData);
+        var.setChromosomalArms(getChromosomalArm(CHROMOSOME, posStart), getChromosomalArm(CHROMOSOME, posEnd));
+        var.setJcnRecalcData(1, 1);
+        return var;
+    }
+}
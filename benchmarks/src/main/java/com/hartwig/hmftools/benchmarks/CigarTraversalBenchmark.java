@@ -0,0 +1,98 @@
+package com.hartwig.hmftools.benchmarks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.hartwig.hmftools.common.samtools.CigarHandler;
+import com.hartwig.hmftools.common.samtools.CigarTraversal;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import htsjdk.samtools.CigarElement;
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMRecord;
+
+// traverses the CIGARs of in-memory reads with a handler touching each element, as the SAGE and Amber evidence collectors do
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CigarTraversalBenchmark
+{
+    @Param({"100000"})
+    public int ReadCount;
+
+    private List<SAMRecord> mRecords;
+
+    private static class BaseCounter implements CigarHandler
+    {
+        public long AlignedBases;
+        public long SoftClipBases;
+        public long IndelBases;
+
+        @Override
+        public void handleLeftSoftClip(final SAMRecord record, final CigarElement element) { SoftClipBases += element.getLength(); }
+
+        @Override
+        public void handleRightSoftClip(final SAMRecord record, final CigarElement element, int readIndex, int refPosition)
+        {
+            SoftClipBases += element.getLength();
+        }
+
+        @Override
+        public void handleAlignment(final SAMRecord record, final CigarElement element, boolean beforeIndel, int readIndex, int refPosition)
+        {
+            AlignedBases += element.getLength();
+        }
+
+        @Override
+        public void handleInsert(final SAMRecord record, final CigarElement element, int readIndex, int refPosition)
+        {
+            IndelBases += element.getLength();
+        }
+
+        @Override
+        public void handleDelete(final SAMRecord record, final CigarElement element, int readIndex, int refPosition)
+        {
+            IndelBases += element.getLength();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        SAMFileHeader header = SyntheticData.createBamHeader(Map.of("1", 100_000_000));
+        mRecords = SyntheticData.generateReads(new Random(0), header, ReadCount);
+
+        // decode each CIGAR up front so only the traversal is measured
+        mRecords.forEach(SAMRecord::getCigar);
+    }
+
+    @Benchmark
+    public long traverseCigars()
+    {
+        BaseCounter counter = new BaseCounter();
+
+        for(SAMRecord record : mRecords)
+        {
+            CigarTraversal.traverseCigar(record, counter);
+        }
+
+        return counter.AlignedBases + counter.SoftClipBases + counter.IndelBases;
+    }
+}
@@ -0,0 +1,91 @@
+package com.hartwig.hmftools.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.hartwig.hmftools.common.stats.CosineSimilarity;
+import com.hartwig.hmftools.common.stats.CosineSimilarityMatrix;
+import com.hartwig.hmftools.common.utils.Matrix;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// scores sample vectors against a reference set, as in Cuppa's sample comparisons - pairwise calls versus the matrix form
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CosineSimilarityBenchmark
+{
+    @Param({"96", "1000"})
+    public int Cols;
+
+    @Param({"5000"})
+    public int RefRows;
+
+    private static final int SAMPLE_COUNT = 20;
+
+    private Matrix mRefVectors;
+    private Matrix mSampleVectors;
+    private CosineSimilarityMatrix mCssMatrix;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        Random random = new Random(0);
+        mRefVectors = SyntheticData.randomMatrix(random, RefRows, Cols);
+        mSampleVectors = SyntheticData.randomMatrix(random, SAMPLE_COUNT, Cols);
+        mCssMatrix = new CosineSimilarityMatrix(mRefVectors);
+    }
+
+    @Benchmark
+    public double pairwise()
+    {
+        double total = 0;
+
+        for(int s = 0; s < SAMPLE_COUNT; ++s)
+        {
+            double[] sample = mSampleVectors.getRow(s);
+
+            for(int r = 0; r < RefRows; ++r)
+            {
+                total += CosineSimilarity.calcCosineSim(sample, mRefVectors.getRow(r));
+            }
+        }
+
+        return total;
+    }
+
+    @Benchmark
+    public double matrixSingleThread()
+    {
+        double[] results = new double[RefRows];
+        double total = 0;
+
+        for(int s = 0; s < SAMPLE_COUNT; ++s)
+        {
+            mCssMatrix.calcCosineSims(mSampleVectors.getRow(s), results);
+            total += results[0];
+        }
+
+        return total;
+    }
+
+    @Benchmark
+    public Matrix matrixBatch()
+    {
+        return mCssMatrix.calcCosineSims(mSampleVectors, 1);
+    }
+}
@@ -0,0 +1,141 @@
+package com.hartwig.hmftools.benchmarks;
+
+import static com.hartwig.hmftools.benchmarks.SyntheticData.TSV_COL_CHROMOSOME;
+import static com.hartwig.hmftools.benchmarks.SyntheticData.TSV_COL_DEPTH;
+import static com.hartwig.hmftools.benchmarks.SyntheticData.TSV_COL_GC;
+import static com.hartwig.hmftools.benchmarks.SyntheticData.TSV_COL_MAPPABLE;
+import static com.hartwig.hmftools.benchmarks.SyntheticData.TSV_COL_POSITION;
+import static com.hartwig.hmftools.benchmarks.SyntheticData.TSV_COL_RATIO;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.hartwig.hmftools.common.utils.file.DelimFileReader;
+import com.hartwig.hmftools.common.utils.file.FastDelimFileReader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// parses a synthetic depth-ratio TSV, reading every column of each row or just the two most loaders need, with both
+// the String-based DelimFileReader and the byte-tokenizing FastDelimFileReader
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DelimFileReaderBenchmark
+{
+    @Param({"100000"})
+    public int RowsPerChromosome;
+
+    private static final int CHROMOSOME_COUNT = 5;
+
+    private Path mTempDir;
+    private String mTsvFile;
+
+    @Param({"false", "true"})
+    public boolean Gzipped;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException
+    {
+        mTempDir = SyntheticData.createTempDir();
+        mTsvFile = SyntheticData.writeTsv(mTempDir, new Random(0), CHROMOSOME_COUNT, RowsPerChromosome, Gzipped);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException
+    {
+        SyntheticData.deleteDir(mTempDir);
+    }
+
+    @Benchmark
+    public double readAllColumns()
+    {
+        double total = 0;
+
+        try(DelimFileReader reader = new DelimFileReader(mTsvFile))
+        {
+            for(DelimFileReader.Row row : reader)
+            {
+                total += row.get(TSV_COL_CHROMOSOME).length() + row.getInt(TSV_COL_POSITION) + row.getDouble(TSV_COL_RATIO)
+                        + row.getInt(TSV_COL_DEPTH) + row.getDouble(TSV_COL_GC) + (row.getBoolean(TSV_COL_MAPPABLE) ? 1 : 0);
+            }
+        }
+
+        return total;
+    }
+
+    @Benchmark
+    public double readTwoColumns()
+    {
+        double total = 0;
+
+        try(DelimFileReader reader = new DelimFileReader(mTsvFile))
+        {
+            for(DelimFileReader.Row row : reader)
+            {
+                total += row.getInt(TSV_COL_POSITION) + row.getDouble(TSV_COL_RATIO);
+            }
+        }
+
+        return total;
+    }
+
+    @Benchmark
+    public double fastReadAllColumns() throws IOException
+    {
+        double total = 0;
+
+        try(FastDelimFileReader reader = new FastDelimFileReader(mTsvFile))
+        {
+            int chrIndex = reader.column(TSV_COL_CHROMOSOME);
+            int posIndex = reader.column(TSV_COL_POSITION);
+            int ratioIndex = reader.column(TSV_COL_RATIO);
+            int depthIndex = reader.column(TSV_COL_DEPTH);
+            int gcIndex = reader.column(TSV_COL_GC);
+            int mappableIndex = reader.column(TSV_COL_MAPPABLE);
+
+            while(reader.next())
+            {
+                total += reader.getCachedString(chrIndex).length() + reader.getInt(posIndex) + reader.getDouble(ratioIndex)
+                        + reader.getInt(depthIndex) + reader.getDouble(gcIndex) + (reader.getBoolean(mappableIndex) ? 1 : 0);
+            }
+        }
+
+        return total;
+    }
+
+    @Benchmark
+    public double fastReadTwoColumns() throws IOException
+    {
+        double total = 0;
+
+        try(FastDelimFileReader reader = new FastDelimFileReader(mTsvFile))
+        {
+            int posIndex = reader.column(TSV_COL_POSITION);
+            int ratioIndex = reader.column(TSV_COL_RATIO);
+
+            while(reader.next())
+            {
+                total += reader.getInt(posIndex) + reader.getDouble(ratioIndex);
+            }
+        }
+
+        return total;
+    }
+}
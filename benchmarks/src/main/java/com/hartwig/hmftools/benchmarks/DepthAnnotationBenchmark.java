@@ -0,0 +1,168 @@
+package com.hartwig.hmftools.benchmarks;
+
+import static java.lang.String.format;
+
+import static com.hartwig.hmftools.common.sv.StructuralVariantFactory.SV_FRAGMENT_COUNT;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+import com.hartwig.hmftools.svprep.depth.DepthConfig;
+import com.hartwig.hmftools.svprep.depth.DepthTask;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.Genotype;
+import htsjdk.variant.variantcontext.GenotypeBuilder;
+import htsjdk.variant.variantcontext.GenotypesContext;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+
+// annotates SV-prep ref depth for single breakends across an indexed BAM per sample, slicing each sample's BAM in turn for every
+// variant region versus a merged slice of all the BAMs together, to show how the merged slice scales with the number of samples
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DepthAnnotationBenchmark
+{
+    @Param({"1", "2", "4", "8"})
+    public int SampleCount;
+
+    // around 15x coverage per sample
+    @Param({"100000"})
+    public int ReadsPerSample;
+
+    private static final String CHROMOSOME = "1";
+    private static final int CONTIG_LENGTH = 1_000_000;
+    private static final int VARIANT_SPACING = 2500;
+
+    private Path mTempDir;
+    private List<VariantContext> mVariants;
+    private DepthTask mSampleSliceTask;
+    private DepthTask mMergedSliceTask;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException
+    {
+        mTempDir = SyntheticData.createTempDir();
+
+        Random random = new Random(0);
+        String refGenomeFile = SyntheticData.writeFasta(mTempDir, SyntheticData.generateContigs(random, 1, CONTIG_LENGTH));
+
+        SAMFileHeader header = SyntheticData.createBamHeader(Map.of(CHROMOSOME, CONTIG_LENGTH));
+
+        List<String> sampleIds = Lists.newArrayList();
+        List<String> bamFiles = Lists.newArrayList();
+        Map<String,Integer> sampleGenotypeIds = Maps.newHashMap();
+
+        for(int s = 0; s < SampleCount; ++s)
+        {
+            String sampleId = format("SAMPLE_%d", s);
+            sampleIds.add(sampleId);
+            sampleGenotypeIds.put(sampleId, s);
+
+            bamFiles.add(SyntheticData.writeBam(
+                    mTempDir, sampleId + ".bam", header, SyntheticData.generateReads(new Random(s), header, ReadsPerSample)));
+        }
+
+        mVariants = Lists.newArrayList();
+
+        for(int position = VARIANT_SPACING; position < CONTIG_LENGTH - VARIANT_SPACING; position += VARIANT_SPACING)
+        {
+            mVariants.add(createSingleBreakend(random, position, sampleIds));
+        }
+
+        mSampleSliceTask = new DepthTask(CHROMOSOME, createConfig(sampleIds, bamFiles, refGenomeFile, false), sampleGenotypeIds);
+        mMergedSliceTask = new DepthTask(CHROMOSOME, createConfig(sampleIds, bamFiles, refGenomeFile, true), sampleGenotypeIds);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException
+    {
+        mSampleSliceTask.close();
+        mMergedSliceTask.close();
+        SyntheticData.deleteDir(mTempDir);
+    }
+
+    @Benchmark
+    public Long sliceSamplesInTurn()
+    {
+        return annotate(mSampleSliceTask);
+    }
+
+    @Benchmark
+    public Long sliceSamplesMerged()
+    {
+        return annotate(mMergedSliceTask);
+    }
+
+    private Long annotate(final DepthTask depthTask)
+    {
+        depthTask.reset();
+        depthTask.addVariants(mVariants);
+        return depthTask.call();
+    }
+
+    private static DepthConfig createConfig(
+            final List<String> sampleIds, final List<String> bamFiles, final String refGenomeFile, boolean mergedSlice)
+    {
+        ConfigBuilder configBuilder = new ConfigBuilder();
+        DepthConfig.addConfig(configBuilder);
+
+        List<String> args = Lists.newArrayList(
+                "-input_vcf", "input.vcf", "-output_vcf", "output.vcf",
+                "-samples", String.join(",", sampleIds), "-bam_files", String.join(",", bamFiles),
+                "-ref_genome", refGenomeFile);
+
+        if(mergedSlice)
+            args.add("-merged_slice");
+
+        configBuilder.parseCommandLine(args.toArray(new String[0]));
+        return new DepthConfig(configBuilder);
+    }
+
+    private static VariantContext createSingleBreakend(final Random random, int position, final List<String> sampleIds)
+    {
+        List<Genotype> genotypes = Lists.newArrayList();
+
+        for(String sampleId : sampleIds)
+        {
+            Map<String,Object> attributes = Maps.newHashMap();
+            attributes.put(SV_FRAGMENT_COUNT, 2 + random.nextInt(20));
+            genotypes.add(new GenotypeBuilder().name(sampleId).attributes(attributes).make());
+        }
+
+        return new VariantContextBuilder()
+                .source("BENCHMARK")
+                .chr(CHROMOSOME)
+                .start(position)
+                .stop(position)
+                .alleles(List.of(Allele.create("A", true), Allele.create("A.", false)))
+                .genotypes(GenotypesContext.create(genotypes.toArray(new Genotype[0])))
+                .make();
+    }
+}
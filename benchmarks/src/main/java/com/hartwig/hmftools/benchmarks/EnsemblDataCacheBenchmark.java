@@ -0,0 +1,120 @@
+package com.hartwig.hmftools.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.hartwig.hmftools.common.ensemblcache.EnsemblDataCache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// the gene and transcript lookups made per variant or breakend by PAVE, LINX and Isofox, against a synthetic Ensembl cache
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EnsemblDataCacheBenchmark
+{
+    @Param({"2000"})
+    public int GenesPerChromosome;
+
+    private static final int CHROMOSOME_COUNT = 4;
+    private static final int GENE_SPACING = 50_000;
+    private static final int LOOKUP_COUNT = 1000;
+    private static final int UPSTREAM_DISTANCE = 10_000;
+
+    private EnsemblDataCache mLinearCache;
+    private EnsemblDataCache mIndexedCache;
+
+    private String[] mChromosomes;
+    private int[] mPositions;
+    private String[] mGeneNames;
+    private String[] mGeneIds;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        mLinearCache = SyntheticData.createEnsemblDataCache(CHROMOSOME_COUNT, GenesPerChromosome, GENE_SPACING);
+
+        // the same data with the name and ID maps built, as callers do once loading is complete
+        mIndexedCache = SyntheticData.createEnsemblDataCache(CHROMOSOME_COUNT, GenesPerChromosome, GENE_SPACING);
+        mIndexedCache.createGeneNameIdMap();
+        mIndexedCache.createGeneIdDataMap();
+        mIndexedCache.createTranscriptIdMap();
+
+        Random random = new Random(0);
+        mChromosomes = new String[LOOKUP_COUNT];
+        mPositions = new int[LOOKUP_COUNT];
+        mGeneNames = new String[LOOKUP_COUNT];
+        mGeneIds = new String[LOOKUP_COUNT];
+
+        for(int i = 0; i < LOOKUP_COUNT; ++i)
+        {
+            int chromosome = 1 + random.nextInt(CHROMOSOME_COUNT);
+            int geneIndex = random.nextInt(GenesPerChromosome);
+
+            mChromosomes[i] = String.valueOf(chromosome);
+            mPositions[i] = 1 + random.nextInt(GenesPerChromosome * GENE_SPACING);
+            mGeneNames[i] = SyntheticData.geneName(chromosome, geneIndex);
+            mGeneIds[i] = SyntheticData.geneId(chromosome, geneIndex);
+        }
+    }
+
+    @Benchmark
+    public void findGeneRegions(final Blackhole blackhole)
+    {
+        for(int i = 0; i < LOOKUP_COUNT; ++i)
+        {
+            blackhole.consume(mIndexedCache.findGeneRegions(mChromosomes[i], mPositions[i], UPSTREAM_DISTANCE));
+        }
+    }
+
+    @Benchmark
+    public void findGenesByRegion(final Blackhole blackhole)
+    {
+        for(int i = 0; i < LOOKUP_COUNT; ++i)
+        {
+            blackhole.consume(mIndexedCache.findGenesByRegion(mChromosomes[i], mPositions[i], mPositions[i] + GENE_SPACING));
+        }
+    }
+
+    @Benchmark
+    public void geneByNameUnindexed(final Blackhole blackhole)
+    {
+        for(int i = 0; i < LOOKUP_COUNT; ++i)
+        {
+            blackhole.consume(mLinearCache.getGeneDataByName(mGeneNames[i]));
+        }
+    }
+
+    @Benchmark
+    public void geneByNameIndexed(final Blackhole blackhole)
+    {
+        for(int i = 0; i < LOOKUP_COUNT; ++i)
+        {
+            blackhole.consume(mIndexedCache.getGeneDataByName(mGeneNames[i]));
+        }
+    }
+
+    @Benchmark
+    public void canonicalTranscripts(final Blackhole blackhole)
+    {
+        for(int i = 0; i < LOOKUP_COUNT; ++i)
+        {
+            blackhole.consume(mIndexedCache.getCanonicalTranscriptData(mGeneIds[i]));
+        }
+    }
+}
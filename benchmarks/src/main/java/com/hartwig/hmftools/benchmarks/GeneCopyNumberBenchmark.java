@@ -0,0 +1,131 @@
+package com.hartwig.hmftools.benchmarks;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.ensemblcache.EnsemblDataCache;
+import com.hartwig.hmftools.common.genome.refgenome.RefGenomeCoordinates;
+import com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion;
+import com.hartwig.hmftools.common.purple.CopyNumberMethod;
+import com.hartwig.hmftools.common.purple.GeneCopyNumber;
+import com.hartwig.hmftools.common.purple.ImmutablePurpleCopyNumber;
+import com.hartwig.hmftools.common.purple.PurpleCopyNumber;
+import com.hartwig.hmftools.common.purple.SegmentSupport;
+import com.hartwig.hmftools.purple.gene.GeneCopyNumberBuilder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// builds Purple gene copy numbers for every transcript of a synthetic genome-wide Ensembl cache, comparing a canonical-only
+// cache to one with the several transcripts per gene of the full Ensembl set, run sequentially and with a task per chromosome
+// the synthetic cache has a fixed transcripts per gene and evenly spaced genes - set EnsemblDataDir to a V37 Ensembl data cache
+// directory to run on the real gene set instead, where 1 transcript per gene loads only canonical transcripts and any other
+// value loads all of them
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeneCopyNumberBenchmark
+{
+    @Param({"1", "8"})
+    public int TranscriptsPerGene;
+
+    // a highly segmented tumor has several thousand copy number regions across the genome
+    @Param({"200"})
+    public int RegionsPerChromosome;
+
+    // empty to use the synthetic cache
+    @Param({""})
+    public String EnsemblDataDir;
+
+    private static final int CHROMOSOME_COUNT = 22;
+    private static final int GENES_PER_CHROMOSOME = 900;
+    private static final int GENE_SPACING = 100_000;
+    private static final int PARALLEL_THREADS = 4;
+
+    private EnsemblDataCache mEnsemblDataCache;
+    private List<PurpleCopyNumber> mCopyNumbers;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        boolean useEnsemblData = !EnsemblDataDir.isEmpty();
+
+        if(useEnsemblData)
+        {
+            mEnsemblDataCache = new EnsemblDataCache(EnsemblDataDir, RefGenomeVersion.V37);
+            mEnsemblDataCache.setRequiredData(true, false, false, TranscriptsPerGene == 1);
+
+            if(!mEnsemblDataCache.load(false))
+                throw new IllegalStateException("failed to load Ensembl data cache from " + EnsemblDataDir);
+        }
+        else
+        {
+            mEnsemblDataCache = SyntheticData.createEnsemblDataCache(
+                    CHROMOSOME_COUNT, GENES_PER_CHROMOSOME, GENE_SPACING, TranscriptsPerGene);
+        }
+
+        Random random = new Random(0);
+        mCopyNumbers = Lists.newArrayList();
+
+        for(int c = 1; c <= CHROMOSOME_COUNT; ++c)
+        {
+            // regions cover the real chromosome lengths when the genes are real
+            int chromosomeLength = useEnsemblData ?
+                    RefGenomeCoordinates.COORDS_37.length(String.valueOf(c)) : GENES_PER_CHROMOSOME * GENE_SPACING;
+
+            int averageRegionLength = chromosomeLength / RegionsPerChromosome;
+            int start = 1;
+
+            while(start < chromosomeLength)
+            {
+                int end = Math.min(chromosomeLength, start + averageRegionLength / 2 + random.nextInt(averageRegionLength));
+
+                mCopyNumbers.add(ImmutablePurpleCopyNumber.builder()
+                        .chromosome(String.valueOf(c))
+                        .start(start)
+                        .end(end)
+                        .averageTumorCopyNumber(1 + random.nextInt(4))
+                        .segmentStartSupport(SegmentSupport.NONE)
+                        .segmentEndSupport(SegmentSupport.NONE)
+                        .method(CopyNumberMethod.BAF_WEIGHTED)
+                        .bafCount(10)
+                        .depthWindowCount(1 + random.nextInt(100))
+                        .gcContent(0.45)
+                        .minStart(start)
+                        .maxStart(start)
+                        .averageObservedBAF(0.5)
+                        .averageActualBAF(0.5 + random.nextDouble() * 0.5)
+                        .build());
+
+                start = end + 1;
+            }
+        }
+    }
+
+    @Benchmark
+    public List<GeneCopyNumber> sequential()
+    {
+        return GeneCopyNumberBuilder.createGeneCopyNumbers(RefGenomeVersion.V37, mEnsemblDataCache, mCopyNumbers, 1);
+    }
+
+    @Benchmark
+    public List<GeneCopyNumber> parallel()
+    {
+        return GeneCopyNumberBuilder.createGeneCopyNumbers(RefGenomeVersion.V37, mEnsemblDataCache, mCopyNumbers, PARALLEL_THREADS);
+    }
+}
@@ -0,0 +1,133 @@
+package com.hartwig.hmftools.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.hartwig.hmftools.common.utils.FlatMatrix;
+import com.hartwig.hmftools.common.utils.FlatMatrixUtils;
+import com.hartwig.hmftools.common.utils.Matrix;
+import com.hartwig.hmftools.common.utils.MatrixUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// multiplies matrices shaped like the signature fits in Sigs and Cuppa - bucket counts by signatures by samples, both singly and
+// as the three products of each NMF update iteration (W.H, Wt.V and V.Ht)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MatrixBenchmark
+{
+    @Param({"96"})
+    public int Buckets;
+
+    @Param({"30"})
+    public int Signatures;
+
+    @Param({"5000"})
+    public int Samples;
+
+    private static final int THREADS = 4;
+
+    private Matrix mSignatures;
+    private Matrix mContributions;
+    private Matrix mCounts;
+
+    private FlatMatrix mFlatSignatures;
+    private FlatMatrix mFlatContributions;
+    private FlatMatrix mFlatCounts;
+    private FlatMatrix mFlatResult;
+    private FlatMatrix mFlatContributionsAdj;
+    private FlatMatrix mFlatSignaturesAdj;
+
+    private ExecutorService mExecutorService;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        Random random = new Random(0);
+        mSignatures = SyntheticData.randomMatrix(random, Buckets, Signatures);
+        mContributions = SyntheticData.randomMatrix(random, Signatures, Samples);
+        mCounts = SyntheticData.randomMatrix(random, Buckets, Samples);
+
+        mFlatSignatures = new FlatMatrix(mSignatures);
+        mFlatContributions = new FlatMatrix(mContributions);
+        mFlatCounts = new FlatMatrix(mCounts);
+        mFlatResult = new FlatMatrix(Buckets, Samples);
+        mFlatContributionsAdj = new FlatMatrix(Signatures, Samples);
+        mFlatSignaturesAdj = new FlatMatrix(Buckets, Signatures);
+
+        mExecutorService = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+        mExecutorService.shutdown();
+    }
+
+    @Benchmark
+    public Matrix multiply()
+    {
+        return MatrixUtils.multiply(mSignatures, mContributions);
+    }
+
+    @Benchmark
+    public FlatMatrix multiplyFlat()
+    {
+        FlatMatrixUtils.multiply(mFlatSignatures, mFlatContributions, mFlatResult, null);
+        return mFlatResult;
+    }
+
+    @Benchmark
+    public FlatMatrix multiplyFlatParallel()
+    {
+        FlatMatrixUtils.multiply(mFlatSignatures, mFlatContributions, mFlatResult, mExecutorService);
+        return mFlatResult;
+    }
+
+    @Benchmark
+    public double nmfUpdate()
+    {
+        Matrix fit = MatrixUtils.multiply(mSignatures, mContributions);
+        Matrix contributionsAdj = MatrixUtils.multiply(mSignatures.transpose(), mCounts);
+        Matrix signaturesAdj = MatrixUtils.multiply(mCounts, mContributions.transpose());
+        return fit.get(0, 0) + contributionsAdj.get(0, 0) + signaturesAdj.get(0, 0);
+    }
+
+    @Benchmark
+    public double nmfUpdateFlat()
+    {
+        return nmfUpdateFlat(null);
+    }
+
+    @Benchmark
+    public double nmfUpdateFlatParallel()
+    {
+        return nmfUpdateFlat(mExecutorService);
+    }
+
+    private double nmfUpdateFlat(final ExecutorService executorService)
+    {
+        FlatMatrixUtils.multiply(mFlatSignatures, mFlatContributions, mFlatResult, executorService);
+        FlatMatrixUtils.multiplyTransposeA(mFlatSignatures, mFlatCounts, mFlatContributionsAdj, executorService);
+        FlatMatrixUtils.multiplyTransposeB(mFlatCounts, mFlatContributions, mFlatSignaturesAdj, executorService);
+        return mFlatResult.get(0, 0) + mFlatContributionsAdj.get(0, 0) + mFlatSignaturesAdj.get(0, 0);
+    }
+}
@@ -0,0 +1,272 @@
+package com.hartwig.hmftools.benchmarks;
+
+import static com.hartwig.hmftools.neo.bind.BindCommon.AMINO_ACID_21ST;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.hartwig.hmftools.common.aminoacid.BlosumMapping;
+import com.hartwig.hmftools.common.gene.TranscriptAminoAcids;
+import com.hartwig.hmftools.neo.utils.ProteomePeptideIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// searches a synthetic proteome with isoforms for neoepitope-like peptides in Neo, comparing the previous scan of each transcript
+// with ProteomePeptideIndex for both exact lookups and nearest peptide searches, plus the cost of building the index
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProteomePeptideIndexBenchmark
+{
+    @Param({"10000"})
+    public int Genes;
+
+    @Param({"2000"})
+    public int ExactPeptides;
+
+    @Param({"20"})
+    public int NearestPeptides;
+
+    private static final String AMINO_ACIDS = "ACDEFGHIKLMNPQRSTVWY";
+    private static final int MEAN_PROTEIN_LENGTH = 500;
+
+    private List<TranscriptAminoAcids> mTranscripts;
+    private ProteomePeptideIndex mIndex;
+    private BlosumMapping mBlosumMapping;
+    private List<String> mExactPeptides;
+    private List<String> mNearestPeptides;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        Random random = new Random(0);
+
+        mTranscripts = generateProteome(random, Genes, MEAN_PROTEIN_LENGTH);
+        mIndex = new ProteomePeptideIndex(mTranscripts);
+        mBlosumMapping = new BlosumMapping();
+        mExactPeptides = generatePeptides(random, mTranscripts, ExactPeptides);
+        mNearestPeptides = generatePeptides(random, mTranscripts, NearestPeptides);
+    }
+
+    @Benchmark
+    public ProteomePeptideIndex indexBuild()
+    {
+        return new ProteomePeptideIndex(mTranscripts);
+    }
+
+    @Benchmark
+    public int exactScan()
+    {
+        int matches = 0;
+
+        for(String peptide : mExactPeptides)
+        {
+            matches += scanTranscripts(mTranscripts, peptide);
+        }
+
+        return matches;
+    }
+
+    @Benchmark
+    public int exactIndex()
+    {
+        int matches = 0;
+
+        for(String peptide : mExactPeptides)
+        {
+            matches += mIndex.findTranscriptMatches(peptide).size();
+        }
+
+        return matches;
+    }
+
+    @Benchmark
+    public double nearestScan()
+    {
+        double total = 0;
+
+        for(String peptide : mNearestPeptides)
+        {
+            total += scanNearest(mTranscripts, peptide, mBlosumMapping);
+        }
+
+        return total;
+    }
+
+    @Benchmark
+    public double nearestIndex()
+    {
+        double total = 0;
+
+        for(String peptide : mNearestPeptides)
+        {
+            total += mIndex.findNearestPeptide(peptide, mBlosumMapping).Similarity;
+        }
+
+        return total;
+    }
+
+    // random proteins, each with a few isoforms sharing most of their sequence, and an occasional 21st amino acid
+    private static List<TranscriptAminoAcids> generateProteome(final Random random, int geneCount, int meanLength)
+    {
+        List<TranscriptAminoAcids> transcripts = Lists.newArrayList();
+
+        for(int g = 0; g < geneCount; ++g)
+        {
+            StringBuilder protein = new StringBuilder();
+            int length = meanLength / 2 + random.nextInt(meanLength);
+
+            for(int i = 0; i < length; ++i)
+            {
+                protein.append(random.nextInt(200) == 0 ? AMINO_ACID_21ST.charAt(0) : AMINO_ACIDS.charAt(random.nextInt(AMINO_ACIDS.length())));
+            }
+
+            String geneName = "GENE" + g;
+            int isoformCount = 1 + random.nextInt(3);
+
+            for(int t = 0; t < isoformCount; ++t)
+            {
+                String aminoAcids = protein.toString();
+
+                if(t > 0)
+                {
+                    int start = random.nextInt(length / 4);
+                    int end = length - random.nextInt(length / 4);
+                    aminoAcids = aminoAcids.substring(start, end);
+                }
+
+                transcripts.add(new TranscriptAminoAcids("ENSG" + g, geneName, geneName + "_T" + t, t == 0, aminoAcids));
+            }
+        }
+
+        return transcripts;
+    }
+
+    // peptides of 8-11 amino acids: proteome peptides with a point mutation, unchanged ones and random ones
+    private static List<String> generatePeptides(final Random random, final List<TranscriptAminoAcids> transcripts, int count)
+    {
+        List<String> peptides = Lists.newArrayList();
+
+        while(peptides.size() < count)
+        {
+            int length = 8 + random.nextInt(4);
+            String aminoAcids = transcripts.get(random.nextInt(transcripts.size())).AminoAcids;
+
+            if(aminoAcids.length() <= length)
+                continue;
+
+            int start = random.nextInt(aminoAcids.length() - length);
+            StringBuilder peptide = new StringBuilder(aminoAcids.substring(start, start + length));
+
+            int type = random.nextInt(4);
+
+            if(type <= 1)
+            {
+                peptide.setCharAt(random.nextInt(length), AMINO_ACIDS.charAt(random.nextInt(AMINO_ACIDS.length())));
+            }
+            else if(type == 2)
+            {
+                for(int i = 0; i < length; ++i)
+                {
+                    peptide.setCharAt(i, AMINO_ACIDS.charAt(random.nextInt(AMINO_ACIDS.length())));
+                }
+            }
+
+            if(peptide.indexOf(AMINO_ACID_21ST) < 0)
+                peptides.add(peptide.toString());
+        }
+
+        return peptides;
+    }
+
+    // the previous exact search, scanning each transcript in turn
+    private static int scanTranscripts(final List<TranscriptAminoAcids> transcripts, final String peptide)
+    {
+        int matches = 0;
+
+        for(TranscriptAminoAcids transAminoAcids : transcripts)
+        {
+            if(transAminoAcids.AminoAcids.indexOf(peptide) >= 0)
+                ++matches;
+        }
+
+        return matches;
+    }
+
+    // the previous nearest peptide search, scoring every window of each transcript with an early exit
+    private static double scanNearest(final List<TranscriptAminoAcids> transcripts, final String peptide, final BlosumMapping blosumMapping)
+    {
+        double topSimiliarity = 0;
+        boolean hasTop = false;
+
+        int peptideLength = peptide.length();
+        Set<String> uniquePeptides = Sets.newHashSet();
+        String lastGeneId = "";
+
+        for(TranscriptAminoAcids transAminoAcids : transcripts)
+        {
+            if(!transAminoAcids.GeneId.equals(lastGeneId))
+            {
+                uniquePeptides.clear();
+                lastGeneId = transAminoAcids.GeneId;
+            }
+
+            final String aminoAcids = transAminoAcids.AminoAcids;
+            int aaLength = aminoAcids.length();
+
+            for(int startIndex = 0; startIndex < aaLength - peptideLength; ++startIndex)
+            {
+                String aaPeptide = aminoAcids.substring(startIndex, startIndex + peptideLength);
+
+                if(!uniquePeptides.add(aaPeptide))
+                    continue;
+
+                if(aaPeptide.contains(AMINO_ACID_21ST))
+                    continue;
+
+                double similarity = 0;
+                boolean skip = false;
+
+                for(int i = 0; i < peptideLength; ++i)
+                {
+                    char aa1 = peptide.charAt(i);
+                    char aa2 = aaPeptide.charAt(i);
+
+                    similarity += (blosumMapping.selfMapping(aa1) + blosumMapping.selfMapping(aa2)) * 0.5 - blosumMapping.map(aa1, aa2);
+
+                    if(hasTop && similarity >= topSimiliarity)
+                    {
+                        skip = true;
+                        break;
+                    }
+                }
+
+                if(skip)
+                    continue;
+
+                topSimiliarity = similarity;
+                hasTop = true;
+            }
+        }
+
+        return topSimiliarity;
+    }
+}
@@ -0,0 +1,136 @@
+package com.hartwig.hmftools.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.hartwig.hmftools.common.region.ChrBaseRegion;
+import com.hartwig.hmftools.common.samtools.BamSlicer;
+import com.hartwig.hmftools.common.samtools.RawBamReader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
+import htsjdk.samtools.ValidationStringency;
+
+// slices a synthetic indexed BAM with a duplicate and low mapping quality filtering BamSlicer, decoding every record through a
+// SamReader versus prefiltering raw records with RawBamReader, at the duplicate rates of typical and heavily duplicated libraries
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RawBamSlicerBenchmark
+{
+    @Param({"10", "50"})
+    public int DuplicatePercent;
+
+    @Param({"200000"})
+    public int ReadsPerContig;
+
+    private static final int CONTIG_COUNT = 2;
+    private static final int CONTIG_LENGTH = 5_000_000;
+
+    private Path mTempDir;
+    private SamReader mSamReader;
+    private RawBamReader mRawBamReader;
+    private BamSlicer mBamSlicer;
+    private List<ChrBaseRegion> mWholeContigs;
+    private List<ChrBaseRegion> mSmallRegions;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException
+    {
+        mTempDir = SyntheticData.createTempDir();
+
+        Map<String,Integer> contigLengths = Maps.newLinkedHashMap();
+
+        for(int c = 1; c <= CONTIG_COUNT; ++c)
+        {
+            contigLengths.put(String.valueOf(c), CONTIG_LENGTH);
+        }
+
+        SAMFileHeader header = SyntheticData.createBamHeader(contigLengths);
+
+        Random random = new Random(0);
+        List<SAMRecord> records = SyntheticData.generateReads(random, header, ReadsPerContig);
+
+        // top up the generated reads' duplicates to the required rate
+        for(SAMRecord record : records)
+        {
+            if(random.nextInt(100) < DuplicatePercent)
+                record.setDuplicateReadFlag(true);
+        }
+
+        String bamFile = SyntheticData.writeBam(mTempDir, header, records);
+
+        mSamReader = SamReaderFactory.makeDefault().validationStringency(ValidationStringency.SILENT).open(new File(bamFile));
+        mRawBamReader = RawBamReader.open(bamFile);
+
+        mBamSlicer = new BamSlicer(10, false, false, false);
+
+        mWholeContigs = List.of(new ChrBaseRegion("1", 1, CONTIG_LENGTH), new ChrBaseRegion("2", 1, CONTIG_LENGTH));
+
+        mSmallRegions = Lists.newArrayList();
+
+        for(int start = 1; start < CONTIG_LENGTH; start += 50_000)
+        {
+            mSmallRegions.add(new ChrBaseRegion("1", start, start + 999));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException
+    {
+        mSamReader.close();
+        mRawBamReader.close();
+        SyntheticData.deleteDir(mTempDir);
+    }
+
+    @Benchmark
+    public void sliceWholeContigsDecoded(final Blackhole blackhole)
+    {
+        mBamSlicer.slice(mSamReader, mWholeContigs, blackhole::consume);
+    }
+
+    @Benchmark
+    public void sliceWholeContigsPrefiltered(final Blackhole blackhole)
+    {
+        mBamSlicer.slice(mRawBamReader, mWholeContigs, blackhole::consume);
+    }
+
+    @Benchmark
+    public void sliceSmallRegionsDecoded(final Blackhole blackhole)
+    {
+        mBamSlicer.slice(mSamReader, mSmallRegions, blackhole::consume);
+    }
+
+    @Benchmark
+    public void sliceSmallRegionsPrefiltered(final Blackhole blackhole)
+    {
+        mBamSlicer.slice(mRawBamReader, mSmallRegions, blackhole::consume);
+    }
+}
@@ -0,0 +1,132 @@
+package com.hartwig.hmftools.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.genome.refgenome.PackedRefGenome;
+import com.hartwig.hmftools.common.genome.refgenome.PackedRefGenomeConverter;
+import com.hartwig.hmftools.common.genome.refgenome.RefGenomeSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// fetches random read-length windows from a synthetic genome, through the indexed FASTA and the packed ref genome
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RefGenomeBenchmark
+{
+    @Param({"151"})
+    public int WindowLength;
+
+    private static final int CONTIG_COUNT = 3;
+    private static final int CONTIG_LENGTH = 10_000_000;
+    private static final int LOOKUP_COUNT = 10_000;
+
+    private Path mTempDir;
+    private RefGenomeSource mFastaRefGenome;
+    private PackedRefGenome mPackedRefGenome;
+
+    private final List<String> mChromosomes = Lists.newArrayList();
+    private int[] mPositions;
+
+    @State(Scope.Thread)
+    public static class ThreadBuffer
+    {
+        public byte[] Bases;
+
+        @Setup(Level.Trial)
+        public void setup(final RefGenomeBenchmark benchmark)
+        {
+            Bases = new byte[benchmark.WindowLength];
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException
+    {
+        mTempDir = SyntheticData.createTempDir();
+
+        Random random = new Random(0);
+        Map<String,String> contigs = SyntheticData.generateContigs(random, CONTIG_COUNT, CONTIG_LENGTH);
+        String fastaFile = SyntheticData.writeFasta(mTempDir, contigs);
+
+        String packedFile = mTempDir.resolve("ref_genome" + PackedRefGenome.PACKED_REF_GENOME_EXTENSION).toString();
+        PackedRefGenomeConverter.convertFasta(fastaFile, packedFile);
+
+        mFastaRefGenome = RefGenomeSource.loadRefGenome(fastaFile);
+        mPackedRefGenome = PackedRefGenome.loadRefGenome(packedFile);
+
+        mPositions = new int[LOOKUP_COUNT];
+
+        for(int i = 0; i < LOOKUP_COUNT; ++i)
+        {
+            mChromosomes.add(String.valueOf(1 + random.nextInt(CONTIG_COUNT)));
+            mPositions[i] = 1 + random.nextInt(CONTIG_LENGTH - WindowLength);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException
+    {
+        mFastaRefGenome.refGenomeFile().close();
+        SyntheticData.deleteDir(mTempDir);
+    }
+
+    @Benchmark
+    public void fastaBaseStrings(final Blackhole blackhole)
+    {
+        for(int i = 0; i < LOOKUP_COUNT; ++i)
+        {
+            blackhole.consume(mFastaRefGenome.getBaseString(mChromosomes.get(i), mPositions[i], mPositions[i] + WindowLength - 1));
+        }
+    }
+
+    @Benchmark
+    public void packedBaseStrings(final Blackhole blackhole)
+    {
+        for(int i = 0; i < LOOKUP_COUNT; ++i)
+        {
+            blackhole.consume(mPackedRefGenome.getBaseString(mChromosomes.get(i), mPositions[i], mPositions[i] + WindowLength - 1));
+        }
+    }
+
+    @Benchmark
+    public void packedBasesIntoBuffer(final ThreadBuffer buffer, final Blackhole blackhole)
+    {
+        for(int i = 0; i < LOOKUP_COUNT; ++i)
+        {
+            mPackedRefGenome.getBases(mChromosomes.get(i), mPositions[i], mPositions[i] + WindowLength - 1, buffer.Bases, 0);
+            blackhole.consume(buffer.Bases);
+        }
+    }
+
+    // the packed genome shared by several threads, as SAGE's chromosome pipelines would
+    @Benchmark
+    @Threads(4)
+    public void packedBasesIntoBufferShared(final ThreadBuffer buffer, final Blackhole blackhole)
+    {
+        packedBasesIntoBuffer(buffer, blackhole);
+    }
+}
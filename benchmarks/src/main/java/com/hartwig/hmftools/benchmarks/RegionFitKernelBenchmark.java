@@ -0,0 +1,180 @@
+package com.hartwig.hmftools.benchmarks;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.cobalt.MedianRatio;
+import com.hartwig.hmftools.common.genome.chromosome.CobaltChromosomes;
+import com.hartwig.hmftools.common.purple.GermlineStatus;
+import com.hartwig.hmftools.common.purple.SegmentSupport;
+import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+import com.hartwig.hmftools.common.variant.AllelicDepth;
+import com.hartwig.hmftools.common.variant.ImmutableAllelicDepthImpl;
+import com.hartwig.hmftools.purple.config.FittingConfig;
+import com.hartwig.hmftools.purple.purity.RegionFitCalcs;
+import com.hartwig.hmftools.purple.purity.RegionFitCalculator;
+import com.hartwig.hmftools.purple.purity.RegionFitKernel;
+import com.hartwig.hmftools.purple.purity.SomaticDeviation;
+import com.hartwig.hmftools.purple.region.ObservedRegion;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// scores a block of Purple purity and norm factor candidates over a WGS-sized set of fitting regions and down-sampled somatic
+// variants, calling RegionFitCalculator per region versus the packed RegionFitKernel
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RegionFitKernelBenchmark
+{
+    // a typical WGS sample has a few thousand diploid regions with BAF support left after filtering
+    @Param({"1000", "4000"})
+    public int Regions;
+
+    @Param({"1000"})
+    public int Variants;
+
+    private static final double[] PURITIES = { 0.2, 0.35, 0.5, 0.65, 0.8 };
+    private static final double[] NORM_FACTORS = { 0.4, 0.55, 0.7, 0.85, 1.0, 1.15 };
+
+    private static final double SOMATIC_PENALTY_WEIGHT = 1;
+
+    private RegionFitCalculator mRegionFitCalculator;
+    private List<ObservedRegion> mRegions;
+    private List<List<AllelicDepth>> mRegionVariantDepths;
+    private double[] mGermlineCopyNumbers;
+    private int mTotalBafCount;
+
+    private RegionFitKernel mRegionFitKernel;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        ConfigBuilder configBuilder = new ConfigBuilder();
+        FittingConfig.addConfig(configBuilder);
+        FittingConfig fittingConfig = new FittingConfig(configBuilder);
+
+        List<MedianRatio> medianRatios = Lists.newArrayList();
+
+        for(int i = 1; i <= 22; ++i)
+        {
+            medianRatios.add(new MedianRatio(String.valueOf(i), 1, 1000));
+        }
+
+        medianRatios.add(new MedianRatio("X", 1, 1000));
+
+        CobaltChromosomes cobaltChromosomes = new CobaltChromosomes(medianRatios);
+        mRegionFitCalculator = new RegionFitCalculator(cobaltChromosomes, fittingConfig, 100);
+
+        Random random = new Random(0);
+        mRegions = Lists.newArrayListWithCapacity(Regions);
+        mRegionVariantDepths = Lists.newArrayListWithCapacity(Regions);
+        mGermlineCopyNumbers = new double[Regions];
+        mTotalBafCount = 0;
+
+        for(int i = 0; i < Regions; ++i)
+        {
+            String chromosome = String.valueOf(1 + random.nextInt(22));
+
+            // copy numbers of 1 to 4 at a purity of around 0.6, with noise in the observed ratio and BAF
+            int copyNumber = 1 + random.nextInt(4);
+            int majorAllele = (copyNumber + 1) / 2 + random.nextInt(copyNumber / 2 + 1);
+            double tumorRatio = 0.4 + 0.6 * copyNumber / 2 + random.nextGaussian() * 0.03;
+            double observedBAF = Math.max(0.5, Math.min(1, (0.4 + 0.6 * majorAllele) / (0.8 + 0.6 * copyNumber)
+                    + random.nextGaussian() * 0.02));
+
+            int bafCount = 10 + random.nextInt(400);
+            mTotalBafCount += bafCount;
+
+            mRegions.add(new ObservedRegion(
+                    chromosome, i * 10000 + 1, i * 10000 + 10000, true, SegmentSupport.NONE, bafCount, observedBAF, 10,
+                    tumorRatio, 1, 1, GermlineStatus.DIPLOID, false, 0.45, 0, 0));
+
+            mRegionVariantDepths.add(Lists.newArrayList());
+            mGermlineCopyNumbers[i] = mRegionFitCalculator.germlineRatio(chromosome) * 2;
+        }
+
+        for(int v = 0; v < Variants; ++v)
+        {
+            int totalReadCount = 60 + random.nextInt(80);
+            int alleleReadCount = 5 + random.nextInt(totalReadCount / 2);
+
+            mRegionVariantDepths.get(random.nextInt(Regions)).add(
+                    ImmutableAllelicDepthImpl.builder().alleleReadCount(alleleReadCount).totalReadCount(totalReadCount).build());
+        }
+
+        mRegionFitKernel = new RegionFitKernel(mRegionFitCalculator, mRegions, mRegionVariantDepths, SOMATIC_PENALTY_WEIGHT);
+    }
+
+    @Benchmark
+    public double regionFitCalculator()
+    {
+        double total = 0;
+
+        for(double purity : PURITIES)
+        {
+            for(double normFactor : NORM_FACTORS)
+            {
+                total += fitRegions(purity, normFactor);
+            }
+        }
+
+        return total;
+    }
+
+    @Benchmark
+    public double regionFitKernel()
+    {
+        double total = 0;
+
+        for(double purity : PURITIES)
+        {
+            for(double normFactor : NORM_FACTORS)
+            {
+                total += mRegionFitKernel.fit(purity, normFactor).score();
+            }
+        }
+
+        return total;
+    }
+
+    private double fitRegions(double purity, double normFactor)
+    {
+        double eventPenalty = 0;
+        double deviationPenalty = 0;
+        double somaticPenaltyTotal = 0;
+
+        for(int i = 0; i < Regions; ++i)
+        {
+            ObservedRegion region = mRegions.get(i);
+            RegionFitCalcs regionFitCalcs = mRegionFitCalculator.calculateRegionFit(purity, normFactor, region);
+
+            eventPenalty += 1d * regionFitCalcs.EventPenalty * region.bafCount() / mTotalBafCount;
+            deviationPenalty += 1d * regionFitCalcs.DeviationPenalty * region.bafCount() / mTotalBafCount;
+
+            for(AllelicDepth depth : mRegionVariantDepths.get(i))
+            {
+                somaticPenaltyTotal += SOMATIC_PENALTY_WEIGHT * SomaticDeviation.INSTANCE.deviationFromMax(
+                        purity, mGermlineCopyNumbers[i], depth.alleleFrequency(), depth.totalReadCount(),
+                        Math.max(0, regionFitCalcs.TumorCopyNumber), Math.max(0, regionFitCalcs.majorAlleleCopyNumber()));
+            }
+        }
+
+        return eventPenalty * deviationPenalty + somaticPenaltyTotal / Variants;
+    }
+}
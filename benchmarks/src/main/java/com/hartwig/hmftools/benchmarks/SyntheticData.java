@@ -0,0 +1,400 @@
+package com.hartwig.hmftools.benchmarks;
+
+import static java.lang.String.format;
+
+import static com.hartwig.hmftools.common.utils.file.FileDelimiters.TSV_DELIM;
+import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.createBufferedWriter;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.StringJoiner;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.ensemblcache.EnsemblDataCache;
+import com.hartwig.hmftools.common.gene.ExonData;
+import com.hartwig.hmftools.common.gene.GeneData;
+import com.hartwig.hmftools.common.gene.TranscriptData;
+import com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion;
+import com.hartwig.hmftools.common.utils.Matrix;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMFileWriter;
+import htsjdk.samtools.SAMFileWriterFactory;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.reference.FastaSequenceIndexCreator;
+
+// generates the reference genome, BAM, VCF, TSV, Ensembl and matrix inputs for the benchmarks, so they need no external data
+// all generation is seeded so repeated runs measure the same inputs
+public final class SyntheticData
+{
+    public static final int READ_LENGTH = 151;
+    public static final int FRAGMENT_LENGTH = 400;
+
+    public static final String REFERENCE_ID = "REFERENCE";
+    public static final String TUMOR_ID = "TUMOR";
+
+    private static final String[] CIGARS = { "151M", "151M", "151M", "20S131M", "131M20S", "60M2I89M", "70M5D81M", "40M300N111M" };
+
+    private static final char[] DNA_BASES = { 'A', 'C', 'G', 'T' };
+
+    public static Path createTempDir() throws IOException
+    {
+        return Files.createTempDirectory("hmf_benchmark");
+    }
+
+    public static void deleteDir(final Path dir) throws IOException
+    {
+        if(dir == null || !Files.exists(dir))
+            return;
+
+        try(Stream<Path> paths = Files.walk(dir))
+        {
+            for(Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList()))
+            {
+                Files.delete(path);
+            }
+        }
+    }
+
+    public static String randomBases(final Random random, int length)
+    {
+        char[] bases = new char[length];
+
+        for(int i = 0; i < length; ++i)
+        {
+            bases[i] = DNA_BASES[random.nextInt(DNA_BASES.length)];
+        }
+
+        return new String(bases);
+    }
+
+    // contigs named 1, 2, .. with runs of N at their start and end, as in real assemblies
+    public static Map<String,String> generateContigs(final Random random, int contigCount, int contigLength)
+    {
+        Map<String,String> contigs = new LinkedHashMap<>();
+        int nRunLength = contigLength / 100;
+
+        for(int c = 1; c <= contigCount; ++c)
+        {
+            StringBuilder bases = new StringBuilder(contigLength);
+            bases.append("N".repeat(nRunLength));
+            bases.append(randomBases(random, contigLength - 2 * nRunLength));
+            bases.append("N".repeat(nRunLength));
+            contigs.put(String.valueOf(c), bases.toString());
+        }
+
+        return contigs;
+    }
+
+    // writes a FASTA wrapped at 60 bases per line and its .fai index
+    public static String writeFasta(final Path dir, final Map<String,String> contigs) throws IOException
+    {
+        File fastaFile = dir.resolve("ref_genome.fasta").toFile();
+
+        try(BufferedWriter writer = new BufferedWriter(new FileWriter(fastaFile)))
+        {
+            for(Map.Entry<String,String> contig : contigs.entrySet())
+            {
+                writer.write(">" + contig.getKey());
+                writer.newLine();
+
+                String bases = contig.getValue();
+
+                for(int lineStart = 0; lineStart < bases.length(); lineStart += 60)
+                {
+                    writer.write(bases, lineStart, Math.min(60, bases.length() - lineStart));
+                    writer.newLine();
+                }
+            }
+        }
+
+        FastaSequenceIndexCreator.create(fastaFile.toPath(), true);
+
+        return fastaFile.getAbsolutePath();
+    }
+
+    public static SAMFileHeader createBamHeader(final Map<String,Integer> contigLengths)
+    {
+        List<SAMSequenceRecord> sequences = Lists.newArrayList();
+        contigLengths.forEach((name, length) -> sequences.add(new SAMSequenceRecord(name, length)));
+
+        SAMFileHeader header = new SAMFileHeader();
+        header.setSequenceDictionary(new SAMSequenceDictionary(sequences));
+        header.setSortOrder(SAMFileHeader.SortOrder.coordinate);
+        return header;
+    }
+
+    // coordinate-sorted read pairs across the contigs, with a mix of CIGARs, duplicates, supplementaries, secondaries and
+    // low mapping qualities so that the BAM slicer's filters each have work to do
+    public static List<SAMRecord> generateReads(final Random random, final SAMFileHeader header, int readsPerContig)
+    {
+        List<SAMRecord> records = Lists.newArrayList();
+
+        for(SAMSequenceRecord sequence : header.getSequenceDictionary().getSequences())
+        {
+            int maxStart = sequence.getSequenceLength() - FRAGMENT_LENGTH - 1000;
+            int positionStep = Math.max(maxStart / readsPerContig, 1);
+            int position = 1;
+
+            for(int i = 0; i < readsPerContig; ++i)
+            {
+                position = Math.min(position + random.nextInt(positionStep * 2 + 1), maxStart);
+                records.add(createRecord(random, header, format("READ_%s_%06d", sequence.getSequenceName(), i), sequence.getSequenceName(), position));
+            }
+        }
+
+        records.sort(Comparator.comparingInt(SAMRecord::getReferenceIndex).thenComparingInt(SAMRecord::getAlignmentStart));
+        return records;
+    }
+
+    private static SAMRecord createRecord(final Random random, final SAMFileHeader header, final String readName, final String chromosome, int position)
+    {
+        SAMRecord record = new SAMRecord(header);
+        record.setReadName(readName);
+        record.setReferenceName(chromosome);
+        record.setAlignmentStart(position);
+        record.setCigarString(CIGARS[random.nextInt(CIGARS.length)]);
+        record.setReadBases(randomBases(random, READ_LENGTH).getBytes());
+
+        byte[] baseQuals = new byte[READ_LENGTH];
+
+        for(int i = 0; i < READ_LENGTH; ++i)
+        {
+            baseQuals[i] = (byte)(25 + random.nextInt(13));
+        }
+
+        record.setBaseQualities(baseQuals);
+
+        boolean firstInPair = random.nextBoolean();
+        record.setReadPairedFlag(true);
+        record.setProperPairFlag(true);
+        record.setFirstOfPairFlag(firstInPair);
+        record.setSecondOfPairFlag(!firstInPair);
+        record.setReadNegativeStrandFlag(!firstInPair);
+        record.setMateNegativeStrandFlag(firstInPair);
+        record.setMateReferenceName(chromosome);
+        record.setMateAlignmentStart(firstInPair ? position + FRAGMENT_LENGTH - READ_LENGTH : Math.max(position - FRAGMENT_LENGTH + READ_LENGTH, 1));
+        record.setInferredInsertSize(firstInPair ? FRAGMENT_LENGTH : -FRAGMENT_LENGTH);
+
+        int filterType = random.nextInt(100);
+        record.setMappingQuality(filterType < 3 ? random.nextInt(10) : 60);
+        record.setDuplicateReadFlag(filterType >= 3 && filterType < 10);
+        record.setSupplementaryAlignmentFlag(filterType >= 10 && filterType < 12);
+        record.setSecondaryAlignment(filterType == 12);
+
+        return record;
+    }
+
+    public static String writeBam(final Path dir, final SAMFileHeader header, final List<SAMRecord> records)
+    {
+        return writeBam(dir, "reads.bam", header, records);
+    }
+
+    public static String writeBam(final Path dir, final String fileName, final SAMFileHeader header, final List<SAMRecord> records)
+    {
+        File bamFile = dir.resolve(fileName).toFile();
+
+        try(SAMFileWriter writer = new SAMFileWriterFactory().setCreateIndex(true).makeBAMWriter(header, true, bamFile))
+        {
+            records.forEach(writer::addAlignment);
+        }
+
+        return bamFile.getAbsolutePath();
+    }
+
+    // a tumor-normal somatic VCF with the INFO and FORMAT fields typical of SAGE output
+    public static String writeVcf(final Path dir, final Random random, final Map<String,String> contigs, int variantsPerContig)
+            throws IOException
+    {
+        File vcfFile = dir.resolve("variants.vcf").toFile();
+
+        try(BufferedWriter writer = new BufferedWriter(new FileWriter(vcfFile)))
+        {
+            writer.write("##fileformat=VCFv4.2\n");
+
+            for(Map.Entry<String,String> contig : contigs.entrySet())
+            {
+                writer.write(format("##contig=<ID=%s,length=%d>\n", contig.getKey(), contig.getValue().length()));
+            }
+
+            writer.write("##FILTER=<ID=PASS,Description=\"All filters passed\">\n");
+            writer.write("##FILTER=<ID=minTumorQual,Description=\"Insufficient tumor quality\">\n");
+            writer.write("##INFO=<ID=TIER,Number=1,Type=String,Description=\"Tier\">\n");
+            writer.write("##INFO=<ID=MH,Number=1,Type=String,Description=\"Microhomology\">\n");
+            writer.write("##INFO=<ID=REP_C,Number=1,Type=Integer,Description=\"Repeat count\">\n");
+            writer.write("##FORMAT=<ID=GT,Number=1,Type=String,Description=\"Genotype\">\n");
+            writer.write("##FORMAT=<ID=AD,Number=R,Type=Integer,Description=\"Allelic depths\">\n");
+            writer.write("##FORMAT=<ID=DP,Number=1,Type=Integer,Description=\"Read depth\">\n");
+            writer.write("##FORMAT=<ID=AF,Number=A,Type=Float,Description=\"Allelic frequency\">\n");
+            writer.write(format("#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT\t%s\t%s\n", REFERENCE_ID, TUMOR_ID));
+
+            for(Map.Entry<String,String> contig : contigs.entrySet())
+            {
+                String bases = contig.getValue();
+                int positionStep = bases.length() / (variantsPerContig + 1);
+
+                for(int i = 1; i <= variantsPerContig; ++i)
+                {
+                    int position = i * positionStep;
+                    char ref = bases.charAt(position - 1);
+                    char alt = ref == 'N' ? 'A' : DNA_BASES[(indexOf(ref) + 1 + random.nextInt(3)) % 4];
+
+                    int refDepth = 20 + random.nextInt(40);
+                    int tumorAlt = 2 + random.nextInt(30);
+                    int tumorRef = 40 + random.nextInt(60);
+
+                    writer.write(format("%s\t%d\t.\t%c\t%c\t%d\t%s\tTIER=PANEL;MH=%s;REP_C=%d\tGT:AD:DP:AF\t0/0:%d,0:%d:0\t0/1:%d,%d:%d:%.3f\n",
+                            contig.getKey(), position, ref, alt, 50 + random.nextInt(500), random.nextInt(10) == 0 ? "minTumorQual" : "PASS",
+                            randomBases(random, 2), random.nextInt(5), refDepth, refDepth,
+                            tumorRef, tumorAlt, tumorRef + tumorAlt, tumorAlt / (double)(tumorRef + tumorAlt)));
+                }
+            }
+        }
+
+        return vcfFile.getAbsolutePath();
+    }
+
+    private static int indexOf(char base)
+    {
+        for(int i = 0; i < DNA_BASES.length; ++i)
+        {
+            if(DNA_BASES[i] == base)
+                return i;
+        }
+
+        return 0;
+    }
+
+    public static final String TSV_COL_CHROMOSOME = "Chromosome";
+    public static final String TSV_COL_POSITION = "Position";
+    public static final String TSV_COL_RATIO = "Ratio";
+    public static final String TSV_COL_DEPTH = "Depth";
+    public static final String TSV_COL_GC = "GcContent";
+    public static final String TSV_COL_MAPPABLE = "Mappable";
+
+    // a depth-ratio file in the style of the Cobalt and Amber outputs
+    public static String writeTsv(
+            final Path dir, final Random random, int chromosomeCount, int rowsPerChromosome, boolean gzipped) throws IOException
+    {
+        File tsvFile = dir.resolve(gzipped ? "ratios.tsv.gz" : "ratios.tsv").toFile();
+
+        try(BufferedWriter writer = createBufferedWriter(tsvFile.getAbsolutePath()))
+        {
+            StringJoiner header = new StringJoiner(TSV_DELIM);
+            header.add(TSV_COL_CHROMOSOME).add(TSV_COL_POSITION).add(TSV_COL_RATIO).add(TSV_COL_DEPTH).add(TSV_COL_GC).add(TSV_COL_MAPPABLE);
+            writer.write(header.toString());
+            writer.newLine();
+
+            for(int c = 1; c <= chromosomeCount; ++c)
+            {
+                for(int i = 0; i < rowsPerChromosome; ++i)
+                {
+                    writer.write(format("%d\t%d\t%.4f\t%d\t%.2f\t%s",
+                            c, i * 1000 + 1, random.nextDouble() * 2, random.nextInt(200), random.nextDouble(), random.nextBoolean()));
+                    writer.newLine();
+                }
+            }
+        }
+
+        return tsvFile.getAbsolutePath();
+    }
+
+    public static String geneName(int chromosome, int geneIndex) { return format("GENE_%d_%05d", chromosome, geneIndex); }
+    public static String geneId(int chromosome, int geneIndex) { return format("ENSG%02d%09d", chromosome, geneIndex); }
+
+    // genes spaced along each chromosome, each with a canonical and a non-canonical transcript of 10 exons
+    public static EnsemblDataCache createEnsemblDataCache(int chromosomeCount, int genesPerChromosome, int geneSpacing)
+    {
+        return createEnsemblDataCache(chromosomeCount, genesPerChromosome, geneSpacing, 2);
+    }
+
+    // as above with a canonical transcript plus others starting progressively further into the gene
+    public static EnsemblDataCache createEnsemblDataCache(
+            int chromosomeCount, int genesPerChromosome, int geneSpacing, int transcriptsPerGene)
+    {
+        EnsemblDataCache ensemblDataCache = new EnsemblDataCache("", RefGenomeVersion.V37);
+        int transId = 0;
+
+        for(int c = 1; c <= chromosomeCount; ++c)
+        {
+            List<GeneData> geneDataList = Lists.newArrayListWithCapacity(genesPerChromosome);
+
+            for(int g = 0; g < genesPerChromosome; ++g)
+            {
+                byte strand = (byte)(g % 2 == 0 ? 1 : -1);
+                int geneStart = g * geneSpacing + 1;
+                int geneEnd = geneStart + geneSpacing / 2;
+                String geneId = geneId(c, g);
+
+                geneDataList.add(new GeneData(geneId, geneName(c, g), String.valueOf(c), strand, geneStart, geneEnd, ""));
+
+                List<TranscriptData> transcripts = Lists.newArrayListWithCapacity(transcriptsPerGene);
+
+                for(int t = 0; t < transcriptsPerGene; ++t)
+                {
+                    int transStart = t == 0 ? geneStart : geneStart + t * (geneSpacing / 10) / (transcriptsPerGene - 1);
+                    transcripts.add(createTranscript(++transId, geneId, t == 0, strand, transStart, geneEnd));
+                }
+
+                ensemblDataCache.getTranscriptDataMap().put(geneId, transcripts);
+            }
+
+            ensemblDataCache.getChrGeneDataMap().put(String.valueOf(c), geneDataList);
+        }
+
+        return ensemblDataCache;
+    }
+
+    private static TranscriptData createTranscript(int transId, final String geneId, boolean isCanonical, byte strand, int transStart, int transEnd)
+    {
+        int exonCount = 10;
+        int exonSpacing = (transEnd - transStart) / exonCount;
+        int exonLength = exonSpacing / 4;
+
+        TranscriptData transData = new TranscriptData(
+                transId, format("ENST%011d", transId), geneId, isCanonical, strand, transStart, transEnd,
+                transStart + exonSpacing, transEnd - exonSpacing, "protein_coding");
+
+        List<ExonData> exons = Lists.newArrayListWithCapacity(exonCount);
+
+        for(int e = 0; e < exonCount; ++e)
+        {
+            int exonStart = transStart + e * exonSpacing;
+            int exonEnd = e == exonCount - 1 ? transEnd : exonStart + exonLength;
+            int rank = strand == 1 ? e + 1 : exonCount - e;
+            exons.add(new ExonData(transId, exonStart, exonEnd, rank, -1, -1));
+        }
+
+        transData.setExons(exons);
+        return transData;
+    }
+
+    public static Matrix randomMatrix(final Random random, int rows, int cols)
+    {
+        Matrix matrix = new Matrix(rows, cols);
+        double[][] data = matrix.getData();
+
+        for(int r = 0; r < rows; ++r)
+        {
+            for(int c = 0; c < cols; ++c)
+            {
+                data[r][c] = random.nextDouble();
+            }
+        }
+
+        return matrix;
+    }
+}
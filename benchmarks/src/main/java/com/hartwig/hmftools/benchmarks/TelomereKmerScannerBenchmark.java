@@ -0,0 +1,95 @@
+package com.hartwig.hmftools.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.hartwig.hmftools.teal.TealConstants;
+import com.hartwig.hmftools.teal.TealUtils;
+import com.hartwig.hmftools.teal.util.TelomereKmerScanner;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// checks a stream of reads for telomeric content as TEAL's telbam extraction does, converting each read's bases to a string
+// as SAMRecord.getReadString does versus scanning the raw bases with TelomereKmerScanner
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TelomereKmerScannerBenchmark
+{
+    @Param({"500000"})
+    public int Reads;
+
+    private static final String BASES = "ACGT";
+
+    private byte[][] mReadBases;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        Random random = new Random(0);
+
+        // random bases interspersed with telomeric hexamers and G/C runs, so some reads have telomeric content
+        String[] fragments = { TealConstants.CANONICAL_TELOMERE_SEQ, TealConstants.INSTANCE.getCANONICAL_TELOMERE_SEQ_REV(), "GGG", "CCC" };
+
+        mReadBases = new byte[Reads][];
+
+        for(int i = 0; i < Reads; ++i)
+        {
+            StringBuilder read = new StringBuilder(SyntheticData.READ_LENGTH);
+
+            while(read.length() < SyntheticData.READ_LENGTH)
+            {
+                if(random.nextInt(4) == 0)
+                    read.append(fragments[random.nextInt(fragments.length)]);
+                else
+                    read.append(BASES.charAt(random.nextInt(BASES.length())));
+            }
+
+            read.setLength(SyntheticData.READ_LENGTH);
+            mReadBases[i] = read.toString().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    @Benchmark
+    public int readStrings()
+    {
+        int matches = 0;
+
+        for(byte[] readBases : mReadBases)
+        {
+            if(TealUtils.INSTANCE.hasTelomericContent(new String(readBases, StandardCharsets.US_ASCII)))
+                ++matches;
+        }
+
+        return matches;
+    }
+
+    @Benchmark
+    public int kmerScanner()
+    {
+        int matches = 0;
+
+        for(byte[] readBases : mReadBases)
+        {
+            if(TelomereKmerScanner.INSTANCE.hasTelomericContent(readBases))
+                ++matches;
+        }
+
+        return matches;
+    }
+}
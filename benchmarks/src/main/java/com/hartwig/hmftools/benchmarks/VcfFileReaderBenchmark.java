@@ -0,0 +1,97 @@
+package com.hartwig.hmftools.benchmarks;
+
+import static com.hartwig.hmftools.benchmarks.SyntheticData.REFERENCE_ID;
+import static com.hartwig.hmftools.benchmarks.SyntheticData.TUMOR_ID;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.hartwig.hmftools.common.variant.VcfFileReader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import htsjdk.variant.variantcontext.Genotype;
+import htsjdk.variant.variantcontext.VariantContext;
+
+// iterates a synthetic tumor-normal VCF, either just the sites or also decoding the tumor genotype as Purple and PAVE do
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VcfFileReaderBenchmark
+{
+    @Param({"20000"})
+    public int VariantsPerContig;
+
+    private static final int CONTIG_COUNT = 5;
+    private static final int CONTIG_LENGTH = 1_000_000;
+
+    private Path mTempDir;
+    private String mVcfFile;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException
+    {
+        mTempDir = SyntheticData.createTempDir();
+
+        Random random = new Random(0);
+        Map<String,String> contigs = SyntheticData.generateContigs(random, CONTIG_COUNT, CONTIG_LENGTH);
+        mVcfFile = SyntheticData.writeVcf(mTempDir, random, contigs, VariantsPerContig);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException
+    {
+        SyntheticData.deleteDir(mTempDir);
+    }
+
+    @Benchmark
+    public long iterateSites()
+    {
+        VcfFileReader reader = new VcfFileReader(mVcfFile);
+        long total = 0;
+
+        for(VariantContext variant : reader.iterator())
+        {
+            total += variant.getStart() + (variant.isFiltered() ? 1 : 0);
+        }
+
+        reader.close();
+        return total;
+    }
+
+    @Benchmark
+    public long iterateWithGenotypes()
+    {
+        VcfFileReader reader = new VcfFileReader(mVcfFile);
+        reader.registerSampleNames(REFERENCE_ID, TUMOR_ID);
+        int tumorOrdinal = reader.tumorOrdinal();
+        long total = 0;
+
+        for(VariantContext variant : reader.iterator())
+        {
+            Genotype tumorGenotype = variant.getGenotype(tumorOrdinal);
+            total += tumorGenotype.getAD()[1] + tumorGenotype.getDP() + variant.getAttributeAsInt("REP_C", 0);
+        }
+
+        reader.close();
+        return total;
+    }
+}
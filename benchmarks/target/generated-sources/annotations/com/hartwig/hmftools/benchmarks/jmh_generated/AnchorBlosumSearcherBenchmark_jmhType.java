@@ -0,0 +1,4 @@
+package com.hartwig.hmftools.benchmarks.jmh_generated;
+public class AnchorBlosumSearcherBenchmark_jmhType extends AnchorBlosumSearcherBenchmark_jmhType_B3 {
+}
+
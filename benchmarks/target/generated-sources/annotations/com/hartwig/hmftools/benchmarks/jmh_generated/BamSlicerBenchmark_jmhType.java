@@ -0,0 +1,4 @@
+package com.hartwig.hmftools.benchmarks.jmh_generated;
+public class BamSlicerBenchmark_jmhType extends BamSlicerBenchmark_jmhType_B3 {
+}
+
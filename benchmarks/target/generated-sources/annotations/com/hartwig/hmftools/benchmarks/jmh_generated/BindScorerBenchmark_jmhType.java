@@ -0,0 +1,4 @@
+package com.hartwig.hmftools.benchmarks.jmh_generated;
+public class BindScorerBenchmark_jmhType extends BindScorerBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package com.hartwig.hmftools.benchmarks.jmh_generated;
+public class ChainedFusionBenchmark_jmhType extends ChainedFusionBenchmark_jmhType_B3 {
+}
+
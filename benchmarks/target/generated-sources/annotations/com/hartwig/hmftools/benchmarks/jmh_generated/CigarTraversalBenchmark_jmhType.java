@@ -0,0 +1,4 @@
+package com.hartwig.hmftools.benchmarks.jmh_generated;
+public class CigarTraversalBenchmark_jmhType extends CigarTraversalBenchmark_jmhType_B3 {
+}
+
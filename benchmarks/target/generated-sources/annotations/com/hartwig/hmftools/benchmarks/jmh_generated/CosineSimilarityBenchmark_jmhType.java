@@ -0,0 +1,4 @@
+package com.hartwig.hmftools.benchmarks.jmh_generated;
+public class CosineSimilarityBenchmark_jmhType extends CosineSimilarityBenchmark_jmhType_B3 {
+}
+
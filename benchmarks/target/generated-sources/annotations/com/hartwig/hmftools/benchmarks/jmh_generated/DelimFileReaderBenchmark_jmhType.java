@@ -0,0 +1,4 @@
+package com.hartwig.hmftools.benchmarks.jmh_generated;
+public class DelimFileReaderBenchmark_jmhType extends DelimFileReaderBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package com.hartwig.hmftools.benchmarks.jmh_generated;
+public class DepthAnnotationBenchmark_jmhType extends DepthAnnotationBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package com.hartwig.hmftools.benchmarks.jmh_generated;
+public class EnsemblDataCacheBenchmark_jmhType extends EnsemblDataCacheBenchmark_jmhType_B3 {
+}
+
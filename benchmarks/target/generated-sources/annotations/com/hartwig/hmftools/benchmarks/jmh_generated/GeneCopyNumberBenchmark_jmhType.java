@@ -0,0 +1,4 @@
+package com.hartwig.hmftools.benchmarks.jmh_generated;
+public class GeneCopyNumberBenchmark_jmhType extends GeneCopyNumberBenchmark_jmhType_B3 {
+}
+
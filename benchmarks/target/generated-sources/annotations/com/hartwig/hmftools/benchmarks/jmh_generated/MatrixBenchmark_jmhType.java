@@ -0,0 +1,4 @@
+package com.hartwig.hmftools.benchmarks.jmh_generated;
+public class MatrixBenchmark_jmhType extends MatrixBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package com.hartwig.hmftools.benchmarks.jmh_generated;
+public class ProteomePeptideIndexBenchmark_jmhType extends ProteomePeptideIndexBenchmark_jmhType_B3 {
+}
+
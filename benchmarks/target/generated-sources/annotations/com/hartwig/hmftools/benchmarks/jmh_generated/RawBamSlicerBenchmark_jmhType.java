@@ -0,0 +1,4 @@
+package com.hartwig.hmftools.benchmarks.jmh_generated;
+public class RawBamSlicerBenchmark_jmhType extends RawBamSlicerBenchmark_jmhType_B3 {
+}
+
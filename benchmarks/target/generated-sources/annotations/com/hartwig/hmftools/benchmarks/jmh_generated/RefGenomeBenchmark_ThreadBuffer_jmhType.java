@@ -0,0 +1,4 @@
+package com.hartwig.hmftools.benchmarks.jmh_generated;
+public class RefGenomeBenchmark_ThreadBuffer_jmhType extends RefGenomeBenchmark_ThreadBuffer_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package com.hartwig.hmftools.benchmarks.jmh_generated;
+public class RefGenomeBenchmark_jmhType extends RefGenomeBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package com.hartwig.hmftools.benchmarks.jmh_generated;
+public class RegionFitKernelBenchmark_jmhType extends RegionFitKernelBenchmark_jmhType_B3 {
+}
+
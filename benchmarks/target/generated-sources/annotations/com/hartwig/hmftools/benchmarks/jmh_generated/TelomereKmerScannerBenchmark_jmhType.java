@@ -0,0 +1,4 @@
+package com.hartwig.hmftools.benchmarks.jmh_generated;
+public class TelomereKmerScannerBenchmark_jmhType extends TelomereKmerScannerBenchmark_jmhType_B3 {
+}
+
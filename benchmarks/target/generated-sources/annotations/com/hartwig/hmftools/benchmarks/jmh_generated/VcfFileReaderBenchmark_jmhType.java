@@ -0,0 +1,4 @@
+package com.hartwig.hmftools.benchmarks.jmh_generated;
+public class VcfFileReaderBenchmark_jmhType extends VcfFileReaderBenchmark_jmhType_B3 {
+}
+
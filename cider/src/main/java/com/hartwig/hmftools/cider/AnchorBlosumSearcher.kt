@@ -71,70 +71,98 @@ class AnchorBlosumSearcher(
 
         var bestMatch: AnchorBlosumMatch? = null
 
+        // translate each codon of the sequence once, rather than for every window
+        val readAminoAcids = AnchorSeedIndex.encodeCodons(sequence)
+
         for (targetAnchorGeneType in targetAnchorGeneTypes)
         {
-            val templateAnchorSequences : Set<String> = ciderGeneDatastore.getAnchorSequenceSet(targetAnchorGeneType)
+            val seedIndex = ciderGeneDatastore.getAnchorSeedIndex(targetAnchorGeneType)
+            val templates = seedIndex.templates
+            val candidates = BooleanArray(templates.size)
 
             // We match each template anchor against the input DNA
             for (i in startOffset  until endOffset)
             {
-                //val aa = Codons.codonToAminoAcid(dnaSeq, i)
+                // only a match with a higher score can replace the best match
+                val seedMinScore = minScore(bestMatch, mode)
+                val useSeeds = seedMinScore >= 0
+
+                if (useSeeds)
+                {
+                    // skip templates which cannot reach a non-negative score at this offset
+                    seedIndex.markCandidates(readAminoAcids, sequence.length, i, targetAnchorGeneType.vj, candidates)
+                }
+
+                for (templateIndex in templates.indices)
+                {
+                    if (useSeeds && !candidates[templateIndex])
+                        continue
+
+                    val template = templates[templateIndex]
+                    val anchorPos: Int
 
-                //if (aa == CiderUtils.conservedAA(targetAnchorGeneType)) // we might revisit this case later
-                //{
-                    // this is a potential match
-                    for (templateAnchorSeq in templateAnchorSequences)
+                    if (targetAnchorGeneType.vj == VJ.V)
                     {
-                        val anchorPos: Int
-
-                        if (targetAnchorGeneType.vj == VJ.V)
-                        {
-                            // to allow for partial sequences, for V type anchor, i is the last base of
-                            // the anchor
-                            // ------------------------------------------- input DNA sequence
-                            //         ++++++++++    template anchor
-                            //                  |
-                            //                  i
-                            anchorPos = i - templateAnchorSeq.length + 1
-                        }
-                        else
-                        {
-                            // to allow for partial sequences, for J type anchor, i is the first base of
-                            // the anchor
-                            // ------------------------------------------- input DNA sequence
-                            //         ++++++++++    template anchor
-                            //         |
-                            //         i
-                            anchorPos = i
-                        }
-
-                        // make sure the anchor is long enough, for now we don't allow short anchors
-                        val anchorHomolog = tryMatchWithBlosum(targetAnchorGeneType, sequence, anchorPos,
-                            templateAnchorSeq, mode)
-
-                        if (anchorHomolog != null &&
-                            (bestMatch == null || anchorHomolog.similarityScore > bestMatch.similarityScore))
-                        {
-                            bestMatch = anchorHomolog
-                        }
+                        // to allow for partial sequences, for V type anchor, i is the last base of
+                        // the anchor
+                        // ------------------------------------------- input DNA sequence
+                        //         ++++++++++    template anchor
+                        //                  |
+                        //                  i
+                        anchorPos = i - template.sequence.length + 1
                     }
-                //}
+                    else
+                    {
+                        // to allow for partial sequences, for J type anchor, i is the first base of
+                        // the anchor
+                        // ------------------------------------------- input DNA sequence
+                        //         ++++++++++    template anchor
+                        //         |
+                        //         i
+                        anchorPos = i
+                    }
+
+                    // make sure the anchor is long enough, for now we don't allow short anchors
+                    val anchorHomolog = tryMatchWithBlosum(targetAnchorGeneType, sequence, readAminoAcids, anchorPos,
+                        template, minScore(bestMatch, mode))
+
+                    if (anchorHomolog != null &&
+                        (bestMatch == null || anchorHomolog.similarityScore > bestMatch.similarityScore))
+                    {
+                        bestMatch = anchorHomolog
+                    }
+                }
             }
         }
 
         return bestMatch
     }
 
+    // lowest score of a match which would be returned
+    private fun minScore(bestMatch: AnchorBlosumMatch?, mode: IAnchorBlosumSearcher.Mode) : Int
+    {
+        if (bestMatch != null)
+        {
+            val minScore = bestMatch.similarityScore + 1
+            return if (mode == IAnchorBlosumSearcher.Mode.DISALLOW_NEG_SIMILARITY) Math.max(minScore, 0) else minScore
+        }
+
+        return if (mode == IAnchorBlosumSearcher.Mode.DISALLOW_NEG_SIMILARITY) 0 else Int.MIN_VALUE
+    }
+
     private fun tryMatchWithBlosum(
         geneType: VJGeneType,
         dnaSeq: String,
+        readAminoAcids: IntArray,
         inputAnchorStart: Int,
-        templateAnchorSeq: String,
-        mode: IAnchorBlosumSearcher.Mode) : AnchorBlosumMatch?
+        template: AnchorSeedIndex.TemplateAnchor,
+        minScore: Int) : AnchorBlosumMatch?
     {
+        val templateAnchorSeq = template.sequence
         var anchorStart = inputAnchorStart
         var anchorEnd = inputAnchorStart + templateAnchorSeq.length
-        var trimmedTemplateAnchorSeq = templateAnchorSeq
+        var leftTrim = 0
+        var rightTrim = 0
 
         // we want to deal with partial sequence matches, by trimming the
         // template anchor to be same size as the input anchor
@@ -149,9 +177,8 @@ class AnchorBlosumSearcher(
             // since we are searching backwards in the sequence, we just have to deal
             // with partial anchor match, and we want to make sure the full length
             // is multiple of 3
-            val leftTrim: Int = roundUpToMultiple(-anchorStart, 3)
+            leftTrim = roundUpToMultiple(-anchorStart, 3)
             anchorStart += leftTrim
-            trimmedTemplateAnchorSeq = trimmedTemplateAnchorSeq.substring(leftTrim)
         }
 
         if (anchorEnd >= dnaSeq.length)
@@ -162,17 +189,17 @@ class AnchorBlosumSearcher(
                 return null
             }
 
-            val rightTrim = roundUpToMultiple(anchorEnd - dnaSeq.length, 3)
+            rightTrim = roundUpToMultiple(anchorEnd - dnaSeq.length, 3)
             anchorEnd -= rightTrim
-            trimmedTemplateAnchorSeq = trimmedTemplateAnchorSeq.dropLast(rightTrim)
         }
 
-        val potentialAnchor: String = dnaSeq.substring(anchorStart, anchorEnd)
+        val anchorLength = anchorEnd - anchorStart
+        val trimmedTemplateLength = templateAnchorSeq.length - leftTrim - rightTrim
 
-        assert(trimmedTemplateAnchorSeq.length == potentialAnchor.length)
+        assert(trimmedTemplateLength == anchorLength)
 
-        if (trimmedTemplateAnchorSeq.length < templateAnchorSeq.length &&
-            potentialAnchor.length < minPartialAnchorBaseLength)
+        if (trimmedTemplateLength < templateAnchorSeq.length &&
+            anchorLength < minPartialAnchorBaseLength)
         {
             // partial and not enough amino acids
             return null
@@ -180,9 +207,35 @@ class AnchorBlosumSearcher(
 
         if (anchorStart >= 0 && anchorEnd <= dnaSeq.length)
         {
-            val score: Int = BlosumSimilarityCalc.calcSimilarityScore(geneType.vj, trimmedTemplateAnchorSeq, potentialAnchor)
+            val aminoAcidCount = anchorLength / 3
+            val maxScore = CiderConstants.MAX_BLOSUM_DIFF_PER_AA * aminoAcidCount - CiderConstants.BLOSUM_SIMILARITY_SCORE_CONSTANT
+            var score: Int? = null
+
+            if (template.aminoAcids != null)
+            {
+                // score from the encoded amino acids, giving up once the score cannot reach the min score
+                val maxDistance = if (minScore == Int.MIN_VALUE) Int.MAX_VALUE else maxScore - minScore
+
+                val distance = AnchorSeedIndex.calcDistance(template.aminoAcids, leftTrim / 3, readAminoAcids, anchorStart,
+                    aminoAcidCount, maxDistance)
+
+                if (distance != AnchorSeedIndex.UNENCODED_DISTANCE)
+                {
+                    if (distance > maxDistance)
+                        return null
+
+                    score = maxScore - distance
+                }
+            }
+
+            if (score == null)
+            {
+                // unknown bases are handled by the full calculation
+                val trimmedTemplateAnchorSeq = templateAnchorSeq.substring(leftTrim, templateAnchorSeq.length - rightTrim)
+                score = BlosumSimilarityCalc.calcSimilarityScore(geneType.vj, trimmedTemplateAnchorSeq, dnaSeq.substring(anchorStart, anchorEnd))
+            }
 
-            if (score >= 0 || mode == IAnchorBlosumSearcher.Mode.ALLOW_NEG_SIMILARITY)
+            if (score >= minScore)
             {
                 val templateGenes: ImmutableCollection<VJAnchorTemplate> = ciderGeneDatastore.getByAnchorSequence(geneType, templateAnchorSeq)
                 val anchorBlosumMatch = AnchorBlosumMatch(anchorStart = anchorStart, anchorEnd = anchorEnd,
@@ -0,0 +1,185 @@
+package com.hartwig.hmftools.cider
+
+import com.hartwig.hmftools.common.aminoacid.BlosumMapping
+import com.hartwig.hmftools.common.codon.Codons
+
+// amino acid seed index over the template anchor sequences of a gene type, built once by the gene datastore
+//
+// the BLOSUM distance between a template anchor and a read is the sum over their amino acids of
+// self(template AA) - map(template AA, read AA), and every term is non-negative. If the anchor is split into blocks
+// of 2 amino acids, an anchor within distance D of the template must have a block within D / numBlocks of it. So for
+// each block position, every amino acid pair close enough to a template's block seeds that template, and the
+// anchor searcher only needs to score the seeded templates at each read offset
+class AnchorSeedIndex(templateAnchorSeqs: Collection<String>)
+{
+    class TemplateAnchor(val sequence: String, val aminoAcids: IntArray?) // amino acids are null if cannot be encoded
+    {
+        val aminoAcidCount = sequence.length / 3
+
+        // distance at which the similarity score of the full anchor falls below 0
+        val maxDistance = CiderConstants.MAX_BLOSUM_DIFF_PER_AA * aminoAcidCount - CiderConstants.BLOSUM_SIMILARITY_SCORE_CONSTANT
+    }
+
+    // templates of the same length share window positions at each read offset
+    private class LengthGroup(val length: Int, val templateIndices: IntArray, val blockCount: Int)
+    {
+        // templates seeded by each amino acid pair code at each block position
+        val seeds: Array<Array<IntArray>> = Array(blockCount) { Array(PAIR_CODE_COUNT) { IntArray(0) } }
+
+        // templates which are not seeded are always scored
+        var unseededTemplates = IntArray(0)
+    }
+
+    // in the order of the template anchor sequence set, which decides between equally scoring matches
+    val templates: List<TemplateAnchor> = templateAnchorSeqs.map { TemplateAnchor(it, encodeAminoAcids(it)) }
+
+    private val mLengthGroups: List<LengthGroup>
+
+    init
+    {
+        mLengthGroups = templates.indices.groupBy { templates[it].sequence.length }.map { (length, indices) ->
+            val group = LengthGroup(length, indices.toIntArray(), length / 3 / SEED_LENGTH)
+            val seedLists = Array(group.blockCount) { Array(PAIR_CODE_COUNT) { ArrayList<Int>() } }
+            val unseeded = ArrayList<Int>()
+
+            for (templateIndex in indices)
+            {
+                val template = templates[templateIndex]
+                val templateAminoAcids = template.aminoAcids
+
+                if (templateAminoAcids == null || group.blockCount == 0 || template.maxDistance < 0 || !sTermsNonNegative)
+                {
+                    unseeded.add(templateIndex)
+                    continue
+                }
+
+                val maxBlockDistance = template.maxDistance / group.blockCount
+
+                for (block in 0 until group.blockCount)
+                {
+                    val templateAa1 = templateAminoAcids[block * SEED_LENGTH]
+                    val templateAa2 = templateAminoAcids[block * SEED_LENGTH + 1]
+
+                    for (pairCode in 0 until PAIR_CODE_COUNT)
+                    {
+                        val blockDistance = sDistanceTerms[templateAa1][pairCode / AMINO_ACID_COUNT] +
+                                sDistanceTerms[templateAa2][pairCode % AMINO_ACID_COUNT]
+
+                        if (blockDistance <= maxBlockDistance)
+                            seedLists[block][pairCode].add(templateIndex)
+                    }
+                }
+            }
+
+            for (block in 0 until group.blockCount)
+            {
+                for (pairCode in 0 until PAIR_CODE_COUNT)
+                {
+                    group.seeds[block][pairCode] = seedLists[block][pairCode].toIntArray()
+                }
+            }
+
+            group.unseededTemplates = unseeded.toIntArray()
+            group
+        }
+    }
+
+    // mark the templates which can match at this read offset with a non-negative score. Windows which are cut off by the
+    // end of the read or contain amino acids which cannot be encoded mark all of their templates
+    fun markCandidates(readAminoAcids: IntArray, readLength: Int, offset: Int, vj: VJ, candidates: BooleanArray)
+    {
+        for (group in mLengthGroups)
+        {
+            val anchorStart = if (vj == VJ.V) offset - group.length + 1 else offset
+
+            if (anchorStart < 0 || anchorStart + group.length >= readLength || !markSeeded(group, readAminoAcids, anchorStart, candidates))
+            {
+                for (templateIndex in group.templateIndices)
+                    candidates[templateIndex] = true
+            }
+        }
+    }
+
+    private fun markSeeded(group: LengthGroup, readAminoAcids: IntArray, anchorStart: Int, candidates: BooleanArray) : Boolean
+    {
+        for (templateIndex in group.templateIndices)
+            candidates[templateIndex] = false
+
+        for (block in 0 until group.blockCount)
+        {
+            val readPos = anchorStart + block * SEED_LENGTH * 3
+            val aa1 = readAminoAcids[readPos]
+            val aa2 = readAminoAcids[readPos + 3]
+
+            if (aa1 < 0 || aa2 < 0)
+                return false
+
+            for (templateIndex in group.seeds[block][aa1 * AMINO_ACID_COUNT + aa2])
+                candidates[templateIndex] = true
+        }
+
+        for (templateIndex in group.unseededTemplates)
+            candidates[templateIndex] = true
+
+        return true
+    }
+
+    companion object
+    {
+        const val SEED_LENGTH = 2
+
+        // distance returned when the read window contains an amino acid which cannot be encoded
+        const val UNENCODED_DISTANCE = Int.MIN_VALUE
+
+        private val AMINO_ACID_COUNT = BlosumMapping.AMINO_ACIDS.size
+        private val PAIR_CODE_COUNT = AMINO_ACID_COUNT * AMINO_ACID_COUNT
+
+        // distance term for template amino acid against read amino acid
+        private val sDistanceTerms: Array<IntArray> = Array(AMINO_ACID_COUNT) { templateAa ->
+            val templateAaChar = BlosumMapping.AMINO_ACIDS[templateAa]
+            IntArray(AMINO_ACID_COUNT) { readAa ->
+                BlosumSimilarityCalc.blosumMapping.selfMapping(templateAaChar) -
+                    BlosumSimilarityCalc.blosumMapping.map(templateAaChar, BlosumMapping.AMINO_ACIDS[readAa])
+            }
+        }
+
+        // seeding and stopping early both rely on this, which holds for BLOSUM62
+        private val sTermsNonNegative = sDistanceTerms.all { row -> row.all { it >= 0 } }
+
+        // amino acid code of the codon starting at each base, or -1 if it contains an unknown base
+        @JvmStatic
+        fun encodeCodons(sequence: String) : IntArray
+        {
+            return IntArray(Math.max(sequence.length - 2, 0)) { i -> BlosumMapping.aminoAcidIndex(Codons.codonToAminoAcid(sequence, i)) }
+        }
+
+        private fun encodeAminoAcids(templateSeq: String) : IntArray?
+        {
+            val aminoAcids = IntArray(templateSeq.length / 3) { i -> BlosumMapping.aminoAcidIndex(Codons.codonToAminoAcid(templateSeq, i * 3)) }
+            return if (aminoAcids.all { it >= 0 }) aminoAcids else null
+        }
+
+        // BLOSUM distance of the read's codons from the template's amino acids, stopping early once beyond the max distance
+        @JvmStatic
+        fun calcDistance(templateAminoAcids: IntArray, templateAaOffset: Int, readAminoAcids: IntArray, readStart: Int,
+                         aminoAcidCount: Int, maxDistance: Int) : Int
+        {
+            var distance = 0
+
+            for (i in 0 until aminoAcidCount)
+            {
+                val readAa = readAminoAcids[readStart + i * 3]
+
+                if (readAa < 0)
+                    return UNENCODED_DISTANCE
+
+                distance += sDistanceTerms[templateAminoAcids[templateAaOffset + i]][readAa]
+
+                if (distance > maxDistance && sTermsNonNegative)
+                    return distance
+            }
+
+            return distance
+        }
+    }
+}
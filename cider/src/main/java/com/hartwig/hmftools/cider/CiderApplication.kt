@@ -10,6 +10,7 @@ import com.hartwig.hmftools.cider.VDJSequenceTsvWriter.writeVDJSequences
 import com.hartwig.hmftools.cider.blastn.BlastnAnnotation
 import com.hartwig.hmftools.cider.blastn.BlastnAnnotator
 import com.hartwig.hmftools.cider.blastn.BlastnStatus
+import com.hartwig.hmftools.cider.blastn.RefGenomeRegionAligner
 import com.hartwig.hmftools.cider.genes.IgTcrConstantDiversityRegion
 import com.hartwig.hmftools.cider.primer.*
 import com.hartwig.hmftools.common.genome.region.GenomeRegion
@@ -115,7 +116,7 @@ class CiderApplication
         val vdjAnnotator = VdjAnnotator(vjReadLayoutAdaptor, vdjBuilderBlosumSearcher)
         val blastnAnnotations: Collection<BlastnAnnotation>
 
-        if (mParams.blast != null)
+        if (mParams.blast != null || mParams.blastRefGenomeRegions != null)
         {
             // we need to filter out VDJ sequences that already match reference. In this version we avoid running blastn on those
             val filteredVdjs = vdjSequences.filter { vdj -> !vdjAnnotator.vdjMatchesRef(vdj) }
@@ -124,7 +125,16 @@ class CiderApplication
             System.gc()
 
             val blastnAnnotator = BlastnAnnotator()
-            blastnAnnotations = blastnAnnotator.runAnnotate(mParams.sampleId, mParams.blast!!, mParams.blastDb!!, filteredVdjs, mParams.outputDir, mParams.threadCount)
+
+            blastnAnnotations = if (mParams.blastRefGenomeRegions != null)
+            {
+                val aligner = RefGenomeRegionAligner.fromTsv(mParams.blastRefGenomeRegions!!)
+                blastnAnnotator.runAnnotate(mParams.sampleId, aligner, filteredVdjs, mParams.outputDir, mParams.threadCount)
+            }
+            else
+            {
+                blastnAnnotator.runAnnotate(mParams.sampleId, mParams.blast!!, mParams.blastDb!!, filteredVdjs, mParams.outputDir, mParams.threadCount)
+            }
         }
         else
         {
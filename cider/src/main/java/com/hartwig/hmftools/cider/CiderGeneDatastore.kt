@@ -11,6 +11,7 @@ import java.util.stream.Collectors
 interface ICiderGeneDatastore
 {
     fun getAnchorSequenceSet(geneType: VJGeneType): Set<String>
+    fun getAnchorSeedIndex(geneType: VJGeneType): AnchorSeedIndex
     fun getByAnchorSequence(anchorSeq: String): ImmutableCollection<VJAnchorTemplate>
     fun getByAnchorSequence(geneType: VJGeneType, anchorSeq: String): ImmutableCollection<VJAnchorTemplate>
     fun getByGeneLocation(genomicLocation: GenomicLocation): ImmutableCollection<VJAnchorTemplate>
@@ -25,6 +26,7 @@ open class CiderGeneDatastore(vjAnchorTemplates: List<VJAnchorTemplate>, igTcrCo
     // all of the data here are immutable, so we access them from multiple threads.
     private val mAnchorSequenceMap: ImmutableMultimap<String, VJAnchorTemplate>
     private val mGeneTypeAnchorSeqMap: ImmutableMap<VJGeneType, ImmutableMultimap<String, VJAnchorTemplate>>
+    private val mGeneTypeAnchorSeedIndex: ImmutableMap<VJGeneType, AnchorSeedIndex>
     private val mGeneLocationTemplateMap: ImmutableMultimap<GenomicLocation, VJAnchorTemplate>
     private val mVjAnchorGenomeLocations: ImmutableList<VJAnchorGenomeLocation>
     private val mIgTcrConstantDiversityRegions: ImmutableList<IgTcrConstantDiversityRegion>
@@ -35,6 +37,11 @@ open class CiderGeneDatastore(vjAnchorTemplates: List<VJAnchorTemplate>, igTcrCo
         return if (anchorSeqMap != null) anchorSeqMap.keySet() else ImmutableSet.of()
     }
 
+    override fun getAnchorSeedIndex(geneType: VJGeneType): AnchorSeedIndex
+    {
+        return mGeneTypeAnchorSeedIndex[geneType]!!
+    }
+
     override fun getByAnchorSequence(anchorSeq: String): ImmutableCollection<VJAnchorTemplate>
     {
         return mAnchorSequenceMap[anchorSeq]
@@ -104,6 +111,9 @@ open class CiderGeneDatastore(vjAnchorTemplates: List<VJAnchorTemplate>, igTcrCo
                     { entry -> ImmutableMultimap.copyOf(entry.value) }
                 )))
 
+        // built once here, the seed index is only read when searching for anchors
+        mGeneTypeAnchorSeedIndex = Maps.immutableEnumMap(VJGeneType.values().associateWith { AnchorSeedIndex(getAnchorSequenceSet(it)) })
+
         mGeneLocationTemplateMap = ImmutableMultimap.copyOf(geneLocationVJGeneMap)
 
         mVjAnchorGenomeLocations =
@@ -75,6 +75,10 @@ class CiderParams
     @Parameter(names = ["-blast_db"], description = "Location of blast database")
     var blastDb: String? = null
 
+    @Parameter(names = ["-blast_ref_genome_regions"],
+        description = "TSV file of ref genome regions from the ref genome extractor. VDJ sequences are aligned to these regions in process instead of running blastn")
+    var blastRefGenomeRegions: String? = null
+
     val isValid: Boolean get()
     {
         if (blast != null && blastDb == null)
@@ -87,6 +91,11 @@ class CiderParams
             sLogger.error("invalid parameters: requires -blast if -blast_db is configured")
             return false
         }
+        if (blast != null && blastRefGenomeRegions != null)
+        {
+            sLogger.error("invalid parameters: -blast and -blast_ref_genome_regions cannot both be configured")
+            return false
+        }
         return true
     }
 
@@ -0,0 +1,678 @@
+package com.hartwig.hmftools.cider.blastn
+
+import com.google.common.collect.ArrayListMultimap
+import com.google.common.collect.Multimap
+import com.google.common.util.concurrent.ThreadFactoryBuilder
+import com.hartwig.hmftools.cider.blastn.BlastnRunner.GAP_EXTEND_SCORE
+import com.hartwig.hmftools.cider.blastn.BlastnRunner.GAP_OPENING_SCORE
+import com.hartwig.hmftools.cider.blastn.BlastnRunner.MATCH_SCORE
+import com.hartwig.hmftools.cider.blastn.BlastnRunner.MISMATCH_SCORE
+import com.hartwig.hmftools.cider.blastn.BlastnRunner.WORD_SIZE
+import com.hartwig.hmftools.common.genome.region.Strand
+import htsjdk.samtools.util.SequenceUtil
+import org.apache.logging.log4j.LogManager
+import java.time.Duration
+import java.time.Instant
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import kotlin.math.exp
+import kotlin.math.ln
+import kotlin.math.max
+import kotlin.math.min
+import kotlin.math.roundToInt
+
+// in process replacement for running blastn against the whole genome. Aligns the VDJ sequences to the reference genome regions
+// collated by the ref genome extractor, using the same seed and extend approach and scoring as blastn:
+// exact word matches on either strand are extended both ways with a banded affine gap alignment, and the resulting HSPs are
+// scored with the Karlin-Altschul statistics of the blastn search space, so the expected values and bit scores can be used
+// with the same thresholds as the blastn matches
+class RefGenomeRegionAligner(regions: List<RefGenomeRegion>)
+{
+    private class Hsp(
+        val regionIndex: Int,
+        val queryStart: Int,
+        val queryEnd: Int, // exclusive
+        val subjectStart: Int, // offset into the region
+        val subjectEnd: Int, // exclusive
+        val score: Int,
+        val ops: ByteArray)
+
+    private class Extension(val score: Int, val queryLength: Int, val subjectLength: Int, val ops: ByteArray)
+
+    private val mRegions: List<RefGenomeRegion> = regions.toList()
+
+    // region bases encoded and concatenated
+    private val mBases: ByteArray
+    private val mRegionOffsets: IntArray
+
+    // positions in the concatenated bases of each word, in compressed sparse row form
+    private val mWordStarts: IntArray
+    private val mWordPositions: IntArray
+
+    init
+    {
+        mRegionOffsets = IntArray(mRegions.size + 1)
+
+        for (i in mRegions.indices)
+        {
+            mRegionOffsets[i + 1] = mRegionOffsets[i] + mRegions[i].sequence.length
+        }
+
+        mBases = ByteArray(mRegionOffsets[mRegions.size])
+
+        for (i in mRegions.indices)
+        {
+            encodeBases(mRegions[i].sequence, mBases, mRegionOffsets[i])
+        }
+
+        // count the words first, then fill in their positions
+        mWordStarts = IntArray(WORD_COUNT + 1)
+        forEachWord { word, _ -> ++mWordStarts[word + 1] }
+
+        for (word in 0 until WORD_COUNT)
+        {
+            mWordStarts[word + 1] += mWordStarts[word]
+        }
+
+        mWordPositions = IntArray(mWordStarts[WORD_COUNT])
+        val fillCounts = IntArray(WORD_COUNT)
+        forEachWord { word, pos -> mWordPositions[mWordStarts[word] + fillCounts[word]++] = pos }
+
+        sLogger.info("indexed {} ref genome regions, {} bases", mRegions.size, mBases.size)
+    }
+
+    // equivalent of BlastnRunner.runBlastn, with the alignments of each sequence run in parallel
+    fun alignAll(vdjSequences: Map<Int, String>, numThreads: Int, expectedValueCutoff: Double = 1.0) : Multimap<Int, BlastnMatch>
+    {
+        val results: Multimap<Int, BlastnMatch> = ArrayListMultimap.create()
+
+        if (vdjSequences.isEmpty())
+        {
+            return results
+        }
+
+        val start = Instant.now()
+
+        sLogger.info("aligning {} sequences to ref genome regions", vdjSequences.size)
+
+        val namedThreadFactory = ThreadFactoryBuilder().setNameFormat("aligner-%d").build()
+        val executorService = Executors.newFixedThreadPool(max(numThreads, 1), namedThreadFactory)
+
+        try
+        {
+            val futures = ArrayList<Pair<Int, Future<List<BlastnMatch>>>>()
+
+            for ((key, querySeq) in vdjSequences)
+            {
+                futures.add(Pair(key, executorService.submit(Callable { align(querySeq, expectedValueCutoff) })))
+            }
+
+            for ((key, future) in futures)
+            {
+                results.putAll(key, future.get())
+            }
+        }
+        finally
+        {
+            // we must do this to make sure application will exit on exception
+            executorService.shutdown()
+        }
+
+        val timeTakenMs = Duration.between(start, Instant.now()).toMillis()
+        sLogger.info("alignment complete, {} matches, time taken: {}ms", results.size(), timeTakenMs)
+
+        return results
+    }
+
+    // matches of the query sequence in the same form as blastn output, sorted by expected value
+    fun align(querySeq: String, expectedValueCutoff: Double = 1.0) : List<BlastnMatch>
+    {
+        val queryLength = querySeq.length
+        val matches = ArrayList<BlastnMatch>()
+
+        for (strand in Strand.values())
+        {
+            // reverse strand matches are found by aligning the reverse complement of the query to the forward strand
+            val orientedQuery = if (strand == Strand.FORWARD) querySeq else SequenceUtil.reverseComplement(querySeq)
+            val queryBases = ByteArray(queryLength)
+            encodeBases(orientedQuery, queryBases, 0)
+
+            for (hsp in findHsps(queryBases))
+            {
+                val expectedValue = calcExpectedValue(hsp.score, queryLength)
+
+                if (expectedValue <= expectedValueCutoff)
+                {
+                    matches.add(toBlastnMatch(hsp, strand, orientedQuery, expectedValue))
+                }
+            }
+        }
+
+        // blastn reports the query coverage of all the HSPs of each subject
+        val coveredBases = HashMap<String, BooleanArray>()
+
+        for (match in matches)
+        {
+            coveredBases.getOrPut(match.subjectTitle) { BooleanArray(queryLength) }
+                .fill(true, match.queryAlignStart - 1, match.queryAlignEnd)
+        }
+
+        return matches.map { match ->
+            val covered = coveredBases[match.subjectTitle]!!.count { it }
+            match.copy(queryCoverage = (100.0 * covered / queryLength).roundToInt().toDouble())
+        }.sortedWith(compareBy<BlastnMatch> { it.expectedValue }.thenByDescending { it.bitScore }
+            .thenBy { it.subjectTitle }.thenBy { it.subjectAlignStart })
+    }
+
+    private fun findHsps(queryBases: ByteArray) : List<Hsp>
+    {
+        val hsps = ArrayList<Hsp>()
+        val queryLength = queryBases.size
+
+        // query end of the HSP last extended from each diagonal
+        val diagonalExtendedEnds = HashMap<Int, Int>()
+
+        var word = 0
+        var validBases = 0
+
+        for (queryEnd in 0 until queryLength)
+        {
+            val base = queryBases[queryEnd].toInt()
+
+            if (base == UNKNOWN_BASE)
+            {
+                validBases = 0
+                continue
+            }
+
+            word = ((word shl 2) or base) and WORD_MASK
+
+            if (++validBases < WORD_SIZE)
+                continue
+
+            val queryPos = queryEnd - WORD_SIZE + 1
+
+            for (i in mWordStarts[word] until mWordStarts[word + 1])
+            {
+                val pos = mWordPositions[i]
+                val diagonal = pos - queryPos
+
+                // a seed within the span already extended from its diagonal is part of that alignment, and would extend
+                // to the same HSP
+                val extendedEnd = diagonalExtendedEnds[diagonal]
+
+                if (extendedEnd != null && queryPos + WORD_SIZE <= extendedEnd)
+                    continue
+
+                val regionIndex = findRegion(pos)
+                val hsp = extendSeed(queryBases, regionIndex, queryPos, pos - mRegionOffsets[regionIndex])
+                hsps.add(hsp)
+                diagonalExtendedEnds[diagonal] = hsp.queryEnd
+            }
+        }
+
+        return cullContainedHsps(hsps)
+    }
+
+    private fun extendSeed(queryBases: ByteArray, regionIndex: Int, queryPos: Int, subjectPos: Int) : Hsp
+    {
+        val regionStart = mRegionOffsets[regionIndex]
+        val regionEnd = mRegionOffsets[regionIndex + 1]
+        val seedSubjectStart = regionStart + subjectPos
+        val seedSubjectEnd = seedSubjectStart + WORD_SIZE
+        val queryLength = queryBases.size
+
+        // extend to the left by aligning the reversed sequences before the seed
+        val leftSubjectStart = max(regionStart, seedSubjectStart - queryPos - EXTENSION_BAND)
+        val left = extend(
+            ByteArray(queryPos) { queryBases[queryPos - 1 - it] },
+            ByteArray(seedSubjectStart - leftSubjectStart) { mBases[seedSubjectStart - 1 - it] })
+
+        val rightQueryStart = queryPos + WORD_SIZE
+        val rightSubjectEnd = min(regionEnd, seedSubjectEnd + queryLength - rightQueryStart + EXTENSION_BAND)
+        val right = extend(
+            queryBases.copyOfRange(rightQueryStart, queryLength),
+            mBases.copyOfRange(seedSubjectEnd, rightSubjectEnd))
+
+        val ops = ByteArray(left.ops.size + WORD_SIZE + right.ops.size)
+
+        for (i in left.ops.indices)
+        {
+            ops[i] = left.ops[left.ops.size - 1 - i]
+        }
+
+        ops.fill(OP_ALIGNED, left.ops.size, left.ops.size + WORD_SIZE)
+        right.ops.copyInto(ops, left.ops.size + WORD_SIZE)
+
+        return Hsp(
+            regionIndex,
+            queryPos - left.queryLength,
+            rightQueryStart + right.queryLength,
+            subjectPos - left.subjectLength,
+            subjectPos + WORD_SIZE + right.subjectLength,
+            WORD_SIZE * MATCH_SCORE + left.score + right.score,
+            ops)
+    }
+
+    private fun toBlastnMatch(hsp: Hsp, strand: Strand, orientedQuery: String, expectedValue: Double) : BlastnMatch
+    {
+        val region = mRegions[hsp.regionIndex]
+        val queryAligned = StringBuilder(hsp.ops.size)
+        val subjectAligned = StringBuilder(hsp.ops.size)
+        var queryIndex = hsp.queryStart
+        var subjectIndex = hsp.subjectStart
+        var numIdentities = 0
+        var numMismatch = 0
+        var numGapOpenings = 0
+        var prevOp: Byte = OP_ALIGNED
+
+        for (op in hsp.ops)
+        {
+            when (op)
+            {
+                OP_ALIGNED ->
+                {
+                    val queryBase = orientedQuery[queryIndex++].uppercaseChar()
+                    val subjectBase = region.sequence[subjectIndex++].uppercaseChar()
+                    queryAligned.append(queryBase)
+                    subjectAligned.append(subjectBase)
+
+                    if (queryBase == subjectBase && encodeBase(queryBase) != UNKNOWN_BASE)
+                        ++numIdentities
+                    else
+                        ++numMismatch
+                }
+                OP_INSERT ->
+                {
+                    queryAligned.append(orientedQuery[queryIndex++].uppercaseChar())
+                    subjectAligned.append('-')
+                }
+                else ->
+                {
+                    queryAligned.append('-')
+                    subjectAligned.append(region.sequence[subjectIndex++].uppercaseChar())
+                }
+            }
+
+            if (op != OP_ALIGNED && op != prevOp)
+                ++numGapOpenings
+
+            prevOp = op
+        }
+
+        val queryLength = orientedQuery.length
+        val alignmentLength = hsp.ops.size
+        val percentageIdent = Math.round(100_000.0 * numIdentities / alignmentLength) / 1000.0
+
+        // blastn reports the query on its forward strand, and reverse strand subject coordinates from high to low
+        return if (strand == Strand.FORWARD)
+        {
+            BlastnMatch(
+                queryLength, region.contig, percentageIdent, 0.0, alignmentLength, numMismatch, numGapOpenings,
+                hsp.queryStart + 1, hsp.queryEnd,
+                region.start + hsp.subjectStart, region.start + hsp.subjectEnd - 1,
+                strand, expectedValue, calcBitScore(hsp.score),
+                queryAligned.toString(), subjectAligned.toString())
+        }
+        else
+        {
+            BlastnMatch(
+                queryLength, region.contig, percentageIdent, 0.0, alignmentLength, numMismatch, numGapOpenings,
+                queryLength - hsp.queryEnd + 1, queryLength - hsp.queryStart,
+                region.start + hsp.subjectEnd - 1, region.start + hsp.subjectStart,
+                strand, expectedValue, calcBitScore(hsp.score),
+                reverseComplementAligned(queryAligned), reverseComplementAligned(subjectAligned))
+        }
+    }
+
+    private fun findRegion(pos: Int) : Int
+    {
+        var low = 0
+        var high = mRegions.size - 1
+
+        while (low < high)
+        {
+            val mid = (low + high + 1) ushr 1
+
+            if (mRegionOffsets[mid] <= pos)
+                low = mid
+            else
+                high = mid - 1
+        }
+
+        return low
+    }
+
+    // calls the action with each word and its position that does not cross a region boundary or contain an unknown base
+    private inline fun forEachWord(action: (Int, Int) -> Unit)
+    {
+        for (regionIndex in mRegions.indices)
+        {
+            var word = 0
+            var validBases = 0
+
+            for (pos in mRegionOffsets[regionIndex] until mRegionOffsets[regionIndex + 1])
+            {
+                val base = mBases[pos].toInt()
+
+                if (base == UNKNOWN_BASE)
+                {
+                    validBases = 0
+                    continue
+                }
+
+                word = ((word shl 2) or base) and WORD_MASK
+
+                if (++validBases >= WORD_SIZE)
+                    action(word, pos - WORD_SIZE + 1)
+            }
+        }
+    }
+
+    companion object
+    {
+        private val sLogger = LogManager.getLogger(RefGenomeRegionAligner::class.java)
+
+        // Karlin-Altschul parameters blastn uses for 1/-4 scoring. The gap costs of 5/2 are large enough that blastn
+        // uses the ungapped values for them
+        const val LAMBDA = 1.383
+        const val K = 0.738
+
+        // approximate length of the GRCh38.p13 top level assembly which blastn searches, such that the expected values
+        // are of the whole genome search rather than of the much smaller collated regions
+        const val BLAST_DB_LENGTH = 3.2e9
+
+        // gaps can shift the alignment this far off the seed diagonal
+        const val EXTENSION_BAND = 16
+        private const val BAND_WIDTH = 2 * EXTENSION_BAND + 1
+
+        // stop extending once the best score cannot be reached again
+        const val EXTENSION_X_DROP = 30
+
+        private const val UNKNOWN_BASE = 4
+        private const val WORD_COUNT = 1 shl (2 * WORD_SIZE)
+        private const val WORD_MASK = WORD_COUNT - 1
+
+        private const val OP_ALIGNED: Byte = 0
+        private const val OP_INSERT: Byte = 1 // query base against a gap
+        private const val OP_DELETE: Byte = 2 // subject base against a gap
+
+        private const val NEG_INF = Int.MIN_VALUE / 2
+
+        // traceback of a cell: bits 0-1 are the source of the best score, bit 2 / 3 whether the deletion / insertion gap
+        // is extended rather than opened
+        private const val FROM_START = 0
+        private const val FROM_DIAGONAL = 1
+        private const val FROM_DELETE = 2
+        private const val FROM_INSERT = 3
+        private const val DELETE_EXTENDED = 4
+        private const val INSERT_EXTENDED = 8
+
+        fun fromCollator(refGenomeRegionCollator: RefGenomeRegionCollator) : RefGenomeRegionAligner
+        {
+            return RefGenomeRegionAligner(refGenomeRegionCollator.refGenomeRegions.values.flatten().map { it.refGenomeRegion })
+        }
+
+        fun fromTsv(refGenomeRegionsTsv: String) : RefGenomeRegionAligner
+        {
+            val refGenomeRegionCollator = RefGenomeRegionCollator()
+            refGenomeRegionCollator.readFromTsv(refGenomeRegionsTsv)
+            return fromCollator(refGenomeRegionCollator)
+        }
+
+        fun calcExpectedValue(score: Int, queryLength: Int) : Double
+        {
+            return K * queryLength * BLAST_DB_LENGTH * exp(-LAMBDA * score)
+        }
+
+        fun calcBitScore(score: Int) : Double
+        {
+            // blastn reports bit scores to 1 decimal place
+            return Math.round((LAMBDA * score - ln(K)) / ln(2.0) * 10) / 10.0
+        }
+
+        // best scoring alignment of the start of the query with the start of the subject, both already oriented in the
+        // direction of extension. Affine gaps are aligned within a band around the diagonal, and only the band of each row
+        // is kept for the traceback
+        private fun extend(query: ByteArray, subject: ByteArray) : Extension
+        {
+            val queryLength = query.size
+            val subjectLength = subject.size
+            val columns = subjectLength + 1
+            val traceback = ByteArray((queryLength + 1) * BAND_WIDTH)
+
+            var prevH = IntArray(columns) { NEG_INF }
+            var curH = IntArray(columns)
+            val deleteScores = IntArray(columns)
+            var prevInsert = IntArray(columns) { NEG_INF }
+            var curInsert = IntArray(columns)
+
+            var bestScore = 0
+            var bestQuery = 0
+            var bestSubject = 0
+
+            for (i in 0 .. queryLength)
+            {
+                val bandStart = max(0, i - EXTENSION_BAND)
+                val bandEnd = min(subjectLength, i + EXTENSION_BAND)
+
+                // clear the band and the cells either side of it, which the band and the next row's band read from
+                val clearStart = max(0, bandStart - 1)
+                val clearEnd = min(columns, bandEnd + 2)
+                curH.fill(NEG_INF, clearStart, clearEnd)
+                curInsert.fill(NEG_INF, clearStart, clearEnd)
+                deleteScores.fill(NEG_INF, clearStart, clearEnd)
+
+                var rowBest = NEG_INF
+
+                for (j in bandStart .. bandEnd)
+                {
+                    var trace = 0
+
+                    if (i == 0 && j == 0)
+                    {
+                        curH[0] = 0
+                        rowBest = 0
+                        continue
+                    }
+
+                    // gap in the query, consuming a subject base
+                    if (j > 0)
+                    {
+                        val opened = curH[j - 1] + GAP_OPENING_SCORE + GAP_EXTEND_SCORE
+                        val extended = deleteScores[j - 1] + GAP_EXTEND_SCORE
+                        deleteScores[j] = max(opened, extended)
+
+                        if (extended > opened)
+                            trace = trace or DELETE_EXTENDED
+                    }
+
+                    // gap in the subject, consuming a query base
+                    if (i > 0)
+                    {
+                        val opened = prevH[j] + GAP_OPENING_SCORE + GAP_EXTEND_SCORE
+                        val extended = prevInsert[j] + GAP_EXTEND_SCORE
+                        curInsert[j] = max(opened, extended)
+
+                        if (extended > opened)
+                            trace = trace or INSERT_EXTENDED
+                    }
+
+                    var score = NEG_INF
+                    var source = FROM_START
+
+                    if (i > 0 && j > 0 && prevH[j - 1] > NEG_INF)
+                    {
+                        score = prevH[j - 1] + substitutionScore(query[i - 1].toInt(), subject[j - 1].toInt())
+                        source = FROM_DIAGONAL
+                    }
+
+                    if (deleteScores[j] > score)
+                    {
+                        score = deleteScores[j]
+                        source = FROM_DELETE
+                    }
+
+                    if (curInsert[j] > score)
+                    {
+                        score = curInsert[j]
+                        source = FROM_INSERT
+                    }
+
+                    // cells which fall too far below the best score are not extended from
+                    if (score < bestScore - EXTENSION_X_DROP)
+                        score = NEG_INF
+
+                    curH[j] = score
+                    traceback[bandIndex(i, j)] = (trace or source).toByte()
+                    rowBest = max(rowBest, score)
+
+                    if (score > bestScore)
+                    {
+                        bestScore = score
+                        bestQuery = i
+                        bestSubject = j
+                    }
+                }
+
+                if (rowBest == NEG_INF)
+                    break
+
+                var swap = prevH
+                prevH = curH
+                curH = swap
+                swap = prevInsert
+                prevInsert = curInsert
+                curInsert = swap
+            }
+
+            return Extension(bestScore, bestQuery, bestSubject, traceBack(traceback, bestQuery, bestSubject))
+        }
+
+        // index of a cell in the banded traceback, which holds the cells from EXTENSION_BAND before to after the diagonal
+        private fun bandIndex(i: Int, j: Int) : Int
+        {
+            return i * BAND_WIDTH + j - i + EXTENSION_BAND
+        }
+
+        private fun traceBack(traceback: ByteArray, queryEnd: Int, subjectEnd: Int) : ByteArray
+        {
+            val ops = ArrayList<Byte>()
+            var i = queryEnd
+            var j = subjectEnd
+            var state = FROM_DIAGONAL
+
+            while (i > 0 || j > 0)
+            {
+                val trace = traceback[bandIndex(i, j)].toInt()
+
+                when (state)
+                {
+                    FROM_DELETE ->
+                    {
+                        ops.add(OP_DELETE)
+                        --j
+                        if (trace and DELETE_EXTENDED == 0)
+                            state = FROM_DIAGONAL
+                    }
+                    FROM_INSERT ->
+                    {
+                        ops.add(OP_INSERT)
+                        --i
+                        if (trace and INSERT_EXTENDED == 0)
+                            state = FROM_DIAGONAL
+                    }
+                    else ->
+                    {
+                        when (trace and 3)
+                        {
+                            FROM_DIAGONAL ->
+                            {
+                                ops.add(OP_ALIGNED)
+                                --i
+                                --j
+                            }
+                            FROM_DELETE -> state = FROM_DELETE
+                            FROM_INSERT -> state = FROM_INSERT
+                            else -> throw IllegalStateException("invalid alignment traceback at ($i, $j)")
+                        }
+                    }
+                }
+            }
+
+            ops.reverse()
+            return ops.toByteArray()
+        }
+
+        // remove HSPs contained in one scoring at least as highly, such as those extended from other seeds of the same alignment.
+        // Sweeps along each region in subject order, so only the kept HSPs overlapping the current one are compared
+        private fun cullContainedHsps(hsps: List<Hsp>) : List<Hsp>
+        {
+            val sortedHsps = hsps.sortedWith(compareBy<Hsp> { it.regionIndex }.thenBy { it.subjectStart }
+                .thenByDescending { it.subjectEnd }.thenByDescending { it.score }
+                .thenBy { it.queryStart }.thenByDescending { it.queryEnd })
+
+            val culledHsps = ArrayList<Hsp>()
+            val activeHsps = ArrayList<Hsp>()
+
+            for (hsp in sortedHsps)
+            {
+                // HSPs ending before this one starts cannot contain it or any which follow
+                activeHsps.removeIf { it.regionIndex != hsp.regionIndex || it.subjectEnd <= hsp.subjectStart }
+
+                if (activeHsps.none { it.score >= hsp.score && isContained(hsp, it) })
+                {
+                    culledHsps.add(hsp)
+                    activeHsps.add(hsp)
+                }
+            }
+
+            return culledHsps
+        }
+
+        private fun isContained(hsp: Hsp, other: Hsp) : Boolean
+        {
+            return hsp.regionIndex == other.regionIndex &&
+                    hsp.queryStart >= other.queryStart && hsp.queryEnd <= other.queryEnd &&
+                    hsp.subjectStart >= other.subjectStart && hsp.subjectEnd <= other.subjectEnd
+        }
+
+        private fun substitutionScore(queryBase: Int, subjectBase: Int) : Int
+        {
+            return if (queryBase == subjectBase && queryBase != UNKNOWN_BASE) MATCH_SCORE else MISMATCH_SCORE
+        }
+
+        private fun encodeBase(base: Char) : Int
+        {
+            return when (base)
+            {
+                'A', 'a' -> 0
+                'C', 'c' -> 1
+                'G', 'g' -> 2
+                'T', 't' -> 3
+                else -> UNKNOWN_BASE
+            }
+        }
+
+        private fun encodeBases(sequence: String, bases: ByteArray, offset: Int)
+        {
+            for (i in sequence.indices)
+            {
+                bases[offset + i] = encodeBase(sequence[i]).toByte()
+            }
+        }
+
+        private fun reverseComplementAligned(aligned: StringBuilder) : String
+        {
+            val sb = StringBuilder(aligned.length)
+
+            for (i in aligned.indices.reversed())
+            {
+                sb.append(if (aligned[i] == '-') '-' else SequenceUtil.complement(aligned[i].code.toByte()).toInt().toChar())
+            }
+
+            return sb.toString()
+        }
+    }
+}
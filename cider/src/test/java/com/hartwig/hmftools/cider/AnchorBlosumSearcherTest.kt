@@ -1,5 +1,8 @@
 package com.hartwig.hmftools.cider
 
+import com.google.common.collect.ImmutableCollection
+import com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion
+import java.util.Random
 import kotlin.test.Test
 import kotlin.test.assertEquals
 import kotlin.test.assertNotEquals
@@ -149,4 +152,159 @@ class AnchorBlosumSearcherTest
         assertEquals(vAnchorSeq.drop(1), testSeq.substring(anchorBlosumMatch.anchorStart, anchorBlosumMatch.anchorEnd))
         //assertEquals(9, anchorBlosumMatch.similarityScore)
     }
-}
\ No newline at end of file
+
+    @Test
+    fun testSeedIndexMatchesExhaustiveSearch()
+    {
+        val geneDatastore = CiderGeneDatastore(CiderGeneDataLoader.loadAnchorTemplates(RefGenomeVersion.V38), emptyList())
+        val random = Random(1)
+        val reads = generateReads(random, geneDatastore, 300)
+
+        for (minPartialAnchorAaLength in listOf(CiderConstants.VDJ_MIN_PARTIAL_ANCHOR_AA_LENGTH, CiderConstants.CANDIDATE_MIN_PARTIAL_ANCHOR_AA_LENGTH))
+        {
+            val searcher = AnchorBlosumSearcher(geneDatastore, minPartialAnchorAaLength)
+            val exhaustiveSearcher = ExhaustiveAnchorBlosumSearcher(geneDatastore, minPartialAnchorAaLength)
+
+            for (read in reads)
+            {
+                for (mode in IAnchorBlosumSearcher.Mode.values())
+                {
+                    assertEquals(exhaustiveSearcher.searchForAnchor(read, mode), searcher.searchForAnchor(read, mode))
+
+                    // a single gene type over part of the read, as when searching from the other anchor of a read
+                    val geneTypes = listOf(VJGeneType.values()[random.nextInt(VJGeneType.values().size)])
+                    val startOffset = random.nextInt(read.length / 2)
+                    val endOffset = startOffset + random.nextInt(read.length - startOffset)
+
+                    assertEquals(exhaustiveSearcher.searchForAnchor(read, geneTypes, mode, startOffset, endOffset),
+                        searcher.searchForAnchor(read, geneTypes, mode, startOffset, endOffset))
+                }
+            }
+        }
+    }
+
+    companion object
+    {
+        private const val BASES = "ACGT"
+
+        // reads of the IG/TCR loci, most without an anchor, and the rest with a mutated anchor of any gene type which may
+        // run off either end of the read
+        fun generateReads(random: Random, geneDatastore: ICiderGeneDatastore, count: Int, readLength: Int = 151) : List<String>
+        {
+            val anchorSeqs = VJGeneType.values().flatMap { geneDatastore.getAnchorSequenceSet(it) }
+            val reads = ArrayList<String>()
+
+            for (r in 0 until count)
+            {
+                val read = StringBuilder()
+
+                for (i in 0 until readLength)
+                {
+                    read.append(BASES[random.nextInt(BASES.length)])
+                }
+
+                if (random.nextInt(3) == 0)
+                {
+                    val anchorSeq = anchorSeqs[random.nextInt(anchorSeqs.size)]
+                    val anchorPos = random.nextInt(readLength + anchorSeq.length) - anchorSeq.length
+
+                    for (i in anchorSeq.indices)
+                    {
+                        if (anchorPos + i in 0 until readLength)
+                            read.setCharAt(anchorPos + i, if (random.nextInt(20) == 0) BASES[random.nextInt(BASES.length)] else anchorSeq[i])
+                    }
+                }
+
+                // unknown bases are scored separately
+                if (random.nextInt(10) == 0)
+                    read.setCharAt(random.nextInt(readLength), 'N')
+
+                reads.add(read.toString())
+            }
+
+            return reads
+        }
+    }
+}
+
+// the search before the seed index, which scores every template anchor at every offset
+class ExhaustiveAnchorBlosumSearcher(val ciderGeneDatastore: ICiderGeneDatastore, minPartialAnchorAminoAcidLength: Int)
+{
+    val minPartialAnchorBaseLength = minPartialAnchorAminoAcidLength * 3
+
+    fun searchForAnchor(readString: String, mode: IAnchorBlosumSearcher.Mode) : AnchorBlosumMatch?
+    {
+        return searchForAnchor(readString, VJGeneType.values().toList(), mode, 0, readString.length)
+    }
+
+    fun searchForAnchor(sequence: String, targetAnchorGeneTypes: Collection<VJGeneType>, mode: IAnchorBlosumSearcher.Mode,
+                        startOffset: Int, endOffset: Int) : AnchorBlosumMatch?
+    {
+        var bestMatch: AnchorBlosumMatch? = null
+
+        for (targetAnchorGeneType in targetAnchorGeneTypes)
+        {
+            for (i in startOffset until endOffset)
+            {
+                for (templateAnchorSeq in ciderGeneDatastore.getAnchorSequenceSet(targetAnchorGeneType))
+                {
+                    val anchorPos = if (targetAnchorGeneType.vj == VJ.V) i - templateAnchorSeq.length + 1 else i
+
+                    val anchorHomolog = tryMatchWithBlosum(targetAnchorGeneType, sequence, anchorPos, templateAnchorSeq, mode)
+
+                    if (anchorHomolog != null && (bestMatch == null || anchorHomolog.similarityScore > bestMatch.similarityScore))
+                    {
+                        bestMatch = anchorHomolog
+                    }
+                }
+            }
+        }
+
+        return bestMatch
+    }
+
+    private fun tryMatchWithBlosum(geneType: VJGeneType, dnaSeq: String, inputAnchorStart: Int, templateAnchorSeq: String,
+                                   mode: IAnchorBlosumSearcher.Mode) : AnchorBlosumMatch?
+    {
+        var anchorStart = inputAnchorStart
+        var anchorEnd = inputAnchorStart + templateAnchorSeq.length
+        var trimmedTemplateAnchorSeq = templateAnchorSeq
+
+        if (anchorStart < 0)
+        {
+            if (geneType.vj == VJ.J)
+                return null
+
+            val leftTrim: Int = roundUpToMultiple(-anchorStart, 3)
+            anchorStart += leftTrim
+            trimmedTemplateAnchorSeq = trimmedTemplateAnchorSeq.substring(leftTrim)
+        }
+
+        if (anchorEnd >= dnaSeq.length)
+        {
+            if (geneType.vj == VJ.V)
+                return null
+
+            val rightTrim = roundUpToMultiple(anchorEnd - dnaSeq.length, 3)
+            anchorEnd -= rightTrim
+            trimmedTemplateAnchorSeq = trimmedTemplateAnchorSeq.dropLast(rightTrim)
+        }
+
+        val potentialAnchor: String = dnaSeq.substring(anchorStart, anchorEnd)
+
+        if (trimmedTemplateAnchorSeq.length < templateAnchorSeq.length && potentialAnchor.length < minPartialAnchorBaseLength)
+            return null
+
+        if (anchorStart >= 0 && anchorEnd <= dnaSeq.length)
+        {
+            val score: Int = BlosumSimilarityCalc.calcSimilarityScore(geneType.vj, trimmedTemplateAnchorSeq, potentialAnchor)
+
+            if (score >= 0 || mode == IAnchorBlosumSearcher.Mode.ALLOW_NEG_SIMILARITY)
+            {
+                val templateGenes: ImmutableCollection<VJAnchorTemplate> = ciderGeneDatastore.getByAnchorSequence(geneType, templateAnchorSeq)
+                return AnchorBlosumMatch(anchorStart, anchorEnd, templateAnchorSeq, templateGenes, score)
+            }
+        }
+        return null
+    }
+}
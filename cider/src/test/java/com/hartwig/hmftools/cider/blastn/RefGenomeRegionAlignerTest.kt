@@ -0,0 +1,153 @@
+package com.hartwig.hmftools.cider.blastn
+
+import com.hartwig.hmftools.common.genome.region.Strand
+import htsjdk.samtools.util.SequenceUtil
+import org.junit.Test
+import java.util.Random
+import kotlin.test.assertEquals
+import kotlin.test.assertTrue
+
+class RefGenomeRegionAlignerTest
+{
+    private val contig = "Homo sapiens chromosome 14, GRCh38.p13 Primary Assembly"
+
+    // random region sequence, starting at position 1001
+    private val regionSeq = randomSequence(Random(0), 500)
+    private val aligner = RefGenomeRegionAligner(listOf(RefGenomeRegion(contig, 1001, 1501, regionSeq)))
+
+    @Test
+    fun testExactForwardMatch()
+    {
+        // query has unaligned bases on either side of 60 bases from the region
+        val querySeq = "ACGTTGCA" + regionSeq.substring(100, 160) + "TTTTGGGG"
+
+        val matches = aligner.align(querySeq)
+        assertEquals(1, matches.size)
+
+        val match = matches[0]
+        assertEquals(querySeq.length, match.querySeqLen)
+        assertEquals(contig, match.subjectTitle)
+        assertEquals(Strand.FORWARD, match.subjectFrame)
+        assertEquals(100.0, match.percentageIdent, 1e-6)
+        assertEquals(60, match.alignmentLength)
+        assertEquals(0, match.numMismatch)
+        assertEquals(0, match.numGapOpenings)
+        assertEquals(9, match.queryAlignStart)
+        assertEquals(68, match.queryAlignEnd)
+        assertEquals(1101, match.subjectAlignStart)
+        assertEquals(1160, match.subjectAlignEnd)
+        assertEquals(regionSeq.substring(100, 160), match.alignedPartOfQuerySeq)
+        assertEquals(regionSeq.substring(100, 160), match.alignedPartOfSubjectSeq)
+        assertEquals(Math.round(100.0 * 60 / 76), match.queryCoverage.toLong())
+        assertEquals(RefGenomeRegionAligner.calcExpectedValue(60, querySeq.length), match.expectedValue, 1e-20)
+        assertEquals(RefGenomeRegionAligner.calcBitScore(60), match.bitScore, 1e-6)
+    }
+
+    @Test
+    fun testReverseMatch()
+    {
+        val regionPart = regionSeq.substring(200, 260)
+        val querySeq = SequenceUtil.reverseComplement(regionPart)
+
+        val matches = aligner.align(querySeq)
+        assertEquals(1, matches.size)
+
+        // blastn reports the subject coordinates of reverse strand matches from high to low
+        val match = matches[0]
+        assertEquals(Strand.REVERSE, match.subjectFrame)
+        assertEquals(1, match.queryAlignStart)
+        assertEquals(60, match.queryAlignEnd)
+        assertEquals(1260, match.subjectAlignStart)
+        assertEquals(1201, match.subjectAlignEnd)
+        assertEquals(querySeq, match.alignedPartOfQuerySeq)
+        assertEquals(querySeq, match.alignedPartOfSubjectSeq)
+        val genomicLocation = match.toGenomicLocation()!!
+        assertEquals(1201, genomicLocation.posStart)
+        assertEquals(1260, genomicLocation.posEnd)
+    }
+
+    @Test
+    fun testMismatchAndGap()
+    {
+        // a mismatch 20 bases in and a 3 base deletion 40 bases in
+        val regionPart = regionSeq.substring(300, 380)
+        val mismatchBase = if (regionPart[20] == 'A') 'C' else 'A'
+        val querySeq = regionPart.substring(0, 20) + mismatchBase + regionPart.substring(21, 40) + regionPart.substring(43)
+
+        val matches = aligner.align(querySeq)
+        assertEquals(1, matches.size)
+
+        val match = matches[0]
+        assertEquals(80, match.alignmentLength)
+        assertEquals(1, match.numMismatch)
+        assertEquals(1, match.numGapOpenings)
+        assertEquals(Math.round(100_000.0 * 76 / 80) / 1000.0, match.percentageIdent, 1e-6)
+        assertEquals(1, match.queryAlignStart)
+        assertEquals(77, match.queryAlignEnd)
+        assertEquals(1301, match.subjectAlignStart)
+        assertEquals(1380, match.subjectAlignEnd)
+        assertEquals(regionPart.substring(0, 20) + mismatchBase + regionPart.substring(21, 40) + "---" + regionPart.substring(43),
+            match.alignedPartOfQuerySeq)
+        assertEquals(regionPart, match.alignedPartOfSubjectSeq)
+
+        // score of 76 matches, a mismatch and a gap of 3
+        assertEquals(RefGenomeRegionAligner.calcBitScore(76 - 4 - 5 - 2 * 3), match.bitScore, 1e-6)
+    }
+
+    @Test
+    fun testSeedsOfOneAlignment()
+    {
+        // mismatches every 15 bases leave many seeds on the diagonal, and a 2 base insertion shifts the rest onto another,
+        // all of which belong to the single alignment
+        val regionPart = StringBuilder(regionSeq.substring(20, 320))
+
+        for (i in 15 until regionPart.length step 15)
+        {
+            regionPart.setCharAt(i, if (regionPart[i] == 'A') 'C' else 'A')
+        }
+
+        val querySeq = regionPart.substring(0, 152) + "GT" + regionPart.substring(152)
+
+        val matches = aligner.align(querySeq)
+        assertEquals(1, matches.size)
+
+        val match = matches[0]
+        assertEquals(1, match.queryAlignStart)
+        assertEquals(302, match.queryAlignEnd)
+        assertEquals(1021, match.subjectAlignStart)
+        assertEquals(1320, match.subjectAlignEnd)
+        assertEquals(19, match.numMismatch)
+        assertEquals(1, match.numGapOpenings)
+    }
+
+    @Test
+    fun testShortMatchFiltered()
+    {
+        // too short a match cannot pass the expected value cut off of a genome wide search
+        val querySeq = regionSeq.substring(50, 65)
+        assertTrue(aligner.align(querySeq).isEmpty())
+        assertEquals(1, aligner.align(querySeq, 1e6).size)
+    }
+
+    @Test
+    fun testAlignAll()
+    {
+        val vdjSequences = mapOf(
+            0 to regionSeq.substring(100, 160),
+            1 to SequenceUtil.reverseComplement(regionSeq.substring(200, 260)),
+            2 to "A".repeat(60))
+
+        val matches = aligner.alignAll(vdjSequences, 2)
+        assertEquals(1, matches[0].size)
+        assertEquals(1, matches[1].size)
+        assertTrue(matches[2].isEmpty())
+    }
+
+    companion object
+    {
+        fun randomSequence(random: Random, length: Int) : String
+        {
+            return String(CharArray(length) { "ACGT"[random.nextInt(4)] })
+        }
+    }
+}
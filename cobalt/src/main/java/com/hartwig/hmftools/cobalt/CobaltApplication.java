@@ -30,6 +30,8 @@ import com.hartwig.hmftools.common.cobalt.CobaltRatioFile;
 import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
 import com.hartwig.hmftools.common.genome.gc.GCProfile;
 import com.hartwig.hmftools.common.genome.gc.GCProfileFactory;
+import com.hartwig.hmftools.common.utils.MetricsRegistry;
+import com.hartwig.hmftools.common.utils.PerformanceCounter;
 import com.hartwig.hmftools.common.utils.config.DeclaredOrderParameterComparator;
 import com.hartwig.hmftools.common.utils.config.LoggingOptions;
 import com.hartwig.hmftools.common.utils.version.VersionInfo;
@@ -92,6 +94,9 @@ public class CobaltApplication
         mConfig.validate();
         mLoggingOptions.setLogLevel();
 
+        if(mConfig.PerfMetricsFile != null)
+            MetricsRegistry.enable("Cobalt", mConfig.PerfMetricsFile);
+
         VersionInfo mVersionInfo = new VersionInfo("cobalt.version");
 
         CB_LOGGER.info("Cobalt version: {}", mVersionInfo.version());
@@ -114,13 +119,30 @@ public class CobaltApplication
                     WINDOW_SIZE, mConfig.MinMappingQuality,
                     executorService, readerFactory, chromosomePosCodec);
 
+            PerformanceCounter readCountPerf = new PerformanceCounter("ReadCounts");
+            readCountPerf.start();
+
             bamReadCounter.generateCounts(mConfig.ReferenceBamPath, mConfig.TumorBamPath);
 
+            readCountPerf.stop();
+            readCountPerf.addInputBytes(fileSize(mConfig.ReferenceBamPath) + fileSize(mConfig.TumorBamPath));
+            MetricsRegistry.register(readCountPerf);
+
             Table referenceReadCounts = bamReadCounter.getReferenceCounts();
             Table tumorReadCounts = bamReadCounter.getTumorCounts();
 
+            PerformanceCounter gcProfilePerf = new PerformanceCounter("GcProfile");
+            gcProfilePerf.start();
+
             final Table gcProfiles = loadGCContent(chromosomePosCodec);
 
+            gcProfilePerf.stop();
+            gcProfilePerf.addInputBytes(fileSize(mConfig.GcProfilePath));
+            MetricsRegistry.register(gcProfilePerf);
+
+            PerformanceCounter ratioPerf = new PerformanceCounter("Ratios");
+            ratioPerf.start();
+
             final RatioSupplier ratioSupplier = new RatioSupplier(mConfig.ReferenceId, mConfig.TumorId, mConfig.OutputDir,
                     gcProfiles, referenceReadCounts, tumorReadCounts,
                     chromosomePosCodec);
@@ -154,10 +176,21 @@ public class CobaltApplication
             mVersionInfo.write(mConfig.OutputDir);
             CobaltRatioFile.write(outputFilename, ratios.stream().map(r -> rowToCobaltRatio(r, chromosomePosCodec)).collect(Collectors.toList()));
 
+            ratioPerf.stop();
+            MetricsRegistry.register(ratioPerf);
+
             // do a GC here to free up some memory for ratio segmentation
             System.gc();
 
-            applyRatioSegmentation(executorService, mConfig.OutputDir, outputFilename, mConfig.ReferenceId, mConfig.TumorId, mConfig.PcfGamma);
+            PerformanceCounter segmentationPerf = new PerformanceCounter("Segmentation");
+            segmentationPerf.start();
+
+            applyRatioSegmentation(
+                    executorService, mConfig.OutputDir, outputFilename, mConfig.ReferenceId, mConfig.TumorId, mConfig.PcfGamma,
+                    mConfig.UseRSegmentation, mConfig.ThreadCount);
+
+            segmentationPerf.stop();
+            MetricsRegistry.register(segmentationPerf);
         }
         finally
         {
@@ -172,6 +205,11 @@ public class CobaltApplication
         return 0;
     }
 
+    private static long fileSize(final String filename)
+    {
+        return filename != null ? new File(filename).length() : 0;
+    }
+
     @NotNull
     private static SamReaderFactory readerFactory(@NotNull final CobaltConfig config)
     {
@@ -3,8 +3,12 @@ package com.hartwig.hmftools.cobalt;
 import static com.hartwig.hmftools.cobalt.CobaltConstants.DEFAULT_MIN_MAPPING_QUALITY;
 import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeSource.REF_GENOME;
 import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeSource.REF_GENOME_CFG_DESC;
+import static com.hartwig.hmftools.common.utils.MetricsRegistry.PERF_METRICS_FILE;
+import static com.hartwig.hmftools.common.utils.MetricsRegistry.PERF_METRICS_FILE_DESC;
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.OUTPUT_DIR;
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.checkCreateOutputDir;
+import static com.hartwig.hmftools.common.utils.pcf.PCFSegmenter.USE_R_SEGMENTATION;
+import static com.hartwig.hmftools.common.utils.pcf.PCFSegmenter.USE_R_SEGMENTATION_DESC;
 
 import java.io.File;
 
@@ -84,6 +88,12 @@ public class CobaltConfig
                description = "Gamma value we pass to copynumber PCF")
     public int PcfGamma = CobaltConstants.DEFAULT_PCF_GAMMA;
 
+    @Parameter(names = "-" + USE_R_SEGMENTATION, description = USE_R_SEGMENTATION_DESC)
+    public boolean UseRSegmentation = false;
+
+    @Parameter(names = "-" + PERF_METRICS_FILE, description = PERF_METRICS_FILE_DESC)
+    public String PerfMetricsFile;
+
     public static final Logger CB_LOGGER = LogManager.getLogger(CobaltConfig.class);
 
     public CobaltConfig()
@@ -10,23 +10,54 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 
 import com.hartwig.hmftools.common.utils.pcf.PCFFile;
+import com.hartwig.hmftools.common.utils.pcf.PCFSegmenter;
 import com.hartwig.hmftools.common.utils.r.RExecutor;
 
 public class RatioSegmentation
 {
+    private static final String REFERENCE_RATIO_COLUMN = "referenceGCDiploidRatio";
+    private static final String TUMOR_RATIO_COLUMN = "tumorGCRatio";
+
+    // sample label given to the log2 ratios by the R script
+    private static final String RATIO_SAMPLE_LABEL = "S1";
+
+    private static final double MIN_RATIO = 0.001;
+
     public static void applyRatioSegmentation(
             final ExecutorService executorService, final String outputDir, final String ratioFile,
-            final String reference, final String tumor, int gamma) throws ExecutionException, InterruptedException
+            final String reference, final String tumor, int gamma, boolean useR, int threads)
+            throws ExecutionException, InterruptedException, IOException
     {
+        if(!useR)
+        {
+            // each sample is segmented in turn, with its chromosome arms spread across the threads
+            PCFSegmenter segmenter = new PCFSegmenter(RATIO_SAMPLE_LABEL, gamma, threads);
+
+            if(reference != null)
+            {
+                String pcfFile = PCFFile.generateRatioFilename(outputDir, reference);
+                segmenter.segment(ratioFile, REFERENCE_RATIO_COLUMN, RatioSegmentation::log2Ratio, pcfFile);
+            }
+
+            if(tumor != null)
+            {
+                String pcfFile = PCFFile.generateRatioFilename(outputDir, tumor);
+                segmenter.segment(ratioFile, TUMOR_RATIO_COLUMN, RatioSegmentation::log2Ratio, pcfFile);
+            }
+
+            CB_LOGGER.info("Segmentation Complete");
+            return;
+        }
+
         final List<Future<Object>> futures = new ArrayList<>();
 
         if (reference != null)
         {
-            futures.add(executorService.submit(() -> ratioSegmentation(outputDir, ratioFile, reference, "referenceGCDiploidRatio", gamma)));
+            futures.add(executorService.submit(() -> ratioSegmentation(outputDir, ratioFile, reference, REFERENCE_RATIO_COLUMN, gamma)));
         }
         if (tumor != null)
         {
-            futures.add(executorService.submit(() -> ratioSegmentation(outputDir, ratioFile, tumor, "tumorGCRatio", gamma)));
+            futures.add(executorService.submit(() -> ratioSegmentation(outputDir, ratioFile, tumor, TUMOR_RATIO_COLUMN, gamma)));
         }
 
         for(Future<Object> future : futures)
@@ -50,4 +81,13 @@ public class RatioSegmentation
 
         return null;
     }
+
+    // matches the R script's filtering: negative (masked) ratios are excluded and low ratios floored before taking logs
+    private static double log2Ratio(double ratio)
+    {
+        if(ratio < 0)
+            return Double.NaN;
+
+        return Math.log(Math.max(ratio, MIN_RATIO)) / Math.log(2);
+    }
 }
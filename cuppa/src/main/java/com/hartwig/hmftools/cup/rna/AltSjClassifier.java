@@ -41,6 +41,7 @@ import java.util.Map;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.hartwig.hmftools.common.rna.AltSpliceJunctionFile;
+import com.hartwig.hmftools.common.stats.CosineSimilarityMatrix;
 import com.hartwig.hmftools.common.utils.Matrix;
 import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
 import com.hartwig.hmftools.cup.CuppaConfig;
@@ -58,6 +59,7 @@ public class AltSjClassifier implements CuppaClassifier
 
     // per-cancer type adjusted fragments - loads raw sample totals, calculates average per cancer type then stores log(avg + 1)
     private Matrix mRefCancerTypeMatrix;
+    private CosineSimilarityMatrix mRefCancerCssMatrix;
     private final Map<String,Integer> mRefAsjIndexMap; // map from Alt-SJ into matrix rows
     private final List<String> mRefCancerTypes; // cancer types from matrix columns
 
@@ -83,6 +85,7 @@ public class AltSjClassifier implements CuppaClassifier
         mRefAsjIndexMap = Maps.newHashMap();
         mRefCancerTypes = Lists.newArrayList();
         mRefCancerTypeMatrix = null;
+        mRefCancerCssMatrix = null;
         mCancerDataMap = Maps.newHashMap();
 
         mSampleIndexMap = Maps.newHashMap();
@@ -155,6 +158,8 @@ public class AltSjClassifier implements CuppaClassifier
                     mRefCancerTypeMatrix.Cols, mSampleFragCounts[0].length);
         }
 
+        mRefCancerCssMatrix = new CosineSimilarityMatrix(mRefCancerTypeMatrix);
+
         return true;
     }
 
@@ -217,6 +222,9 @@ public class AltSjClassifier implements CuppaClassifier
             }
         }
 
+        final double[] refCancerCss = new double[refCancerCount];
+        mRefCancerCssMatrix.calcCosineSims(adjSampleFragCounts, refCancerCss);
+
         for(int i = 0; i < refCancerCount; ++i)
         {
             String refCancerId = mRefCancerTypes.get(i);
@@ -239,11 +247,13 @@ public class AltSjClassifier implements CuppaClassifier
 
             boolean matchesCancerType = sample.cancerType().equals(cohortData.CancerType);
 
-            final double[] refAsjFragCounts = sample.isRefSample() && matchesCancerType ?
+            boolean adjustForSample = sample.isRefSample() && matchesCancerType;
+
+            final double[] refAsjFragCounts = adjustForSample ?
                     adjustRefCounts(mRefCancerTypeMatrix.getRow(i), rawSampleFragCounts, cohortData.SampleCount) : mRefCancerTypeMatrix.getRow(i);
 
             // now any adjustments have been made, zero out any low-fragment-count sites
-            double css = calcCosineSim(refAsjFragCounts, adjSampleFragCounts, false, false);
+            double css = adjustForSample ? calcCosineSim(refAsjFragCounts, adjSampleFragCounts, false, false) : refCancerCss[i];
 
             if(css < GENE_EXP_CSS_THRESHOLD)
                 continue;
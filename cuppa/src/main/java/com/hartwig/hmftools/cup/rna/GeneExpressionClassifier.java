@@ -39,6 +39,7 @@ import java.util.Map;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.hartwig.hmftools.common.rna.GeneExpressionFile;
+import com.hartwig.hmftools.common.stats.CosineSimilarityMatrix;
 import com.hartwig.hmftools.common.utils.Matrix;
 import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
 import com.hartwig.hmftools.cup.CuppaConfig;
@@ -64,6 +65,13 @@ public class GeneExpressionClassifier implements CuppaClassifier
     private Matrix mRefSampleGeneExpression;
     private final Map<String,Integer> mRefSampleGeneExpIndexMap;
 
+    // reference expression prepared for scoring each sample against all references at once
+    private CosineSimilarityMatrix mRefSampleCssMatrix;
+    private CosineSimilarityMatrix mRefCancerCssMatrix;
+
+    // for multi-sample runs, every sample's CSS against each reference sample, indexed as the sample expression
+    private Matrix mSampleRefCss;
+
     private Matrix mSampleGeneExpression;
     private final Map<String,Integer> mSampleIndexMap;
 
@@ -83,6 +91,9 @@ public class GeneExpressionClassifier implements CuppaClassifier
 
         mRefSampleGeneExpression = null;
         mRefSampleGeneExpIndexMap = Maps.newHashMap();
+        mRefSampleCssMatrix = null;
+        mRefCancerCssMatrix = null;
+        mSampleRefCss = null;
 
         mRefCancerSampleCounts = Maps.newHashMap();
 
@@ -177,6 +188,16 @@ public class GeneExpressionClassifier implements CuppaClassifier
                 NoiseRefCache.applyNoise(mSampleGeneExpression, noiseAdjustments, noiseAllocation);
         }
 
+        // built once the reference data is final
+        mRefSampleCssMatrix = new CosineSimilarityMatrix(mRefSampleGeneExpression);
+
+        // score all samples against the reference samples up front in a single threaded pass
+        if(mRunPairwiseCss && mSampleDataCache.isMultiSample())
+            mSampleRefCss = mRefSampleCssMatrix.calcCosineSims(mSampleGeneExpression, mConfig.Threads);
+
+        if(mRefCancerTypeGeneExpression != null)
+            mRefCancerCssMatrix = new CosineSimilarityMatrix(mRefCancerTypeGeneExpression);
+
         return true;
     }
 
@@ -229,18 +250,31 @@ public class GeneExpressionClassifier implements CuppaClassifier
             addCancerCssResults(sample, sampleGeneTPMs, results);
 
         if(mRunPairwiseCss)
-            addSampleCssResults(sample, sampleGeneTPMs, results, similarities);
+            addSampleCssResults(sample, sampleCountsIndex, sampleGeneTPMs, results, similarities);
 
         return true;
     }
 
     private void addSampleCssResults(
-            final SampleData sample, final double[] sampleTPMs, final List<SampleResult> results, final List<SampleSimilarity> similarities)
+            final SampleData sample, int sampleIndex, final double[] sampleTPMs, final List<SampleResult> results,
+            final List<SampleSimilarity> similarities)
     {
         final Map<String,Double> cancerCssTotals = Maps.newHashMap();
 
         final List<SampleSimilarity> topMatches = Lists.newArrayList();
 
+        final double[] refSampleCss;
+
+        if(mSampleRefCss != null)
+        {
+            refSampleCss = mSampleRefCss.getRow(sampleIndex);
+        }
+        else
+        {
+            refSampleCss = new double[mRefSampleCssMatrix.Rows];
+            mRefSampleCssMatrix.calcCosineSims(sampleTPMs, refSampleCss);
+        }
+
         for(Map.Entry<String,List<SampleData>> refCancerEntry : mSampleDataCache.RefCancerSampleData.entrySet())
         {
             final String refCancerType = refCancerEntry.getKey();
@@ -263,9 +297,7 @@ public class GeneExpressionClassifier implements CuppaClassifier
                 if(refSampleIndex == null)
                     continue;
 
-                final double[] otherSampleTPMs = mRefSampleGeneExpression.getRow(refSampleIndex);
-
-                double css = calcCosineSim(sampleTPMs, otherSampleTPMs);
+                double css = refSampleCss[refSampleIndex];
 
                 if(css < GENE_EXP_CSS_THRESHOLD)
                     continue;
@@ -308,6 +340,9 @@ public class GeneExpressionClassifier implements CuppaClassifier
 
         final Map<String,Double> cancerCssTotals = Maps.newHashMap();
 
+        final double[] refCancerCss = new double[refCancerCount];
+        mRefCancerCssMatrix.calcCosineSims(sampleGeneTPMs, refCancerCss);
+
         for(int i = 0; i < refCancerCount; ++i)
         {
             final String refCancerType = mRefCancerTypes.get(i);
@@ -320,10 +355,18 @@ public class GeneExpressionClassifier implements CuppaClassifier
 
             boolean matchesCancerType = sample.cancerType().equals(refCancerType);
 
-            final double[] refPosFreqs = sample.isRefSample() && matchesCancerType ?
-                    adjustRefCounts(mRefCancerTypeGeneExpression.getRow(i), sampleGeneTPMs, 1) : mRefCancerTypeGeneExpression.getRow(i);
+            double css;
 
-            double css = calcCosineSim(sampleGeneTPMs, refPosFreqs);
+            if(sample.isRefSample() && matchesCancerType)
+            {
+                // the sample's own contribution is removed from its cancer type's expression
+                final double[] refPosFreqs = adjustRefCounts(mRefCancerTypeGeneExpression.getRow(i), sampleGeneTPMs, 1);
+                css = calcCosineSim(sampleGeneTPMs, refPosFreqs);
+            }
+            else
+            {
+                css = refCancerCss[i];
+            }
 
             if(css < GENE_EXP_CSS_THRESHOLD)
                 continue;
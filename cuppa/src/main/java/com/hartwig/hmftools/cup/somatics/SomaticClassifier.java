@@ -8,6 +8,7 @@ import static java.lang.Math.sqrt;
 import static com.hartwig.hmftools.common.sigs.SnvSigUtils.populateBucketMap;
 import static com.hartwig.hmftools.common.utils.VectorUtils.sumVector;
 import static com.hartwig.hmftools.common.stats.CosineSimilarity.calcCosineSim;
+import static com.hartwig.hmftools.common.stats.CosineSimilarityMatrix.topScoreIndices;
 import static com.hartwig.hmftools.common.stats.Percentiles.getPercentile;
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.closeBufferedWriter;
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.createBufferedWriter;
@@ -62,6 +63,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.hartwig.hmftools.common.sigs.PositionFrequencies;
+import com.hartwig.hmftools.common.stats.CosineSimilarityMatrix;
 import com.hartwig.hmftools.common.utils.Matrix;
 import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
 import com.hartwig.hmftools.cup.CuppaConfig;
@@ -85,6 +87,17 @@ public class SomaticClassifier implements CuppaClassifier
     private Matrix mRefCancerGenPosCounts;
     private final List<String> mRefGenPosCancerTypes;
 
+    // reference counts prepared for scoring each sample against all references at once
+    private CosineSimilarityMatrix mRefSnv96CssMatrix;
+    private CosineSimilarityMatrix mRefCancerGenPosCssMatrix;
+
+    // for multi-sample runs, every sample's SNV-96 CSS against each reference sample, indexed as the sample counts
+    private Matrix mSampleRefSnv96Css;
+
+    // for multi-sample non-ref runs writing similarities, the samples prepared for scoring against each other
+    private CosineSimilarityMatrix mSampleSnv96CssMatrix;
+    private String[] mSampleSnv96Ids;
+
     private Matrix mRefSampleGenPosCounts;
     private final Map<String,Integer> mRefSampleGenPosCountsIndex;
 
@@ -125,6 +138,11 @@ public class SomaticClassifier implements CuppaClassifier
         mSampleSnv96Counts = null;
         mRefCancerGenPosCounts = null;
         mRefSampleGenPosCounts = null;
+        mRefSnv96CssMatrix = null;
+        mRefCancerGenPosCssMatrix = null;
+        mSampleRefSnv96Css = null;
+        mSampleSnv96CssMatrix = null;
+        mSampleSnv96Ids = null;
         mRefSampleSnv96CountsIndex = Maps.newHashMap();
         mSampleSnv96CountsIndex = Maps.newHashMap();
         mSampleGenPosCountsIndex = Maps.newHashMap();
@@ -258,9 +276,35 @@ public class SomaticClassifier implements CuppaClassifier
                 NoiseRefCache.applyNoise(mSampleSnv96Counts, noiseAdjustments, noiseAllocation);
         }
 
+        buildCssMatrices();
+        buildSampleCss();
+
         return true;
     }
 
+    private void buildCssMatrices()
+    {
+        // must follow any noise adjustments to the reference counts
+        mRefSnv96CssMatrix = new CosineSimilarityMatrix(mRefSampleSnv96Counts);
+        mRefCancerGenPosCssMatrix = new CosineSimilarityMatrix(mRefCancerGenPosCounts);
+    }
+
+    private void buildSampleCss()
+    {
+        if(!mSampleDataCache.isMultiSample())
+            return;
+
+        // score all samples against the reference samples up front in a single threaded pass
+        mSampleRefSnv96Css = mRefSnv96CssMatrix.calcCosineSims(mSampleSnv96Counts, mConfig.Threads);
+
+        if(mWriteSnvSims && mConfig.WriteSimilarities && mSampleDataCache.isMultiSampleNonRef())
+        {
+            mSampleSnv96CssMatrix = new CosineSimilarityMatrix(mSampleSnv96Counts);
+            mSampleSnv96Ids = new String[mSampleSnv96Counts.Rows];
+            mSampleSnv96CountsIndex.forEach((sampleId, index) -> mSampleSnv96Ids[index] = sampleId);
+        }
+    }
+
     private boolean loadSampleCounts()
     {
         int sampleCount = mSampleDataCache.SampleDataList.size();
@@ -403,6 +447,18 @@ public class SomaticClassifier implements CuppaClassifier
 
         final double[] sampleCounts = mSampleSnv96Counts.getRow(sampleCountsIndex);
 
+        final double[] refSampleCss;
+
+        if(mSampleRefSnv96Css != null)
+        {
+            refSampleCss = mSampleRefSnv96Css.getRow(sampleCountsIndex);
+        }
+        else
+        {
+            refSampleCss = new double[mRefSnv96CssMatrix.Rows];
+            mRefSnv96CssMatrix.calcCosineSims(sampleCounts, refSampleCss);
+        }
+
         final List<SampleSimilarity> topMatches = Lists.newArrayList();
         final Map<String,Double> cancerCssTotals = Maps.newHashMap();
 
@@ -427,9 +483,7 @@ public class SomaticClassifier implements CuppaClassifier
                 if(refSampleIndex == null)
                     continue;
 
-                final double[] otherSampleCounts = mRefSampleSnv96Counts.getRow(refSampleIndex);
-
-                double css = calcCosineSim(sampleCounts, otherSampleCounts);
+                double css = refSampleCss[refSampleIndex];
 
                 if(css < SNV_96_CSS_THRESHOLD)
                     continue;
@@ -466,25 +520,20 @@ public class SomaticClassifier implements CuppaClassifier
                 sample.Id, SNV, CLASSIFIER, SNV_96_PAIRWISE.toString(), String.format("%.4g", totalCss), cancerCssTotals));
 
         // for non-ref cohorts, also report closest matches from amongst these
-        if(mWriteSnvSims && mConfig.WriteSimilarities && mSampleDataCache.isMultiSampleNonRef())
+        if(mSampleSnv96CssMatrix != null)
         {
-            for(Map.Entry<String,Integer> entry : mSampleSnv96CountsIndex.entrySet())
-            {
-                final String nonRefSampleId = entry.getKey();
+            final double[] sampleCss = new double[mSampleSnv96CssMatrix.Rows];
+            mSampleSnv96CssMatrix.calcCosineSims(sampleCounts, sampleCss);
 
-                if(nonRefSampleId.equals(sample.Id))
+            // only the highest scores can enter the top matches, allowing for the sample itself
+            for(int index : topScoreIndices(sampleCss, CSS_SIMILARITY_MAX_MATCHES + 1, CSS_SIMILARITY_CUTOFF))
+            {
+                if(index == sampleCountsIndex)
                     continue;
 
-                final double[] otherSampleCounts = mSampleSnv96Counts.getRow(entry.getValue());
-
-                double css = calcCosineSim(sampleCounts, otherSampleCounts);
-
-                if(mConfig.WriteSimilarities)
-                {
-                    recordCssSimilarity(
-                            topMatches, sample.Id, nonRefSampleId, css, SNV_96_PAIRWISE.toString(),
-                            CSS_SIMILARITY_MAX_MATCHES, CSS_SIMILARITY_CUTOFF);
-                }
+                recordCssSimilarity(
+                        topMatches, sample.Id, mSampleSnv96Ids[index], sampleCss[index], SNV_96_PAIRWISE.toString(),
+                        CSS_SIMILARITY_MAX_MATCHES, CSS_SIMILARITY_CUTOFF);
             }
         }
 
@@ -520,6 +569,9 @@ public class SomaticClassifier implements CuppaClassifier
 
         int maxSampleCount = mPosFrequencies.getMaxSampleCount();
 
+        final double[] refCancerCss = new double[refCancerCount];
+        mRefCancerGenPosCssMatrix.calcCosineSims(sampleCounts, refCancerCss);
+
         for(int i = 0; i < refCancerCount; ++i)
         {
             final String refCancerType = mRefGenPosCancerTypes.get(i);
@@ -534,10 +586,18 @@ public class SomaticClassifier implements CuppaClassifier
 
             double adjustMultiplier = snvTotal > maxSampleCount ? maxSampleCount / snvTotal : 1;
 
-            final double[] refPosFreqs = sample.isRefSample() && matchesCancerType ?
-                    adjustRefCounts(mRefCancerGenPosCounts.getRow(i), sampleCounts, adjustMultiplier) : mRefCancerGenPosCounts.getRow(i);
+            double css;
 
-            double css = calcCosineSim(sampleCounts, refPosFreqs);
+            if(sample.isRefSample() && matchesCancerType)
+            {
+                // the sample's own contribution is removed from its cancer type's counts, so this cannot use the pre-computed value
+                final double[] refPosFreqs = adjustRefCounts(mRefCancerGenPosCounts.getRow(i), sampleCounts, adjustMultiplier);
+                css = calcCosineSim(sampleCounts, refPosFreqs);
+            }
+            else
+            {
+                css = refCancerCss[i];
+            }
 
             maxCssScore = max(css, maxCssScore);
 
@@ -671,6 +731,8 @@ public class SomaticClassifier implements CuppaClassifier
             mRefSampleGenPosCounts.setRow(i, posFreqCounts.get(i));
             mRefSampleGenPosCountsIndex.put(mSampleDataCache.RefSampleDataList.get(i).Id, i);
         }
+
+        buildCssMatrices();
     }
 
     public void addSampleData(final List<String> sampleIds, final List<double[]> snvCounts, final List<double[]> posFreqCounts)
@@ -691,6 +753,8 @@ public class SomaticClassifier implements CuppaClassifier
             mSampleGenPosCounts.setRow(i, posFreqCounts.get(i));
             mSampleGenPosCountsIndex.put(sampleIds.get(i), i);
         }
+
+        buildSampleCss();
     }
 
 }
@@ -3,7 +3,6 @@ package com.hartwig.hmftools.common.amber;
 import static com.hartwig.hmftools.common.utils.file.FileDelimiters.TSV_DELIM;
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.*;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
@@ -11,7 +10,6 @@ import java.io.Writer;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.StringJoiner;
 
 import com.google.common.collect.ArrayListMultimap;
@@ -20,7 +18,7 @@ import com.google.common.collect.Multimap;
 import com.google.common.primitives.Doubles;
 import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
 import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
-import com.hartwig.hmftools.common.utils.file.FileReaderUtils;
+import com.hartwig.hmftools.common.utils.file.FastDelimFileReader;
 
 public final class AmberBAFFile
 {
@@ -57,33 +55,28 @@ public final class AmberBAFFile
     {
         ListMultimap<Chromosome,AmberBAF> chrBafMap = ArrayListMultimap.create();
 
-        try(BufferedReader reader = fileName.endsWith(".gz") ? createGzipBufferedReader(fileName) : createBufferedReader(fileName))
+        try(FastDelimFileReader reader = new FastDelimFileReader(fileName))
         {
-            String line = reader.readLine();
-            Map<String, Integer> fieldsIndexMap = FileReaderUtils.createFieldsIndexMap(line, TSV_DELIM);
-
-            int chrIndex = fieldsIndexMap.get(CHROMOSOME);
-            int posIndex = fieldsIndexMap.get(POSITION);
-            int tumorBafIndex = fieldsIndexMap.get(TUMOR_BAF);
-            int tumorDepthIndex = fieldsIndexMap.get(TUMOR_DEPTH);
-            int normBafIndex = fieldsIndexMap.get(NORM_BAF);
-            int normDepthIndex = fieldsIndexMap.get(NORM_DEPTH);
-
-            while((line = reader.readLine()) != null)
+            int chrIndex = reader.column(CHROMOSOME);
+            int posIndex = reader.column(POSITION);
+            int tumorBafIndex = reader.column(TUMOR_BAF);
+            int tumorDepthIndex = reader.column(TUMOR_DEPTH);
+            int normBafIndex = reader.column(NORM_BAF);
+            int normDepthIndex = reader.column(NORM_DEPTH);
+
+            while(reader.next())
             {
-                String[] values = line.split(TSV_DELIM, -1);
-
-                String chromosome = values[chrIndex];
+                String chromosome = reader.getCachedString(chrIndex);
 
-                double tumorBAF = hasTumor ? Double.parseDouble(values[tumorBafIndex]) : 0.5;
+                double tumorBAF = hasTumor ? reader.getDouble(tumorBafIndex) : 0.5;
 
                 AmberBAF amberBAF = ImmutableAmberBAF.builder()
                         .chromosome(chromosome)
-                        .position(Integer.parseInt(values[posIndex]))
+                        .position(reader.getInt(posIndex))
                         .tumorBAF(tumorBAF)
-                        .tumorDepth(Integer.parseInt(values[tumorDepthIndex]))
-                        .normalBAF(Double.parseDouble(values[normBafIndex]))
-                        .normalDepth(Integer.parseInt(values[normDepthIndex]))
+                        .tumorDepth(reader.getInt(tumorDepthIndex))
+                        .normalBAF(reader.getDouble(normBafIndex))
+                        .normalDepth(reader.getInt(normDepthIndex))
                         .build();
 
                 chrBafMap.put(HumanChromosome.fromString(chromosome), amberBAF);
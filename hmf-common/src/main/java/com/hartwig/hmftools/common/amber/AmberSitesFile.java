@@ -5,20 +5,19 @@ import static com.hartwig.hmftools.common.utils.file.CommonFields.FLD_CHROMOSOME
 import static com.hartwig.hmftools.common.utils.file.CommonFields.FLD_POSITION;
 import static com.hartwig.hmftools.common.utils.file.CommonFields.FLD_REF;
 import static com.hartwig.hmftools.common.utils.file.FileDelimiters.TSV_DELIM;
-import static com.hartwig.hmftools.common.utils.file.FileReaderUtils.createFieldsIndexMap;
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.createBufferedReader;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.util.List;
-import java.util.Map;
 import java.util.StringJoiner;
 
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
 import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
 import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+import com.hartwig.hmftools.common.utils.file.FastDelimFileReader;
 import com.hartwig.hmftools.common.variant.VcfFileReader;
 
 import org.apache.logging.log4j.LogManager;
@@ -87,33 +86,28 @@ public final class AmberSitesFile
     {
         final ListMultimap<Chromosome,AmberSite> result = ArrayListMultimap.create();
 
-        BufferedReader reader = createBufferedReader(filename);
-
-        String header = reader.readLine();
-
-        Map<String,Integer> fieldsIndexMap = createFieldsIndexMap(header, TSV_DELIM);
-
-        int chrIndex = fieldsIndexMap.get(FLD_CHROMOSOME);
-        int posIndex = fieldsIndexMap.get(FLD_POSITION);
-        int refIndex = fieldsIndexMap.get(FLD_REF);
-        int altIndex = fieldsIndexMap.get(FLD_ALT);
-        int infoIndex = fieldsIndexMap.get(FLD_SNP_CHECK);
-
-        String line = null;
-
-        while((line = reader.readLine()) != null)
+        try(FastDelimFileReader reader = new FastDelimFileReader(filename))
         {
-            String[] values = line.split(TSV_DELIM, -1);
-
-            String chrStr = values[chrIndex];
-
-            if(!HumanChromosome.contains(chrStr))
-                continue;
-
-            HumanChromosome chromosome = HumanChromosome.fromString(chrStr);
-
-            result.put(chromosome, new AmberSite(
-                    chrStr, Integer.parseInt(values[posIndex]), values[refIndex], values[altIndex], Boolean.parseBoolean(values[infoIndex])));
+            int chrIndex = reader.column(FLD_CHROMOSOME);
+            int posIndex = reader.column(FLD_POSITION);
+            int refIndex = reader.column(FLD_REF);
+            int altIndex = reader.column(FLD_ALT);
+            int infoIndex = reader.column(FLD_SNP_CHECK);
+
+            while(reader.next())
+            {
+                String chrStr = reader.getCachedString(chrIndex);
+
+                if(!HumanChromosome.contains(chrStr))
+                    continue;
+
+                HumanChromosome chromosome = HumanChromosome.fromString(chrStr);
+
+                // ref and alt are single bases so also share instances
+                result.put(chromosome, new AmberSite(
+                        chrStr, reader.getInt(posIndex), reader.getCachedString(refIndex), reader.getCachedString(altIndex),
+                        reader.getBoolean(infoIndex)));
+            }
         }
 
         LOGGER.info("loaded {} Amber germline sites from {}", result.size(), filename);
@@ -2,12 +2,8 @@ package com.hartwig.hmftools.common.cobalt;
 
 import static com.hartwig.hmftools.common.utils.file.FileDelimiters.TSV_DELIM;
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.checkAddDirSeparator;
-import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.createBufferedReader;
-import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.createGzipBufferedReader;
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.createGzipBufferedWriter;
-import static com.hartwig.hmftools.common.utils.file.FileReaderUtils.createFieldsIndexMap;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.Writer;
@@ -26,6 +22,7 @@ import com.google.common.collect.Maps;
 import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
 import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
 import com.hartwig.hmftools.common.purple.Gender;
+import com.hartwig.hmftools.common.utils.file.FastDelimFileReader;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -93,32 +90,27 @@ public final class CobaltRatioFile
     {
         Map<Chromosome,List<CobaltRatio>> chrRatiosMap = Maps.newHashMap();
 
-        try(BufferedReader reader = filename.endsWith(".gz") ? createGzipBufferedReader(filename) : createBufferedReader(filename))
+        try(FastDelimFileReader reader = new FastDelimFileReader(filename))
         {
-            String line = reader.readLine();
-            Map<String, Integer> fieldsIndexMap = createFieldsIndexMap(line, TSV_DELIM);
-
-            int chrIndex = fieldsIndexMap.get(CHROMOSOME);
-            int posIndex = fieldsIndexMap.get(POSITION);
-            int refReadCountIndex = fieldsIndexMap.get(REF_READ_COUNT);
-            int tumorReadCountIndex = fieldsIndexMap.get(TUMOR_READ_COUNT);
-            int refGcRatioIndex = fieldsIndexMap.get(REF_GC_RATIO);
-            int tumorGcRatioIndex = fieldsIndexMap.get(TUMOR_GC_RATIO);
-            int refGcDiplodRatioIndex = fieldsIndexMap.get(REF_GC_DIP_RATIO);
+            int chrIndex = reader.column(CHROMOSOME);
+            int posIndex = reader.column(POSITION);
+            int refReadCountIndex = reader.column(REF_READ_COUNT);
+            int tumorReadCountIndex = reader.column(TUMOR_READ_COUNT);
+            int refGcRatioIndex = reader.column(REF_GC_RATIO);
+            int tumorGcRatioIndex = reader.column(TUMOR_GC_RATIO);
+            int refGcDiplodRatioIndex = reader.column(REF_GC_DIP_RATIO);
 
             List<CobaltRatio> ratios = null;
             String currentChromosome = "";
 
-            while((line = reader.readLine()) != null)
+            while(reader.next())
             {
-                String[] values = line.split(TSV_DELIM, -1);
-
-                String chromosome = values[chrIndex];
+                String chromosome = reader.getCachedString(chrIndex);
 
-                int refReadCount = Integer.parseInt(values[refReadCountIndex]);
+                int refReadCount = reader.getInt(refReadCountIndex);
 
-                double initialRefGCRatio = Double.parseDouble(values[refGcRatioIndex]);
-                double initialRefGCDiploidRatio = Double.parseDouble(values[refGcDiplodRatioIndex]);
+                double initialRefGCRatio = reader.getDouble(refGcRatioIndex);
+                double initialRefGCDiploidRatio = reader.getDouble(refGcDiplodRatioIndex);
 
                 if(refReadCount == -1)
                 {
@@ -129,12 +121,12 @@ public final class CobaltRatioFile
 
                 double refGcRatio = genderAdjustedDiploidRatio(gender, chromosome, initialRefGCRatio);
                 double refGcDiploadRatio = genderAdjustedDiploidRatio(gender, chromosome, initialRefGCDiploidRatio);
-                double tumorGCRatio = hasTumor ? Double.parseDouble(values[tumorGcRatioIndex]) : refGcDiploadRatio;
-                int tumorReadCount = Integer.parseInt(values[tumorReadCountIndex]);
+                double tumorGCRatio = hasTumor ? reader.getDouble(tumorGcRatioIndex) : refGcDiploadRatio;
+                int tumorReadCount = reader.getInt(tumorReadCountIndex);
 
                 CobaltRatio ratio = ImmutableCobaltRatio.builder()
                         .chromosome(chromosome)
-                        .position(Integer.parseInt(values[posIndex]))
+                        .position(reader.getInt(posIndex))
                         .referenceReadCount(refReadCount)
                         .tumorReadCount(tumorReadCount)
                         .tumorGCRatio(tumorGCRatio)
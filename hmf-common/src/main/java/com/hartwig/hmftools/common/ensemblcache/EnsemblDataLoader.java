@@ -19,6 +19,7 @@ import com.hartwig.hmftools.common.gene.TranscriptAminoAcids;
 import com.hartwig.hmftools.common.gene.TranscriptData;
 import com.hartwig.hmftools.common.gene.TranscriptProteinData;
 import com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion;
+import com.hartwig.hmftools.common.utils.file.FastDelimFileReader;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -156,37 +157,26 @@ public final class EnsemblDataLoader
         if(!Files.exists(Paths.get(filename)))
             return false;
 
-        try
+        // the largest Ensembl file, so read with a projecting byte-level reader
+        try(FastDelimFileReader fileReader = new FastDelimFileReader(filename, ENSEMBL_DELIM.charAt(0), true))
         {
-            BufferedReader fileReader = new BufferedReader(new FileReader(filename));
-
-            String line = fileReader.readLine();
-
-            final Map<String,Integer> fieldsIndexMap = createFieldsIndexMap(line, ENSEMBL_DELIM);
-
-            if(line == null)
-            {
-                LOGGER.error("empty Ensembl gene-exon data file({})", filename);
-                return false;
-            }
-
             // GeneId,CanonicalTranscriptId,Strand,TransId,TransName,BioType,TransStart,TransEnd,
             // ExonRank,ExonStart,ExonEnd,ExonPhase,ExonEndPhase,CodingStart,CodingEnd
-            int geneIdIndex = fieldsIndexMap.get(ENS_FLD_GENE_ID);
-            int canonicalTransIdIndex = fieldsIndexMap.get("CanonicalTranscriptId");
-            int strandIndex = fieldsIndexMap.get(ENS_FLD_STRAND);
-            int transIdIndex = fieldsIndexMap.get(ENS_FLD_TRANS_ID);
-            int transNameIndex = fieldsIndexMap.get(ENS_FLD_TRANS_NAME);
-            int biotypeIndex = fieldsIndexMap.get("BioType");
-            int transStartIndex = fieldsIndexMap.get(ENS_FLD_TRAN_START);
-            int transEndIndex = fieldsIndexMap.get(ENS_FLD_TRAN_END);
-            int exonRankIndex = fieldsIndexMap.get("ExonRank");
-            int exonStartIndex = fieldsIndexMap.get("ExonStart");
-            int exonEndIndex = fieldsIndexMap.get("ExonEnd");
-            int exonPhaseIndex = fieldsIndexMap.get("ExonPhase");
-            int exonEndPhaseIndex = fieldsIndexMap.get("ExonEndPhase");
-            int codingStartIndex = fieldsIndexMap.get("CodingStart");
-            int codingEndIndex = fieldsIndexMap.get("CodingEnd");
+            int geneIdIndex = fileReader.column(ENS_FLD_GENE_ID);
+            int canonicalTransIdIndex = fileReader.column("CanonicalTranscriptId");
+            int strandIndex = fileReader.column(ENS_FLD_STRAND);
+            int transIdIndex = fileReader.column(ENS_FLD_TRANS_ID);
+            int transNameIndex = fileReader.column(ENS_FLD_TRANS_NAME);
+            int biotypeIndex = fileReader.column("BioType");
+            int transStartIndex = fileReader.column(ENS_FLD_TRAN_START);
+            int transEndIndex = fileReader.column(ENS_FLD_TRAN_END);
+            int exonRankIndex = fileReader.column("ExonRank");
+            int exonStartIndex = fileReader.column("ExonStart");
+            int exonEndIndex = fileReader.column("ExonEnd");
+            int exonPhaseIndex = fileReader.column("ExonPhase");
+            int exonEndPhaseIndex = fileReader.column("ExonEndPhase");
+            int codingStartIndex = fileReader.column("CodingStart");
+            int codingEndIndex = fileReader.column("CodingEnd");
 
             int exonCount = 0;
             int transcriptCount = 0;
@@ -196,17 +186,11 @@ public final class EnsemblDataLoader
             List<TranscriptData> transDataList = null;
             List<ExonData> exonDataList = null;
 
-            while(line != null)
+            while(fileReader.next())
             {
-                line = fileReader.readLine();
-
-                if(line == null)
-                    break;
-
-                String[] items = line.split(ENSEMBL_DELIM);
-
-                final String geneId = items[geneIdIndex];
-                int transId = Integer.parseInt(items[transIdIndex]);
+                // rows are grouped by gene so the cached string is only created once per gene
+                final String geneId = fileReader.getCachedString(geneIdIndex);
+                int transId = fileReader.getInt(transIdIndex);
 
                 if(lastSkippedGeneId.equals(geneId) || (!restrictedGeneIds.isEmpty() && !restrictedGeneIds.contains(geneId)))
                 {
@@ -223,9 +207,9 @@ public final class EnsemblDataLoader
 
                 if(currentTrans == null || currentTrans.TransId != transId)
                 {
-                    int canonicalTransId = Integer.parseInt(items[canonicalTransIdIndex]);
+                    int canonicalTransId = fileReader.getInt(canonicalTransIdIndex);
                     boolean isCanonical = (canonicalTransId == transId);
-                    String transName = items[transNameIndex];
+                    String transName = fileReader.getString(transNameIndex);
 
                     if(canonicalOnly)
                     {
@@ -238,13 +222,13 @@ public final class EnsemblDataLoader
 
                     exonDataList = Lists.newArrayList();
 
-                    Integer codingStart = !items[codingStartIndex].equalsIgnoreCase("NULL") ? Integer.parseInt(items[codingStartIndex]) : null;
-                    Integer codingEnd = !items[codingEndIndex].equalsIgnoreCase("NULL") ? Integer.parseInt(items[codingEndIndex]) : null;
+                    Integer codingStart = !fileReader.isNull(codingStartIndex) ? fileReader.getInt(codingStartIndex) : null;
+                    Integer codingEnd = !fileReader.isNull(codingEndIndex) ? fileReader.getInt(codingEndIndex) : null;
 
                     currentTrans = new TranscriptData(
-                            transId, transName, geneId, isCanonical, Byte.parseByte(items[strandIndex]),
-                            Integer.parseInt(items[transStartIndex]), Integer.parseInt(items[transEndIndex]),
-                            codingStart, codingEnd, items[biotypeIndex]);
+                            transId, transName, geneId, isCanonical, (byte)fileReader.getInt(strandIndex),
+                            fileReader.getInt(transStartIndex), fileReader.getInt(transEndIndex),
+                            codingStart, codingEnd, fileReader.getCachedString(biotypeIndex));
 
                     ++transcriptCount;
 
@@ -255,8 +239,8 @@ public final class EnsemblDataLoader
                 if(cacheExons || currentTrans.IsCanonical)
                 {
                     ExonData exonData = new ExonData(
-                            transId, Integer.parseInt(items[exonStartIndex]), Integer.parseInt(items[exonEndIndex]),
-                            Integer.parseInt(items[exonRankIndex]), Integer.parseInt(items[exonPhaseIndex]), Integer.parseInt(items[exonEndPhaseIndex]));
+                            transId, fileReader.getInt(exonStartIndex), fileReader.getInt(exonEndIndex),
+                            fileReader.getInt(exonRankIndex), fileReader.getInt(exonPhaseIndex), fileReader.getInt(exonEndPhaseIndex));
 
                     exonDataList.add(exonData);
                     ++exonCount;
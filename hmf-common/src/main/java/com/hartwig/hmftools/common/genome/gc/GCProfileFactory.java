@@ -1,8 +1,6 @@
 package com.hartwig.hmftools.common.genome.gc;
 
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.util.List;
 import java.util.Map;
 
@@ -13,12 +11,13 @@ import com.google.common.collect.Multimap;
 import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
 import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
 import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+import com.hartwig.hmftools.common.utils.file.FastDelimFileReader;
 
 import org.apache.commons.cli.Options;
 
 public final class GCProfileFactory
 {
-    private static final String RATIO_COLUMN_SEPARATOR = "\t";
+    private static final char RATIO_COLUMN_SEPARATOR = '\t';
     private static final int CHROMOSOME_COLUMN = 0;
     private static final int START_FIELD_COLUMN = 1;
     private static final int GC_CONTENT_COLUMN = 2;
@@ -43,63 +42,74 @@ public final class GCProfileFactory
 
     public static Multimap<Chromosome, GCProfile> loadGCContent(final String fileName) throws IOException
     {
-        return loadGCContent(WINDOW_SIZE, Files.readAllLines(new File(fileName).toPath()));
+        return loadGCContent(WINDOW_SIZE, fileName);
     }
 
     public static Map<String,List<GCProfile>> loadChrGcProfileMap(final String fileName) throws IOException
     {
-        List<String> lines = Files.readAllLines(new File(fileName).toPath());
         Map<String,List<GCProfile>> chrProfileMap = Maps.newHashMap();
 
         String currentChr = "";
         List<GCProfile> profiles = null;
 
-        for(String line : lines)
+        try(FastDelimFileReader reader = createReader(fileName))
         {
-            final GCProfile gcProfile = fromLine(WINDOW_SIZE, line);
-            if(!gcProfile.chromosome().equals(currentChr))
+            while(reader.next())
             {
-                profiles = Lists.newArrayList();
-                currentChr = gcProfile.chromosome();
+                final GCProfile gcProfile = fromLine(WINDOW_SIZE, reader);
+                if(!gcProfile.chromosome().equals(currentChr))
+                {
+                    profiles = Lists.newArrayList();
+                    currentChr = gcProfile.chromosome();
+                    chrProfileMap.put(gcProfile.chromosome(), profiles);
+                }
+
                 chrProfileMap.put(gcProfile.chromosome(), profiles);
+                profiles.add(gcProfile);
             }
-
-            chrProfileMap.put(gcProfile.chromosome(), profiles);
-            profiles.add(gcProfile);
         }
 
         return chrProfileMap;
     }
 
     public static Multimap<Chromosome, GCProfile> loadGCContent(int windowSize, final String fileName) throws IOException
-    {
-        return loadGCContent(windowSize, Files.readAllLines(new File(fileName).toPath()));
-    }
-
-    private static Multimap<Chromosome, GCProfile> loadGCContent(int windowSize, final List<String> lines)
     {
         final Multimap<Chromosome, GCProfile> result = ArrayListMultimap.create();
-        for(String line : lines)
+
+        try(FastDelimFileReader reader = createReader(fileName))
         {
-            final GCProfile gcProfile = fromLine(windowSize, line);
-            if(HumanChromosome.contains(gcProfile.chromosome()))
+            while(reader.next())
             {
-                result.put(HumanChromosome.fromString(gcProfile.chromosome()), gcProfile);
+                final GCProfile gcProfile = fromLine(windowSize, reader);
+                if(HumanChromosome.contains(gcProfile.chromosome()))
+                {
+                    result.put(HumanChromosome.fromString(gcProfile.chromosome()), gcProfile);
+                }
             }
         }
 
         return result;
     }
 
-    private static GCProfile fromLine(int windowSize, final String ratioLine)
+    // the file has no header, so columns are projected by index
+    private static FastDelimFileReader createReader(final String fileName) throws IOException
     {
-        final String[] values = ratioLine.split(RATIO_COLUMN_SEPARATOR);
+        FastDelimFileReader reader = new FastDelimFileReader(fileName, RATIO_COLUMN_SEPARATOR, false);
+        reader.project(CHROMOSOME_COLUMN);
+        reader.project(START_FIELD_COLUMN);
+        reader.project(GC_CONTENT_COLUMN);
+        reader.project(NON_N_PERCENTAGE_COLUMN);
+        reader.project(MAPPABLE_PERCENTAGE_COLUMN);
+        return reader;
+    }
 
-        String chromosome = values[CHROMOSOME_COLUMN].trim();
-        int position = Integer.parseInt(values[START_FIELD_COLUMN].trim());
-        double gcContent = Double.parseDouble(values[GC_CONTENT_COLUMN].trim());
-        double nonNPercentage = Double.parseDouble(values[NON_N_PERCENTAGE_COLUMN].trim());
-        double mappablePercentage = Double.parseDouble(values[MAPPABLE_PERCENTAGE_COLUMN].trim());
+    private static GCProfile fromLine(int windowSize, final FastDelimFileReader reader)
+    {
+        String chromosome = reader.getCachedString(CHROMOSOME_COLUMN).trim();
+        int position = reader.getInt(START_FIELD_COLUMN);
+        double gcContent = reader.getDouble(GC_CONTENT_COLUMN);
+        double nonNPercentage = reader.getDouble(NON_N_PERCENTAGE_COLUMN);
+        double mappablePercentage = reader.getDouble(MAPPABLE_PERCENTAGE_COLUMN);
 
         return ImmutableGCProfile.builder()
                 .chromosome(chromosome)
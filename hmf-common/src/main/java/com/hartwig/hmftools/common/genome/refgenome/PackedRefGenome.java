@@ -0,0 +1,302 @@
+package com.hartwig.hmftools.common.genome.refgenome;
+
+import static java.lang.Math.min;
+import static java.lang.String.format;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+// a whole reference genome held in a memory-mapped file with 2 bits per base, and the runs of any other bases (typically N)
+// kept as masks, created from a FASTA by PackedRefGenomeConverter
+// the mapped buffers are only read with absolute gets, so a single instance can be shared by all threads
+// bases are returned upper-case, so any soft-masking in the source FASTA is not retained
+public class PackedRefGenome implements RefGenomeInterface
+{
+    public static final String PACKED_REF_GENOME_EXTENSION = ".2bit.bin";
+
+    // file layout: each contig's packed bases, 4 per byte and starting on a new byte, then the contig index, then the index's offset
+    protected static final int FILE_MAGIC = 0x484D4632; // HMF2
+    protected static final int FILE_VERSION = 1;
+    protected static final int TRAILER_SIZE = Long.BYTES;
+
+    protected static final byte[] PACKED_BASE_CHARS = { 'A', 'C', 'G', 'T' };
+
+    private static final int CHUNK_BITS = 30;
+    private static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+
+    // the 4 bases of each possible packed byte, first base in the high bits
+    private static final byte[] UNPACKED_BASES = new byte[256 * 4];
+
+    static
+    {
+        for(int packed = 0; packed < 256; ++packed)
+        {
+            for(int i = 0; i < 4; ++i)
+            {
+                UNPACKED_BASES[packed * 4 + i] = PACKED_BASE_CHARS[(packed >> (6 - i * 2)) & 3];
+            }
+        }
+    }
+
+    private final Map<String,Contig> mContigs;
+    private final MappedByteBuffer[] mBuffers;
+
+    private static final Logger LOGGER = LogManager.getLogger(PackedRefGenome.class);
+
+    private static class Contig
+    {
+        public final String Name;
+        public final int Length;
+        public final long DataOffset;
+
+        // sorted, non-overlapping runs of a single non-ACGT base, 1-based inclusive
+        public final int[] MaskStarts;
+        public final int[] MaskEnds;
+        public final byte[] MaskBases;
+
+        public Contig(final String name, int length, long dataOffset, final int[] maskStarts, final int[] maskEnds, final byte[] maskBases)
+        {
+            Name = name;
+            Length = length;
+            DataOffset = dataOffset;
+            MaskStarts = maskStarts;
+            MaskEnds = maskEnds;
+            MaskBases = maskBases;
+        }
+    }
+
+    public PackedRefGenome(final String filename) throws IOException
+    {
+        mContigs = new LinkedHashMap<>();
+
+        try(RandomAccessFile file = new RandomAccessFile(filename, "r"); FileChannel channel = file.getChannel())
+        {
+            long fileSize = channel.size();
+
+            if(fileSize < TRAILER_SIZE)
+                throw new IOException(format("packed ref genome(%s) is truncated", filename));
+
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE);
+            channel.read(trailer, fileSize - TRAILER_SIZE);
+            trailer.flip();
+            long indexOffset = trailer.getLong();
+
+            if(indexOffset < 0 || indexOffset > fileSize - TRAILER_SIZE)
+                throw new IOException(format("packed ref genome(%s) has an invalid index offset", filename));
+
+            ByteBuffer index = ByteBuffer.allocate((int)(fileSize - TRAILER_SIZE - indexOffset));
+            channel.read(index, indexOffset);
+            index.flip();
+            readIndex(filename, index);
+
+            int chunkCount = (int)((indexOffset + CHUNK_MASK) >>> CHUNK_BITS);
+            mBuffers = new MappedByteBuffer[chunkCount];
+
+            for(int i = 0; i < chunkCount; ++i)
+            {
+                long chunkStart = (long)i << CHUNK_BITS;
+                mBuffers[i] = channel.map(FileChannel.MapMode.READ_ONLY, chunkStart, min(CHUNK_MASK + 1, indexOffset - chunkStart));
+            }
+        }
+    }
+
+    private void readIndex(final String filename, final ByteBuffer index) throws IOException
+    {
+        if(index.getInt() != FILE_MAGIC)
+            throw new IOException(format("file(%s) is not a packed ref genome", filename));
+
+        int version = index.getInt();
+
+        if(version != FILE_VERSION)
+            throw new IOException(format("packed ref genome(%s) has unsupported version(%d)", filename, version));
+
+        int contigCount = index.getInt();
+
+        for(int c = 0; c < contigCount; ++c)
+        {
+            byte[] nameBytes = new byte[index.getInt()];
+            index.get(nameBytes);
+            String name = new String(nameBytes, StandardCharsets.UTF_8);
+
+            int length = index.getInt();
+            long dataOffset = index.getLong();
+            int maskCount = index.getInt();
+
+            int[] maskStarts = new int[maskCount];
+            int[] maskEnds = new int[maskCount];
+            byte[] maskBases = new byte[maskCount];
+
+            for(int i = 0; i < maskCount; ++i)
+            {
+                maskStarts[i] = index.getInt();
+                maskEnds[i] = index.getInt();
+                maskBases[i] = index.get();
+            }
+
+            mContigs.put(name, new Contig(name, length, dataOffset, maskStarts, maskEnds, maskBases));
+        }
+    }
+
+    public static PackedRefGenome loadRefGenome(final String filename)
+    {
+        if(filename == null || filename.isEmpty())
+            return null;
+
+        try
+        {
+            return new PackedRefGenome(filename);
+        }
+        catch(IOException e)
+        {
+            LOGGER.error("packed reference file loading failed: {}", e.toString());
+            return null;
+        }
+    }
+
+    public static boolean isPackedRefGenome(final String filename)
+    {
+        return filename != null && filename.endsWith(PACKED_REF_GENOME_EXTENSION);
+    }
+
+    public Set<String> chromosomes() { return Collections.unmodifiableSet(mContigs.keySet()); }
+
+    public boolean hasChromosome(final String chromosome) { return mContigs.containsKey(chromosome); }
+
+    @Override
+    public int getChromosomeLength(final String chromosome)
+    {
+        return getContig(chromosome).Length;
+    }
+
+    @Override
+    public String getBaseString(final String chromosome, int posStart, int posEnd)
+    {
+        return new String(getBases(chromosome, posStart, posEnd), StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    public String getBaseString(final String chromosome, final List<int[]> baseRanges)
+    {
+        int totalLength = 0;
+
+        for(int[] baseRange : baseRanges)
+        {
+            totalLength += baseRange[1] - baseRange[0] + 1;
+        }
+
+        byte[] bases = new byte[totalLength];
+        int offset = 0;
+
+        for(int[] baseRange : baseRanges)
+        {
+            offset += getBases(chromosome, baseRange[0], baseRange[1], bases, offset);
+        }
+
+        return new String(bases, StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    public byte[] getBases(final String chromosome, int posStart, int posEnd)
+    {
+        byte[] bases = new byte[Math.max(posEnd - posStart + 1, 0)];
+        getBases(chromosome, posStart, posEnd, bases, 0);
+        return bases;
+    }
+
+    // writes the bases from the 1-based inclusive range into the supplied array and returns the number of bases written
+    public int getBases(final String chromosome, int posStart, int posEnd, final byte[] dest, int destOffset)
+    {
+        Contig contig = getContig(chromosome);
+
+        if(posStart < 1 || posEnd > contig.Length || posEnd < posStart - 1)
+        {
+            throw new IllegalArgumentException(format("invalid range %s:%d-%d for contig length(%d)",
+                    chromosome, posStart, posEnd, contig.Length));
+        }
+
+        int baseCount = posEnd - posStart + 1;
+
+        if(destOffset < 0 || destOffset + baseCount > dest.length)
+            throw new IndexOutOfBoundsException(format("%d bases do not fit at offset(%d) of array length(%d)", baseCount, destOffset, dest.length));
+
+        int index = posStart - 1;
+        int endIndex = posEnd; // exclusive
+        int destIndex = destOffset;
+
+        while(index < endIndex)
+        {
+            int packed = getByte(contig.DataOffset + (index >> 2)) & 0xFF;
+            int byteIndex = index & 3;
+            int byteEndIndex = min(4, byteIndex + endIndex - index);
+            int unpackedOffset = packed * 4;
+
+            for(int i = byteIndex; i < byteEndIndex; ++i)
+            {
+                dest[destIndex++] = UNPACKED_BASES[unpackedOffset + i];
+            }
+
+            index += byteEndIndex - byteIndex;
+        }
+
+        applyMasks(contig, posStart, posEnd, dest, destOffset);
+
+        return baseCount;
+    }
+
+    private static void applyMasks(final Contig contig, int posStart, int posEnd, final byte[] dest, int destOffset)
+    {
+        int[] maskEnds = contig.MaskEnds;
+
+        // find the first mask ending at or after the range start
+        int low = 0;
+        int high = maskEnds.length;
+
+        while(low < high)
+        {
+            int mid = (low + high) >>> 1;
+
+            if(maskEnds[mid] < posStart)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+
+        for(int i = low; i < maskEnds.length && contig.MaskStarts[i] <= posEnd; ++i)
+        {
+            int maskStart = Math.max(contig.MaskStarts[i], posStart);
+            int maskEnd = min(maskEnds[i], posEnd);
+
+            for(int pos = maskStart; pos <= maskEnd; ++pos)
+            {
+                dest[destOffset + pos - posStart] = contig.MaskBases[i];
+            }
+        }
+    }
+
+    private byte getByte(long offset)
+    {
+        return mBuffers[(int)(offset >>> CHUNK_BITS)].get((int)(offset & CHUNK_MASK));
+    }
+
+    private Contig getContig(final String chromosome)
+    {
+        Contig contig = mContigs.get(chromosome);
+
+        if(contig == null)
+            throw new IllegalArgumentException(format("contig(%s) not found in packed ref genome", chromosome));
+
+        return contig;
+    }
+}
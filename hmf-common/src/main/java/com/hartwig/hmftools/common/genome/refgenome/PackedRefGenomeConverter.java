@@ -0,0 +1,194 @@
+package com.hartwig.hmftools.common.genome.refgenome;
+
+import static com.hartwig.hmftools.common.genome.refgenome.PackedRefGenome.FILE_MAGIC;
+import static com.hartwig.hmftools.common.genome.refgenome.PackedRefGenome.FILE_VERSION;
+import static com.hartwig.hmftools.common.genome.refgenome.PackedRefGenome.PACKED_REF_GENOME_EXTENSION;
+import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeSource.REF_GENOME;
+import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeSource.REF_GENOME_CFG_DESC;
+import static com.hartwig.hmftools.common.utils.config.ConfigUtils.addLoggingOptions;
+import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.createBufferedReader;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+// converts a FASTA (optionally gzipped) into the packed ref genome format read by PackedRefGenome
+public class PackedRefGenomeConverter
+{
+    private static final String OUTPUT_FILE = "output_file";
+
+    private static final Logger LOGGER = LogManager.getLogger(PackedRefGenomeConverter.class);
+
+    private static class ContigWriter
+    {
+        public final String Name;
+        public final long DataOffset;
+        public final List<int[]> Masks; // start, end, base
+        public int Length;
+
+        private int mPacked;
+
+        public ContigWriter(final String name, long dataOffset)
+        {
+            Name = name;
+            DataOffset = dataOffset;
+            Masks = Lists.newArrayList();
+            Length = 0;
+            mPacked = 0;
+        }
+
+        public int addBase(char base, final DataOutputStream output) throws IOException
+        {
+            int code;
+            switch(Character.toUpperCase(base))
+            {
+                case 'A': code = 0; break;
+                case 'C': code = 1; break;
+                case 'G': code = 2; break;
+                case 'T': code = 3; break;
+
+                default:
+                    code = 0;
+                    addMask(Length + 1, (byte)Character.toUpperCase(base));
+                    break;
+            }
+
+            mPacked = (mPacked << 2) | code;
+            ++Length;
+
+            if((Length & 3) == 0)
+            {
+                output.writeByte(mPacked);
+                mPacked = 0;
+                return 1;
+            }
+
+            return 0;
+        }
+
+        private void addMask(int position, byte base)
+        {
+            int[] lastMask = !Masks.isEmpty() ? Masks.get(Masks.size() - 1) : null;
+
+            if(lastMask != null && lastMask[1] == position - 1 && lastMask[2] == base)
+                lastMask[1] = position;
+            else
+                Masks.add(new int[] { position, position, base });
+        }
+
+        // writes any partially filled byte, left-aligned, returning the bytes written
+        public int complete(final DataOutputStream output) throws IOException
+        {
+            int remainder = Length & 3;
+
+            if(remainder == 0)
+                return 0;
+
+            output.writeByte(mPacked << (2 * (4 - remainder)));
+            return 1;
+        }
+    }
+
+    public static void convertFasta(final String fastaFile, final String outputFile) throws IOException
+    {
+        List<ContigWriter> contigs = Lists.newArrayList();
+        long offset = 0;
+
+        try(BufferedReader reader = createBufferedReader(fastaFile);
+                DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(outputFile), 1 << 20)))
+        {
+            ContigWriter contig = null;
+            String line;
+
+            while((line = reader.readLine()) != null)
+            {
+                if(line.startsWith(">"))
+                {
+                    if(contig != null)
+                        offset += contig.complete(output);
+
+                    String name = line.substring(1).trim().split("\\s+", 2)[0];
+                    contig = new ContigWriter(name, offset);
+                    contigs.add(contig);
+                    continue;
+                }
+
+                if(contig == null)
+                {
+                    if(line.trim().isEmpty())
+                        continue;
+
+                    throw new IOException("FASTA bases found before the first contig header");
+                }
+
+                for(int i = 0; i < line.length(); ++i)
+                {
+                    char base = line.charAt(i);
+
+                    if(!Character.isWhitespace(base))
+                        offset += contig.addBase(base, output);
+                }
+            }
+
+            if(contig != null)
+                offset += contig.complete(output);
+
+            long indexOffset = offset;
+
+            output.writeInt(FILE_MAGIC);
+            output.writeInt(FILE_VERSION);
+            output.writeInt(contigs.size());
+
+            for(ContigWriter contigWriter : contigs)
+            {
+                byte[] nameBytes = contigWriter.Name.getBytes(StandardCharsets.UTF_8);
+                output.writeInt(nameBytes.length);
+                output.write(nameBytes);
+                output.writeInt(contigWriter.Length);
+                output.writeLong(contigWriter.DataOffset);
+                output.writeInt(contigWriter.Masks.size());
+
+                for(int[] mask : contigWriter.Masks)
+                {
+                    output.writeInt(mask[0]);
+                    output.writeInt(mask[1]);
+                    output.writeByte(mask[2]);
+                }
+            }
+
+            output.writeLong(indexOffset);
+        }
+
+        LOGGER.info("packed {} contigs from {} into {}", contigs.size(), fastaFile, outputFile);
+    }
+
+    public static void main(final String[] args)
+    {
+        ConfigBuilder configBuilder = new ConfigBuilder("PackedRefGenomeConverter");
+        configBuilder.addPath(REF_GENOME, true, REF_GENOME_CFG_DESC);
+        configBuilder.addConfigItem(OUTPUT_FILE, true, "Output packed ref genome file, typically ending in " + PACKED_REF_GENOME_EXTENSION);
+        addLoggingOptions(configBuilder);
+
+        configBuilder.checkAndParseCommandLine(args);
+
+        try
+        {
+            convertFasta(configBuilder.getValue(REF_GENOME), configBuilder.getValue(OUTPUT_FILE));
+        }
+        catch(IOException e)
+        {
+            LOGGER.error("failed to convert ref genome: {}", e.toString());
+            System.exit(1);
+        }
+    }
+}
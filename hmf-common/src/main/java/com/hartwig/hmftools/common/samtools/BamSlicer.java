@@ -4,6 +4,8 @@ import static com.hartwig.hmftools.common.samtools.SamRecordUtils.SAM_LOGGER;
 import static com.hartwig.hmftools.common.samtools.SamRecordUtils.firstInPair;
 
 import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 import com.google.common.collect.Lists;
@@ -12,9 +14,11 @@ import com.hartwig.hmftools.common.region.ChrBaseRegion;
 import htsjdk.samtools.CigarOperator;
 import htsjdk.samtools.QueryInterval;
 import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMFlag;
 import htsjdk.samtools.SAMRecord;
 import htsjdk.samtools.SAMRecordIterator;
 import htsjdk.samtools.SamReader;
+import htsjdk.samtools.util.CloseableIterator;
 
 public class BamSlicer
 {
@@ -26,6 +30,7 @@ public class BamSlicer
     private boolean mKeepUnmapped;
 
     private volatile boolean mConsumerHalt = false; // allow consumer to halt processing
+    private boolean[] mReaderHalts; // allow consumer to halt individual BAMs in a merged slice
 
     public BamSlicer(int minMappingQuality)
     {
@@ -40,6 +45,7 @@ public class BamSlicer
         mKeepSecondaries = keepSecondaries;
         mKeepUnmapped = false;
         mKeepHardClippedSecondaries = false;
+        mReaderHalts = new boolean[0];
     }
 
     public void setKeepUnmapped() { mKeepUnmapped = true; }
@@ -47,6 +53,12 @@ public class BamSlicer
 
     public void haltProcessing() { mConsumerHalt = true; }
 
+    public void haltProcessing(int readerIndex)
+    {
+        if(readerIndex >= 0 && readerIndex < mReaderHalts.length)
+            mReaderHalts[readerIndex] = true;
+    }
+
     public void slice(final SamReader samReader, final ChrBaseRegion region, final Consumer<SAMRecord> consumer)
     {
         slice(samReader, List.of(region), consumer);
@@ -75,6 +87,127 @@ public class BamSlicer
         }
     }
 
+    public void slice(final RawBamReader rawBamReader, final ChrBaseRegion region, final Consumer<SAMRecord> consumer)
+    {
+        slice(rawBamReader, List.of(region), consumer);
+    }
+
+    // as above but applying the flag and mapping quality filters to raw BAM records, so only reads which pass are decoded
+    public void slice(final RawBamReader rawBamReader, final List<ChrBaseRegion> regions, final Consumer<SAMRecord> consumer)
+    {
+        mConsumerHalt = false;
+
+        final QueryInterval[] queryIntervals = createIntervals(regions, rawBamReader.header());
+
+        if(queryIntervals == null)
+            return;
+
+        try(final CloseableIterator<SAMRecord> iterator = rawBamReader.queryOverlapping(queryIntervals, this::passesRawFilters))
+        {
+            while(!mConsumerHalt && iterator.hasNext())
+            {
+                final SAMRecord record = iterator.next();
+
+                // checks hard-clipped secondaries, which need the CIGAR
+                if(passesFilters(record))
+                {
+                    consumer.accept(record);
+                }
+            }
+        }
+    }
+
+    public void sliceMerged(final List<SamReader> samReaders, final ChrBaseRegion region, final BiConsumer<Integer,SAMRecord> consumer)
+    {
+        sliceMerged(samReaders, List.of(region), consumer);
+    }
+
+    // slices the same regions from several BAMs in a single pass, passing records to the consumer in coordinate order along with
+    // the index of the BAM they came from - each BAM's records keep their own order, and a BAM can be halted without the others
+    public void sliceMerged(
+            final List<SamReader> samReaders, final List<ChrBaseRegion> regions, final BiConsumer<Integer,SAMRecord> consumer)
+    {
+        mConsumerHalt = false;
+        mReaderHalts = new boolean[samReaders.size()];
+
+        final SAMRecordIterator[] iterators = new SAMRecordIterator[samReaders.size()];
+        final PriorityQueue<ReaderRecord> nextRecords = new PriorityQueue<>(Math.max(samReaders.size(), 1));
+
+        try
+        {
+            for(int i = 0; i < samReaders.size(); ++i)
+            {
+                final QueryInterval[] queryIntervals = createIntervals(regions, samReaders.get(i).getFileHeader());
+
+                if(queryIntervals == null)
+                    continue;
+
+                iterators[i] = samReaders.get(i).queryOverlapping(queryIntervals);
+                addNextRecord(iterators[i], i, nextRecords);
+            }
+
+            while(!mConsumerHalt && !nextRecords.isEmpty())
+            {
+                final ReaderRecord readerRecord = nextRecords.poll();
+                int readerIndex = readerRecord.ReaderIndex;
+
+                if(mReaderHalts[readerIndex])
+                    continue;
+
+                consumer.accept(readerIndex, readerRecord.Record);
+
+                if(!mReaderHalts[readerIndex])
+                    addNextRecord(iterators[readerIndex], readerIndex, nextRecords);
+            }
+        }
+        finally
+        {
+            for(SAMRecordIterator iterator : iterators)
+            {
+                if(iterator != null)
+                    iterator.close();
+            }
+        }
+    }
+
+    private void addNextRecord(final SAMRecordIterator iterator, int readerIndex, final PriorityQueue<ReaderRecord> nextRecords)
+    {
+        while(iterator.hasNext())
+        {
+            final SAMRecord record = iterator.next();
+
+            if(passesFilters(record))
+            {
+                nextRecords.add(new ReaderRecord(record, readerIndex));
+                return;
+            }
+        }
+    }
+
+    private static class ReaderRecord implements Comparable<ReaderRecord>
+    {
+        public final SAMRecord Record;
+        public final int ReaderIndex;
+
+        public ReaderRecord(final SAMRecord record, int readerIndex)
+        {
+            Record = record;
+            ReaderIndex = readerIndex;
+        }
+
+        @Override
+        public int compareTo(final ReaderRecord other)
+        {
+            if(Record.getReferenceIndex().intValue() != other.Record.getReferenceIndex().intValue())
+                return Record.getReferenceIndex() < other.Record.getReferenceIndex() ? -1 : 1;
+
+            if(Record.getAlignmentStart() != other.Record.getAlignmentStart())
+                return Record.getAlignmentStart() < other.Record.getAlignmentStart() ? -1 : 1;
+
+            return Integer.compare(ReaderIndex, other.ReaderIndex);
+        }
+    }
+
     public List<SAMRecord> slice(final SamReader samReader, final ChrBaseRegion region)
     {
         return slice(samReader, createIntervals(List.of(region), samReader.getFileHeader()));
@@ -245,6 +378,26 @@ public class BamSlicer
         return queryIntervals;
     }
 
+    private boolean passesRawFilters(int flags, int mappingQuality)
+    {
+        if(mappingQuality < mMinMappingQuality)
+            return false;
+
+        if((flags & SAMFlag.READ_UNMAPPED.intValue()) != 0 && !mKeepUnmapped)
+            return false;
+
+        if((flags & SAMFlag.SECONDARY_ALIGNMENT.intValue()) != 0 && !mKeepSecondaries && !mKeepHardClippedSecondaries)
+            return false;
+
+        if((flags & SAMFlag.SUPPLEMENTARY_ALIGNMENT.intValue()) != 0 && !mKeepSupplementaries)
+            return false;
+
+        if((flags & SAMFlag.DUPLICATE_READ.intValue()) != 0 && !mKeepDuplicates)
+            return false;
+
+        return true;
+    }
+
     private boolean passesFilters(final SAMRecord record)
     {
         if(record.getMappingQuality() < mMinMappingQuality)
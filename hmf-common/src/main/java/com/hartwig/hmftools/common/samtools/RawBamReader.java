@@ -0,0 +1,322 @@
+package com.hartwig.hmftools.common.samtools;
+
+import static com.hartwig.hmftools.common.samtools.SamRecordUtils.SAM_LOGGER;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.google.common.collect.Lists;
+
+import htsjdk.samtools.BAMFileSpan;
+import htsjdk.samtools.BAMIndex;
+import htsjdk.samtools.Chunk;
+import htsjdk.samtools.DefaultSAMRecordFactory;
+import htsjdk.samtools.QueryInterval;
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMFlag;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
+import htsjdk.samtools.ValidationStringency;
+import htsjdk.samtools.util.BlockCompressedInputStream;
+import htsjdk.samtools.util.CloseableIterator;
+
+// reads an indexed BAM's records directly from its compressed blocks, checking each record's flags, mapping quality and position
+// from its fixed-length fields before building a SAMRecord, so that reads which would be filtered out are never decoded
+public class RawBamReader implements Closeable
+{
+    private final String mBamFile;
+    private final SamReader mSamReader; // for the header and index
+    private final BlockCompressedInputStream mInputStream;
+
+    private byte[] mBuffer;
+
+    // a BAM record's fixed-length fields following its block size
+    private static final int FIXED_FIELDS_LENGTH = 32;
+
+    public interface RawRecordFilter
+    {
+        boolean passes(int flags, int mappingQuality);
+    }
+
+    private RawBamReader(final String bamFile, final SamReader samReader, final BlockCompressedInputStream inputStream)
+    {
+        mBamFile = bamFile;
+        mSamReader = samReader;
+        mInputStream = inputStream;
+        mBuffer = new byte[1024];
+    }
+
+    // returns null if the file is not an indexed BAM, in which case callers should slice via a SamReader
+    public static RawBamReader open(final String bamFile)
+    {
+        SamReader samReader = SamReaderFactory.makeDefault().validationStringency(ValidationStringency.SILENT).open(new File(bamFile));
+
+        try
+        {
+            if(samReader.type() != SamReader.Type.BAM_TYPE || !samReader.hasIndex())
+            {
+                SAM_LOGGER.warn("bam({}) is not an indexed BAM, raw record reading unavailable", bamFile);
+                samReader.close();
+                return null;
+            }
+
+            return new RawBamReader(bamFile, samReader, new BlockCompressedInputStream(new File(bamFile)));
+        }
+        catch(IOException e)
+        {
+            SAM_LOGGER.error("failed to open bam({}) for raw record reading: {}", bamFile, e.toString());
+            return null;
+        }
+    }
+
+    public SAMFileHeader header() { return mSamReader.getFileHeader(); }
+
+    // returns records which overlap any of the intervals and pass the filter, in file order and each only once - as with a SamReader
+    // only one iterator can be open at a time
+    public CloseableIterator<SAMRecord> queryOverlapping(final QueryInterval[] intervals, final RawRecordFilter filter)
+    {
+        QueryInterval[] optimisedIntervals = QueryInterval.optimizeIntervals(intervals);
+
+        BAMIndex index = mSamReader.indexing().getIndex();
+        List<BAMFileSpan> spans = Lists.newArrayListWithCapacity(optimisedIntervals.length);
+
+        for(QueryInterval interval : optimisedIntervals)
+        {
+            BAMFileSpan span = index.getSpanOverlapping(interval.referenceIndex, interval.start, interval.end);
+
+            if(span != null)
+                spans.add(span);
+        }
+
+        List<Chunk> chunks = spans.isEmpty() ? Lists.newArrayList() : BAMFileSpan.merge(spans.toArray(new BAMFileSpan[0])).getChunks();
+
+        return new RawRecordIterator(optimisedIntervals, chunks, filter);
+    }
+
+    @Override
+    public void close()
+    {
+        try
+        {
+            mInputStream.close();
+            mSamReader.close();
+        }
+        catch(IOException e)
+        {
+            SAM_LOGGER.error("failed to close bam({}): {}", mBamFile, e.toString());
+        }
+    }
+
+    private class RawRecordIterator implements CloseableIterator<SAMRecord>
+    {
+        private final QueryInterval[] mIntervals;
+        private final List<Chunk> mChunks;
+        private final RawRecordFilter mFilter;
+
+        private int mChunkIndex;
+        private boolean mComplete;
+        private SAMRecord mNextRecord;
+
+        public RawRecordIterator(final QueryInterval[] intervals, final List<Chunk> chunks, final RawRecordFilter filter)
+        {
+            mIntervals = intervals;
+            mChunks = chunks;
+            mFilter = filter;
+            mChunkIndex = -1;
+            mComplete = intervals.length == 0 || chunks.isEmpty();
+            mNextRecord = null;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            if(mNextRecord == null && !mComplete)
+                mNextRecord = findNextRecord();
+
+            return mNextRecord != null;
+        }
+
+        @Override
+        public SAMRecord next()
+        {
+            if(!hasNext())
+                throw new NoSuchElementException();
+
+            SAMRecord record = mNextRecord;
+            mNextRecord = null;
+            return record;
+        }
+
+        @Override
+        public void close()
+        {
+            mComplete = true;
+            mNextRecord = null;
+        }
+
+        private SAMRecord findNextRecord()
+        {
+            try
+            {
+                while(!mComplete)
+                {
+                    if(mChunkIndex < 0 || mInputStream.getFilePointer() >= mChunks.get(mChunkIndex).getChunkEnd())
+                    {
+                        ++mChunkIndex;
+
+                        if(mChunkIndex >= mChunks.size())
+                        {
+                            mComplete = true;
+                            break;
+                        }
+
+                        mInputStream.seek(mChunks.get(mChunkIndex).getChunkStart());
+                    }
+
+                    SAMRecord record = readRecord();
+
+                    if(record != null)
+                        return record;
+                }
+            }
+            catch(IOException e)
+            {
+                SAM_LOGGER.error("bam({}) raw record read failed: {}", mBamFile, e.toString());
+                mComplete = true;
+            }
+
+            return null;
+        }
+
+        // reads the next record from the stream, returning null if it is filtered out or lies outside the intervals
+        private SAMRecord readRecord() throws IOException
+        {
+            if(!readFully(mBuffer, 4))
+            {
+                mComplete = true;
+                return null;
+            }
+
+            int blockSize = readInt(mBuffer, 0);
+
+            if(blockSize < FIXED_FIELDS_LENGTH)
+            {
+                SAM_LOGGER.error("bam({}) invalid record block size({})", mBamFile, blockSize);
+                mComplete = true;
+                return null;
+            }
+
+            if(mBuffer.length < blockSize)
+                mBuffer = new byte[Math.max(blockSize, mBuffer.length * 2)];
+
+            if(!readFully(mBuffer, blockSize))
+            {
+                SAM_LOGGER.error("bam({}) truncated record", mBamFile);
+                mComplete = true;
+                return null;
+            }
+
+            int referenceIndex = readInt(mBuffer, 0);
+            int alignmentStart = readInt(mBuffer, 4) + 1;
+            int readNameLength = mBuffer[8] & 0xff;
+            int mappingQuality = mBuffer[9] & 0xff;
+            int flags = readUnsignedShort(mBuffer, 14);
+
+            QueryInterval lastInterval = mIntervals[mIntervals.length - 1];
+
+            if(referenceIndex > lastInterval.referenceIndex
+            || (referenceIndex == lastInterval.referenceIndex && lastInterval.end > 0 && alignmentStart > lastInterval.end))
+            {
+                // records are coordinate-sorted so none further on can overlap
+                mComplete = true;
+                return null;
+            }
+
+            if(!mFilter.passes(flags, mappingQuality))
+                return null;
+
+            int alignmentEnd = alignmentStart;
+
+            if((flags & SAMFlag.READ_UNMAPPED.intValue()) == 0)
+            {
+                int cigarLength = readUnsignedShort(mBuffer, 12);
+                alignmentEnd = alignmentStart + cigarReferenceLength(mBuffer, FIXED_FIELDS_LENGTH + readNameLength, cigarLength) - 1;
+            }
+
+            if(!overlapsInterval(referenceIndex, alignmentStart, alignmentEnd))
+                return null;
+
+            return DefaultSAMRecordFactory.getInstance().createBAMRecord(
+                    mSamReader.getFileHeader(), referenceIndex, alignmentStart, (short)readNameLength, (short)mappingQuality,
+                    readUnsignedShort(mBuffer, 10), readUnsignedShort(mBuffer, 12), flags, readInt(mBuffer, 16),
+                    readInt(mBuffer, 20), readInt(mBuffer, 24) + 1, readInt(mBuffer, 28),
+                    Arrays.copyOfRange(mBuffer, FIXED_FIELDS_LENGTH, blockSize));
+        }
+
+        private boolean overlapsInterval(int referenceIndex, int alignmentStart, int alignmentEnd)
+        {
+            for(QueryInterval interval : mIntervals)
+            {
+                if(interval.referenceIndex != referenceIndex)
+                    continue;
+
+                if(alignmentEnd >= interval.start && (interval.end <= 0 || alignmentStart <= interval.end))
+                    return true;
+            }
+
+            return false;
+        }
+
+        private boolean readFully(final byte[] buffer, int length) throws IOException
+        {
+            int offset = 0;
+
+            while(offset < length)
+            {
+                int count = mInputStream.read(buffer, offset, length - offset);
+
+                if(count < 0)
+                    return false;
+
+                offset += count;
+            }
+
+            return true;
+        }
+    }
+
+    // the reference bases covered by the CIGAR ops M, D, N, = and X
+    private static final int REF_CONSUMING_OPS = (1 << 0) | (1 << 2) | (1 << 3) | (1 << 7) | (1 << 8);
+
+    static int cigarReferenceLength(final byte[] buffer, int offset, int cigarLength)
+    {
+        int referenceLength = 0;
+
+        for(int i = 0; i < cigarLength; ++i)
+        {
+            int cigarOp = readInt(buffer, offset + i * 4);
+
+            if((REF_CONSUMING_OPS & (1 << (cigarOp & 0xf))) != 0)
+                referenceLength += cigarOp >>> 4;
+        }
+
+        return referenceLength;
+    }
+
+    // BAM fields are little-endian
+    static int readInt(final byte[] buffer, int offset)
+    {
+        return (buffer[offset] & 0xff) | ((buffer[offset + 1] & 0xff) << 8) | ((buffer[offset + 2] & 0xff) << 16)
+                | ((buffer[offset + 3] & 0xff) << 24);
+    }
+
+    static int readUnsignedShort(final byte[] buffer, int offset)
+    {
+        return (buffer[offset] & 0xff) | ((buffer[offset + 1] & 0xff) << 8);
+    }
+}
@@ -0,0 +1,204 @@
+package com.hartwig.hmftools.common.stats;
+
+import static java.lang.Math.min;
+import static java.lang.Math.sqrt;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.utils.Matrix;
+import com.hartwig.hmftools.common.utils.TaskExecutor;
+
+// scores vectors against a set of reference vectors in a single pass, with the reference norms pre-computed - scores are
+// identical to CosineSimilarity.calcCosineSim(vector, refVector) without zero-skipping
+// the reference matrix's rows are used in place rather than copied, so it must not be modified after construction
+public class CosineSimilarityMatrix
+{
+    public final int Rows;
+    public final int Cols;
+
+    private final double[][] mData;
+    private final double[] mRowNorms;
+
+    // rows scored together in the inner loop, sharing each read of the vector
+    private static final int ROW_GROUP_SIZE = 4;
+
+    // reference rows per block in the batch calculation, sized to stay cache-resident for typical column counts
+    private static final int ROW_BLOCK_SIZE = 128;
+
+    public CosineSimilarityMatrix(final Matrix refVectors)
+    {
+        Rows = refVectors.Rows;
+        Cols = refVectors.Cols;
+
+        mData = refVectors.getData();
+        mRowNorms = new double[Rows];
+
+        for(int r = 0; r < Rows; ++r)
+        {
+            mRowNorms[r] = sqrt(sumSquares(mData[r], 0, Cols));
+        }
+    }
+
+    // scores the vector against every reference row, with results indexed by row
+    public void calcCosineSims(final double[] vector, final double[] results)
+    {
+        calcCosineSims(vector, results, 0, Rows);
+    }
+
+    // scores each row of the vectors matrix against every reference row, splitting the vectors across threads
+    public Matrix calcCosineSims(final Matrix vectors, int threads)
+    {
+        Matrix results = new Matrix(vectors.Rows, Rows);
+
+        int taskCount = Math.max(min(threads, vectors.Rows), 1);
+        int vectorsPerTask = (vectors.Rows + taskCount - 1) / taskCount;
+
+        List<Callable> tasks = Lists.newArrayList();
+
+        for(int startIndex = 0; startIndex < vectors.Rows; startIndex += vectorsPerTask)
+        {
+            int vectorStart = startIndex;
+            int vectorEnd = min(startIndex + vectorsPerTask, vectors.Rows);
+
+            tasks.add(() ->
+            {
+                // each block of reference rows is scored against all of this task's vectors before moving on
+                for(int rowStart = 0; rowStart < Rows; rowStart += ROW_BLOCK_SIZE)
+                {
+                    int rowEnd = min(rowStart + ROW_BLOCK_SIZE, Rows);
+
+                    for(int v = vectorStart; v < vectorEnd; ++v)
+                    {
+                        calcCosineSims(vectors.getRow(v), results.getRow(v), rowStart, rowEnd);
+                    }
+                }
+
+                return (long)0;
+            });
+        }
+
+        TaskExecutor.executeTasks(tasks, threads);
+
+        return results;
+    }
+
+    private void calcCosineSims(final double[] vector, final double[] results, int rowStart, int rowEnd)
+    {
+        // matches the invalid cases in CosineSimilarity.calcCosineSim
+        if(vector.length != Cols || Cols < 2)
+        {
+            for(int r = rowStart; r < rowEnd; ++r)
+            {
+                results[r] = 0;
+            }
+
+            return;
+        }
+
+        double vectorNorm = sqrt(sumSquares(vector, 0, Cols));
+
+        int r = rowStart;
+
+        // each row's dot product is accumulated in column order, so results are bit-identical to the pairwise calculation
+        for(; r + ROW_GROUP_SIZE <= rowEnd; r += ROW_GROUP_SIZE)
+        {
+            final double[] row0 = mData[r];
+            final double[] row1 = mData[r + 1];
+            final double[] row2 = mData[r + 2];
+            final double[] row3 = mData[r + 3];
+
+            double dot0 = 0;
+            double dot1 = 0;
+            double dot2 = 0;
+            double dot3 = 0;
+
+            for(int i = 0; i < Cols; ++i)
+            {
+                double value = vector[i];
+                dot0 += value * row0[i];
+                dot1 += value * row1[i];
+                dot2 += value * row2[i];
+                dot3 += value * row3[i];
+            }
+
+            results[r] = cosineSim(dot0, vectorNorm, mRowNorms[r]);
+            results[r + 1] = cosineSim(dot1, vectorNorm, mRowNorms[r + 1]);
+            results[r + 2] = cosineSim(dot2, vectorNorm, mRowNorms[r + 2]);
+            results[r + 3] = cosineSim(dot3, vectorNorm, mRowNorms[r + 3]);
+        }
+
+        for(; r < rowEnd; ++r)
+        {
+            final double[] row = mData[r];
+            double dot = 0;
+
+            for(int i = 0; i < Cols; ++i)
+            {
+                dot += vector[i] * row[i];
+            }
+
+            results[r] = cosineSim(dot, vectorNorm, mRowNorms[r]);
+        }
+    }
+
+    private static double cosineSim(double dotProduct, double norm1, double norm2)
+    {
+        if(norm1 <= 0 || norm2 <= 0)
+            return 0;
+
+        return min(dotProduct / (norm1 * norm2), 1.0);
+    }
+
+    private static double sumSquares(final double[] values, int start, int end)
+    {
+        double total = 0;
+
+        for(int i = start; i < end; ++i)
+        {
+            total += values[i] * values[i];
+        }
+
+        return total;
+    }
+
+    // returns the indices of the highest scores at or above the minimum, highest first and with ties kept in index order,
+    // using a bounded heap rather than sorting all scores
+    public static List<Integer> topScoreIndices(final double[] scores, int maxCount, double minScore)
+    {
+        if(maxCount <= 0)
+            return Lists.newArrayList();
+
+        // the head of the heap is the weakest retained score
+        Comparator<Integer> weakestFirst = (index1, index2) ->
+        {
+            int scoreCompare = Double.compare(scores[index1], scores[index2]);
+            return scoreCompare != 0 ? scoreCompare : Integer.compare(index2, index1);
+        };
+
+        PriorityQueue<Integer> topIndices = new PriorityQueue<>(maxCount + 1, weakestFirst);
+
+        for(int i = 0; i < scores.length; ++i)
+        {
+            if(scores[i] < minScore)
+                continue;
+
+            if(topIndices.size() < maxCount)
+            {
+                topIndices.add(i);
+            }
+            else if(scores[i] > scores[topIndices.peek()])
+            {
+                topIndices.poll();
+                topIndices.add(i);
+            }
+        }
+
+        List<Integer> sortedIndices = Lists.newArrayList(topIndices);
+        sortedIndices.sort(weakestFirst.reversed());
+        return sortedIndices;
+    }
+}
@@ -0,0 +1,81 @@
+package com.hartwig.hmftools.common.utils;
+
+import java.util.Arrays;
+
+// a matrix held in a single row-major array, for use in repeated calculations where buffers are re-used
+// converts to and from Matrix so callers can migrate gradually
+public class FlatMatrix
+{
+    final public int Rows;
+    final public int Cols;
+
+    private final double[] mData;
+
+    public FlatMatrix(int rows, int cols)
+    {
+        Rows = rows;
+        Cols = cols;
+        mData = new double[rows * cols];
+    }
+
+    public FlatMatrix(final Matrix other)
+    {
+        this(other.Rows, other.Cols);
+        copyFrom(other);
+    }
+
+    public double[] getData() { return mData; }
+
+    public int index(int row, int col) { return row * Cols + col; }
+
+    public double get(int row, int col) { return mData[row * Cols + col]; }
+    public void set(int row, int col, double value) { mData[row * Cols + col] = value; }
+
+    public void initialise(double value) { Arrays.fill(mData, value); }
+
+    public void copyFrom(final Matrix other)
+    {
+        final double[][] otherData = other.getData();
+
+        for(int i = 0; i < Rows; ++i)
+        {
+            System.arraycopy(otherData[i], 0, mData, i * Cols, Cols);
+        }
+    }
+
+    public void copyFrom(final FlatMatrix other)
+    {
+        System.arraycopy(other.getData(), 0, mData, 0, mData.length);
+    }
+
+    public void copyTo(final Matrix other)
+    {
+        final double[][] otherData = other.getData();
+
+        for(int i = 0; i < Rows; ++i)
+        {
+            System.arraycopy(mData, i * Cols, otherData[i], 0, Cols);
+        }
+    }
+
+    public Matrix toMatrix()
+    {
+        Matrix matrix = new Matrix(Rows, Cols);
+        copyTo(matrix);
+        return matrix;
+    }
+
+    public boolean hasValidData(boolean allowNegative)
+    {
+        for(double value : mData)
+        {
+            if(Double.isNaN(value) || Double.isInfinite(value))
+                return false;
+
+            if(!allowNegative && value < 0)
+                return false;
+        }
+
+        return true;
+    }
+}
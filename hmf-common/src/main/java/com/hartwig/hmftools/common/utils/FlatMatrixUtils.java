@@ -0,0 +1,272 @@
+package com.hartwig.hmftools.common.utils;
+
+import static java.lang.Math.min;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.google.common.collect.Lists;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+// operations on FlatMatrix which write into caller-supplied destinations, so buffers can be re-used across iterations
+// each destination element is accumulated in the same order as MatrixUtils.multiply, so results are bit-identical to it
+public final class FlatMatrixUtils
+{
+    private static final Logger LOGGER = LogManager.getLogger(FlatMatrixUtils.class);
+
+    // destination columns processed per pass over the inner dimension, to keep the destination row segment cache-resident
+    private static final int COL_BLOCK_SIZE = 512;
+
+    // below this many multiply-adds the work is not split across threads
+    private static final long PARALLEL_MIN_OPERATIONS = 1_000_000;
+
+    private interface RowRangeTask
+    {
+        void apply(int rowStart, int rowEnd);
+    }
+
+    // dest = a * b, with a null executor meaning single-threaded
+    public static void multiply(final FlatMatrix a, final FlatMatrix b, final FlatMatrix dest, final ExecutorService executor)
+    {
+        if(a.Cols != b.Rows || dest.Rows != a.Rows || dest.Cols != b.Cols)
+        {
+            LOGGER.error("incorrect row or column");
+            return;
+        }
+
+        final double[] aData = a.getData();
+        final double[] bData = b.getData();
+        final double[] destData = dest.getData();
+        final int common = a.Cols;
+        final int destCols = dest.Cols;
+
+        runByRows(dest.Rows, (long)dest.Rows * destCols * common, executor, (rowStart, rowEnd) ->
+        {
+            for(int i = rowStart; i < rowEnd; ++i)
+            {
+                int aOffset = i * common;
+                int destOffset = i * destCols;
+
+                for(int colStart = 0; colStart < destCols; colStart += COL_BLOCK_SIZE)
+                {
+                    int colEnd = min(colStart + COL_BLOCK_SIZE, destCols);
+
+                    for(int j = colStart; j < colEnd; ++j)
+                    {
+                        destData[destOffset + j] = 0;
+                    }
+
+                    for(int c = 0; c < common; ++c)
+                    {
+                        double aValue = aData[aOffset + c];
+                        int bOffset = c * destCols;
+
+                        for(int j = colStart; j < colEnd; ++j)
+                        {
+                            destData[destOffset + j] += aValue * bData[bOffset + j];
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    // dest = transpose(a) * b, without forming the transpose
+    public static void multiplyTransposeA(final FlatMatrix a, final FlatMatrix b, final FlatMatrix dest, final ExecutorService executor)
+    {
+        if(a.Rows != b.Rows || dest.Rows != a.Cols || dest.Cols != b.Cols)
+        {
+            LOGGER.error("incorrect row or column");
+            return;
+        }
+
+        final double[] aData = a.getData();
+        final double[] bData = b.getData();
+        final double[] destData = dest.getData();
+        final int common = a.Rows;
+        final int aCols = a.Cols;
+        final int destCols = dest.Cols;
+
+        runByRows(dest.Rows, (long)dest.Rows * destCols * common, executor, (rowStart, rowEnd) ->
+        {
+            for(int i = rowStart; i < rowEnd; ++i)
+            {
+                int destOffset = i * destCols;
+
+                for(int colStart = 0; colStart < destCols; colStart += COL_BLOCK_SIZE)
+                {
+                    int colEnd = min(colStart + COL_BLOCK_SIZE, destCols);
+
+                    for(int j = colStart; j < colEnd; ++j)
+                    {
+                        destData[destOffset + j] = 0;
+                    }
+
+                    for(int c = 0; c < common; ++c)
+                    {
+                        double aValue = aData[c * aCols + i];
+                        int bOffset = c * destCols;
+
+                        for(int j = colStart; j < colEnd; ++j)
+                        {
+                            destData[destOffset + j] += aValue * bData[bOffset + j];
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    // dest = a * transpose(b), where each element is a dot product of two contiguous rows
+    public static void multiplyTransposeB(final FlatMatrix a, final FlatMatrix b, final FlatMatrix dest, final ExecutorService executor)
+    {
+        if(a.Cols != b.Cols || dest.Rows != a.Rows || dest.Cols != b.Rows)
+        {
+            LOGGER.error("incorrect row or column");
+            return;
+        }
+
+        final double[] aData = a.getData();
+        final double[] bData = b.getData();
+        final double[] destData = dest.getData();
+        final int common = a.Cols;
+        final int destCols = dest.Cols;
+
+        runByRows(dest.Rows, (long)dest.Rows * destCols * common, executor, (rowStart, rowEnd) ->
+        {
+            for(int i = rowStart; i < rowEnd; ++i)
+            {
+                int aOffset = i * common;
+                int destOffset = i * destCols;
+
+                for(int j = 0; j < destCols; ++j)
+                {
+                    int bOffset = j * common;
+                    double total = 0;
+
+                    for(int c = 0; c < common; ++c)
+                    {
+                        total += aData[aOffset + c] * bData[bOffset + c];
+                    }
+
+                    destData[destOffset + j] = total;
+                }
+            }
+        });
+    }
+
+    // a *= b, element-wise
+    public static void scalarMultiply(final FlatMatrix a, final FlatMatrix b)
+    {
+        final double[] data = a.getData();
+        final double[] otherData = b.getData();
+
+        for(int i = 0; i < data.length; ++i)
+        {
+            data[i] *= otherData[i];
+        }
+    }
+
+    // a /= b, element-wise, skipping zero divisors if permitted and otherwise stopping at the first one as MatrixUtils does
+    public static void scalarDivide(final FlatMatrix a, final FlatMatrix b, boolean allowZeros)
+    {
+        final double[] data = a.getData();
+        final double[] otherData = b.getData();
+
+        for(int i = 0; i < data.length; ++i)
+        {
+            if(otherData[i] == 0)
+            {
+                if(allowZeros)
+                    continue;
+
+                LOGGER.error("divide by zero at i={}, j={}", i / a.Cols, i % a.Cols);
+                return;
+            }
+
+            data[i] /= otherData[i];
+        }
+    }
+
+    // as per MatrixUtils.scalarMultiplyRateAdjusted, dampening the adjustment in the first columns
+    public static void scalarMultiplyRateAdjusted(final FlatMatrix a, final FlatMatrix b, double rateAdjust, int adjustColLimit)
+    {
+        final double[] data = a.getData();
+        final double[] otherData = b.getData();
+
+        for(int i = 0; i < a.Rows; ++i)
+        {
+            int offset = i * a.Cols;
+
+            for(int j = 0; j < a.Cols; ++j)
+            {
+                int index = offset + j;
+
+                if(j < adjustColLimit)
+                {
+                    if(otherData[index] >= 1)
+                        data[index] *= 1 + (otherData[index] - 1) * rateAdjust;
+                    else
+                        data[index] *= 1 - (1 - otherData[index]) * rateAdjust;
+                }
+                else
+                {
+                    data[index] *= otherData[index];
+                }
+            }
+        }
+    }
+
+    public static double sumDiffSq(final FlatMatrix a, final FlatMatrix b)
+    {
+        final double[] data = a.getData();
+        final double[] otherData = b.getData();
+        double total = 0;
+
+        for(int i = 0; i < data.length; ++i)
+        {
+            double diff = data[i] - otherData[i];
+            total += diff * diff;
+        }
+
+        return total;
+    }
+
+    private static void runByRows(int rows, long operations, final ExecutorService executor, final RowRangeTask task)
+    {
+        if(executor == null || operations < PARALLEL_MIN_OPERATIONS || rows < 2)
+        {
+            task.apply(0, rows);
+            return;
+        }
+
+        // a few ranges per thread so uneven progress evens out, each range writing only its own destination rows
+        int rangeCount = min(rows, Runtime.getRuntime().availableProcessors() * 4);
+        int rowsPerRange = (rows + rangeCount - 1) / rangeCount;
+
+        List<Future<?>> futures = Lists.newArrayListWithCapacity(rangeCount);
+
+        for(int rowStart = 0; rowStart < rows; rowStart += rowsPerRange)
+        {
+            int start = rowStart;
+            int end = min(rowStart + rowsPerRange, rows);
+            futures.add(executor.submit(() -> task.apply(start, end)));
+        }
+
+        try
+        {
+            for(Future<?> future : futures)
+            {
+                future.get();
+            }
+        }
+        catch(Exception e)
+        {
+            LOGGER.error("matrix task failed: {}", e.toString());
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.hartwig.hmftools.common.utils;
+
+import static java.lang.Math.ceil;
+import static java.lang.Math.max;
+import static java.lang.String.format;
+
+import static com.hartwig.hmftools.common.utils.file.FileDelimiters.TSV_DELIM;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+
+// collects per-stage metrics from the tools' performance counters and writes them to a TSV or JSON file when the JVM exits,
+// so runs can be compared without parsing the PerfStat log lines
+// counters with the same name are combined, and the peak heap recorded against a stage is the JVM's heap peak since the
+// previous registration, so counters registered together share it
+public final class MetricsRegistry
+{
+    public static final String PERF_METRICS_FILE = "perf_metrics_file";
+    public static final String PERF_METRICS_FILE_DESC = "Write per-stage performance metrics on exit, as JSON if the file ends in .json, otherwise TSV";
+
+    private static final double[] PERCENTILES = { 50, 90, 99 };
+
+    private static final double BYTES_IN_MB = 1024.0 * 1024.0;
+
+    private static final Map<String,StageMetrics> STAGE_METRICS = Maps.newLinkedHashMap();
+
+    private static String APP_NAME = null;
+    private static String OUTPUT_FILE = null;
+    private static long START_TIME_MS = 0;
+    private static long PEAK_HEAP_BYTES = 0;
+    private static boolean WRITTEN = false;
+
+    private static class StageMetrics
+    {
+        public final String Name;
+        public int Intervals;
+        public double TotalTime;
+        public double MaxTime;
+        public long InputBytes;
+        public long PeakHeapBytes;
+        public final List<double[]> Times;
+
+        public StageMetrics(final String name)
+        {
+            Name = name;
+            Intervals = 0;
+            TotalTime = 0;
+            MaxTime = 0;
+            InputBytes = 0;
+            PeakHeapBytes = 0;
+            Times = Lists.newArrayList();
+        }
+
+        public double[] sortedTimes()
+        {
+            double[] times = Times.stream().flatMapToDouble(Arrays::stream).toArray();
+            Arrays.sort(times);
+            return times;
+        }
+    }
+
+    public static void addConfig(final ConfigBuilder configBuilder)
+    {
+        configBuilder.addConfigItem(PERF_METRICS_FILE, false, PERF_METRICS_FILE_DESC);
+    }
+
+    public static void initialise(final ConfigBuilder configBuilder, final String appName)
+    {
+        if(configBuilder.hasValue(PERF_METRICS_FILE))
+            enable(appName, configBuilder.getValue(PERF_METRICS_FILE));
+    }
+
+    public static synchronized void enable(final String appName, final String outputFile)
+    {
+        if(OUTPUT_FILE == null)
+            Runtime.getRuntime().addShutdownHook(new Thread(MetricsRegistry::writeMetrics));
+
+        APP_NAME = appName;
+        OUTPUT_FILE = outputFile;
+        START_TIME_MS = System.currentTimeMillis();
+        WRITTEN = false;
+        PEAK_HEAP_BYTES = 0;
+        STAGE_METRICS.clear();
+        resetPeakHeap();
+    }
+
+    public static synchronized boolean isEnabled() { return OUTPUT_FILE != null; }
+
+    public static void register(final PerformanceCounter perfCounter) { register(List.of(perfCounter)); }
+
+    // records the counters' current values, so register each once its stage is complete
+    public static synchronized void register(final Collection<PerformanceCounter> perfCounters)
+    {
+        if(OUTPUT_FILE == null)
+            return;
+
+        long peakHeap = samplePeakHeap();
+
+        for(PerformanceCounter perfCounter : perfCounters)
+        {
+            if(perfCounter.getIntervalCount() == 0)
+                continue;
+
+            StageMetrics stage = STAGE_METRICS.computeIfAbsent(perfCounter.getName(), StageMetrics::new);
+            stage.Intervals += perfCounter.getIntervalCount();
+            stage.TotalTime += perfCounter.getTotalTime();
+            stage.MaxTime = max(stage.MaxTime, perfCounter.getMaxTime());
+            stage.InputBytes += perfCounter.getInputBytes();
+            stage.PeakHeapBytes = max(stage.PeakHeapBytes, peakHeap);
+            stage.Times.add(perfCounter.getIntervalTimes());
+        }
+    }
+
+    public static synchronized void writeMetrics()
+    {
+        if(OUTPUT_FILE == null || WRITTEN)
+            return;
+
+        WRITTEN = true;
+        samplePeakHeap();
+
+        try(BufferedWriter writer = new BufferedWriter(new FileWriter(OUTPUT_FILE)))
+        {
+            if(OUTPUT_FILE.endsWith(".json"))
+                writeJson(writer);
+            else
+                writeTsv(writer);
+        }
+        catch(IOException e)
+        {
+            // loggers may already be shut down when called on exit
+            System.err.println(format("failed to write performance metrics file(%s): %s", OUTPUT_FILE, e));
+        }
+    }
+
+    private static void writeTsv(final BufferedWriter writer) throws IOException
+    {
+        StringJoiner header = new StringJoiner(TSV_DELIM);
+        header.add("App").add("Stage").add("Intervals").add("TotalSeconds").add("AvgSeconds");
+
+        for(double percentile : PERCENTILES)
+        {
+            header.add(format("P%.0fSeconds", percentile));
+        }
+
+        header.add("MaxSeconds").add("InputBytes").add("PeakHeapMb");
+        writer.write(header.toString());
+        writer.newLine();
+
+        for(StageMetrics stage : STAGE_METRICS.values())
+        {
+            StringJoiner sj = new StringJoiner(TSV_DELIM);
+            sj.add(APP_NAME).add(stage.Name).add(String.valueOf(stage.Intervals));
+            sj.add(format("%.4f", stage.TotalTime)).add(format("%.4f", stage.TotalTime / stage.Intervals));
+
+            double[] times = stage.sortedTimes();
+
+            for(double percentile : PERCENTILES)
+            {
+                sj.add(times.length > 0 ? format("%.4f", percentile(times, percentile)) : "");
+            }
+
+            sj.add(format("%.4f", stage.MaxTime)).add(String.valueOf(stage.InputBytes)).add(format("%.0f", stage.PeakHeapBytes / BYTES_IN_MB));
+            writer.write(sj.toString());
+            writer.newLine();
+        }
+
+        // a final row for the whole run
+        double runTime = runTimeSeconds();
+        StringJoiner sj = new StringJoiner(TSV_DELIM);
+        sj.add(APP_NAME).add("Run").add("1").add(format("%.4f", runTime)).add(format("%.4f", runTime));
+
+        for(int i = 0; i < PERCENTILES.length; ++i)
+        {
+            sj.add("");
+        }
+
+        long totalBytes = STAGE_METRICS.values().stream().mapToLong(x -> x.InputBytes).sum();
+        sj.add(format("%.4f", runTime)).add(String.valueOf(totalBytes)).add(format("%.0f", PEAK_HEAP_BYTES / BYTES_IN_MB));
+        writer.write(sj.toString());
+        writer.newLine();
+    }
+
+    private static void writeJson(final BufferedWriter writer) throws IOException
+    {
+        JsonObject root = new JsonObject();
+        root.addProperty("app", APP_NAME);
+        root.addProperty("runSeconds", runTimeSeconds());
+        root.addProperty("peakHeapMb", Math.round(PEAK_HEAP_BYTES / BYTES_IN_MB));
+
+        JsonArray stages = new JsonArray();
+
+        for(StageMetrics stage : STAGE_METRICS.values())
+        {
+            JsonObject stageJson = new JsonObject();
+            stageJson.addProperty("stage", stage.Name);
+            stageJson.addProperty("intervals", stage.Intervals);
+            stageJson.addProperty("totalSeconds", stage.TotalTime);
+            stageJson.addProperty("avgSeconds", stage.TotalTime / stage.Intervals);
+
+            double[] times = stage.sortedTimes();
+
+            if(times.length > 0)
+            {
+                for(double percentile : PERCENTILES)
+                {
+                    stageJson.addProperty(format("p%.0fSeconds", percentile), percentile(times, percentile));
+                }
+            }
+
+            stageJson.addProperty("maxSeconds", stage.MaxTime);
+            stageJson.addProperty("inputBytes", stage.InputBytes);
+            stageJson.addProperty("peakHeapMb", Math.round(stage.PeakHeapBytes / BYTES_IN_MB));
+            stages.add(stageJson);
+        }
+
+        root.add("stages", stages);
+
+        writer.write(new GsonBuilder().setPrettyPrinting().create().toJson(root));
+        writer.newLine();
+    }
+
+    // nearest-rank percentile of ascending values
+    protected static double percentile(final double[] sortedValues, double percentile)
+    {
+        int rank = (int)ceil(percentile / 100 * sortedValues.length);
+        return sortedValues[Math.min(Math.max(rank, 1), sortedValues.length) - 1];
+    }
+
+    private static double runTimeSeconds()
+    {
+        return (System.currentTimeMillis() - START_TIME_MS) / PerformanceCounter.MS_IN_SECOND;
+    }
+
+    // returns the heap peak since the last sample and resets it, also tracking the peak for the whole run
+    private static long samplePeakHeap()
+    {
+        long peakHeap = 0;
+
+        for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+        {
+            if(pool.getType() != MemoryType.HEAP || !pool.isValid())
+                continue;
+
+            MemoryUsage peakUsage = pool.getPeakUsage();
+
+            if(peakUsage != null)
+                peakHeap += peakUsage.getUsed();
+        }
+
+        resetPeakHeap();
+
+        PEAK_HEAP_BYTES = max(PEAK_HEAP_BYTES, peakHeap);
+        return peakHeap;
+    }
+
+    private static void resetPeakHeap()
+    {
+        for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+        {
+            if(pool.getType() == MemoryType.HEAP && pool.isValid())
+                pool.resetPeakUsage();
+        }
+    }
+}
@@ -35,6 +35,8 @@ public class PerformanceCounter
     private double mLastTime;
     private String mCurrentIntervalName;
 
+    private long mInputBytes; // size of the stage's input files, optionally recorded for metrics
+
     public static final double NANOS_IN_SECOND = 1000000000;
     public static final double NANO_IN_MILLISECOND = 1000000;
     public static final double MS_IN_SECOND = 1000;
@@ -52,6 +54,7 @@ public class PerformanceCounter
         mIntervalCount = 0;
         mLastTime = 0;
         mCurrentIntervalName = null;
+        mInputBytes = 0;
     }
 
     public void reset()
@@ -64,6 +67,7 @@ public class PerformanceCounter
         mIntervalCount = 0;
         mLastTime = 0;
         mCurrentIntervalName = null;
+        mInputBytes = 0;
 
         if(mNamedTimes != null)
             mNamedTimes.clear();
@@ -155,6 +159,17 @@ public class PerformanceCounter
     public double getMaxTime() { return mMaxTime; }
     public double getLastTime() { return mLastTime; }
 
+    public void addInputBytes(long bytes) { mInputBytes += bytes; }
+    public long getInputBytes() { return mInputBytes; }
+
+    public double[] getIntervalTimes()
+    {
+        if(mNamedTimes == null)
+            return new double[0];
+
+        return mNamedTimes.stream().mapToDouble(x -> x.Time).toArray();
+    }
+
     public double getAvgTime() { return mIntervalCount > 0 ? mTotalTime / (double)mIntervalCount : 0; }
 
     public double getMedianTime()
@@ -209,6 +224,7 @@ public class PerformanceCounter
         mTotalTime += other.getTotalTime();
         mMaxTime = max(mMaxTime, other.getMaxTime());
         mIntervalCount += other.getIntervalCount();
+        mInputBytes += other.getInputBytes();
 
         if(other.getNamedTimes() != null)
         {
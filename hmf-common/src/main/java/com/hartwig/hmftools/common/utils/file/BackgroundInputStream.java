@@ -0,0 +1,198 @@
+package com.hartwig.hmftools.common.utils.file;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// reads a source stream, typically a decompressing one, on a background thread so decompression overlaps with parsing
+public class BackgroundInputStream extends InputStream
+{
+    private static final int CHUNK_SIZE = 1 << 20;
+    private static final int QUEUE_CAPACITY = 4;
+
+    private static final Chunk END_OF_STREAM = new Chunk(new byte[0], 0);
+
+    private final InputStream mSource;
+    private final BlockingQueue<Chunk> mQueue;
+    private final Thread mThread;
+
+    private volatile Throwable mException; // rethrown to the consumer at the end of the stream
+    private volatile boolean mClosed;
+
+    private Chunk mCurrent;
+    private int mPosition;
+
+    private static class Chunk
+    {
+        public final byte[] Data;
+        public final int Length;
+
+        public Chunk(final byte[] data, int length)
+        {
+            Data = data;
+            Length = length;
+        }
+    }
+
+    public BackgroundInputStream(final InputStream source)
+    {
+        mSource = source;
+        mQueue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        mException = null;
+        mClosed = false;
+        mCurrent = null;
+        mPosition = 0;
+
+        mThread = new Thread(this::readSource, "background-reader");
+        mThread.setDaemon(true);
+        mThread.start();
+    }
+
+    private void readSource()
+    {
+        try
+        {
+            while(!mClosed)
+            {
+                byte[] data = new byte[CHUNK_SIZE];
+                int length = 0;
+
+                // fill each chunk so the consumer isn't handed many small decompressor outputs
+                while(length < data.length)
+                {
+                    int bytesRead = mSource.read(data, length, data.length - length);
+
+                    if(bytesRead < 0)
+                        break;
+
+                    length += bytesRead;
+                }
+
+                if(length > 0)
+                    mQueue.put(new Chunk(data, length));
+
+                if(length < data.length)
+                    break;
+            }
+        }
+        catch(InterruptedException e)
+        {
+            if(!mClosed)
+                mException = new IOException("background reader interrupted");
+        }
+        catch(Throwable e)
+        {
+            mException = e;
+        }
+        finally
+        {
+            // always mark the end, so the consumer cannot block on a reader which has stopped
+            if(!mClosed)
+            {
+                try
+                {
+                    mQueue.put(END_OF_STREAM);
+                }
+                catch(InterruptedException e)
+                {
+                    // closed by the consumer
+                }
+            }
+        }
+    }
+
+    // returns false once the source is exhausted
+    private boolean nextChunk() throws IOException
+    {
+        if(mCurrent == END_OF_STREAM)
+            return false;
+
+        try
+        {
+            mCurrent = mQueue.take();
+            mPosition = 0;
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted waiting for background reader");
+        }
+
+        if(mCurrent == END_OF_STREAM)
+        {
+            if(mException != null)
+                rethrowSourceException();
+
+            return false;
+        }
+
+        return true;
+    }
+
+    private void rethrowSourceException() throws IOException
+    {
+        if(mException instanceof IOException)
+            throw (IOException)mException;
+
+        if(mException instanceof RuntimeException)
+            throw (RuntimeException)mException;
+
+        if(mException instanceof Error)
+            throw (Error)mException;
+
+        throw new IOException("background reader failed", mException);
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        if(mCurrent == null || mPosition >= mCurrent.Length)
+        {
+            if(!nextChunk())
+                return -1;
+        }
+
+        return mCurrent.Data[mPosition++] & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] buffer, int offset, int length) throws IOException
+    {
+        if(length == 0)
+            return 0;
+
+        if(mCurrent == null || mPosition >= mCurrent.Length)
+        {
+            if(!nextChunk())
+                return -1;
+        }
+
+        int copyLength = Math.min(length, mCurrent.Length - mPosition);
+        System.arraycopy(mCurrent.Data, mPosition, buffer, offset, copyLength);
+        mPosition += copyLength;
+        return copyLength;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if(mClosed)
+            return;
+
+        mClosed = true;
+        mThread.interrupt();
+
+        try
+        {
+            mThread.join();
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        mQueue.clear();
+        mSource.close();
+    }
+}
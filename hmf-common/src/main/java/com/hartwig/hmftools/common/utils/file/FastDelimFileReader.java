@@ -0,0 +1,502 @@
+package com.hartwig.hmftools.common.utils.file;
+
+import static java.lang.Math.max;
+import static java.lang.String.format;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Reads a CSV / TSV file by tokenizing its bytes directly, so only the projected columns are ever parsed and numeric
+ * values are read without creating a String for each field. Gzipped files (ending in .gz) are decompressed on a
+ * background thread. Numeric values parse to the same results as Integer.parseInt and Double.parseDouble.
+ *
+ * Example usage:
+ *     try(FastDelimFileReader reader = new FastDelimFileReader(filename))
+ *     {
+ *         int chrIndex = reader.column(CHROMOSOME);
+ *         int posIndex = reader.column(POSITION);
+ *
+ *         while(reader.next())
+ *         {
+ *             String chromosome = reader.getCachedString(chrIndex);
+ *             int position = reader.getInt(posIndex);
+ *         }
+ *     }
+ */
+public class FastDelimFileReader implements AutoCloseable
+{
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int PARSE_BUFFER_SIZE = 1 << 16;
+
+    private final InputStream mInputStream;
+    private final byte mDelim;
+
+    private byte[] mBuffer;
+    private int mBufferLength;
+    private int mBufferPosition;
+    private boolean mEndOfStream;
+
+    // current line and the bounds of its tokenized fields
+    private int mLineStart;
+    private int mLineEnd;
+    private int[] mFieldStarts;
+    private int[] mFieldEnds;
+    private int mFieldCount;
+    private long mLineNumber;
+
+    private final List<String> mColumnNames;
+    private final Map<String,Integer> mColumnIndexMap;
+
+    // fields past the highest projected column are not tokenized
+    private int mMaxProjectedColumn;
+    private boolean mProjectAll;
+
+    // last value of each column read through getCachedString
+    private byte[][] mCachedBytes;
+    private String[] mCachedStrings;
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    public FastDelimFileReader(final String filename) throws IOException
+    {
+        this(filename, FileDelimiters.TSV_DELIM.charAt(0), true);
+    }
+
+    public FastDelimFileReader(final String filename, char delimiter, boolean hasHeader) throws IOException
+    {
+        this(openFile(filename), delimiter, hasHeader);
+    }
+
+    public FastDelimFileReader(final InputStream inputStream, char delimiter, boolean hasHeader) throws IOException
+    {
+        mInputStream = inputStream;
+        mDelim = (byte)delimiter;
+
+        mBuffer = new byte[BUFFER_SIZE];
+        mBufferLength = 0;
+        mBufferPosition = 0;
+        mEndOfStream = false;
+
+        mLineStart = 0;
+        mLineEnd = 0;
+        mFieldStarts = new int[16];
+        mFieldEnds = new int[16];
+        mFieldCount = 0;
+        mLineNumber = 0;
+
+        mMaxProjectedColumn = -1;
+        mProjectAll = true;
+        mCachedBytes = new byte[0][];
+        mCachedStrings = new String[0];
+
+        if(hasHeader)
+        {
+            if(!nextLine())
+                throw new IOException("missing header");
+
+            tokenize(Integer.MAX_VALUE);
+
+            List<String> columnNames = Arrays.asList(new String[mFieldCount]);
+            mColumnIndexMap = new HashMap<>();
+
+            for(int i = 0; i < mFieldCount; ++i)
+            {
+                columnNames.set(i, getString(i));
+                mColumnIndexMap.putIfAbsent(columnNames.get(i), i);
+            }
+
+            mColumnNames = Collections.unmodifiableList(columnNames);
+        }
+        else
+        {
+            mColumnNames = Collections.emptyList();
+            mColumnIndexMap = Collections.emptyMap();
+        }
+    }
+
+    private static InputStream openFile(final String filename) throws IOException
+    {
+        InputStream inputStream = new FileInputStream(filename);
+
+        if(filename.endsWith(".gz"))
+            return new BackgroundInputStream(new GZIPInputStream(inputStream, PARSE_BUFFER_SIZE));
+
+        return inputStream;
+    }
+
+    public List<String> getColumnNames() { return mColumnNames; }
+
+    public boolean hasColumn(final String name) { return mColumnIndexMap.containsKey(name); }
+
+    // registers a header column to be parsed and returns its index for the getters
+    public int column(final String name)
+    {
+        Integer index = mColumnIndexMap.get(name);
+
+        if(index == null)
+            throw new RuntimeException(format("column: %s not found", name));
+
+        return project(index);
+    }
+
+    public int column(final Enum<?> name) { return column(name.name()); }
+
+    // registers a column by index, for files without a header
+    public int project(int index)
+    {
+        mProjectAll = false;
+        mMaxProjectedColumn = max(mMaxProjectedColumn, index);
+
+        // extend the current line's fields if projecting after reading started
+        if(index >= mFieldCount && mLineNumber > 0)
+            tokenize(mMaxProjectedColumn);
+
+        return index;
+    }
+
+    public long lineNumber() { return mLineNumber; }
+
+    public int fieldCount() { return mFieldCount; }
+
+    // moves to the next line, returning false at the end of the file
+    public boolean next() throws IOException
+    {
+        if(!nextLine())
+            return false;
+
+        tokenize(mProjectAll ? Integer.MAX_VALUE : mMaxProjectedColumn);
+        return true;
+    }
+
+    private boolean nextLine() throws IOException
+    {
+        int searchStart = mBufferPosition;
+
+        while(true)
+        {
+            for(int i = searchStart; i < mBufferLength; ++i)
+            {
+                if(mBuffer[i] == '\n')
+                {
+                    setLine(mBufferPosition, i);
+                    mBufferPosition = i + 1;
+                    return true;
+                }
+            }
+
+            if(mEndOfStream)
+            {
+                if(mBufferPosition >= mBufferLength)
+                    return false;
+
+                // final line without a newline
+                setLine(mBufferPosition, mBufferLength);
+                mBufferPosition = mBufferLength;
+                return true;
+            }
+
+            searchStart = mBufferLength - mBufferPosition;
+            fillBuffer();
+        }
+    }
+
+    private void setLine(int lineStart, int lineEnd)
+    {
+        if(lineEnd > lineStart && mBuffer[lineEnd - 1] == '\r')
+            --lineEnd;
+
+        mLineStart = lineStart;
+        mLineEnd = lineEnd;
+        ++mLineNumber;
+    }
+
+    // moves any partial line to the start of the buffer, growing it if the line fills it, and then reads more data
+    private void fillBuffer() throws IOException
+    {
+        int remaining = mBufferLength - mBufferPosition;
+
+        if(mBufferPosition == 0 && remaining == mBuffer.length)
+            mBuffer = Arrays.copyOf(mBuffer, mBuffer.length * 2);
+        else if(remaining > 0)
+            System.arraycopy(mBuffer, mBufferPosition, mBuffer, 0, remaining);
+
+        mBufferPosition = 0;
+        mBufferLength = remaining;
+
+        int bytesRead = mInputStream.read(mBuffer, mBufferLength, mBuffer.length - mBufferLength);
+
+        if(bytesRead < 0)
+            mEndOfStream = true;
+        else
+            mBufferLength += bytesRead;
+    }
+
+    private void tokenize(int maxColumn)
+    {
+        mFieldCount = 0;
+        int fieldStart = mLineStart;
+
+        for(int i = mLineStart; i <= mLineEnd; ++i)
+        {
+            if(i < mLineEnd && mBuffer[i] != mDelim)
+                continue;
+
+            if(mFieldCount == mFieldStarts.length)
+            {
+                mFieldStarts = Arrays.copyOf(mFieldStarts, mFieldCount * 2);
+                mFieldEnds = Arrays.copyOf(mFieldEnds, mFieldCount * 2);
+            }
+
+            mFieldStarts[mFieldCount] = fieldStart;
+            mFieldEnds[mFieldCount] = i;
+            ++mFieldCount;
+            fieldStart = i + 1;
+
+            if(mFieldCount > maxColumn)
+                break;
+        }
+    }
+
+    private void checkColumn(int column)
+    {
+        if(column >= mFieldCount)
+            throw new IllegalStateException(format("line(%d) has no column(%d)", mLineNumber, column));
+    }
+
+    public boolean isNull(int column)
+    {
+        checkColumn(column);
+
+        int start = mFieldStarts[column];
+        int length = mFieldEnds[column] - start;
+
+        if(length == 0)
+            return true;
+
+        if(length != 4)
+            return false;
+
+        return (mBuffer[start] == 'n' && mBuffer[start + 1] == 'u' && mBuffer[start + 2] == 'l' && mBuffer[start + 3] == 'l')
+            || (mBuffer[start] == 'N' && mBuffer[start + 1] == 'U' && mBuffer[start + 2] == 'L' && mBuffer[start + 3] == 'L');
+    }
+
+    public String getString(int column)
+    {
+        checkColumn(column);
+        return new String(mBuffer, mFieldStarts[column], mFieldEnds[column] - mFieldStarts[column], StandardCharsets.UTF_8);
+    }
+
+    @Nullable
+    public String getStringOrNull(int column)
+    {
+        return isNull(column) ? null : getString(column);
+    }
+
+    // returns the same String instance while a column's value is unchanged, for repetitive values such as chromosomes
+    public String getCachedString(int column)
+    {
+        checkColumn(column);
+
+        if(column >= mCachedStrings.length)
+        {
+            mCachedBytes = Arrays.copyOf(mCachedBytes, column + 1);
+            mCachedStrings = Arrays.copyOf(mCachedStrings, column + 1);
+        }
+
+        int start = mFieldStarts[column];
+        int end = mFieldEnds[column];
+        byte[] cachedBytes = mCachedBytes[column];
+
+        if(cachedBytes != null && Arrays.equals(cachedBytes, 0, cachedBytes.length, mBuffer, start, end))
+            return mCachedStrings[column];
+
+        mCachedBytes[column] = Arrays.copyOfRange(mBuffer, start, end);
+        mCachedStrings[column] = getString(column);
+        return mCachedStrings[column];
+    }
+
+    public boolean getBoolean(int column)
+    {
+        checkColumn(column);
+
+        // matches Boolean.parseBoolean
+        int start = mFieldStarts[column];
+
+        if(mFieldEnds[column] - start != 4)
+            return false;
+
+        return (mBuffer[start] | 0x20) == 't' && (mBuffer[start + 1] | 0x20) == 'r'
+            && (mBuffer[start + 2] | 0x20) == 'u' && (mBuffer[start + 3] | 0x20) == 'e';
+    }
+
+    public int getInt(int column)
+    {
+        long value = getLong(column);
+
+        if(value < Integer.MIN_VALUE || value > Integer.MAX_VALUE)
+            return Integer.parseInt(getString(column));
+
+        return (int)value;
+    }
+
+    public long getLong(int column)
+    {
+        checkColumn(column);
+
+        int start = mFieldStarts[column];
+        int end = mFieldEnds[column];
+
+        boolean negative = false;
+        int index = start;
+
+        if(index < end && (mBuffer[index] == '-' || mBuffer[index] == '+'))
+        {
+            negative = mBuffer[index] == '-';
+            ++index;
+        }
+
+        // anything other than a plain number of up to 18 digits takes the String route, including its errors
+        if(index == end || end - index > 18)
+            return parseLongFallback(column);
+
+        long value = 0;
+
+        for(; index < end; ++index)
+        {
+            int digit = mBuffer[index] - '0';
+
+            if(digit < 0 || digit > 9)
+                return parseLongFallback(column);
+
+            value = value * 10 + digit;
+        }
+
+        return negative ? -value : value;
+    }
+
+    private long parseLongFallback(int column)
+    {
+        return Long.parseLong(getString(column).trim());
+    }
+
+    public double getDouble(int column)
+    {
+        checkColumn(column);
+
+        int start = mFieldStarts[column];
+        int end = mFieldEnds[column];
+
+        boolean negative = false;
+        int index = start;
+
+        if(index < end && (mBuffer[index] == '-' || mBuffer[index] == '+'))
+        {
+            negative = mBuffer[index] == '-';
+            ++index;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean inFraction = false;
+
+        for(; index < end; ++index)
+        {
+            byte b = mBuffer[index];
+
+            if(b >= '0' && b <= '9')
+            {
+                if(mantissa == 0 && b == '0')
+                {
+                    // leading zeros don't add precision
+                    if(inFraction)
+                        ++fractionDigits;
+
+                    ++digits;
+                    continue;
+                }
+
+                mantissa = mantissa * 10 + (b - '0');
+                ++digits;
+
+                if(inFraction)
+                    ++fractionDigits;
+
+                if(mantissa >= MAX_EXACT_MANTISSA)
+                    return Double.parseDouble(getString(column));
+            }
+            else if(b == '.' && !inFraction)
+            {
+                inFraction = true;
+            }
+            else
+            {
+                break;
+            }
+        }
+
+        int exponent = 0;
+
+        if(index < end && (mBuffer[index] == 'e' || mBuffer[index] == 'E') && digits > 0)
+        {
+            ++index;
+            boolean negativeExponent = false;
+
+            if(index < end && (mBuffer[index] == '-' || mBuffer[index] == '+'))
+            {
+                negativeExponent = mBuffer[index] == '-';
+                ++index;
+            }
+
+            int exponentStart = index;
+
+            for(; index < end && index - exponentStart < 4; ++index)
+            {
+                int digit = mBuffer[index] - '0';
+
+                if(digit < 0 || digit > 9)
+                    break;
+
+                exponent = exponent * 10 + digit;
+            }
+
+            if(index == exponentStart)
+                return Double.parseDouble(getString(column));
+
+            if(negativeExponent)
+                exponent = -exponent;
+        }
+
+        // an exact mantissa scaled by an exact power of ten rounds once, so matches Double.parseDouble
+        if(index != end || digits == 0)
+            return Double.parseDouble(getString(column));
+
+        int scale = exponent - fractionDigits;
+
+        if(scale < -POWERS_OF_TEN.length + 1 || scale >= POWERS_OF_TEN.length)
+            return Double.parseDouble(getString(column));
+
+        double value = scale >= 0 ? mantissa * POWERS_OF_TEN[scale] : mantissa / POWERS_OF_TEN[-scale];
+        return negative ? -value : value;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        mInputStream.close();
+    }
+}
@@ -0,0 +1,271 @@
+package com.hartwig.hmftools.common.utils.pcf;
+
+import static java.lang.String.format;
+
+import static com.hartwig.hmftools.common.utils.file.FileDelimiters.TSV_DELIM;
+import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.createBufferedWriter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.Callable;
+import java.util.function.DoubleUnaryOperator;
+
+import com.google.common.collect.Maps;
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+import com.hartwig.hmftools.common.genome.refgenome.RefGenomeFunctions;
+import com.hartwig.hmftools.common.utils.TaskExecutor;
+import com.hartwig.hmftools.common.utils.file.FastDelimFileReader;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+// segments per-position values into a PCF file, replacing the R copynumber package's pcf called with kmin=1:
+// each chromosome arm is fitted independently, with the noise level estimated across the whole sample or per arm for
+// larger samples
+public class PCFSegmenter
+{
+    public static final String USE_R_SEGMENTATION = "use_r_segmentation";
+    public static final String USE_R_SEGMENTATION_DESC = "Apply PCF segmentation with the R copynumber package";
+
+    private static final Logger LOGGER = LogManager.getLogger(PCFSegmenter.class);
+
+    private static final String CHROMOSOME = "chromosome";
+    private static final String POSITION = "position";
+
+    private static final String ARM_P = "p";
+    private static final String ARM_Q = "q";
+
+    private static final DecimalFormat MEAN_FORMAT = new DecimalFormat("0.####");
+    private static final DecimalFormat VALUE_FORMAT = new DecimalFormat("0.###############");
+
+    // copynumber's pcf estimates the noise level per arm once a sample has this many values
+    private static final int ARM_NOISE_MIN_COUNT = 100_000;
+
+    // last position of each short arm from the hg19 cytobands, which copynumber applies for both ref genome versions
+    private static final Map<String,Integer> P_ARM_ENDS = Maps.newHashMap();
+
+    static
+    {
+        int[] pArmEnds = {
+                125000000, 93300000, 91000000, 50400000, 48400000, 61000000, 59900000, 45600000, 49000000, 40200000, 53700000,
+                35800000, 17900000, 17600000, 19000000, 36600000, 24000000, 17200000, 26500000, 27500000, 13200000, 14700000,
+                60600000, 12500000 };
+
+        for(HumanChromosome chromosome : HumanChromosome.values())
+        {
+            P_ARM_ENDS.put(chromosome.toString(), pArmEnds[chromosome.ordinal()]);
+        }
+    }
+
+    private final String mSampleLabel;
+    private final double mGamma;
+    private final int mThreads;
+
+    public PCFSegmenter(final String sampleLabel, double gamma, int threads)
+    {
+        mSampleLabel = sampleLabel;
+        mGamma = gamma;
+        mThreads = threads;
+    }
+
+    private static class ChromosomeValues
+    {
+        public final String Chromosome;
+        public final List<Integer> Positions;
+        public final List<Double> Values;
+
+        public ChromosomeValues(final String chromosome)
+        {
+            Chromosome = chromosome;
+            Positions = new ArrayList<>();
+            Values = new ArrayList<>();
+        }
+    }
+
+    private static class ArmSegmenter implements Callable<Void>
+    {
+        public final String Chromosome;
+        public final String Arm;
+        public final int[] Positions;
+        public final double[] Values;
+        public final double Gamma;
+        public final double SampleStandardDeviation;
+
+        public int[] SegmentEnds;
+
+        public ArmSegmenter(
+                final String chromosome, final String arm, final int[] positions, final double[] values, double gamma,
+                double sampleStandardDeviation)
+        {
+            Chromosome = chromosome;
+            Arm = arm;
+            Positions = positions;
+            Values = values;
+            Gamma = gamma;
+            SampleStandardDeviation = sampleStandardDeviation;
+            SegmentEnds = null;
+        }
+
+        @Override
+        public Void call()
+        {
+            double standardDeviation = Double.isNaN(SampleStandardDeviation)
+                    ? PiecewiseConstantFit.madStandardDeviation(Values) : SampleStandardDeviation;
+
+            SegmentEnds = PiecewiseConstantFit.segmentEnds(Values, Gamma * standardDeviation * standardDeviation);
+            return null;
+        }
+    }
+
+    // values mapped to NaN by the transform are excluded, as are null values and contigs other than human chromosomes
+    public void segment(
+            final String inputFile, final String valueColumn, final DoubleUnaryOperator transform, final String outputFile)
+            throws IOException
+    {
+        Map<String,ChromosomeValues> chromosomeValues = new LinkedHashMap<>();
+
+        try(FastDelimFileReader reader = new FastDelimFileReader(inputFile))
+        {
+            int chrIndex = reader.column(CHROMOSOME);
+            int posIndex = reader.column(POSITION);
+            int valueIndex = reader.column(valueColumn);
+
+            ChromosomeValues current = null;
+
+            while(reader.next())
+            {
+                if(reader.isNull(valueIndex))
+                    continue;
+
+                double value = transform.applyAsDouble(reader.getDouble(valueIndex));
+
+                if(Double.isNaN(value))
+                    continue;
+
+                String chromosome = reader.getCachedString(chrIndex);
+
+                if(current == null || !current.Chromosome.equals(chromosome))
+                {
+                    if(!HumanChromosome.contains(chromosome))
+                        continue;
+
+                    current = chromosomeValues.computeIfAbsent(chromosome, ChromosomeValues::new);
+                }
+
+                current.Positions.add(reader.getInt(posIndex));
+                current.Values.add(value);
+            }
+        }
+
+        double[] allValues = chromosomeValues.values().stream()
+                .flatMap(x -> x.Values.stream()).mapToDouble(Double::doubleValue).toArray();
+
+        double standardDeviation = Double.NaN;
+
+        if(allValues.length < ARM_NOISE_MIN_COUNT)
+        {
+            standardDeviation = PiecewiseConstantFit.madStandardDeviation(allValues);
+            LOGGER.debug(format("segmenting %d values from %s, noise sd(%.4f)", allValues.length, valueColumn, standardDeviation));
+        }
+        else
+        {
+            LOGGER.debug(format("segmenting %d values from %s, with per-arm noise", allValues.length, valueColumn));
+        }
+
+        List<ArmSegmenter> armSegmenters = new ArrayList<>();
+
+        for(ChromosomeValues values : chromosomeValues.values())
+        {
+            int pArmEnd = P_ARM_ENDS.get(RefGenomeFunctions.stripChrPrefix(values.Chromosome));
+
+            int count = values.Positions.size();
+            int qArmStart = 0;
+
+            while(qArmStart < count && values.Positions.get(qArmStart) <= pArmEnd)
+            {
+                ++qArmStart;
+            }
+
+            if(qArmStart > 0)
+                armSegmenters.add(createArmSegmenter(values, ARM_P, 0, qArmStart, standardDeviation));
+
+            if(qArmStart < count)
+                armSegmenters.add(createArmSegmenter(values, ARM_Q, qArmStart, count, standardDeviation));
+        }
+
+        List<Callable> callableList = new ArrayList<>(armSegmenters);
+
+        if(!TaskExecutor.executeTasks(callableList, mThreads))
+            throw new IOException(format("segmentation of %s failed", inputFile));
+
+        try(BufferedWriter writer = createBufferedWriter(outputFile, false))
+        {
+            StringJoiner header = new StringJoiner(TSV_DELIM);
+            header.add("sampleID").add("chrom").add("arm").add("start.pos").add("end.pos").add("n.probes").add("mean");
+            writer.write(header.toString());
+            writer.newLine();
+
+            for(ArmSegmenter armSegmenter : armSegmenters)
+            {
+                writeSegments(writer, armSegmenter);
+            }
+        }
+    }
+
+    private void writeSegments(final BufferedWriter writer, final ArmSegmenter armSegmenter) throws IOException
+    {
+        int start = 0;
+
+        for(int end : armSegmenter.SegmentEnds)
+        {
+            double sum = 0;
+
+            for(int i = start; i < end; ++i)
+            {
+                sum += armSegmenter.Values[i];
+            }
+
+            int probeCount = end - start;
+
+            // copynumber's rounded mean is replaced by the value itself for single-probe segments, as the R scripts did
+            String mean;
+
+            if(probeCount == 1)
+            {
+                mean = VALUE_FORMAT.format(armSegmenter.Values[start]);
+            }
+            else
+            {
+                // round before formatting so small negative means are written as 0 rather than -0
+                mean = MEAN_FORMAT.format(Math.round(sum / probeCount * 10000) / 10000.0 + 0.0);
+            }
+
+            StringJoiner sj = new StringJoiner(TSV_DELIM);
+            sj.add(mSampleLabel);
+            sj.add(armSegmenter.Chromosome);
+            sj.add(armSegmenter.Arm);
+            sj.add(String.valueOf(armSegmenter.Positions[start]));
+            sj.add(String.valueOf(armSegmenter.Positions[end - 1]));
+            sj.add(String.valueOf(probeCount));
+            sj.add(mean);
+            writer.write(sj.toString());
+            writer.newLine();
+
+            start = end;
+        }
+    }
+
+    private ArmSegmenter createArmSegmenter(
+            final ChromosomeValues values, final String arm, int start, int end, double sampleStandardDeviation)
+    {
+        int[] positions = values.Positions.subList(start, end).stream().mapToInt(Integer::intValue).toArray();
+        double[] armValues = values.Values.subList(start, end).stream().mapToDouble(Double::doubleValue).toArray();
+        return new ArmSegmenter(values.Chromosome, arm, positions, armValues, mGamma, sampleStandardDeviation);
+    }
+}
@@ -0,0 +1,395 @@
+package com.hartwig.hmftools.common.utils.pcf;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// piecewise-constant fitting as in the R copynumber package's pcf with kmin=1 and fast mode, which minimises the sum of
+// squared deviations from the segment means plus a penalty per segment:
+// - fewer than 400 values are fitted exactly over all segment ends, as exactPcf
+// - otherwise segment ends are restricted to candidates marked by step filters, as filterMarkS4, and the fit is exact over
+//   those candidates, as PottsCompact
+// - from 15000 values the candidates are first thinned by fitting overlapping windows of 5000 values, as runPcfSubset
+public final class PiecewiseConstantFit
+{
+    // half-width of the running median used to estimate the noise level, as in copynumber's getMad
+    public static final int MAD_MEDIAN_HALF_WIDTH = 25;
+
+    private static final double MAD_SCALE = 1.4826;
+
+    // value counts selecting the fitting mode, as in copynumber's selectFastPcf
+    private static final int EXACT_FIT_MAX_COUNT = 400;
+    private static final int HIGH_FRACTION_MAX_COUNT = 1000;
+    private static final int SUBSET_FIT_MIN_COUNT = 15000;
+
+    private static final int SUBSET_SIZE = 5000;
+    private static final int SUBSET_STEP = 4 * SUBSET_SIZE / 5;
+
+    // step filter half-lengths and the local maximum threshold passed to filterMarkS4
+    private static final int LONG_FILTER_LENGTH = 8;
+    private static final int SHORT_FILTER_LENGTH = 1;
+    private static final double LOCAL_MAX_THRESHOLD = 0.9;
+    private static final double MAX_LONG_FILTER_FRACTION = 0.8;
+
+    // returns the exclusive end index of each segment, with the final one equal to the value count
+    public static int[] segmentEnds(final double[] values, double penalty)
+    {
+        int count = values.length;
+
+        if(count == 0)
+            return new int[0];
+
+        double[] cumulativeSums = centredCumulativeSums(values);
+
+        boolean[] candidateEnds;
+
+        if(count < EXACT_FIT_MAX_COUNT)
+        {
+            candidateEnds = new boolean[count + 1];
+            Arrays.fill(candidateEnds, true);
+        }
+        else if(count < HIGH_FRACTION_MAX_COUNT)
+        {
+            candidateEnds = markCandidateEnds(cumulativeSums, 0.15, 0.15);
+        }
+        else if(count < SUBSET_FIT_MIN_COUNT)
+        {
+            candidateEnds = markCandidateEnds(cumulativeSums, 0.12, 0.05);
+        }
+        else
+        {
+            candidateEnds = fitSubsets(cumulativeSums, markCandidateEnds(cumulativeSums, 0.12, 0.05), penalty);
+        }
+
+        return fitCandidateEnds(cumulativeSums, 0, count, candidateEnds, penalty).stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // centering leaves the optimum unchanged and keeps the cumulative sums small
+    private static double[] centredCumulativeSums(final double[] values)
+    {
+        int count = values.length;
+        double mean = Arrays.stream(values).sum() / count;
+        double[] cumulativeSums = new double[count + 1];
+
+        for(int i = 0; i < count; ++i)
+        {
+            cumulativeSums[i + 1] = cumulativeSums[i] + values[i] - mean;
+        }
+
+        return cumulativeSums;
+    }
+
+    // the optimal fit of values [start, end) where segments may only end at the candidates or at the end itself
+    // ties go to the earliest final segment start, and a single segment is kept only if strictly better than any split,
+    // as in copynumber's exactPcf and PottsCompact
+    protected static List<Integer> fitCandidateEnds(
+            final double[] cumulativeSums, int start, int end, final boolean[] candidateEnds, double penalty)
+    {
+        int[] ends = new int[end - start];
+        int endCount = 0;
+
+        for(int i = start + 1; i < end; ++i)
+        {
+            if(candidateEnds[i])
+                ends[endCount++] = i;
+        }
+
+        ends[endCount++] = end;
+
+        // the optimal cost up to each candidate, omitting the sum of squares which is common to all solutions
+        double[] optimalCosts = new double[endCount];
+        int[] previousEnds = new int[endCount];
+
+        for(int n = 0; n < endCount; ++n)
+        {
+            double bestSplitCost = Double.POSITIVE_INFINITY;
+            int bestSplit = -1;
+
+            for(int s = 0; s < n; ++s)
+            {
+                double segmentSum = cumulativeSums[ends[n]] - cumulativeSums[ends[s]];
+                double cost = optimalCosts[s] - segmentSum * segmentSum / (ends[n] - ends[s]);
+
+                if(cost < bestSplitCost)
+                {
+                    bestSplitCost = cost;
+                    bestSplit = s;
+                }
+            }
+
+            double totalSum = cumulativeSums[ends[n]] - cumulativeSums[start];
+            double totalCost = -totalSum * totalSum / (ends[n] - start);
+
+            if(bestSplit < 0 || totalCost < bestSplitCost + penalty)
+            {
+                optimalCosts[n] = totalCost;
+                previousEnds[n] = -1;
+            }
+            else
+            {
+                optimalCosts[n] = bestSplitCost + penalty;
+                previousEnds[n] = bestSplit;
+            }
+        }
+
+        List<Integer> segmentEnds = new ArrayList<>();
+
+        for(int n = endCount - 1; n >= 0; n = previousEnds[n])
+        {
+            segmentEnds.add(0, ends[n]);
+        }
+
+        return segmentEnds;
+    }
+
+    // copynumber's runPcfSubset: the candidates are fitted in windows which overlap by a fifth, each window keeping only the
+    // ends it selects before its overlap with the next, and the final window keeping all of its candidates
+    private static boolean[] fitSubsets(final double[] cumulativeSums, final boolean[] candidateEnds, double penalty)
+    {
+        int count = cumulativeSums.length - 1;
+        boolean[] subsetEnds = new boolean[count + 1];
+
+        int start = 0;
+
+        while(true)
+        {
+            int end = start + SUBSET_SIZE;
+
+            Arrays.fill(subsetEnds, start + 1, end + 1, false);
+
+            for(int segmentEnd : fitCandidateEnds(cumulativeSums, start, end, candidateEnds, penalty))
+            {
+                subsetEnds[segmentEnd] = true;
+            }
+
+            start += SUBSET_STEP;
+            subsetEnds[start] = true;
+
+            if(start + 1 + SUBSET_SIZE >= count)
+                break;
+        }
+
+        System.arraycopy(candidateEnds, start + 1, subsetEnds, start + 1, count - start);
+        subsetEnds[count] = true;
+        return subsetEnds;
+    }
+
+    // copynumber's filterMarkS4 with kmin=1: the change in mean across each position is measured over short and long windows,
+    // and candidates are the highest long-window changes near a local maximum and the highest short-window changes, along
+    // with the positions too close to either end for the long window
+    protected static boolean[] markCandidateEnds(final double[] cumulativeSums, double longFraction, double shortFraction)
+    {
+        int count = cumulativeSums.length - 1;
+        int longEdge = 3 * LONG_FILTER_LENGTH;
+
+        double[] longChanges = stepChanges(cumulativeSums, LONG_FILTER_LENGTH);
+
+        double[] localMaxima = new double[count + 1];
+
+        for(int i = 4; i <= count - 3; ++i)
+        {
+            for(int j = i - 3; j <= i + 3; ++j)
+            {
+                localMaxima[i] = Math.max(localMaxima[i], longChanges[j]);
+            }
+        }
+
+        double[] nearMaxChanges = new double[count];
+        int nearMaxCount = 0;
+
+        for(int i = 1; i <= count; ++i)
+        {
+            if(longChanges[i] >= LOCAL_MAX_THRESHOLD * localMaxima[i])
+                nearMaxChanges[nearMaxCount++] = longChanges[i];
+        }
+
+        double nearMaxFraction = Math.min(MAX_LONG_FILTER_FRACTION, longFraction * count / nearMaxCount);
+        double longLimit = quantile(Arrays.copyOf(nearMaxChanges, nearMaxCount), 1 - nearMaxFraction);
+
+        int shortEdge = 3 * SHORT_FILTER_LENGTH;
+        double[] shortChanges = stepChanges(cumulativeSums, SHORT_FILTER_LENGTH);
+        double shortLimit = quantile(Arrays.copyOfRange(shortChanges, shortEdge, count - shortEdge + 1), 1 - shortFraction);
+
+        boolean[] candidateEnds = new boolean[count + 1];
+
+        for(int i = 1; i <= count; ++i)
+        {
+            candidateEnds[i] = (longChanges[i] > longLimit && longChanges[i] > LOCAL_MAX_THRESHOLD * localMaxima[i])
+                    || shortChanges[i] > shortLimit;
+
+            if(i < longEdge || (i > count - longEdge && i < count))
+                candidateEnds[i] = true;
+        }
+
+        candidateEnds[count] = true;
+        return candidateEnds;
+    }
+
+    // the weighted difference in sums over windows of 2 and 3 lengths either side of each segment end, zero where the windows
+    // would pass either end of the values
+    private static double[] stepChanges(final double[] cumulativeSums, int length)
+    {
+        int count = cumulativeSums.length - 1;
+        double[] changes = new double[count + 1];
+
+        for(int i = 3 * length; i <= count - 3 * length; ++i)
+        {
+            changes[i] = Math.abs(4 * cumulativeSums[i] - cumulativeSums[i - 3 * length] - cumulativeSums[i - 2 * length]
+                    - cumulativeSums[i + 2 * length] - cumulativeSums[i + 3 * length]);
+        }
+
+        return changes;
+    }
+
+    // R's default quantile, interpolating linearly between order statistics
+    private static double quantile(final double[] values, double probability)
+    {
+        Arrays.sort(values);
+
+        double index = (values.length - 1) * probability;
+        int lower = (int)Math.floor(index);
+
+        if(lower >= values.length - 1)
+            return values[values.length - 1];
+
+        return values[lower] + (index - lower) * (values[lower + 1] - values[lower]);
+    }
+
+    // noise standard deviation as estimated by copynumber's getMad: the MAD of the residuals from a running median, excluding zeros
+    public static double madStandardDeviation(final double[] values)
+    {
+        double[] nonZeroValues = Arrays.stream(values).filter(x -> x != 0).toArray();
+
+        if(nonZeroValues.length == 0)
+            return 0;
+
+        double[] runningMedians = runningMedian(nonZeroValues, MAD_MEDIAN_HALF_WIDTH);
+
+        double[] residuals = new double[nonZeroValues.length];
+
+        for(int i = 0; i < residuals.length; ++i)
+        {
+            residuals[i] = nonZeroValues[i] - runningMedians[i];
+        }
+
+        return mad(residuals);
+    }
+
+    public static double mad(final double[] values)
+    {
+        double centre = median(values.clone());
+
+        double[] deviations = new double[values.length];
+
+        for(int i = 0; i < values.length; ++i)
+        {
+            deviations[i] = Math.abs(values[i] - centre);
+        }
+
+        return MAD_SCALE * median(deviations);
+    }
+
+    // sorts the values in place
+    private static double median(final double[] values)
+    {
+        Arrays.sort(values);
+
+        int middle = values.length / 2;
+
+        if(values.length % 2 == 1)
+            return values[middle];
+
+        return (values[middle - 1] + values[middle]) / 2;
+    }
+
+    // R's runmed with endrule 'median', including the window narrowing of copynumber's medianFilter for short inputs
+    protected static double[] runningMedian(final double[] values, int halfWidth)
+    {
+        int count = values.length;
+        int width = 2 * halfWidth + 1;
+
+        if(width > count)
+            width = count % 2 == 0 ? count - 1 : count;
+
+        int windowHalf = width / 2;
+        double[] medians = values.clone();
+
+        if(windowHalf < 1)
+            return medians;
+
+        // a sorted copy of the window, updated as it slides
+        double[] window = Arrays.copyOfRange(values, 0, width);
+        Arrays.sort(window);
+
+        for(int i = windowHalf; i < count - windowHalf; ++i)
+        {
+            if(i > windowHalf)
+            {
+                replaceSorted(window, values[i - windowHalf - 1], values[i + windowHalf]);
+            }
+
+            medians[i] = window[windowHalf];
+        }
+
+        return smoothEnds(medians, windowHalf);
+    }
+
+    private static void replaceSorted(final double[] sorted, double oldValue, double newValue)
+    {
+        int index = Arrays.binarySearch(sorted, oldValue);
+
+        while(index > 0 && sorted[index - 1] == oldValue)
+        {
+            --index;
+        }
+
+        // shift values along to open a slot for the new value in order
+        while(index > 0 && sorted[index - 1] > newValue)
+        {
+            sorted[index] = sorted[index - 1];
+            --index;
+        }
+
+        while(index < sorted.length - 1 && sorted[index + 1] < newValue)
+        {
+            sorted[index] = sorted[index + 1];
+            ++index;
+        }
+
+        sorted[index] = newValue;
+    }
+
+    // R's smoothEnds: medians of shrinking odd windows towards each end, then Tukey's end-point rule
+    private static double[] smoothEnds(final double[] values, int halfWidth)
+    {
+        int count = values.length;
+        double[] smoothed = values.clone();
+
+        if(count < 3)
+            return smoothed;
+
+        if(halfWidth >= 2)
+        {
+            smoothed[1] = median3(values[0], values[1], values[2]);
+            smoothed[count - 2] = median3(values[count - 1], values[count - 2], values[count - 3]);
+
+            for(int i = 3; i <= halfWidth; ++i)
+            {
+                if(2 * i > count)
+                    break;
+
+                smoothed[i - 1] = median(Arrays.copyOfRange(values, 0, 2 * i - 1));
+                smoothed[count - i] = median(Arrays.copyOfRange(values, count + 1 - 2 * i, count));
+            }
+        }
+
+        smoothed[0] = median3(values[0], smoothed[1], 3 * smoothed[1] - 2 * smoothed[2]);
+        smoothed[count - 1] = median3(values[count - 1], smoothed[count - 2], 3 * smoothed[count - 2] - 2 * smoothed[count - 3]);
+        return smoothed;
+    }
+
+    private static double median3(double a, double b, double c)
+    {
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+    }
+}
@@ -0,0 +1,232 @@
+package com.hartwig.hmftools.common.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+
+import com.hartwig.hmftools.common.utils.file.BackgroundInputStream;
+import com.hartwig.hmftools.common.utils.file.FastDelimFileReader;
+import com.hartwig.hmftools.common.utils.file.FileWriterUtils;
+
+import org.junit.Test;
+
+public class FastDelimFileReaderTest
+{
+    @Test
+    public void testProjectedColumns() throws IOException
+    {
+        String data = "chromosome\tposition\tratio\tflag\tname\n"
+                + "1\t1001\t0.5\ttrue\tgeneA\r\n"
+                + "1\t2001\t-1.25e-3\tFALSE\tnull\n"
+                + "X\t-5\t\tTrue\t\n"
+                + "X\t7\t1e22";
+
+        try(FastDelimFileReader reader = createReader(data, '\t', true))
+        {
+            assertEquals(List.of("chromosome", "position", "ratio", "flag", "name"), reader.getColumnNames());
+            assertTrue(reader.hasColumn("ratio"));
+            assertFalse(reader.hasColumn("missing"));
+
+            int chrIndex = reader.column("chromosome");
+            int posIndex = reader.column("position");
+            int ratioIndex = reader.column("ratio");
+
+            assertTrue(reader.next());
+            String chromosome = reader.getCachedString(chrIndex);
+            assertEquals("1", chromosome);
+            assertEquals(1001, reader.getInt(posIndex));
+            assertEquals(0.5, reader.getDouble(ratioIndex), 0);
+
+            // fields beyond the projected columns are not tokenized
+            assertEquals(3, reader.fieldCount());
+
+            assertTrue(reader.next());
+            assertSame(chromosome, reader.getCachedString(chrIndex));
+            assertEquals(-1.25e-3, reader.getDouble(ratioIndex), 0);
+
+            int flagIndex = reader.column("flag");
+            int nameIndex = reader.column("name");
+
+            assertFalse(reader.getBoolean(flagIndex));
+            assertTrue(reader.isNull(nameIndex));
+
+            assertTrue(reader.next());
+            assertEquals("X", reader.getCachedString(chrIndex));
+            assertEquals(-5, reader.getInt(posIndex));
+            assertTrue(reader.isNull(ratioIndex));
+            assertTrue(reader.getBoolean(flagIndex));
+            assertNull(reader.getStringOrNull(nameIndex));
+
+            assertTrue(reader.next());
+            assertEquals(1e22, reader.getDouble(ratioIndex), 0);
+
+            try
+            {
+                reader.getString(flagIndex);
+                fail("expected missing column");
+            }
+            catch(IllegalStateException e)
+            {
+                // expected
+            }
+
+            assertFalse(reader.next());
+        }
+    }
+
+    @Test
+    public void testNumbersMatchStringParsing() throws IOException
+    {
+        Random random = new Random(0);
+        StringBuilder sb = new StringBuilder();
+        int rows = 20000;
+
+        String[] fixedValues = { "0", "-0", "+3", "007", "1.", ".5", "0.1", "1e-300", "4.9E-324", "1.7976931348623157E308",
+                "123456789012345678901", "3.14159265358979323846", "NaN", "-Infinity", "2.5d", " 42 " };
+
+        for(String value : fixedValues)
+        {
+            sb.append(value).append(',').append(random.nextInt()).append('\n');
+        }
+
+        for(int i = 0; i < rows; ++i)
+        {
+            double value = random.nextDouble() * Math.pow(10, random.nextInt(20) - 10);
+
+            String valueStr;
+
+            if(i % 4 == 0)
+                valueStr = String.valueOf(value);
+            else if(i % 4 == 1)
+                valueStr = String.format("%.4f", value);
+            else if(i % 4 == 2)
+                valueStr = String.format("%.6e", -value);
+            else
+                valueStr = String.valueOf((float)value);
+
+            sb.append(valueStr).append(',').append(random.nextLong() % 1_000_000_000_000L).append('\n');
+        }
+
+        try(FastDelimFileReader reader = createReader(sb.toString(), ',', false))
+        {
+            int doubleIndex = reader.project(0);
+            int longIndex = reader.project(1);
+
+            while(reader.next())
+            {
+                String doubleStr = reader.getString(doubleIndex);
+                assertEquals(doubleStr, Double.doubleToLongBits(Double.parseDouble(doubleStr)),
+                        Double.doubleToLongBits(reader.getDouble(doubleIndex)));
+
+                assertEquals(Long.parseLong(reader.getString(longIndex)), reader.getLong(longIndex));
+            }
+        }
+
+        try(FastDelimFileReader reader = createReader("12x\n2147483648\n", ',', false))
+        {
+            int index = reader.project(0);
+
+            while(reader.next())
+            {
+                try
+                {
+                    reader.getInt(index);
+                    fail("expected invalid integer");
+                }
+                catch(NumberFormatException e)
+                {
+                    // expected
+                }
+            }
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testBackgroundReaderFailure() throws IOException
+    {
+        // a source which fails with an unchecked exception part way through
+        InputStream failingSource = new InputStream()
+        {
+            private int mBytesRead = 0;
+
+            @Override
+            public int read()
+            {
+                if(mBytesRead++ >= 100)
+                    throw new IllegalStateException("source failure");
+
+                return 'A';
+            }
+        };
+
+        try(BackgroundInputStream inputStream = new BackgroundInputStream(failingSource))
+        {
+            inputStream.readAllBytes();
+            fail("expected the source failure to be rethrown");
+        }
+        catch(IllegalStateException e)
+        {
+            assertEquals("source failure", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testGzipAndLongLines() throws IOException
+    {
+        File file = File.createTempFile("fast_delim_reader", ".tsv.gz");
+        file.deleteOnExit();
+
+        // lines longer than the read buffer and enough rows to span several background chunks
+        String longValue = "A".repeat(100_000);
+        int rows = 200_000;
+
+        try(BufferedWriter writer = FileWriterUtils.createBufferedWriter(file.getAbsolutePath()))
+        {
+            writer.write("index\tvalue\n");
+            writer.write("0\t" + longValue + "\n");
+
+            for(int i = 1; i < rows; ++i)
+            {
+                writer.write(i + "\tV" + i + "\n");
+            }
+        }
+
+        try(FastDelimFileReader reader = new FastDelimFileReader(file.getAbsolutePath()))
+        {
+            int index = reader.column("index");
+            int valueIndex = reader.column("value");
+            int rowCount = 0;
+
+            while(reader.next())
+            {
+                assertEquals(rowCount, reader.getInt(index));
+
+                if(rowCount == 0)
+                    assertEquals(longValue, reader.getString(valueIndex));
+                else
+                    assertEquals("V" + rowCount, reader.getString(valueIndex));
+
+                ++rowCount;
+            }
+
+            assertEquals(rows, rowCount);
+        }
+    }
+
+    private static FastDelimFileReader createReader(final String data, char delimiter, boolean hasHeader) throws IOException
+    {
+        return new FastDelimFileReader(new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8)), delimiter, hasHeader);
+    }
+}
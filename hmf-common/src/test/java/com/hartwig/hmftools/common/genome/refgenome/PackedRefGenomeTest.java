@@ -0,0 +1,135 @@
+package com.hartwig.hmftools.common.genome.refgenome;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.collect.Lists;
+
+import org.junit.Test;
+
+public class PackedRefGenomeTest
+{
+    @Test
+    public void testFastaRoundTrip() throws IOException
+    {
+        Random random = new Random(0);
+
+        // contig lengths which are not multiples of 4, with N runs, other IUPAC codes and soft-masking
+        String chr1 = "NNNN" + randomBases(random, 101) + "NNNNNNN" + randomBases(random, 50) + "R" + randomBases(random, 30) + "N";
+        String chr2 = randomBases(random, 7);
+        String chr3 = randomBases(random, 20).toLowerCase() + randomBases(random, 21);
+
+        PackedRefGenome refGenome = writeAndLoad(Lists.newArrayList("1", "2", "3"), Lists.newArrayList(chr1, chr2, chr3));
+
+        assertEquals(chr1.length(), refGenome.getChromosomeLength("1"));
+        assertEquals(chr2.length(), refGenome.getChromosomeLength("2"));
+        assertEquals(chr3.length(), refGenome.getChromosomeLength("3"));
+
+        assertEquals(chr1, refGenome.getBaseString("1", 1, chr1.length()));
+        assertEquals(chr2, refGenome.getBaseString("2", 1, chr2.length()));
+        assertEquals(chr3.toUpperCase(), refGenome.getBaseString("3", 1, chr3.length()));
+
+        // every sub-range of the first contig
+        for(int posStart = 1; posStart <= chr1.length(); ++posStart)
+        {
+            for(int posEnd = posStart; posEnd <= chr1.length(); posEnd += 3)
+            {
+                assertEquals(chr1.substring(posStart - 1, posEnd), refGenome.getBaseString("1", posStart, posEnd));
+            }
+        }
+
+        assertEquals("", refGenome.getBaseString("1", 10, 9));
+
+        List<int[]> baseRanges = Lists.newArrayList(new int[] { 3, 8 }, new int[] { 110, 120 });
+        assertEquals(chr1.substring(2, 8) + chr1.substring(109, 120), refGenome.getBaseString("1", baseRanges));
+    }
+
+    @Test
+    public void testCallerSuppliedArray() throws IOException
+    {
+        Random random = new Random(1);
+        String chr1 = randomBases(random, 40) + "NN" + randomBases(random, 40);
+
+        PackedRefGenome refGenome = writeAndLoad(Lists.newArrayList("chr1"), Lists.newArrayList(chr1));
+
+        byte[] bases = new byte[20];
+        bases[0] = 'X';
+        bases[19] = 'X';
+
+        assertEquals(18, refGenome.getBases("chr1", 33, 50, bases, 1));
+        assertEquals("X" + chr1.substring(32, 50) + "X", new String(bases));
+
+        try
+        {
+            refGenome.getBases("chr1", 1, 21, bases, 0);
+            fail("expected the range to exceed the array");
+        }
+        catch(IndexOutOfBoundsException e)
+        {
+            // expected
+        }
+
+        try
+        {
+            refGenome.getBases("chr1", 80, chr1.length() + 1);
+            fail("expected the range to exceed the contig");
+        }
+        catch(IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    private static PackedRefGenome writeAndLoad(final List<String> contigs, final List<String> contigBases) throws IOException
+    {
+        File fastaFile = File.createTempFile("ref_genome", ".fasta");
+        fastaFile.deleteOnExit();
+
+        File packedFile = File.createTempFile("ref_genome", PackedRefGenome.PACKED_REF_GENOME_EXTENSION);
+        packedFile.deleteOnExit();
+
+        try(BufferedWriter writer = new BufferedWriter(new FileWriter(fastaFile)))
+        {
+            for(int i = 0; i < contigs.size(); ++i)
+            {
+                writer.write(">" + contigs.get(i) + " description");
+                writer.newLine();
+
+                // wrapped at 60 bases per line
+                String bases = contigBases.get(i);
+
+                for(int lineStart = 0; lineStart < bases.length(); lineStart += 60)
+                {
+                    writer.write(bases.substring(lineStart, Math.min(lineStart + 60, bases.length())));
+                    writer.newLine();
+                }
+            }
+        }
+
+        PackedRefGenomeConverter.convertFasta(fastaFile.getAbsolutePath(), packedFile.getAbsolutePath());
+
+        PackedRefGenome refGenome = PackedRefGenome.loadRefGenome(packedFile.getAbsolutePath());
+        assertNotNull(refGenome);
+        return refGenome;
+    }
+
+    private static String randomBases(final Random random, int length)
+    {
+        char[] bases = new char[length];
+
+        for(int i = 0; i < length; ++i)
+        {
+            bases[i] = "ACGT".charAt(random.nextInt(4));
+        }
+
+        return new String(bases);
+    }
+}
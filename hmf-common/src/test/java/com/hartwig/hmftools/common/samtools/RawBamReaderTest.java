@@ -0,0 +1,193 @@
+package com.hartwig.hmftools.common.samtools;
+
+import static java.lang.String.format;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.region.ChrBaseRegion;
+
+import org.junit.Test;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMFileWriter;
+import htsjdk.samtools.SAMFileWriterFactory;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
+import htsjdk.samtools.ValidationStringency;
+
+public class RawBamReaderTest
+{
+    private static final int CONTIG_LENGTH = 100_000;
+    private static final String[] CIGARS = { "100M", "20S80M", "50M10D50M", "50M500N50M", "40M5I55M", "20H80M" };
+
+    @Test
+    public void testCigarReferenceLength()
+    {
+        // 20S 50M 10D 5I 500N 15M, encoded as BAM ops of length << 4 | op
+        int[] cigarOps = { 20 << 4 | 4, 50 << 4, 10 << 4 | 2, 5 << 4 | 1, 500 << 4 | 3, 15 << 4 };
+        byte[] buffer = new byte[cigarOps.length * 4 + 3];
+
+        for(int i = 0; i < cigarOps.length; ++i)
+        {
+            int offset = 3 + i * 4;
+            buffer[offset] = (byte)cigarOps[i];
+            buffer[offset + 1] = (byte)(cigarOps[i] >> 8);
+            buffer[offset + 2] = (byte)(cigarOps[i] >> 16);
+            buffer[offset + 3] = (byte)(cigarOps[i] >> 24);
+        }
+
+        assertEquals(50 << 4, RawBamReader.readInt(buffer, 7));
+        assertEquals(575, RawBamReader.cigarReferenceLength(buffer, 3, cigarOps.length));
+    }
+
+    @Test
+    public void testRawSliceMatchesSamReaderSlice() throws IOException
+    {
+        Path tempDir = Files.createTempDirectory("raw_bam_reader_test");
+        File bamFile = tempDir.resolve("reads.bam").toFile();
+
+        try
+        {
+            SAMFileHeader header = new SAMFileHeader();
+            header.setSequenceDictionary(new SAMSequenceDictionary(List.of(
+                    new SAMSequenceRecord("1", CONTIG_LENGTH), new SAMSequenceRecord("2", CONTIG_LENGTH))));
+            header.setSortOrder(SAMFileHeader.SortOrder.coordinate);
+
+            writeBam(bamFile, header, generateReads(header, new Random(0)));
+
+            BamSlicer filteringSlicer = new BamSlicer(10, false, false, false);
+
+            BamSlicer keepAllSlicer = new BamSlicer(0, true, true, true);
+            keepAllSlicer.setKeepUnmapped();
+
+            BamSlicer hardClippedSecondarySlicer = new BamSlicer(0, false, true, false);
+            hardClippedSecondarySlicer.setKeepHardClippedSecondaries();
+
+            List<List<ChrBaseRegion>> regionSets = List.of(
+                    List.of(new ChrBaseRegion("1", 1, CONTIG_LENGTH)),
+                    List.of(new ChrBaseRegion("1", 5000, 5200)),
+                    List.of(new ChrBaseRegion("1", 20000, 30000), new ChrBaseRegion("1", 25000, 40000), new ChrBaseRegion("2", 1, 500)),
+                    List.of(new ChrBaseRegion("2", CONTIG_LENGTH - 1000, CONTIG_LENGTH)));
+
+            try(SamReader samReader = SamReaderFactory.makeDefault().validationStringency(ValidationStringency.SILENT).open(bamFile);
+                RawBamReader rawBamReader = RawBamReader.open(bamFile.getAbsolutePath()))
+            {
+                assertNotNull(rawBamReader);
+
+                int totalReads = 0;
+
+                for(BamSlicer bamSlicer : List.of(filteringSlicer, keepAllSlicer, hardClippedSecondarySlicer))
+                {
+                    for(List<ChrBaseRegion> regions : regionSets)
+                    {
+                        List<String> expectedReads = Lists.newArrayList();
+                        bamSlicer.slice(samReader, regions, x -> expectedReads.add(readInfo(x)));
+
+                        List<String> rawReads = Lists.newArrayList();
+                        bamSlicer.slice(rawBamReader, regions, x -> rawReads.add(readInfo(x)));
+
+                        assertEquals(expectedReads, rawReads);
+                        totalReads += rawReads.size();
+                    }
+                }
+
+                assertTrue(totalReads > 0);
+            }
+        }
+        finally
+        {
+            Arrays.stream(tempDir.toFile().listFiles()).forEach(File::delete);
+            Files.deleteIfExists(tempDir);
+        }
+    }
+
+    private static String readInfo(final SAMRecord record)
+    {
+        return format("%s:%d:%s:%d:%s:%s",
+                record.getReadName(), record.getFlags(), record.getContig(), record.getAlignmentStart(), record.getCigarString(),
+                record.getReadString());
+    }
+
+    private static List<SAMRecord> generateReads(final SAMFileHeader header, final Random random)
+    {
+        List<SAMRecord> records = Lists.newArrayList();
+
+        for(SAMSequenceRecord sequence : header.getSequenceDictionary().getSequences())
+        {
+            for(int i = 0; i < 2000; ++i)
+            {
+                String cigar = CIGARS[random.nextInt(CIGARS.length)];
+                int readLength = cigar.startsWith("20H") ? 80 : 100;
+
+                SAMRecord record = new SAMRecord(header);
+                record.setReadName(format("READ_%s_%04d", sequence.getSequenceName(), i));
+                record.setReferenceName(sequence.getSequenceName());
+                record.setAlignmentStart(1 + random.nextInt(CONTIG_LENGTH - 1000));
+                record.setReadBases(randomBases(random, readLength));
+
+                byte[] baseQuals = new byte[readLength];
+                Arrays.fill(baseQuals, (byte)30);
+                record.setBaseQualities(baseQuals);
+
+                int readType = random.nextInt(20);
+
+                if(readType == 0)
+                {
+                    // unmapped but placed with its mate
+                    record.setReadUnmappedFlag(true);
+                    record.setCigarString("*");
+                    record.setMappingQuality(0);
+                }
+                else
+                {
+                    record.setCigarString(cigar);
+                    record.setMappingQuality(readType == 1 ? 5 : 60);
+                    record.setDuplicateReadFlag(readType >= 2 && readType < 6);
+                    record.setSupplementaryAlignmentFlag(readType == 6);
+                    record.setSecondaryAlignment(readType == 7 || cigar.startsWith("20H"));
+                }
+
+                records.add(record);
+            }
+        }
+
+        records.sort(Comparator.comparingInt(SAMRecord::getReferenceIndex).thenComparingInt(SAMRecord::getAlignmentStart));
+        return records;
+    }
+
+    private static byte[] randomBases(final Random random, int length)
+    {
+        final byte[] dnaBases = { 'A', 'C', 'G', 'T' };
+        byte[] bases = new byte[length];
+
+        for(int i = 0; i < length; ++i)
+        {
+            bases[i] = dnaBases[random.nextInt(4)];
+        }
+
+        return bases;
+    }
+
+    private static void writeBam(final File bamFile, final SAMFileHeader header, final List<SAMRecord> records)
+    {
+        try(SAMFileWriter writer = new SAMFileWriterFactory().setCreateIndex(true).makeBAMWriter(header, true, bamFile))
+        {
+            records.forEach(writer::addAlignment);
+        }
+    }
+}
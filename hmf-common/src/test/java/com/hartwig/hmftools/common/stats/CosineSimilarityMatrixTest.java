@@ -0,0 +1,93 @@
+package com.hartwig.hmftools.common.stats;
+
+import static com.hartwig.hmftools.common.stats.CosineSimilarity.calcCosineSim;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Random;
+
+import com.hartwig.hmftools.common.utils.Matrix;
+
+import org.junit.Test;
+
+public class CosineSimilarityMatrixTest
+{
+    @Test
+    public void testMatchesPairwiseCalcs()
+    {
+        Random random = new Random(0);
+
+        int refCount = 263; // not a multiple of the row grouping
+        int bucketCount = 96;
+
+        Matrix refVectors = createVectors(random, refCount, bucketCount);
+
+        // include an empty reference
+        for(int i = 0; i < bucketCount; ++i)
+        {
+            refVectors.set(5, i, 0);
+        }
+
+        Matrix sampleVectors = createVectors(random, 20, bucketCount);
+
+        CosineSimilarityMatrix cssMatrix = new CosineSimilarityMatrix(refVectors);
+
+        double[] results = new double[refCount];
+
+        for(int s = 0; s < sampleVectors.Rows; ++s)
+        {
+            cssMatrix.calcCosineSims(sampleVectors.getRow(s), results);
+
+            for(int r = 0; r < refCount; ++r)
+            {
+                assertEquals(calcCosineSim(sampleVectors.getRow(s), refVectors.getRow(r)), results[r], 0);
+            }
+        }
+
+        Matrix batchResults = cssMatrix.calcCosineSims(sampleVectors, 3);
+
+        for(int s = 0; s < sampleVectors.Rows; ++s)
+        {
+            for(int r = 0; r < refCount; ++r)
+            {
+                assertEquals(calcCosineSim(sampleVectors.getRow(s), refVectors.getRow(r)), batchResults.get(s, r), 0);
+            }
+        }
+
+        // mismatched lengths score zero
+        cssMatrix.calcCosineSims(new double[] { 1, 2, 3 }, results);
+        assertEquals(0, results[0], 0);
+    }
+
+    @Test
+    public void testTopScoreIndices()
+    {
+        double[] scores = { 0.5, 0.9, 0.1, 0.9, 0.7, 0.95, 0.2 };
+
+        List<Integer> topIndices = CosineSimilarityMatrix.topScoreIndices(scores, 3, 0.3);
+        assertEquals(3, topIndices.size());
+        assertEquals(5, (int)topIndices.get(0));
+        assertEquals(1, (int)topIndices.get(1));
+        assertEquals(3, (int)topIndices.get(2));
+
+        topIndices = CosineSimilarityMatrix.topScoreIndices(scores, 10, 0.6);
+        assertEquals(4, topIndices.size());
+        assertEquals(4, (int)topIndices.get(3));
+    }
+
+    private static Matrix createVectors(final Random random, int rows, int cols)
+    {
+        Matrix matrix = new Matrix(rows, cols);
+
+        for(int r = 0; r < rows; ++r)
+        {
+            for(int c = 0; c < cols; ++c)
+            {
+                matrix.set(r, c, random.nextInt(5) == 0 ? 0 : random.nextDouble() * 1000);
+            }
+        }
+
+        return matrix;
+    }
+}
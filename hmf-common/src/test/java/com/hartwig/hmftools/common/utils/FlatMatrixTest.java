@@ -0,0 +1,121 @@
+package com.hartwig.hmftools.common.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+public class FlatMatrixTest
+{
+    @Test
+    public void testConversion()
+    {
+        Matrix matrix = createRandomMatrix(new Random(1), 7, 5);
+        FlatMatrix flatMatrix = new FlatMatrix(matrix);
+
+        assertEquals(matrix.get(3, 4), flatMatrix.get(3, 4), 0);
+        assertIdentical(matrix, flatMatrix);
+
+        flatMatrix.set(2, 1, 99);
+        flatMatrix.copyTo(matrix);
+        assertEquals(99, matrix.get(2, 1), 0);
+    }
+
+    @Test
+    public void testMultiplyMatchesMatrixUtils()
+    {
+        Random random = new Random(123);
+
+        // sizes either side of the column block and the parallel threshold
+        int[][] sizes = { {3, 4, 5}, {96, 20, 700}, {120, 30, 1500} };
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+
+        for(int[] size : sizes)
+        {
+            Matrix a = createRandomMatrix(random, size[0], size[1]);
+            Matrix b = createRandomMatrix(random, size[1], size[2]);
+            Matrix expected = MatrixUtils.multiply(a, b);
+
+            FlatMatrix dest = new FlatMatrix(a.Rows, b.Cols);
+            dest.initialise(1); // results must not depend on the buffer's prior contents
+
+            FlatMatrixUtils.multiply(new FlatMatrix(a), new FlatMatrix(b), dest, null);
+            assertIdentical(expected, dest);
+
+            dest.initialise(1);
+            FlatMatrixUtils.multiply(new FlatMatrix(a), new FlatMatrix(b), dest, executor);
+            assertIdentical(expected, dest);
+
+            // transposed forms match multiplying by an explicit transpose
+            Matrix aTrans = a.transpose();
+            FlatMatrixUtils.multiplyTransposeA(new FlatMatrix(aTrans), new FlatMatrix(b), dest, executor);
+            assertIdentical(expected, dest);
+
+            Matrix bTrans = b.transpose();
+            FlatMatrixUtils.multiplyTransposeB(new FlatMatrix(a), new FlatMatrix(bTrans), dest, executor);
+            assertIdentical(expected, dest);
+        }
+
+        executor.shutdown();
+    }
+
+    @Test
+    public void testScalarOperations()
+    {
+        Random random = new Random(42);
+        Matrix a = createRandomMatrix(random, 6, 4);
+        Matrix b = createRandomMatrix(random, 6, 4);
+        b.set(2, 3, 0);
+
+        FlatMatrix flatA = new FlatMatrix(a);
+        FlatMatrix flatB = new FlatMatrix(b);
+
+        assertEquals(MatrixUtils.sumDiffSq(a, b), FlatMatrixUtils.sumDiffSq(flatA, flatB), 0);
+
+        MatrixUtils.scalarDivide(a, b, true);
+        FlatMatrixUtils.scalarDivide(flatA, flatB, true);
+        assertIdentical(a, flatA);
+
+        MatrixUtils.scalarMultiplyRateAdjusted(a, b, 0.5, 2);
+        FlatMatrixUtils.scalarMultiplyRateAdjusted(flatA, flatB, 0.5, 2);
+        assertIdentical(a, flatA);
+
+        MatrixUtils.scalarMultiply(a, b);
+        FlatMatrixUtils.scalarMultiply(flatA, flatB);
+        assertIdentical(a, flatA);
+    }
+
+    private static void assertIdentical(final Matrix expected, final FlatMatrix actual)
+    {
+        assertEquals(expected.Rows, actual.Rows);
+        assertEquals(expected.Cols, actual.Cols);
+
+        for(int i = 0; i < expected.Rows; ++i)
+        {
+            for(int j = 0; j < expected.Cols; ++j)
+            {
+                // bit-identical rather than within tolerance
+                assertEquals(Double.doubleToLongBits(expected.get(i, j)), Double.doubleToLongBits(actual.get(i, j)));
+            }
+        }
+    }
+
+    public static Matrix createRandomMatrix(final Random random, int rows, int cols)
+    {
+        Matrix matrix = new Matrix(rows, cols);
+
+        for(int i = 0; i < rows; ++i)
+        {
+            for(int j = 0; j < cols; ++j)
+            {
+                matrix.set(i, j, random.nextDouble() * 100);
+            }
+        }
+
+        return matrix;
+    }
+}
@@ -0,0 +1,69 @@
+package com.hartwig.hmftools.common.utils;
+
+import static com.hartwig.hmftools.common.utils.file.FileDelimiters.TSV_DELIM;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.Test;
+
+public class MetricsRegistryTest
+{
+    @Test
+    public void testPercentiles()
+    {
+        double[] values = { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 };
+
+        assertEquals(5, MetricsRegistry.percentile(values, 50), 0.001);
+        assertEquals(9, MetricsRegistry.percentile(values, 90), 0.001);
+        assertEquals(10, MetricsRegistry.percentile(values, 99), 0.001);
+        assertEquals(1, MetricsRegistry.percentile(values, 0), 0.001);
+
+        assertEquals(4, MetricsRegistry.percentile(new double[] { 4 }, 50), 0.001);
+    }
+
+    @Test
+    public void testMergedStagesWritten() throws IOException
+    {
+        File metricsFile = File.createTempFile("perf_metrics", ".tsv");
+        metricsFile.deleteOnExit();
+
+        MetricsRegistry.enable("Test", metricsFile.getAbsolutePath());
+
+        PerformanceCounter pc1 = new PerformanceCounter("Stage");
+        pc1.start();
+        pc1.stop();
+        pc1.addInputBytes(100);
+
+        PerformanceCounter pc2 = new PerformanceCounter("Stage");
+        pc2.start();
+        pc2.stop();
+        pc2.start();
+        pc2.stop();
+        pc2.addInputBytes(50);
+
+        // counters without intervals are not recorded
+        PerformanceCounter unused = new PerformanceCounter("Unused");
+
+        MetricsRegistry.register(List.of(pc1, pc2, unused));
+        MetricsRegistry.writeMetrics();
+
+        List<String> lines = Files.readAllLines(metricsFile.toPath());
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(0).startsWith("App" + TSV_DELIM + "Stage"));
+
+        String[] stageValues = lines.get(1).split(TSV_DELIM, -1);
+        assertEquals("Stage", stageValues[1]);
+        assertEquals("3", stageValues[2]);
+        assertEquals("150", stageValues[9]);
+
+        String[] runValues = lines.get(2).split(TSV_DELIM, -1);
+        assertEquals("Run", runValues[1]);
+        assertEquals("150", runValues[9]);
+    }
+}
@@ -0,0 +1,277 @@
+package com.hartwig.hmftools.common.utils.pcf;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import com.hartwig.hmftools.common.utils.file.FileWriterUtils;
+
+import org.junit.Test;
+
+public class PiecewiseConstantFitTest
+{
+    @Test
+    public void testMatchesExhaustiveFit()
+    {
+        Random random = new Random(0);
+
+        for(int test = 0; test < 200; ++test)
+        {
+            int count = 1 + random.nextInt(150);
+            double[] values = new double[count];
+            double level = 0;
+
+            for(int i = 0; i < count; ++i)
+            {
+                if(random.nextDouble() < 0.05)
+                    level = random.nextGaussian() * 2;
+
+                // coarse values create exact ties between alternative segmentations
+                values[i] = test % 2 == 0 ? level + random.nextGaussian() : Math.round(level + random.nextGaussian());
+            }
+
+            double penalty = 0.5 + random.nextDouble() * 20;
+
+            assertArrayEquals(exhaustiveSegmentEnds(values, penalty), PiecewiseConstantFit.segmentEnds(values, penalty));
+        }
+    }
+
+    @Test
+    public void testSegmentEnds()
+    {
+        double[] values = { 1, 1.1, 0.9, 1, 3, 3.1, 2.9, 3, 3, 1 };
+
+        assertArrayEquals(new int[] { 4, 9, 10 }, PiecewiseConstantFit.segmentEnds(values, 0.5));
+        assertArrayEquals(new int[] { 4, 10 }, PiecewiseConstantFit.segmentEnds(values, 3.5));
+        assertArrayEquals(new int[] { 10 }, PiecewiseConstantFit.segmentEnds(values, 100));
+        assertArrayEquals(new int[0], PiecewiseConstantFit.segmentEnds(new double[0], 1));
+    }
+
+    @Test
+    public void testFastFitCandidates()
+    {
+        Random random = new Random(3);
+
+        for(int count : new int[] { 400, 999, 1000, 14999 })
+        {
+            double[] values = stepValues(random, count, 200);
+
+            double[] cumulativeSums = new double[count + 1];
+
+            for(int i = 0; i < count; ++i)
+            {
+                cumulativeSums[i + 1] = cumulativeSums[i] + values[i];
+            }
+
+            boolean[] candidateEnds = PiecewiseConstantFit.markCandidateEnds(cumulativeSums, 0.12, 0.05);
+
+            // positions within the long filter of either end are always candidates, as is the final end
+            for(int i = 1; i < 24; ++i)
+            {
+                assertTrue(candidateEnds[i]);
+                assertTrue(candidateEnds[count - i]);
+            }
+
+            assertTrue(candidateEnds[count]);
+
+            // every step is a candidate and the fast fit finds the same segments as an exact fit over all positions
+            for(int step = 200; step < count; step += 200)
+            {
+                assertTrue(candidateEnds[step]);
+            }
+
+            boolean[] allEnds = new boolean[count + 1];
+            Arrays.fill(allEnds, true);
+
+            int[] exactEnds = PiecewiseConstantFit.fitCandidateEnds(cumulativeSums, 0, count, allEnds, 10)
+                    .stream().mapToInt(Integer::intValue).toArray();
+
+            assertArrayEquals(exactEnds, PiecewiseConstantFit.segmentEnds(values, 10));
+        }
+    }
+
+    @Test
+    public void testSubsetFit()
+    {
+        // long arms are fitted in overlapping windows of 5000 values before the final fit, and the window boundaries which
+        // are forced to be candidates do not fall on a step
+        double[] values = stepValues(new Random(4), 23_456, 1_300);
+
+        int[] segmentEnds = PiecewiseConstantFit.segmentEnds(values, 10);
+
+        int[] expectedEnds = new int[19];
+
+        for(int i = 0; i < expectedEnds.length; ++i)
+        {
+            expectedEnds[i] = (i + 1) * 1_300;
+        }
+
+        expectedEnds[18] = 23_456;
+
+        assertArrayEquals(expectedEnds, segmentEnds);
+    }
+
+    @Test
+    public void testRunningMedian()
+    {
+        Random random = new Random(1);
+
+        for(int count : new int[] { 1, 2, 3, 6, 7, 30, 51, 52, 200 })
+        {
+            double[] values = new double[count];
+
+            for(int i = 0; i < count; ++i)
+            {
+                values[i] = random.nextInt(20);
+            }
+
+            double[] medians = PiecewiseConstantFit.runningMedian(values, PiecewiseConstantFit.MAD_MEDIAN_HALF_WIDTH);
+
+            int width = Math.min(51, count % 2 == 0 ? count - 1 : count);
+            int half = width / 2;
+
+            for(int i = half; i < count - half; ++i)
+            {
+                assertEquals(median(Arrays.copyOfRange(values, i - half, i + half + 1)), medians[i], 0);
+            }
+
+            // the end smoothing starts from the unsmoothed values
+            if(half >= 3)
+                assertEquals(median(Arrays.copyOfRange(values, 0, 3)), medians[1], 0);
+        }
+
+        assertEquals(1.4826, PiecewiseConstantFit.mad(new double[] { 1, 2, 3, 4, 5 }), 1e-9);
+    }
+
+    @Test
+    public void testSegmentFileByArm() throws IOException
+    {
+        File ratioFile = File.createTempFile("pcf_ratio", ".tsv");
+        ratioFile.deleteOnExit();
+        File pcfFile = File.createTempFile("pcf_ratio", ".pcf");
+        pcfFile.deleteOnExit();
+
+        Random random = new Random(2);
+
+        try(BufferedWriter writer = FileWriterUtils.createBufferedWriter(ratioFile.getAbsolutePath()))
+        {
+            writer.write("chromosome\tposition\tratio\n");
+
+            // chromosome 21 spans its centromere without a change in level, chromosome 22 has a gain within its q-arm
+            for(int i = 0; i < 200; ++i)
+            {
+                int position = 10_000_001 + i * 50_000;
+                writer.write(String.format("21\t%d\t%.4f\n", position, 1 + random.nextGaussian() * 0.05));
+            }
+
+            writer.write("GL000220.1\t1001\t5\n");
+
+            for(int i = 0; i < 200; ++i)
+            {
+                int position = 20_000_001 + i * 50_000;
+                double level = i >= 100 && i < 150 ? 1.5 : 1;
+                writer.write(String.format("22\t%d\t%.4f\n", position, level + random.nextGaussian() * 0.05));
+            }
+
+            writer.write("22\t40000001\t-1\n");
+        }
+
+        PCFSegmenter segmenter = new PCFSegmenter("S1", 100, 2);
+        segmenter.segment(ratioFile.getAbsolutePath(), "ratio", x -> x < 0 ? Double.NaN : Math.log(x) / Math.log(2), pcfFile.getAbsolutePath());
+
+        List<String> lines = Files.readAllLines(pcfFile.toPath());
+        assertEquals("sampleID\tchrom\tarm\tstart.pos\tend.pos\tn.probes\tmean", lines.get(0));
+        assertEquals(6, lines.size());
+
+        assertEquals("S1\t21\tp\t10000001\t13150001\t64", lines.get(1).substring(0, lines.get(1).lastIndexOf('\t')));
+        assertEquals("S1\t21\tq\t13200001\t19950001\t136", lines.get(2).substring(0, lines.get(2).lastIndexOf('\t')));
+        assertEquals("S1\t22\tq\t20000001\t24950001\t100", lines.get(3).substring(0, lines.get(3).lastIndexOf('\t')));
+        assertEquals("S1\t22\tq\t25000001\t27450001\t50", lines.get(4).substring(0, lines.get(4).lastIndexOf('\t')));
+        assertEquals("S1\t22\tq\t27500001\t29950001\t50", lines.get(5).substring(0, lines.get(5).lastIndexOf('\t')));
+
+        assertEquals(0.585, Double.parseDouble(lines.get(4).split("\t")[6]), 0.03);
+    }
+
+    // noise around levels which alternate between 0 and 1 every step length
+    private static double[] stepValues(final Random random, int count, int stepLength)
+    {
+        double[] values = new double[count];
+
+        for(int i = 0; i < count; ++i)
+        {
+            values[i] = (i / stepLength) % 2 + random.nextGaussian() * 0.2;
+        }
+
+        return values;
+    }
+
+    // O(n^2) dynamic programming over all segment starts, taking the earliest start on ties except that a single segment must
+    // be strictly better than any split
+    private static int[] exhaustiveSegmentEnds(final double[] values, double penalty)
+    {
+        int count = values.length;
+        double[] cumulativeSums = new double[count + 1];
+        double mean = Arrays.stream(values).sum() / count;
+
+        for(int i = 0; i < count; ++i)
+        {
+            cumulativeSums[i + 1] = cumulativeSums[i] + values[i] - mean;
+        }
+
+        double[] costs = new double[count + 1];
+        int[] starts = new int[count + 1];
+
+        for(int end = 1; end <= count; ++end)
+        {
+            costs[end] = Double.POSITIVE_INFINITY;
+
+            for(int start = 1; start < end; ++start)
+            {
+                double sum = cumulativeSums[end] - cumulativeSums[start];
+                double cost = costs[start] - sum * sum / (end - start);
+
+                if(cost < costs[end])
+                {
+                    costs[end] = cost;
+                    starts[end] = start;
+                }
+            }
+
+            costs[end] += penalty;
+
+            double sum = cumulativeSums[end];
+
+            if(-sum * sum / end < costs[end])
+            {
+                costs[end] = -sum * sum / end;
+                starts[end] = 0;
+            }
+        }
+
+        List<Integer> ends = new ArrayList<>();
+
+        for(int end = count; end > 0; end = starts[end])
+        {
+            ends.add(0, end);
+        }
+
+        return ends.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static double median(final double[] values)
+    {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int middle = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+    }
+}
@@ -1,5 +1,8 @@
 package com.hartwig.hmftools.linx.analysis;
 
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
 import static com.hartwig.hmftools.linx.LinxConfig.LNX_LOGGER;
 import static com.hartwig.hmftools.linx.analysis.AnnotationExtension.UNDER_CLUSTERING;
 import static com.hartwig.hmftools.linx.analysis.ClusterAnnotations.annotateClusterChains;
@@ -22,12 +25,18 @@ import static com.hartwig.hmftools.linx.types.ResolvedType.NONE;
 import static com.hartwig.hmftools.linx.types.ResolvedType.SIMPLE_GRP;
 import static com.hartwig.hmftools.linx.types.SvCluster.CLUSTER_ANNOT_DM;
 
+import java.util.Comparator;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.ensemblcache.EnsemblDataCache;
 import com.hartwig.hmftools.common.utils.PerformanceCounter;
+import com.hartwig.hmftools.common.utils.TaskExecutor;
 import com.hartwig.hmftools.linx.CohortDataWriter;
 import com.hartwig.hmftools.linx.LinxConfig;
 import com.hartwig.hmftools.linx.annotators.LineElementAnnotator;
@@ -57,6 +66,11 @@ public class ClusterAnalyser {
     private final List<SvVarData> mAllVariants;
     private final ChainFinder mChainFinder;
 
+    // chaining and annotation of independent clusters can be spread across threads when a single sample is run
+    private final CohortDataWriter mCohortDataWriter;
+    private final List<ChainFinder> mThreadChainFinders;
+    private int mClusterThreads;
+
     private boolean mRunValidationChecks;
 
     PerformanceCounter mPcClustering;
@@ -64,6 +78,9 @@ public class ClusterAnalyser {
 
     private static final int SMALL_CLUSTER_SIZE = 3;
 
+    // clusters taking longer than this to chain or annotate are logged, to identify pathological cases
+    private static final double SLOW_CLUSTER_SECONDS = 1.0;
+
     public ClusterAnalyser(final LinxConfig config, final CohortDataWriter cohortDataWriter)
     {
         mConfig = config;
@@ -83,11 +100,13 @@ public class ClusterAnalyser {
         mDmFinder = new DoubleMinuteFinder(config, cohortDataWriter, mState.getChrBreakendMap());
         mBfbFinder = new BfbFinder();
 
-        if(mConfig.hasMultipleSamples())
-            mChainFinder.initialiseOutput(mConfig);
+        mCohortDataWriter = cohortDataWriter;
+        mThreadChainFinders = Lists.newArrayList();
+
+        // multiple samples are already processed in parallel, one per thread
+        mClusterThreads = mConfig.isSingleSample() ? max(mConfig.Threads, 1) : 1;
 
-        mChainFinder.setUseAllelePloidies(true); // can probably remove and assume always in place
-        mChainFinder.setLogVerbose(mConfig.LogVerbose);
+        initialiseChainFinder(mChainFinder);
 
         mRunValidationChecks = false; // enabled in unit tests and after changes to merging-rule flow
 
@@ -95,6 +114,15 @@ public class ClusterAnalyser {
         mPcChaining = new PerformanceCounter("Chaining");
     }
 
+    private void initialiseChainFinder(final ChainFinder chainFinder)
+    {
+        if(mConfig.hasMultipleSamples())
+            chainFinder.initialiseOutput(mConfig);
+
+        chainFinder.setUseAllelePloidies(true); // can probably remove and assume always in place
+        chainFinder.setLogVerbose(mConfig.LogVerbose);
+    }
+
     public final ClusteringState getState() { return mState; }
 
     public void setLineAnnotator(final LineElementAnnotator lineAnnotator)
@@ -121,6 +149,7 @@ public class ClusterAnalyser {
     public final DoubleMinuteFinder getDoubleMinuteFinder() { return mDmFinder; }
 
     public void setRunValidationChecks(boolean toggle) { mRunValidationChecks = toggle; }
+    public void setClusterThreads(int threads) { mClusterThreads = max(threads, 1); }
 
     public void setSampleData(final String sampleId, List<SvVarData> allVariants)
     {
@@ -321,6 +350,8 @@ public class ClusterAnalyser {
         // chain small clusters and only assembled links in larger ones
         boolean checkDMs = !mConfig.IsGermline;
 
+        List<ClusterTask> chainTasks = Lists.newArrayList();
+
         for(SvCluster cluster : mClusters)
         {
             if(checkDMs && isSimpleSingleSV(cluster))
@@ -339,23 +370,32 @@ public class ClusterAnalyser {
             if(checkDMs)
                 mDmFinder.analyseCluster(cluster);
 
-            // then look for fully-linked clusters, ie chains involving all SVs
-            findChains(cluster, !isSimple);
+            chainTasks.add(new ClusterTask(cluster, !isSimple));
+        }
 
-            if(isSimple)
-            {
-                setClusterResolvedState(cluster, false);
+        // then look for fully-linked clusters, ie chains involving all SVs - each cluster's chaining only touches its own SVs
+        processClusters(chainTasks, "chaining", (chainFinder, task) -> findChains(chainFinder, task.Cluster, task.AssembledLinksOnly));
 
-                if(cluster.isFullyChained(true))
-                {
-                    LNX_LOGGER.debug("cluster({}) simple and consistent with {} SVs", cluster.id(), cluster.getSvCount());
-                }
+        // resolve in cluster order since this considers neighbouring clusters
+        for(ClusterTask task : chainTasks)
+        {
+            if(task.AssembledLinksOnly)
+                continue;
+
+            SvCluster cluster = task.Cluster;
+            setClusterResolvedState(cluster, false);
+
+            if(cluster.isFullyChained(true))
+            {
+                LNX_LOGGER.debug("cluster({}) simple and consistent with {} SVs", cluster.id(), cluster.getSvCount());
             }
         }
     }
 
     private void findLinksAndChains()
     {
+        List<ClusterTask> chainTasks = Lists.newArrayList();
+
         for(SvCluster cluster : mClusters)
         {
             if(cluster.getResolvedType() == LINE) // only simple assembly links for LINE clusters
@@ -380,11 +420,16 @@ public class ClusterAnalyser {
 
             // no need to re-find assembled TIs
 
-            // then look for fully-linked clusters, ie chains involving all SVs
-            findChains(cluster, false);
+            chainTasks.add(new ClusterTask(cluster, false));
+        }
+
+        // then look for fully-linked clusters, ie chains involving all SVs
+        processClusters(chainTasks, "chaining", (chainFinder, task) -> findChains(chainFinder, task.Cluster, task.AssembledLinksOnly));
 
-            setClusterResolvedState(cluster, true);
-            cluster.logDetails();
+        for(ClusterTask task : chainTasks)
+        {
+            setClusterResolvedState(task.Cluster, true);
+            task.Cluster.logDetails();
         }
     }
 
@@ -421,7 +466,97 @@ public class ClusterAnalyser {
                 mState.getDelCutoffLength(), mState.getDupCutoffLength(), mState.getChrBreakendMap());
     }
 
-    private void findChains(SvCluster cluster, boolean assembledLinksOnly)
+    private static class ClusterTask
+    {
+        public final SvCluster Cluster;
+        public final boolean AssembledLinksOnly;
+        public long ElapsedNanos;
+
+        public ClusterTask(final SvCluster cluster, boolean assembledLinksOnly)
+        {
+            Cluster = cluster;
+            AssembledLinksOnly = assembledLinksOnly;
+            ElapsedNanos = 0;
+        }
+    }
+
+    private void processClusters(final List<ClusterTask> clusterTasks, final String stage, final BiConsumer<ChainFinder,ClusterTask> processor)
+    {
+        int threads = min(mClusterThreads, clusterTasks.size());
+
+        if(threads <= 1)
+        {
+            clusterTasks.forEach(x -> processTask(mChainFinder, x, processor));
+        }
+        else
+        {
+            // take the largest clusters first so a long-running one does not start last, with each thread using its own chain finder
+            List<ClusterTask> orderedTasks = Lists.newArrayList(clusterTasks);
+            orderedTasks.sort(Comparator.comparingInt((ClusterTask x) -> x.Cluster.getSvCount()).reversed());
+            final Queue<ClusterTask> taskQueue = new ConcurrentLinkedQueue<>(orderedTasks);
+
+            List<Callable> callables = Lists.newArrayList();
+
+            for(int i = 0; i < threads; ++i)
+            {
+                final ChainFinder chainFinder = getThreadChainFinder(i);
+
+                callables.add(() ->
+                {
+                    ClusterTask task;
+                    while((task = taskQueue.poll()) != null)
+                    {
+                        processTask(chainFinder, task, processor);
+                    }
+
+                    return 0;
+                });
+            }
+
+            if(!TaskExecutor.executeTasks(callables, threads))
+            {
+                LNX_LOGGER.error("sample({}) cluster {} failed", mSampleId, stage);
+            }
+        }
+
+        for(ClusterTask task : clusterTasks)
+        {
+            double seconds = task.ElapsedNanos / 1e9;
+
+            if(seconds >= SLOW_CLUSTER_SECONDS)
+            {
+                LNX_LOGGER.info(String.format("sample(%s) cluster(%d) SVs(%d) slow %s: %.1fs",
+                        mSampleId, task.Cluster.id(), task.Cluster.getSvCount(), stage, seconds));
+            }
+        }
+    }
+
+    private static void processTask(final ChainFinder chainFinder, final ClusterTask task, final BiConsumer<ChainFinder,ClusterTask> processor)
+    {
+        long startTime = System.nanoTime();
+        processor.accept(chainFinder, task);
+        task.ElapsedNanos = System.nanoTime() - startTime;
+    }
+
+    private ChainFinder getThreadChainFinder(int threadIndex)
+    {
+        // the first thread re-uses the main instance
+        if(threadIndex == 0)
+            return mChainFinder;
+
+        while(mThreadChainFinders.size() < threadIndex)
+        {
+            ChainFinder chainFinder = new ChainFinder(mCohortDataWriter);
+            initialiseChainFinder(chainFinder);
+            mThreadChainFinders.add(chainFinder);
+        }
+
+        ChainFinder chainFinder = mThreadChainFinders.get(threadIndex - 1);
+        chainFinder.setSampleId(mSampleId);
+        return chainFinder;
+    }
+
+    private void findChains(final ChainFinder chainFinder, final SvCluster cluster, boolean assembledLinksOnly)
     {
         if(mConfig.ChainingSvLimit > 0 && cluster.getSvCount() > mConfig.ChainingSvLimit)
         {
@@ -431,31 +566,33 @@ public class ClusterAnalyser {
         }
 
         cluster.getChains().clear();
-        mChainFinder.initialise(cluster);
-        mChainFinder.formChains(assembledLinksOnly);
-        mChainFinder.addChains(cluster);
+        chainFinder.initialise(cluster);
+        chainFinder.formChains(assembledLinksOnly);
+        chainFinder.addChains(cluster);
 
         if(!assembledLinksOnly)
-            mChainFinder.getDiagnostics().diagnoseChains();
+            chainFinder.getDiagnostics().diagnoseChains();
 
-        final long[] rangeData = mChainFinder.calcRangeData();
+        final long[] rangeData = chainFinder.calcRangeData();
 
         if(rangeData != null)
         {
-            cluster.getMetrics().ValidAlleleJcnSegmentPerc = mChainFinder.getValidAllelePloidySegmentPerc();
+            cluster.getMetrics().ValidAlleleJcnSegmentPerc = chainFinder.getValidAllelePloidySegmentPerc();
             cluster.getMetrics().TraversedRange = rangeData[RANGE_TOTAL];
             cluster.getMetrics().TotalDeleted = rangeData[DELETED_TOTAL];
         }
 
-        mChainFinder.clear(); // release any refs to clusters and SVs
+        chainFinder.clear(); // release any refs to clusters and SVs
     }
 
     public void annotateClusters()
     {
-        // final clean-up and analysis
-        mClusters.forEach(x -> annotateTemplatedInsertions(x, mState.getChrBreakendMap()));
+        // final clean-up and analysis - annotations only concern each cluster's own SVs, links and chains
+        List<ClusterTask> annotationTasks = mClusters.stream().map(x -> new ClusterTask(x, false)).collect(Collectors.toList());
+        processClusters(annotationTasks, "annotation", (chainFinder, task) -> annotateClusterFeatures(task.Cluster));
 
-        mClusters.forEach(this::reportClusterFeatures);
+        // written in cluster order
+        mClusters.forEach(x -> mDmFinder.reportCluster(mSampleId, x));
 
         if(mConfig.AnnotationExtensions.contains(UNDER_CLUSTERING))
         {
@@ -463,8 +600,9 @@ public class ClusterAnalyser {
         }
     }
 
-    private void reportClusterFeatures(final SvCluster cluster)
+    private void annotateClusterFeatures(final SvCluster cluster)
     {
+        annotateTemplatedInsertions(cluster, mState.getChrBreakendMap());
         annotateClusterChains(cluster);
         annotateClusterDeletions(cluster, mState.getChrBreakendMap());
         annotateReplicationBeforeRepair(cluster);
@@ -473,8 +611,6 @@ public class ClusterAnalyser {
 
         if(metrics.TotalDeleted == 0)
             metrics.TotalDeleted = metrics.TotalDBLength;
-
-        mDmFinder.reportCluster(mSampleId, cluster);
     }
 
     public void close()
@@ -0,0 +1,143 @@
+package com.hartwig.hmftools.linx.fusion;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import com.hartwig.hmftools.linx.chaining.SvChain;
+import com.hartwig.hmftools.linx.gene.BreakendGeneData;
+import com.hartwig.hmftools.linx.types.LinkedPair;
+import com.hartwig.hmftools.linx.types.SvBreakend;
+import com.hartwig.hmftools.linx.types.SvVarData;
+
+// the breakends a chained fusion can start and end at, with their candidate genes, for each link index of a chain
+// only indices with genes need to be tested, so each pairing of lower and upper breakend is no longer visited
+public class ChainFusionIndex
+{
+    private final int mLinkCount;
+
+    // lower breakends take the other breakend of each link's first SV, and finally the last link's second breakend
+    private final SvVarData[] mLowerSVs;
+    private final SvBreakend[] mLowerBreakends;
+    private final List<BreakendGeneData>[] mLowerGenes; // null if no fusion can start from this index
+    private final int[] mLowerPositions;
+
+    // upper breakends take each link's first breakend, and finally the chain's open or looping breakend
+    private final SvVarData[] mUpperSVs;
+    private final SvBreakend[] mUpperBreakends;
+    private final List<BreakendGeneData>[] mUpperGenes;
+    private final int[] mGenicUpperIndices; // ascending
+
+    @SuppressWarnings("unchecked")
+    public ChainFusionIndex(final SvChain chain, final BiFunction<SvVarData,Boolean,List<BreakendGeneData>> geneListFunction)
+    {
+        final List<LinkedPair> linkedPairs = chain.getLinkedPairs();
+        mLinkCount = linkedPairs.size();
+
+        int indexCount = mLinkCount + 1;
+        mLowerSVs = new SvVarData[indexCount];
+        mLowerBreakends = new SvBreakend[indexCount];
+        mLowerGenes = new List[indexCount];
+        mLowerPositions = new int[indexCount];
+        mUpperSVs = new SvVarData[indexCount];
+        mUpperBreakends = new SvBreakend[indexCount];
+        mUpperGenes = new List[indexCount];
+
+        int[] genicUpperIndices = new int[indexCount];
+        int genicUpperCount = 0;
+
+        for(int i = 0; i < indexCount; ++i)
+        {
+            SvVarData lowerSV;
+            SvBreakend lowerBreakend;
+
+            if(i < mLinkCount)
+            {
+                LinkedPair pair = linkedPairs.get(i);
+                lowerSV = pair.first();
+                lowerBreakend = pair.firstBreakend().getOtherBreakend();
+            }
+            else
+            {
+                LinkedPair prevPair = linkedPairs.get(i - 1);
+                lowerSV = prevPair.second();
+                lowerBreakend = prevPair.secondBreakend();
+            }
+
+            mLowerSVs[i] = lowerSV;
+            mLowerBreakends[i] = lowerBreakend;
+
+            if(!lowerSV.isSglBreakend() || !lowerSV.getSglMappings().isEmpty())
+            {
+                // handle breakends from a SGL's mapping to known pair genes
+                List<BreakendGeneData> genesList = lowerBreakend != null ?
+                        geneListFunction.apply(lowerSV, lowerBreakend.usesStart()) : geneListFunction.apply(lowerSV, false);
+
+                if(!genesList.isEmpty())
+                {
+                    mLowerGenes[i] = genesList;
+                    mLowerPositions[i] = lowerBreakend != null ? lowerBreakend.position() : genesList.get(0).position();
+                }
+            }
+
+            SvVarData upperSV;
+            SvBreakend upperBreakend;
+
+            if(i < mLinkCount)
+            {
+                LinkedPair pair = linkedPairs.get(i);
+                upperSV = pair.first();
+                upperBreakend = pair.firstBreakend();
+            }
+            else if(chain.isClosedLoop())
+            {
+                // take the breakend that loops around to the start
+                LinkedPair pair = linkedPairs.get(i - 1);
+                upperSV = pair.second();
+                upperBreakend = pair.secondBreakend().getOtherBreakend();
+            }
+            else
+            {
+                // at the last link, take the open breakend of the chain
+                upperBreakend = chain.getOpenBreakend(false);
+                upperSV = chain.getChainEndSV(false);
+            }
+
+            mUpperSVs[i] = upperSV;
+            mUpperBreakends[i] = upperBreakend;
+
+            List<BreakendGeneData> genesList = upperBreakend != null ?
+                    geneListFunction.apply(upperSV, upperBreakend.usesStart()) : geneListFunction.apply(upperSV, false);
+
+            if(!genesList.isEmpty())
+            {
+                mUpperGenes[i] = genesList;
+                genicUpperIndices[genicUpperCount++] = i;
+            }
+        }
+
+        mGenicUpperIndices = Arrays.copyOf(genicUpperIndices, genicUpperCount);
+    }
+
+    public int linkCount() { return mLinkCount; }
+    public int indexCount() { return mLinkCount + 1; }
+
+    public boolean hasLowerGenes(int index) { return mLowerGenes[index] != null; }
+    public SvVarData lowerSV(int index) { return mLowerSVs[index]; }
+    public SvBreakend lowerBreakend(int index) { return mLowerBreakends[index]; }
+    public List<BreakendGeneData> lowerGenes(int index) { return mLowerGenes[index]; }
+    public int lowerPosition(int index) { return mLowerPositions[index]; }
+
+    public SvVarData upperSV(int index) { return mUpperSVs[index]; }
+    public SvBreakend upperBreakend(int index) { return mUpperBreakends[index]; }
+    public List<BreakendGeneData> upperGenes(int index) { return mUpperGenes[index]; }
+
+    public int[] genicUpperIndices() { return mGenicUpperIndices; }
+
+    // position in the genic upper indices of the first at or beyond this index
+    public int firstGenicUpperPosition(int index)
+    {
+        int pos = Arrays.binarySearch(mGenicUpperIndices, index);
+        return pos >= 0 ? pos : -(pos + 1);
+    }
+}
@@ -361,7 +361,7 @@ public class FusionDisruptionAnalyser
                 continue;
 
             final List<GeneFusion> chainFusions = Lists.newArrayList();
-            final List<ValidTraversalData> validPairs = Lists.newArrayList();
+            final Map<SvBreakend,List<ValidTraversalData>> validPairs = Maps.newHashMap();
 
             for(final SvChain chain : cluster.getChains())
             {
@@ -398,7 +398,8 @@ public class FusionDisruptionAnalyser
     }
 
     private void findChainedFusions(
-            final SvCluster cluster, final SvChain chain, final List<GeneFusion> chainFusions, final List<ValidTraversalData> validPairs)
+            final SvCluster cluster, final SvChain chain, final List<GeneFusion> chainFusions,
+            final Map<SvBreakend,List<ValidTraversalData>> validPairs)
     {
         // look for fusions formed by breakends connected in a chain
 
@@ -409,108 +410,31 @@ public class FusionDisruptionAnalyser
         // whenever a linked pair is traversed by a fusion, it cannot touch or traverse genic regions without disrupting the fusion
         final List<LinkedPair> linkedPairs = chain.getLinkedPairs();
 
+        // only breakends with candidate genes can start or end a fusion, so just these pairings are tested
+        final ChainFusionIndex fusionIndex = new ChainFusionIndex(chain, this::getBreakendGeneList);
+        final int[] genicUpperIndices = fusionIndex.genicUpperIndices();
+
         for(int lpIndex1 = 0; lpIndex1 <= linkedPairs.size(); ++lpIndex1)
         {
-            SvVarData lowerSV = null;
-            SvBreakend lowerBreakend = null;
-
-            // the lower link takes the other breakend of the current linked pair's 'first' SV
-            // and in order for it to also test the last SV in isolation, also takes the last pair's second (upper) breakend
-            if(lpIndex1 < linkedPairs.size())
-            {
-                LinkedPair pair = linkedPairs.get(lpIndex1);
-                lowerSV = pair.first();
-                lowerBreakend = pair.firstBreakend().getOtherBreakend();
-            }
-            else
-            {
-                LinkedPair prevPair = linkedPairs.get(lpIndex1 - 1);
-                lowerSV = prevPair.second();
-                lowerBreakend = prevPair.secondBreakend();
-            }
-
-            if(lowerSV.isSglBreakend() && lowerSV.getSglMappings().isEmpty())
+            if(!fusionIndex.hasLowerGenes(lpIndex1))
                 continue;
 
-            // handle breakends from a SGL's mapping to known pair genes
-            int lowerBreakendPos;
-            List<BreakendGeneData> genesListLower;
+            final SvVarData lowerSV = fusionIndex.lowerSV(lpIndex1);
+            final SvBreakend lowerBreakend = fusionIndex.lowerBreakend(lpIndex1);
+            final List<BreakendGeneData> genesListLower = fusionIndex.lowerGenes(lpIndex1);
+            final int lowerBreakendPos = fusionIndex.lowerPosition(lpIndex1);
 
-            if(lowerBreakend != null)
-            {
-                lowerBreakendPos = lowerBreakend.position();
-                genesListLower = getBreakendGeneList(lowerSV, lowerBreakend.usesStart());
-            }
-            else
+            for(int genicIndex = fusionIndex.firstGenicUpperPosition(lpIndex1); genicIndex < genicUpperIndices.length; ++genicIndex)
             {
-                genesListLower = getBreakendGeneList(lowerSV, false);
-
-                if(genesListLower.isEmpty())
-                    continue;
-
-                lowerBreakendPos = genesListLower.get(0).position();
-            }
-
-            if(genesListLower.isEmpty())
-                continue;
-
-            final List<LinkedPair> traversedPairs = Lists.newArrayList();
-
-            for(int lpIndex2 = lpIndex1; lpIndex2 <= linkedPairs.size(); ++lpIndex2)
-            {
-                SvVarData upperSV = null;
-                SvBreakend upperBreakend = null;
-
-                // the upper link takes the breakend of the current linked pair's 'first' SV
-                // which for the first index will just be the curent SV's 2 breakends - ie testing a single SV in a chain
-                // and beyond all the links, it must also test fusions with the chain's upper open breakend
-                if(lpIndex2 < linkedPairs.size())
-                {
-                    LinkedPair pair = linkedPairs.get(lpIndex2);
-                    upperSV = pair.first();
-                    upperBreakend = pair.firstBreakend();
-                }
-                else if(chain.isClosedLoop())
-                {
-                    // take the breakend that loops around to the start
-                    LinkedPair pair = linkedPairs.get(lpIndex2 - 1);
-                    upperSV = pair.second();
-                    upperBreakend = pair.secondBreakend().getOtherBreakend();
-                }
-                else
-                {
-                    // at the last link, take the open breakend of the chain
-                    upperBreakend = chain.getOpenBreakend(false);
-                    upperSV = chain.getChainEndSV(false);
-                }
+                // upper breakends without genes are skipped past, keeping the possibility of a fusion with the lower breakend open
+                int lpIndex2 = genicUpperIndices[genicIndex];
 
-                List<BreakendGeneData> genesListUpper;
+                final SvBreakend upperBreakend = fusionIndex.upperBreakend(lpIndex2);
+                final List<BreakendGeneData> genesListUpper = fusionIndex.upperGenes(lpIndex2);
 
-                if(upperBreakend != null)
-                {
-                    genesListUpper = getBreakendGeneList(upperSV, upperBreakend.usesStart());
-                }
-                else
-                {
-                    genesListUpper = getBreakendGeneList(upperSV, false);
-
-                    if(genesListUpper.isEmpty())
-                        continue;
-                }
-
-                // if a new linked pair has been traversed to reach this upper breakend, record its length
-                // and test whether it traverses any genic region, and if so invalidate the fusion
-                if(lpIndex2 > lpIndex1)
-                {
-                    LinkedPair lastPair = linkedPairs.get(lpIndex2 - 1);
-                    traversedPairs.add(lastPair);
-                }
-
-                if(genesListUpper.isEmpty())
-                {
-                    // skip past this link and breakend to the next one, keeping the possibility of a fusion with the lower breakend open
-                    continue;
-                }
+                // any linked pairs traversed to reach this upper breakend are tested for whether they traverse any genic region,
+                // and if so invalidate the fusion
+                final List<LinkedPair> traversedPairs = linkedPairs.subList(lpIndex1, lpIndex2);
 
                 // test the fusion between these 2 breakends
                 List<GeneFusion> fusions = mFusionFinder.findFusions(genesListLower, genesListUpper);
@@ -710,16 +634,29 @@ public class FusionDisruptionAnalyser
     }
 
     private boolean hasValidTraversal(
-            final List<ValidTraversalData> validPairs, final LinkedPair pair, int fusionDirection, boolean isPrecodingUpstream)
+            final Map<SvBreakend,List<ValidTraversalData>> validPairs, final LinkedPair pair, int fusionDirection,
+            boolean isPrecodingUpstream)
     {
-        final ValidTraversalData existingData = validPairs.stream()
-                .filter(x -> x.matches(pair, fusionDirection, isPrecodingUpstream)).findFirst().orElse(null);
+        // results are keyed by each pair's first breakend, and a matching pair can have its breakends in either order
+        for(SvBreakend breakend : new SvBreakend[] { pair.firstBreakend(), pair.secondBreakend() })
+        {
+            final List<ValidTraversalData> breakendPairs = validPairs.get(breakend);
 
-        if(existingData != null)
-            return existingData.IsValid;
+            if(breakendPairs == null)
+                continue;
+
+            final ValidTraversalData existingData = breakendPairs.stream()
+                    .filter(x -> x.matches(pair, fusionDirection, isPrecodingUpstream)).findFirst().orElse(null);
+
+            if(existingData != null)
+                return existingData.IsValid;
+        }
 
         boolean validTraversal = !mDisruptionFinder.pairTraversesGene(pair, fusionDirection, isPrecodingUpstream);
-        validPairs.add(new ValidTraversalData(pair, validTraversal, fusionDirection, isPrecodingUpstream));
+
+        validPairs.computeIfAbsent(pair.firstBreakend(), k -> Lists.newArrayList())
+                .add(new ValidTraversalData(pair, validTraversal, fusionDirection, isPrecodingUpstream));
+
         return validTraversal;
     }
 
@@ -11,6 +11,8 @@ import static com.hartwig.hmftools.linx.utils.SvTestUtils.createTestSv;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.List;
+
 import com.google.common.collect.Lists;
 import com.hartwig.hmftools.linx.types.SvCluster;
 import com.hartwig.hmftools.linx.types.LinkedPair;
@@ -222,4 +224,74 @@ public class ChainingSimpleTest
         assertTrue(pair != null);
         assertTrue(pair.hasVariant(var3));
     }
+
+    @Test
+    public void testMultiThreadedClusterChaining()
+    {
+        LinxTester tester = new LinxTester();
+        addMultipleClusters(tester);
+        tester.preClusteringInit();
+        tester.Analyser.clusterAndAnalyse();
+        tester.Analyser.annotateClusters();
+
+        LinxTester threadedTester = new LinxTester();
+        threadedTester.Analyser.setClusterThreads(3);
+        addMultipleClusters(threadedTester);
+        threadedTester.preClusteringInit();
+        threadedTester.Analyser.clusterAndAnalyse();
+        threadedTester.Analyser.annotateClusters();
+
+        // clusters, chains and links are unchanged and in the same order
+        List<SvCluster> clusters = tester.Analyser.getClusters();
+        List<SvCluster> threadedClusters = threadedTester.Analyser.getClusters();
+        assertEquals(clusters.size(), threadedClusters.size());
+        assertTrue(clusters.stream().anyMatch(x -> x.getChains().size() == 1 && x.getChains().get(0).getLinkCount() == 3));
+
+        for(int i = 0; i < clusters.size(); ++i)
+        {
+            SvCluster cluster = clusters.get(i);
+            SvCluster threadedCluster = threadedClusters.get(i);
+
+            assertEquals(cluster.toString(), threadedCluster.toString());
+            assertEquals(cluster.getAnnotations(), threadedCluster.getAnnotations());
+            assertEquals(cluster.getLinkedPairs().toString(), threadedCluster.getLinkedPairs().toString());
+            assertEquals(cluster.getChains().toString(), threadedCluster.getChains().toString());
+            assertEquals(cluster.getMetrics().TotalDeleted, threadedCluster.getMetrics().TotalDeleted);
+        }
+    }
+
+    private static void addMultipleClusters(final LinxTester tester)
+    {
+        // an assembled chain, a chain requiring both ends to link, a reciprocal translocation and some simple SVs
+        final SvVarData var1 = createDel(tester.nextVarId(), "1", 100,200);
+        final SvVarData var2 = createDel(tester.nextVarId(), "1", 300,400);
+        final SvVarData var3 = createDel(tester.nextVarId(), "1", 500,600);
+        final SvVarData var4 = createDel(tester.nextVarId(), "1", 700,800);
+
+        var1.setAssemblyData(false, "asmb12");
+        var2.setAssemblyData(true, "asmb12");
+        var2.setAssemblyData(false, "asmb23");
+        var3.setAssemblyData(true, "asmb23");
+        var3.setAssemblyData(false, "asmb34");
+        var4.setAssemblyData(true, "asmb34");
+
+        tester.AllVariants.add(var1);
+        tester.AllVariants.add(var2);
+        tester.AllVariants.add(var3);
+        tester.AllVariants.add(var4);
+
+        tester.AllVariants.add(createInv(tester.nextVarId(), "2", 100,200, -1));
+        tester.AllVariants.add(createDel(tester.nextVarId(), "2", 300,400));
+        tester.AllVariants.add(createDel(tester.nextVarId(), "2", 500,600));
+        tester.AllVariants.add(createInv(tester.nextVarId(), "2", 700,800, 1));
+
+        tester.AllVariants.add(createTestSv(tester.nextVarId(), "3", "4", 1000,2000, 1, -1, BND, 1));
+        tester.AllVariants.add(createTestSv(tester.nextVarId(), "3", "4", 1100,2100, -1, 1, BND, 1));
+
+        for(int i = 0; i < 5; ++i)
+        {
+            int position = 1000000 * (i + 1);
+            tester.AllVariants.add(createDel(tester.nextVarId(), "5", position, position + 5000));
+        }
+    }
 }
@@ -703,4 +703,69 @@ public class FusionTest
             return !validUp || !validDown;
     }
 
+
+    @Test
+    public void testChainFusionIndex()
+    {
+        LinxTester tester = new LinxTester();
+
+        final SvVarData var1 = createDel(0, CHR_1, 100,200);
+        final SvVarData var2 = createDel(1, CHR_1, 300,400);
+        final SvVarData var3 = createDel(2, CHR_1, 500,600);
+        final SvVarData var4 = createDel(3, CHR_1, 700,800);
+
+        var1.setAssemblyData(false, "asmb12");
+        var2.setAssemblyData(true, "asmb12");
+        var2.setAssemblyData(false, "asmb23");
+        var3.setAssemblyData(true, "asmb23");
+        var3.setAssemblyData(false, "asmb34");
+        var4.setAssemblyData(true, "asmb34");
+
+        tester.AllVariants.add(var1);
+        tester.AllVariants.add(var2);
+        tester.AllVariants.add(var3);
+        tester.AllVariants.add(var4);
+
+        tester.preClusteringInit();
+        tester.Analyser.clusterAndAnalyse();
+
+        assertEquals(1, tester.Analyser.getClusters().size());
+        SvChain chain = tester.Analyser.getClusters().get(0).getChains().get(0);
+        assertEquals(3, chain.getLinkCount());
+
+        // only the start of the 2nd SV and the end of the last SV have genes
+        ChainFusionIndex fusionIndex = new ChainFusionIndex(chain, (var, isStart) ->
+        {
+            if((var == var2 && isStart) || (var == var4 && !isStart))
+            {
+                return Lists.newArrayList(createGeneAnnotation(
+                        var.id(), isStart, GENE_NAME_1, GENE_ID_1, POS_STRAND, CHR_1, var.position(isStart), var.orientation(isStart)));
+            }
+
+            return Lists.newArrayList();
+        });
+
+        assertEquals(4, fusionIndex.indexCount());
+
+        // whichever direction the chain runs, a fusion can only go from the 2nd SV's start to the last SV's end, 2 links along
+        List<Integer> lowerIndices = Lists.newArrayList();
+
+        for(int i = 0; i < fusionIndex.indexCount(); ++i)
+        {
+            if(fusionIndex.hasLowerGenes(i))
+                lowerIndices.add(i);
+        }
+
+        int[] genicUpperIndices = fusionIndex.genicUpperIndices();
+        assertEquals(1, lowerIndices.size());
+        assertEquals(1, genicUpperIndices.length);
+
+        int lowerIndex = lowerIndices.get(0);
+        int upperIndex = genicUpperIndices[0];
+        assertEquals(lowerIndex + 2, upperIndex);
+
+        assertEquals(0, fusionIndex.firstGenicUpperPosition(lowerIndex));
+        assertEquals(0, fusionIndex.firstGenicUpperPosition(upperIndex));
+        assertEquals(1, fusionIndex.firstGenicUpperPosition(upperIndex + 1));
+    }
 }
@@ -12,6 +12,7 @@ import static com.hartwig.hmftools.markdups.MarkDupsConfig.addConfig;
 import static com.hartwig.hmftools.markdups.common.Constants.DEFAULT_READ_LENGTH;
 import static com.hartwig.hmftools.markdups.common.Constants.LOCK_ACQUIRE_LONG_TIME_MS;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Queue;
@@ -21,6 +22,7 @@ import java.util.stream.Collectors;
 import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
 import com.hartwig.hmftools.common.samtools.BamSampler;
+import com.hartwig.hmftools.common.utils.MetricsRegistry;
 import com.hartwig.hmftools.common.utils.PerformanceCounter;
 import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
 import com.hartwig.hmftools.common.region.ChrBaseRegion;
@@ -180,6 +182,10 @@ public class MarkDuplicates
             }
         }
 
+        // the total counter covers reading the whole BAM
+        combinedPerfCounters.get(0).addInputBytes(new File(mConfig.BamFile).length());
+        MetricsRegistry.register(combinedPerfCounters);
+
         if(mConfig.PerfDebug)
         {
             for(int j = 0; j < combinedPerfCounters.size(); ++j)
@@ -254,6 +260,7 @@ public class MarkDuplicates
         addConfig(configBuilder);
 
         configBuilder.checkAndParseCommandLine(args);
+        MetricsRegistry.initialise(configBuilder, APP_NAME);
 
         MarkDuplicates markDuplicates = new MarkDuplicates(configBuilder);
         markDuplicates.run();
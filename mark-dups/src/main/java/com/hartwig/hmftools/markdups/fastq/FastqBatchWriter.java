@@ -0,0 +1,140 @@
+package com.hartwig.hmftools.markdups.fastq;
+
+import static com.hartwig.hmftools.markdups.MarkDupsConfig.MD_LOGGER;
+import static com.hartwig.hmftools.markdups.fastq.FastqReadBatch.READ_LINE_COUNT;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import htsjdk.samtools.util.BlockCompressedStreamConstants;
+
+// writes transformed batches in the order they were read, waiting on each batch's transform task in turn
+public class FastqBatchWriter extends Thread
+{
+    private final String mR1OutputFile;
+    private final String mR2OutputFile;
+    private final OutputStream mR1Stream;
+    private final OutputStream mR2Stream;
+    private final boolean mCompressed;
+
+    private final BlockingQueue<Future<FastqReadBatch>> mBatches;
+
+    private long mWrittenReadPairs;
+    private volatile boolean mFailed;
+
+    private static final int STREAM_BUFFER_SIZE = 1 << 16;
+    private static final int QUEUE_WAIT_MS = 100;
+
+    // marks the end of the input
+    private static final Future<FastqReadBatch> END_OF_BATCHES = CompletableFuture.completedFuture(null);
+
+    public FastqBatchWriter(final String r1OutputFile, final String r2OutputFile, int queueCapacity) throws IOException
+    {
+        mR1OutputFile = r1OutputFile;
+        mR2OutputFile = r2OutputFile;
+        mCompressed = isCompressed(r1OutputFile);
+        mR1Stream = new BufferedOutputStream(new FileOutputStream(r1OutputFile), STREAM_BUFFER_SIZE);
+        mR2Stream = new BufferedOutputStream(new FileOutputStream(r2OutputFile), STREAM_BUFFER_SIZE);
+        mBatches = new ArrayBlockingQueue<>(queueCapacity);
+        mWrittenReadPairs = 0;
+        mFailed = false;
+
+        setDaemon(true);
+    }
+
+    public static boolean isCompressed(final String filename) { return filename.endsWith(".gz"); }
+
+    public boolean failed() { return mFailed; }
+    public long writtenReadPairs() { return mWrittenReadPairs; }
+
+    // blocks if the writer has fallen behind, which in turn holds back the readers, and returns false once the writer has failed
+    public boolean addBatch(final Future<FastqReadBatch> batch) throws InterruptedException
+    {
+        while(!mFailed)
+        {
+            if(mBatches.offer(batch, QUEUE_WAIT_MS, TimeUnit.MILLISECONDS))
+                return true;
+        }
+
+        return false;
+    }
+
+    // returns false if the writer failed
+    public boolean finish() throws InterruptedException
+    {
+        if(addBatch(END_OF_BATCHES))
+            join();
+
+        return !mFailed;
+    }
+
+    public void run()
+    {
+        boolean completed = false;
+
+        try
+        {
+            while(true)
+            {
+                Future<FastqReadBatch> batchFuture = mBatches.take();
+
+                if(batchFuture == END_OF_BATCHES)
+                    break;
+
+                FastqReadBatch batch = batchFuture.get();
+
+                if(!batch.isValid())
+                {
+                    logInvalidBatch(batch);
+                    return;
+                }
+
+                mR1Stream.write(batch.R1Output);
+                mR2Stream.write(batch.R2Output);
+                mWrittenReadPairs += batch.readPairCount();
+            }
+
+            if(mCompressed)
+            {
+                mR1Stream.write(BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK);
+                mR2Stream.write(BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK);
+            }
+
+            mR1Stream.close();
+            mR2Stream.close();
+            completed = true;
+        }
+        catch(Exception e)
+        {
+            MD_LOGGER.error("failed to write output files({} & {}): {}", mR1OutputFile, mR2OutputFile, e.toString());
+            e.printStackTrace();
+        }
+        finally
+        {
+            // set on any exit other than completion, so callers stop queueing batches rather than blocking on a dead writer
+            mFailed = !completed;
+        }
+    }
+
+    private static void logInvalidBatch(final FastqReadBatch batch)
+    {
+        String[] r1ReadBuffer = batch.R1Reads.get(batch.InvalidReadIndex);
+        String[] r2ReadBuffer = batch.R2Reads.get(batch.InvalidReadIndex);
+
+        long lineIndex = (batch.FirstReadIndex + batch.InvalidReadIndex) * READ_LINE_COUNT;
+        MD_LOGGER.error("invalid entries at line({})", lineIndex);
+
+        for(int i = 0; i < r1ReadBuffer.length; ++i)
+        {
+            MD_LOGGER.error("R1 item {}: {}", i, r1ReadBuffer[i]);
+            MD_LOGGER.error("R2 item {}: {}", i, r2ReadBuffer[i]);
+        }
+    }
+}
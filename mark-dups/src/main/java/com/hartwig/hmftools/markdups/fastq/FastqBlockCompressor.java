@@ -0,0 +1,57 @@
+package com.hartwig.hmftools.markdups.fastq;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.zip.Deflater;
+
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import htsjdk.samtools.util.zip.DeflaterFactory;
+
+// compresses batches into BGZF blocks, so independently compressed batches can simply be concatenated
+// each transform thread keeps one compressor and reuses its deflaters across batches - they hold native memory which is only
+// released by close, since the block stream never ends its deflaters
+public class FastqBlockCompressor
+{
+    private final Deflater mDeflater;
+    private final Deflater mNoCompressionDeflater;
+    private final ByteArrayOutputStream mCompressedBytes;
+    private final BlockCompressedOutputStream mBlockStream;
+
+    public FastqBlockCompressor()
+    {
+        int compressionLevel = BlockCompressedOutputStream.getDefaultCompressionLevel();
+        mDeflater = new Deflater(compressionLevel, true);
+        mNoCompressionDeflater = new Deflater(Deflater.NO_COMPRESSION, true);
+        mCompressedBytes = new ByteArrayOutputStream();
+
+        // the block stream falls back to storing a block uncompressed if compression would expand it
+        DeflaterFactory deflaterFactory = new DeflaterFactory()
+        {
+            @Override
+            public Deflater makeDeflater(final int level, final boolean gzipCompatible)
+            {
+                return level == Deflater.NO_COMPRESSION ? mNoCompressionDeflater : mDeflater;
+            }
+        };
+
+        mBlockStream = new BlockCompressedOutputStream(mCompressedBytes, (Path)null, compressionLevel, deflaterFactory);
+    }
+
+    public byte[] compress(final byte[] data) throws IOException
+    {
+        mCompressedBytes.reset();
+        mBlockStream.write(data);
+
+        // flush rather than close, since close would add the end-of-file block
+        mBlockStream.flush();
+
+        return mCompressedBytes.toByteArray();
+    }
+
+    public void close()
+    {
+        mDeflater.end();
+        mNoCompressionDeflater.end();
+    }
+}
@@ -0,0 +1,155 @@
+package com.hartwig.hmftools.markdups.fastq;
+
+import static com.hartwig.hmftools.markdups.MarkDupsConfig.MD_LOGGER;
+import static com.hartwig.hmftools.markdups.fastq.FastqReadBatch.READ_LINE_COUNT;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPInputStream;
+
+import htsjdk.samtools.util.AsyncBlockCompressedInputStream;
+import htsjdk.samtools.util.BlockCompressedInputStream;
+
+// reads and decompresses a fastq on its own thread, handing over batches of reads
+public class FastqFileReader extends Thread
+{
+    private final String mFilename;
+    private final int mBatchSize;
+    private final BlockingQueue<List<String[]>> mBatches;
+
+    private long mReadCount;
+    private volatile boolean mFailed;
+
+    private static final int STREAM_BUFFER_SIZE = 1 << 16;
+
+    // marks the end of the file
+    private static final List<String[]> END_OF_FILE = Collections.emptyList();
+
+    public FastqFileReader(final String filename, int batchSize, int queueCapacity)
+    {
+        mFilename = filename;
+        mBatchSize = batchSize;
+        mBatches = new ArrayBlockingQueue<>(queueCapacity);
+        mReadCount = 0;
+        mFailed = false;
+
+        setDaemon(true);
+    }
+
+    public boolean failed() { return mFailed; }
+
+    // stops the reader if it has not reached the end of the file, unblocking it if it is waiting on a full queue
+    public void close() throws InterruptedException
+    {
+        interrupt();
+        mBatches.clear();
+        join();
+    }
+
+    // returns an empty list once the file is exhausted
+    public List<String[]> nextBatch() throws InterruptedException
+    {
+        List<String[]> batch = mBatches.take();
+
+        if(batch == END_OF_FILE)
+            mBatches.put(END_OF_FILE); // so repeated calls continue to see the end
+
+        return batch;
+    }
+
+    public void run()
+    {
+        boolean completed = false;
+
+        try(BufferedReader reader = createReader())
+        {
+            List<String[]> batch = new ArrayList<>(mBatchSize);
+
+            while(true)
+            {
+                String[] readLines = new String[READ_LINE_COUNT];
+
+                boolean complete = true;
+
+                for(int i = 0; i < READ_LINE_COUNT; ++i)
+                {
+                    readLines[i] = reader.readLine();
+
+                    if(readLines[i] == null)
+                    {
+                        complete = false;
+                        break;
+                    }
+                }
+
+                // as before, an incomplete trailing record is ignored
+                if(!complete)
+                    break;
+
+                batch.add(readLines);
+                ++mReadCount;
+
+                if(batch.size() >= mBatchSize)
+                {
+                    mBatches.put(batch);
+                    batch = new ArrayList<>(mBatchSize);
+                }
+            }
+
+            if(!batch.isEmpty())
+                mBatches.put(batch);
+
+            MD_LOGGER.debug("fastq({}) read complete, reads({})", mFilename, mReadCount);
+            completed = true;
+        }
+        catch(IOException e)
+        {
+            MD_LOGGER.error("error reading fastq({}): {}", mFilename, e.toString());
+            e.printStackTrace();
+        }
+        catch(InterruptedException e)
+        {
+            MD_LOGGER.debug("fastq({}) reader interrupted", mFilename);
+        }
+        finally
+        {
+            mFailed = !completed;
+
+            // always mark the end, so the consumer cannot block on a reader which has stopped
+            try
+            {
+                mBatches.put(END_OF_FILE);
+            }
+            catch(InterruptedException e)
+            {
+                MD_LOGGER.debug("fastq({}) reader interrupted", mFilename);
+            }
+        }
+    }
+
+    private BufferedReader createReader() throws IOException
+    {
+        InputStream inputStream = new BufferedInputStream(new FileInputStream(mFilename), STREAM_BUFFER_SIZE);
+
+        if(mFilename.endsWith(".gz"))
+        {
+            // BGZF blocks are decompressed ahead of the reader on a separate thread, other gzip files on this thread
+            if(BlockCompressedInputStream.isValidFile(inputStream))
+                inputStream = new AsyncBlockCompressedInputStream(inputStream);
+            else
+                inputStream = new GZIPInputStream(inputStream, STREAM_BUFFER_SIZE);
+        }
+
+        return new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8), STREAM_BUFFER_SIZE);
+    }
+}
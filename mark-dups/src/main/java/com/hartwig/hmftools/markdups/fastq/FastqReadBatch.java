@@ -0,0 +1,41 @@
+package com.hartwig.hmftools.markdups.fastq;
+
+import java.util.List;
+
+public class FastqReadBatch
+{
+    public final long FirstReadIndex; // index of the first read pair in the files
+    public final List<String[]> R1Reads;
+    public final List<String[]> R2Reads;
+
+    // set once the batch has been transformed
+    public byte[] R1Output;
+    public byte[] R2Output;
+    public int InvalidReadIndex;
+
+    public static final int READ_ITEM_ID = 0;
+    public static final int READ_ITEM_BASES = 1;
+    public static final int READ_ITEM_SPARE = 2;
+    public static final int READ_ITEM_QUALS = 3;
+    public static final int READ_LINE_COUNT = 4;
+
+    public FastqReadBatch(final long firstReadIndex, final List<String[]> r1Reads, final List<String[]> r2Reads)
+    {
+        FirstReadIndex = firstReadIndex;
+        R1Reads = r1Reads;
+        R2Reads = r2Reads;
+        R1Output = null;
+        R2Output = null;
+        InvalidReadIndex = -1;
+    }
+
+    // R1 and R2 batches are checked to be the same size before a batch is formed
+    public int readPairCount() { return R1Reads.size(); }
+
+    public boolean isValid() { return InvalidReadIndex < 0; }
+
+    public String toString()
+    {
+        return String.format("firstRead(%d) pairs(%d)", FirstReadIndex, readPairCount());
+    }
+}
@@ -3,23 +3,32 @@ package com.hartwig.hmftools.markdups.fastq;
 import static java.lang.Math.max;
 
 import static com.hartwig.hmftools.common.utils.PerformanceCounter.runTimeMinsStr;
+import static com.hartwig.hmftools.common.utils.TaskExecutor.addThreadOptions;
+import static com.hartwig.hmftools.common.utils.TaskExecutor.parseThreads;
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.OUTPUT_ID;
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.addOutputOptions;
-import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.createBufferedReader;
-import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.createBufferedWriter;
-import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.createGzipBufferedWriter;
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.parseOutputDir;
 import static com.hartwig.hmftools.markdups.MarkDupsConfig.APP_NAME;
 import static com.hartwig.hmftools.markdups.MarkDupsConfig.MD_LOGGER;
 import static com.hartwig.hmftools.markdups.common.Constants.DEFAULT_DUPLEX_UMI_DELIM;
+import static com.hartwig.hmftools.markdups.fastq.FastqReadBatch.READ_ITEM_BASES;
+import static com.hartwig.hmftools.markdups.fastq.FastqReadBatch.READ_ITEM_ID;
+import static com.hartwig.hmftools.markdups.fastq.FastqReadBatch.READ_ITEM_QUALS;
+import static com.hartwig.hmftools.markdups.fastq.FastqReadBatch.READ_LINE_COUNT;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.hartwig.hmftools.common.codon.Nucleotides;
 import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
 import com.hartwig.hmftools.common.utils.config.ConfigItemType;
@@ -36,9 +45,7 @@ public class FastqUmiExtracter
     private final int mAdapterUmiLength;
     private final String mAdapterSequence;
     private final String mAdapterSequenceReversed;
-
-    private BufferedWriter mWriterR1;
-    private BufferedWriter mWriterR2;
+    private final int mThreads;
 
     // config
     private static final String FASTQ_FILES = "fastq_files";
@@ -46,7 +53,11 @@ public class FastqUmiExtracter
     private static final String ADAPTER_SEQUENCE = "adapter_seq";
 
     private static final String FASTQ_FILES_DELIM = ";";
-    private static final int LINE_LOG_COUNT = 1000000;
+    private static final int READ_PAIR_LOG_COUNT = 10000000;
+
+    private static final int READ_PAIR_BATCH_SIZE = 10000;
+    private static final int MAX_QUEUED_BATCHES_PER_THREAD = 4;
+    private static final int BATCH_READ_BUFFER_SIZE = 400; // initial output capacity per read, sufficient for 150-base reads
 
     public FastqUmiExtracter(final ConfigBuilder configBuilder)
     {
@@ -58,6 +69,7 @@ public class FastqUmiExtracter
 
         mAdapterUmiLength = mAdapterSequence != null ? mAdapterSequence.length() + mUmiLength : 0;
         mAdapterSequenceReversed = mAdapterSequence != null ? Nucleotides.reverseStrandBases(mAdapterSequence) : null;
+        mThreads = max(parseThreads(configBuilder), 1);
     }
 
     public void run()
@@ -98,98 +110,182 @@ public class FastqUmiExtracter
         MD_LOGGER.info("extraction complete, mins({})", runTimeMinsStr(startTimeMs));
     }
 
-    private static final int READ_ITEM_ID = 0;
-    private static final int READ_ITEM_BASES = 1;
-    private static final int READ_ITEM_SPARE = 2;
-    private static final int READ_ITEM_QUALS = 3;
-    private static final int READ_LINE_COUNT = 4;
-
     private static final char READ_ID_START = '@';
     private static final char READ_ID_BREAK = ' ';
     private static final char READ_ID_DELIM = ':';
+    private static final char LINE_END = '\n';
 
-    private BufferedWriter createOutputWriter(final String inputFile)
+    private String formOutputFile(final String inputFile)
     {
         String fastqFile = inputFile.substring(inputFile.lastIndexOf(File.separator) + 1);
         int extensionIndex = fastqFile.contains("fastq") ? fastqFile.lastIndexOf(".fastq") : fastqFile.lastIndexOf(".fq");
-        String outputFile = mOutputDir + fastqFile.substring(0, extensionIndex) + '.' + mOutputId + fastqFile.substring(extensionIndex);
+        return mOutputDir + fastqFile.substring(0, extensionIndex) + '.' + mOutputId + fastqFile.substring(extensionIndex);
+    }
+
+    private void processFiles(final String r1File, final String r2File)
+    {
+        // reading and decompression of each file, UMI extraction and compression, and writing all run on separate threads,
+        // with bounded queues between them and the writer taking batches in the order they were read
+        int queueCapacity = mThreads * MAX_QUEUED_BATCHES_PER_THREAD;
+
+        String r1OutputFile = formOutputFile(r1File);
+        String r2OutputFile = formOutputFile(r2File);
+        boolean compressOutput = FastqBatchWriter.isCompressed(r1OutputFile);
+
+        FastqBatchWriter batchWriter = null;
 
         try
         {
-            return outputFile.endsWith(".gz") ? createGzipBufferedWriter(outputFile) : createBufferedWriter(outputFile);
+            batchWriter = new FastqBatchWriter(r1OutputFile, r2OutputFile, queueCapacity);
         }
         catch(IOException e)
         {
-            MD_LOGGER.error("error creating fastq output file({}): {}", outputFile, e.toString());
+            MD_LOGGER.error("error creating fastq output files: {}", e.toString());
             System.exit(1);
-            return null;
         }
-    }
 
-    private void processFiles(final String r1File, final String r2File)
-    {
-        try
+        FastqFileReader r1Reader = new FastqFileReader(r1File, READ_PAIR_BATCH_SIZE, queueCapacity);
+        FastqFileReader r2Reader = new FastqFileReader(r2File, READ_PAIR_BATCH_SIZE, queueCapacity);
+
+        ExecutorService transformExecutor = Executors.newFixedThreadPool(
+                mThreads, new ThreadFactoryBuilder().setNameFormat("FastqUmi-%d").setDaemon(true).build());
+
+        // each transform thread compresses with its own compressor, all closed once the transform threads have stopped
+        List<FastqBlockCompressor> compressors = Collections.synchronizedList(Lists.newArrayList());
+
+        ThreadLocal<FastqBlockCompressor> threadCompressor = ThreadLocal.withInitial(() ->
         {
-            mWriterR1 = createOutputWriter(r1File);
-            mWriterR2 = createOutputWriter(r2File);
+            FastqBlockCompressor compressor = new FastqBlockCompressor();
+            compressors.add(compressor);
+            return compressor;
+        });
 
-            BufferedReader r1Reader = createBufferedReader(r1File);
-            BufferedReader r2Reader = createBufferedReader(r2File);
+        batchWriter.start();
+        r1Reader.start();
+        r2Reader.start();
 
-            int lineCount = 0;
+        boolean valid = true;
 
-            int readLineCount = 0;
-            String[] r1ReadBuffer = new String[READ_ITEM_QUALS+1];
-            String[] r2ReadBuffer = new String[READ_ITEM_QUALS+1];
+        try
+        {
+            long readPairCount = 0;
+            long nextLogCount = READ_PAIR_LOG_COUNT;
 
             while(true)
             {
-                r1ReadBuffer[readLineCount] = r1Reader.readLine();
-                r2ReadBuffer[readLineCount] = r2Reader.readLine();
+                List<String[]> r1Reads = r1Reader.nextBatch();
+                List<String[]> r2Reads = r2Reader.nextBatch();
 
-                if(r1ReadBuffer[readLineCount] == null || r2ReadBuffer[readLineCount] == null)
+                if(r1Reader.failed() || r2Reader.failed())
+                {
+                    valid = false;
                     break;
+                }
 
-                ++readLineCount;
-
-                if(readLineCount == READ_LINE_COUNT)
+                // batches are filled to the same size, so only differ if the files have different read counts
+                if(r1Reads.size() != r2Reads.size())
                 {
-                    if(!processReadBases(r1ReadBuffer, r2ReadBuffer))
-                    {
-                        MD_LOGGER.error("invalid entries at line({})", lineCount);
+                    MD_LOGGER.error("fastq files have different read counts: R1({}) R2({})",
+                            readPairCount + r1Reads.size(), readPairCount + r2Reads.size());
+                    valid = false;
+                    break;
+                }
 
-                        for(int i = 0; i < r1ReadBuffer.length; ++i)
-                        {
-                            MD_LOGGER.error("R1 item {}: {}", i, r1ReadBuffer[i]);
-                            MD_LOGGER.error("R2 item {}: {}", i, r2ReadBuffer[i]);
-                        }
+                if(r1Reads.isEmpty())
+                    break;
 
-                        System.exit(1);
-                    }
+                FastqReadBatch batch = new FastqReadBatch(readPairCount, r1Reads, r2Reads);
 
-                    readLineCount = 0;
+                if(!batchWriter.addBatch(transformExecutor.submit(() -> processBatch(batch, compressOutput ? threadCompressor : null))))
+                {
+                    valid = false;
+                    break;
                 }
 
-                ++lineCount;
+                readPairCount += batch.readPairCount();
 
-                if(lineCount > 0 && (lineCount % LINE_LOG_COUNT) == 0)
+                if(readPairCount >= nextLogCount)
                 {
-                    MD_LOGGER.info("processed {} lines", lineCount);
+                    MD_LOGGER.info("processed {} read pairs", readPairCount);
+                    nextLogCount += READ_PAIR_LOG_COUNT;
                 }
             }
 
-            mWriterR1.close();
-            mWriterR2.close();
+            if(valid)
+                valid = batchWriter.finish();
+
+            r1Reader.close();
+            r2Reader.close();
         }
-        catch(IOException e)
+        catch(InterruptedException e)
+        {
+            MD_LOGGER.error("fastq processing interrupted: {}", e.toString());
+            valid = false;
+        }
+
+        transformExecutor.shutdownNow();
+
+        try
+        {
+            if(!transformExecutor.awaitTermination(1, TimeUnit.MINUTES))
+                MD_LOGGER.warn("fastq transform threads did not stop");
+        }
+        catch(InterruptedException e)
+        {
+            MD_LOGGER.error("fastq processing interrupted: {}", e.toString());
+            valid = false;
+        }
+
+        compressors.forEach(FastqBlockCompressor::close);
+
+        if(!valid)
         {
-            MD_LOGGER.error("error reading fastq({}): {}", mFastqFiles, e.toString());
-            e.printStackTrace();
+            MD_LOGGER.error("error processing fastq({})", mFastqFiles);
             System.exit(1);
         }
+
+        MD_LOGGER.info("wrote {} read pairs", batchWriter.writtenReadPairs());
+    }
+
+    // output is compressed with the calling thread's compressor if one is provided
+    private FastqReadBatch processBatch(final FastqReadBatch batch, final ThreadLocal<FastqBlockCompressor> compressor)
+            throws IOException
+    {
+        int readPairCount = batch.readPairCount();
+
+        // FASTQ lines are ASCII so a character count is also the byte count
+        StringBuilder r1Output = new StringBuilder(readPairCount * BATCH_READ_BUFFER_SIZE);
+        StringBuilder r2Output = new StringBuilder(readPairCount * BATCH_READ_BUFFER_SIZE);
+
+        for(int i = 0; i < readPairCount; ++i)
+        {
+            String[] r1ReadBuffer = batch.R1Reads.get(i);
+            String[] r2ReadBuffer = batch.R2Reads.get(i);
+
+            if(!processReadBases(r1ReadBuffer, r2ReadBuffer))
+            {
+                batch.InvalidReadIndex = i;
+                return batch;
+            }
+
+            for(int j = 0; j < READ_LINE_COUNT; ++j)
+            {
+                r1Output.append(r1ReadBuffer[j]).append(LINE_END);
+                r2Output.append(r2ReadBuffer[j]).append(LINE_END);
+            }
+        }
+
+        byte[] r1Bytes = r1Output.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] r2Bytes = r2Output.toString().getBytes(StandardCharsets.UTF_8);
+
+        batch.R1Output = compressor != null ? compressor.get().compress(r1Bytes) : r1Bytes;
+        batch.R2Output = compressor != null ? compressor.get().compress(r2Bytes) : r2Bytes;
+
+        return batch;
     }
 
-    private boolean processReadBases(final String[] r1ReadBuffer, final String[] r2ReadBuffer)
+    // applied to each read pair independently, so safe to call from multiple threads
+    public boolean processReadBases(final String[] r1ReadBuffer, final String[] r2ReadBuffer)
     {
         /*
         @A00121:853:H5JJNDSX7:1:1101:1443:1047 1:N:0:GGCACAACCT+CAGGAGTCTA
@@ -275,35 +371,23 @@ public class FastqUmiExtracter
             r2ReadBuffer[READ_ITEM_QUALS] = r2ReadBuffer[READ_ITEM_QUALS].substring(mUmiLength);
         }
 
-        try
-        {
-            for(int i = 0; i < r1ReadBuffer.length; ++i)
-            {
-                mWriterR1.write(r1ReadBuffer[i]);
-                mWriterR1.newLine();
-
-                mWriterR2.write(r2ReadBuffer[i]);
-                mWriterR2.newLine();
-            }
-
-            return true;
-        }
-        catch(IOException e)
-        {
-            MD_LOGGER.error("failed to write output file: {}", e.toString());
-            return false;
-        }
+        return true;
     }
 
-    public static void main(@NotNull final String[] args)
+    public static void registerConfig(final ConfigBuilder configBuilder)
     {
-        ConfigBuilder configBuilder = new ConfigBuilder(APP_NAME);
-
         configBuilder.addConfigItem(FASTQ_FILES, true, "Fastq file-pair path, separated by delim ','");
         configBuilder.addConfigItem(ConfigItemType.INTEGER, UMI_LENGTH, true, "UMI length", null);
         configBuilder.addConfigItem(ADAPTER_SEQUENCE, "Adapter sequence (optional)");
         addOutputOptions(configBuilder);
+        addThreadOptions(configBuilder);
         ConfigUtils.addLoggingOptions(configBuilder);
+    }
+
+    public static void main(@NotNull final String[] args)
+    {
+        ConfigBuilder configBuilder = new ConfigBuilder(APP_NAME);
+        registerConfig(configBuilder);
 
         configBuilder.checkAndParseCommandLine(args);
 
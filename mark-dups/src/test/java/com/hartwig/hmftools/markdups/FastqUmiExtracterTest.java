@@ -0,0 +1,159 @@
+package com.hartwig.hmftools.markdups;
+
+import static com.hartwig.hmftools.markdups.fastq.FastqReadBatch.READ_ITEM_BASES;
+import static com.hartwig.hmftools.markdups.fastq.FastqReadBatch.READ_ITEM_ID;
+import static com.hartwig.hmftools.markdups.fastq.FastqReadBatch.READ_ITEM_QUALS;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+import com.hartwig.hmftools.markdups.fastq.FastqBatchWriter;
+import com.hartwig.hmftools.markdups.fastq.FastqBlockCompressor;
+import com.hartwig.hmftools.markdups.fastq.FastqFileReader;
+import com.hartwig.hmftools.markdups.fastq.FastqReadBatch;
+import com.hartwig.hmftools.markdups.fastq.FastqUmiExtracter;
+
+import org.junit.Test;
+
+import htsjdk.samtools.util.BlockCompressedInputStream;
+import htsjdk.samtools.util.BlockCompressedStreamConstants;
+
+public class FastqUmiExtracterTest
+{
+    @Test
+    public void testDuplexUmiExtraction()
+    {
+        FastqUmiExtracter extracter = createExtracter(5);
+
+        String[] r1Read = { "@READ_001 1:N:0:GGCACAACCT", "AAAAACGTCGTCGT", "+", "FFFFF:FFFFFFFF" };
+        String[] r2Read = { "@READ_001 2:N:0:GGCACAACCT", "TTTTTGCAGCAGCA", "+", "FFFFF#FFFFFFFF" };
+
+        assertTrue(extracter.processReadBases(r1Read, r2Read));
+
+        assertEquals("@READ_001:AAAAA_TTTTT 1:N:0:GGCACAACCT", r1Read[READ_ITEM_ID]);
+        assertEquals("@READ_001:AAAAA_TTTTT 2:N:0:GGCACAACCT", r2Read[READ_ITEM_ID]);
+        assertEquals("CGTCGTCGT", r1Read[READ_ITEM_BASES]);
+        assertEquals("GCAGCAGCA", r2Read[READ_ITEM_BASES]);
+        assertEquals(":FFFFFFFF", r1Read[READ_ITEM_QUALS]);
+        assertEquals("#FFFFFFFF", r2Read[READ_ITEM_QUALS]);
+
+        // mismatched read IDs
+        r1Read = new String[] { "@READ_001 1:N:0:GGCACAACCT", "AAAAACGTCGTCGT", "+", "FFFFF:FFFFFFFF" };
+        r2Read = new String[] { "@READ_002 2:N:0:GGCACAACCT", "TTTTTGCAGCAGCA", "+", "FFFFF#FFFFFFFF" };
+        assertFalse(extracter.processReadBases(r1Read, r2Read));
+    }
+
+    @Test
+    public void testBlockCompressedBatches() throws IOException
+    {
+        String batch1 = "@READ_001\nACGT\n+\nFFFF\n";
+        String batch2 = "@READ_002\nTTGA\n+\nF:FF\n".repeat(5000); // spans several blocks
+        String batch3 = "@READ_003\nCCAT\n+\nFFF:\n";
+
+        // batches compressed in turn by one reused compressor are concatenated and then terminated, as the writer does
+        FastqBlockCompressor compressor = new FastqBlockCompressor();
+        ByteArrayOutputStream fileBytes = new ByteArrayOutputStream();
+        fileBytes.write(compressor.compress(batch1.getBytes(StandardCharsets.UTF_8)));
+        fileBytes.write(compressor.compress(batch2.getBytes(StandardCharsets.UTF_8)));
+        fileBytes.write(compressor.compress(batch3.getBytes(StandardCharsets.UTF_8)));
+        fileBytes.write(BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK);
+        compressor.close();
+
+        BlockCompressedInputStream inputStream = new BlockCompressedInputStream(new ByteArrayInputStream(fileBytes.toByteArray()));
+        String decompressed = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+
+        assertEquals(batch1 + batch2 + batch3, decompressed);
+    }
+
+    @Test(timeout = 10000)
+    public void testReaderCloseUnblocksFullQueue() throws Exception
+    {
+        Path tempDir = Files.createTempDirectory("fastq_reader_test");
+        File fastqFile = tempDir.resolve("reads.fastq").toFile();
+
+        try
+        {
+            StringBuilder fastq = new StringBuilder();
+
+            for(int i = 0; i < 100; ++i)
+            {
+                fastq.append(String.format("@READ_%03d\nACGT\n+\nFFFF\n", i));
+            }
+
+            Files.writeString(fastqFile.toPath(), fastq.toString());
+
+            // with single-read batches and a queue of 2, the reader blocks well before the end of the file
+            FastqFileReader reader = new FastqFileReader(fastqFile.getAbsolutePath(), 1, 2);
+            reader.start();
+
+            assertEquals(1, reader.nextBatch().size());
+
+            reader.close();
+            assertFalse(reader.isAlive());
+            assertTrue(reader.failed());
+        }
+        finally
+        {
+            fastqFile.delete();
+            Files.deleteIfExists(tempDir);
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testWriterFailureStopsQueueing() throws Exception
+    {
+        Path tempDir = Files.createTempDirectory("fastq_writer_test");
+        File r1File = tempDir.resolve("R1.fastq").toFile();
+        File r2File = tempDir.resolve("R2.fastq").toFile();
+
+        try
+        {
+            FastqBatchWriter writer = new FastqBatchWriter(r1File.getAbsolutePath(), r2File.getAbsolutePath(), 1);
+            writer.start();
+
+            CompletableFuture<FastqReadBatch> failedBatch = new CompletableFuture<>();
+            failedBatch.completeExceptionally(new IOException("test failure"));
+
+            // once the writer has failed, further batches are rejected rather than blocking on the full queue
+            boolean added = writer.addBatch(failedBatch);
+
+            while(added)
+            {
+                FastqReadBatch batch = new FastqReadBatch(0, List.of(), List.of());
+                added = writer.addBatch(CompletableFuture.completedFuture(batch));
+            }
+
+            assertTrue(writer.failed());
+            assertFalse(writer.finish());
+        }
+        finally
+        {
+            r1File.delete();
+            r2File.delete();
+            Files.deleteIfExists(tempDir);
+        }
+    }
+
+    private static FastqUmiExtracter createExtracter(int umiLength)
+    {
+        ConfigBuilder configBuilder = new ConfigBuilder();
+        FastqUmiExtracter.registerConfig(configBuilder);
+
+        configBuilder.parseCommandLine(new String[] {
+                "-fastq_files", "R1.fastq.gz;R2.fastq.gz", "-umi_length", String.valueOf(umiLength), "-output_dir", "." });
+
+        return new FastqUmiExtracter(configBuilder);
+    }
+}
@@ -2,6 +2,7 @@ package com.hartwig.hmftools.neo.bind;
 
 import static org.apache.commons.math3.util.FastMath.log;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -17,20 +18,38 @@ public final class BindConstants
 
     public static final Map<Character,Integer> AMINO_ACID_INDICES = Maps.newHashMap();
 
+    public static final int INVALID_AMINO_ACID = -1;
+
+    // amino acid index by character, avoiding boxing in the scoring loops
+    private static final byte[] AMINO_ACID_CODES = new byte[128];
+
     static
     {
+        Arrays.fill(AMINO_ACID_CODES, (byte)INVALID_AMINO_ACID);
+
         for(int i = 0; i < AMINO_ACIDS.size(); ++i)
         {
             AMINO_ACID_INDICES.put(AMINO_ACIDS.get(i), i);
+            AMINO_ACID_CODES[AMINO_ACIDS.get(i)] = (byte)i;
         }
     }
 
-    public static final int INVALID_AMINO_ACID = -1;
-
     public static int aminoAcidIndex(final char aminoAcid)
     {
-        Integer index = AMINO_ACID_INDICES.get(aminoAcid);
-        return index != null ? index : INVALID_AMINO_ACID;
+        return aminoAcid < AMINO_ACID_CODES.length ? AMINO_ACID_CODES[aminoAcid] : INVALID_AMINO_ACID;
+    }
+
+    // a peptide as its amino acid indices, so it can be scored against many matrices
+    public static byte[] encodeAminoAcids(final String peptide)
+    {
+        byte[] aminoAcids = new byte[peptide.length()];
+
+        for(int i = 0; i < aminoAcids.length; ++i)
+        {
+            aminoAcids[i] = (byte)aminoAcidIndex(peptide.charAt(i));
+        }
+
+        return aminoAcids;
     }
 
     public static final List<Integer> DEFAULT_PEPTIDE_LENGTHS = Lists.newArrayList(8, 9, 10, 11, 12);
@@ -14,6 +14,7 @@ import static com.hartwig.hmftools.neo.bind.BindConstants.AMINO_ACIDS;
 import static com.hartwig.hmftools.neo.bind.BindConstants.AMINO_ACID_COUNT;
 import static com.hartwig.hmftools.neo.bind.BindConstants.INVALID_AMINO_ACID;
 import static com.hartwig.hmftools.neo.bind.BindConstants.aminoAcidIndex;
+import static com.hartwig.hmftools.neo.bind.BindConstants.encodeAminoAcids;
 import static com.hartwig.hmftools.neo.bind.BindCommon.BIND_DELIM;
 
 import java.io.BufferedWriter;
@@ -34,6 +35,9 @@ public class BindScoreMatrix
 
     private final double[][] mPosWeights; // by amino acid and position
 
+    // weights by position then amino acid for scoring encoded peptides, rebuilt after the weights are accessed for changes
+    private volatile double[] mScoringWeights;
+
     private static final double INVALID_SCORE = -1000;
 
     public BindScoreMatrix(final String allele, final int peptideLength)
@@ -46,32 +50,64 @@ public class BindScoreMatrix
         mPosWeights = new double[aminoAcidCount][PeptideLength];
     }
 
-    public final double[][] getBindScores() { return mPosWeights; }
+    public final double[][] getBindScores()
+    {
+        mScoringWeights = null;
+        return mPosWeights;
+    }
 
     public double calcScore(final String peptide)
     {
         if(peptide.length() != PeptideLength)
             return INVALID_SCORE; // for now
 
+        return calcScore(encodeAminoAcids(peptide));
+    }
+
+    public double calcScore(final byte[] aminoAcids)
+    {
+        if(aminoAcids.length != PeptideLength)
+            return INVALID_SCORE;
+
+        double[] scoringWeights = scoringWeights();
+
         double score = 0;
 
-        for(int i = 0; i < peptide.length(); ++i)
+        for(int i = 0; i < aminoAcids.length; ++i)
         {
-            char aminoAcid = peptide.charAt(i);
-
-            int aaIndex = aminoAcidIndex(aminoAcid);
+            int aaIndex = aminoAcids[i];
 
             if(aaIndex == INVALID_AMINO_ACID)
                 return INVALID_SCORE;
 
-            double aaPosScore = mPosWeights[aaIndex][i];
-
-            score += aaPosScore;
+            score += scoringWeights[i * AMINO_ACID_COUNT + aaIndex];
         }
 
         return score;
     }
 
+    private double[] scoringWeights()
+    {
+        double[] scoringWeights = mScoringWeights;
+
+        if(scoringWeights == null)
+        {
+            scoringWeights = new double[PeptideLength * AMINO_ACID_COUNT];
+
+            for(int aa = 0; aa < AMINO_ACID_COUNT; ++aa)
+            {
+                for(int pos = 0; pos < PeptideLength; ++pos)
+                {
+                    scoringWeights[pos * AMINO_ACID_COUNT + aa] = mPosWeights[aa][pos];
+                }
+            }
+
+            mScoringWeights = scoringWeights;
+        }
+
+        return scoringWeights;
+    }
+
     public static BufferedWriter initMatrixWriter(final String filename, int peptideLength)
     {
         try
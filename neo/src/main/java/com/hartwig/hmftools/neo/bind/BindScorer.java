@@ -3,6 +3,7 @@ package com.hartwig.hmftools.neo.bind;
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.createBufferedWriter;
 import static com.hartwig.hmftools.neo.NeoCommon.APP_NAME;
 import static com.hartwig.hmftools.neo.NeoCommon.NE_LOGGER;
+import static com.hartwig.hmftools.neo.bind.BindConstants.encodeAminoAcids;
 import static com.hartwig.hmftools.neo.bind.BindData.loadBindData;
 
 import java.io.BufferedWriter;
@@ -173,12 +174,52 @@ public class BindScorer
                 mBindingLikelihood, mExpressionLikelihood, mRecognitionSimilarity);
     }
 
+    // scores a peptide against each of its alleles, encoding the peptide once for all the allele matrices
+    public void calcScoreData(final List<BindData> alleleBindData)
+    {
+        String encodedPeptide = null;
+        byte[] aminoAcids = null;
+
+        for(BindData bindData : alleleBindData)
+        {
+            Map<Integer,BindScoreMatrix> pepLenMatrixMap = mAlleleBindMatrices.get(bindData.Allele);
+
+            if(pepLenMatrixMap == null)
+                continue;
+
+            BindScoreMatrix matrix = pepLenMatrixMap.get(bindData.peptideLength());
+
+            if(matrix == null)
+                continue;
+
+            if(!bindData.Peptide.equals(encodedPeptide))
+            {
+                encodedPeptide = bindData.Peptide;
+                aminoAcids = encodeAminoAcids(encodedPeptide);
+            }
+
+            calcScoreData(
+                    bindData, aminoAcids, matrix, mFlankScores, mRandomDistribution,
+                    mBindingLikelihood, mExpressionLikelihood, mRecognitionSimilarity);
+        }
+    }
+
     public static void calcScoreData(
             final BindData bindData, final BindScoreMatrix matrix, final FlankScores flankScores,
             final RandomPeptideDistribution randomDistribution, final BindingLikelihood bindingLikelihood,
             final ExpressionLikelihood expressionLikelihood, final RecognitionSimilarity recognitionSimilarity)
     {
-        double score = matrix.calcScore(bindData.Peptide);
+        calcScoreData(
+                bindData, encodeAminoAcids(bindData.Peptide), matrix, flankScores, randomDistribution,
+                bindingLikelihood, expressionLikelihood, recognitionSimilarity);
+    }
+
+    private static void calcScoreData(
+            final BindData bindData, final byte[] aminoAcids, final BindScoreMatrix matrix, final FlankScores flankScores,
+            final RandomPeptideDistribution randomDistribution, final BindingLikelihood bindingLikelihood,
+            final ExpressionLikelihood expressionLikelihood, final RecognitionSimilarity recognitionSimilarity)
+    {
+        double score = matrix.calcScore(aminoAcids);
 
         double flankScore = 0;
         if(flankScores.hasData() && bindData.hasFlanks())
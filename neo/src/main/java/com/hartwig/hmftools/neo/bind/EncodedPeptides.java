@@ -0,0 +1,44 @@
+package com.hartwig.hmftools.neo.bind;
+
+import static com.hartwig.hmftools.neo.bind.BindConstants.encodeAminoAcids;
+
+import java.util.List;
+
+import com.hartwig.hmftools.neo.PeptideData;
+
+// peptides of one length encoded for scoring against each allele's matrix, with their allele-independent flank scores
+public class EncodedPeptides
+{
+    public final List<PeptideData> Peptides;
+    public final byte[][] AminoAcids;
+    public final double[] FlankScores; // null if there are no flank scores
+
+    public EncodedPeptides(final List<PeptideData> peptides, final FlankScores flankScores)
+    {
+        Peptides = peptides;
+        AminoAcids = new byte[peptides.size()][];
+        FlankScores = flankScores.hasData() ? new double[peptides.size()] : null;
+
+        for(int i = 0; i < peptides.size(); ++i)
+        {
+            PeptideData peptideData = peptides.get(i);
+            AminoAcids[i] = encodeAminoAcids(peptideData.Peptide);
+
+            if(FlankScores != null)
+                FlankScores[i] = flankScores.calcScore(peptideData.UpFlank, peptideData.DownFlank);
+        }
+    }
+
+    public int size() { return Peptides.size(); }
+
+    // matches BindScorer.calcScore for the peptide
+    public double calcScore(final BindScoreMatrix matrix, int index)
+    {
+        double score = matrix.calcScore(AminoAcids[index]);
+
+        if(FlankScores != null)
+            score += FlankScores[index];
+
+        return score;
+    }
+}
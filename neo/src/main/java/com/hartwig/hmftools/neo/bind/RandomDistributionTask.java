@@ -8,6 +8,7 @@ import static com.hartwig.hmftools.neo.bind.BindConstants.PAN_PEPTIDE_LENGTH;
 import static com.hartwig.hmftools.neo.bind.BindConstants.PAN_PEPTIDE_MAX_LENGTH;
 import static com.hartwig.hmftools.neo.bind.RandomPeptideDistribution.getScoreRank;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
@@ -15,16 +16,14 @@ import java.util.concurrent.Callable;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.hartwig.hmftools.common.utils.Doubles;
-import com.hartwig.hmftools.common.utils.VectorUtils;
 import com.hartwig.hmftools.neo.PeptideData;
 
 public class RandomDistributionTask implements Callable
 {
     private final String mAllele;
 
-    private final Map<Integer,List<PeptideData>> mRandomPeptideMap; // by length and with flanking data
-    private final Map<String,Map<Integer,List<ScoreDistributionData>>> mAlleleScoreDistributions;
-    private final FlankScores mFlankScores;
+    private final Map<Integer,EncodedPeptides> mRandomPeptideMap; // by length and with flank scores
+    private final Map<String,Map<Integer,ScoreDistribution>> mAlleleScoreRanks;
     private final Map<Integer,BindScoreMatrix> mPeptideLengthMatrixMap;
 
     private final int mTaskType;
@@ -47,34 +46,30 @@ public class RandomDistributionTask implements Callable
     // instantiate one of 2 tasks
     public RandomDistributionTask(
             final String allele, final Map<Integer,BindScoreMatrix> peptideLengthMatrixMap,
-            final Map<Integer,List<PeptideData>> randomPeptideMap, final FlankScores flankScores)
+            final Map<Integer,EncodedPeptides> randomPeptideMap)
     {
-        this(TASK_TYPE_SCORE_RANK, allele, peptideLengthMatrixMap, randomPeptideMap, flankScores,
-                null, null, null);
+        this(TASK_TYPE_SCORE_RANK, allele, peptideLengthMatrixMap, randomPeptideMap, null, null, null);
     }
 
     public RandomDistributionTask(
             final String allele, final Map<Integer,BindScoreMatrix> peptideLengthMatrixMap,
-            final Map<Integer,List<PeptideData>> randomPeptideMap, final FlankScores flankScores,
-            final Map<String,Map<Integer,List<ScoreDistributionData>>> alleleScoreDistributions,
+            final Map<Integer,EncodedPeptides> randomPeptideMap, final Map<String,Map<Integer,ScoreDistribution>> alleleScoreRanks,
             final BindingLikelihood bindingLikelihood, final ExpressionLikelihood expressionLikelihood)
     {
-        this(TASK_TYPE_LIKELIHOOD_RANK, allele, peptideLengthMatrixMap, randomPeptideMap, flankScores,
-                alleleScoreDistributions, bindingLikelihood, expressionLikelihood);
+        this(TASK_TYPE_LIKELIHOOD_RANK, allele, peptideLengthMatrixMap, randomPeptideMap,
+                alleleScoreRanks, bindingLikelihood, expressionLikelihood);
     }
 
     private RandomDistributionTask(
             final int taskType, final String allele, final Map<Integer,BindScoreMatrix> peptideLengthMatrixMap,
-            final Map<Integer,List<PeptideData>> randomPeptideMap, final FlankScores flankScores,
-            final Map<String,Map<Integer,List<ScoreDistributionData>>> alleleScoreDistributions,
+            final Map<Integer,EncodedPeptides> randomPeptideMap, final Map<String,Map<Integer,ScoreDistribution>> alleleScoreRanks,
             final BindingLikelihood bindingLikelihood, final ExpressionLikelihood expressionLikelihood)
     {
         mTaskType = taskType;
         mAllele = allele;
         mPeptideLengthMatrixMap = peptideLengthMatrixMap;
         mRandomPeptideMap = randomPeptideMap;
-        mFlankScores = flankScores;
-        mAlleleScoreDistributions = alleleScoreDistributions;
+        mAlleleScoreRanks = alleleScoreRanks;
         mBindingLikelihood = bindingLikelihood;
         mExpressionLikelihood = expressionLikelihood;
 
@@ -120,33 +115,23 @@ public class RandomDistributionTask implements Callable
 
         for(BindScoreMatrix matrix : mPeptideLengthMatrixMap.values())
         {
-            List<PeptideData> randomPeptides = mRandomPeptideMap.get(matrix.PeptideLength);
+            EncodedPeptides randomPeptides = mRandomPeptideMap.get(matrix.PeptideLength);
 
-            if(randomPeptides == null || randomPeptides.isEmpty())
+            if(randomPeptides == null || randomPeptides.size() == 0)
             {
                 NE_LOGGER.error("missing random peptide data for length({})", matrix.PeptideLength);
                 return;
             }
 
-            List<Double> peptideScores = Lists.newArrayListWithExpectedSize(randomPeptides.size());
+            double[] peptideScores = new double[randomPeptides.size()];
 
-            int count = 0;
-
-            for(PeptideData peptideData : randomPeptides)
+            for(int i = 0; i < peptideScores.length; ++i)
             {
-                double score = BindScorer.calcScore(matrix, mFlankScores, peptideData.Peptide, peptideData.UpFlank, peptideData.DownFlank);
-
-                VectorUtils.optimisedAdd(peptideScores, score, false);
-
-                ++count;
-
-                if(count > 0 && (count % 500000) == 0)
-                {
-                    NE_LOGGER.debug("added {} sorted random peptide scores", count);
-                }
+                peptideScores[i] = randomPeptides.calcScore(matrix, i);
             }
 
-            List<ScoreDistributionData> scoresDistributions = generateDistribution(matrix.Allele, matrix.PeptideLength, peptideScores);
+            List<ScoreDistributionData> scoresDistributions = generateDistribution(
+                    matrix.Allele, matrix.PeptideLength, sortDescending(peptideScores, peptideScores.length));
             mPeptideLengthDistributions.put(matrix.PeptideLength, scoresDistributions);
         }
     }
@@ -158,7 +143,8 @@ public class RandomDistributionTask implements Callable
 
         NE_LOGGER.debug("building likelihood distribution for allele({})", mAllele);
 
-        List<Double> likelihoodScores = Lists.newArrayList();
+        double[] likelihoodScores = new double[mRandomPeptideMap.values().stream().mapToInt(x -> x.size()).sum()];
+        int likelihoodCount = 0;
 
         for(BindScoreMatrix matrix : mPeptideLengthMatrixMap.values())
         {
@@ -166,17 +152,16 @@ public class RandomDistributionTask implements Callable
             if(matrix.PeptideLength > PAN_PEPTIDE_MAX_LENGTH)
                 continue;
 
-            int count = 0;
-
-            List<PeptideData> randomPeptides = mRandomPeptideMap.get(matrix.PeptideLength);
+            EncodedPeptides randomPeptides = mRandomPeptideMap.get(matrix.PeptideLength);
 
-            if(randomPeptides == null || randomPeptides.isEmpty())
+            if(randomPeptides == null || randomPeptides.size() == 0)
                 return;
 
-            for(PeptideData peptideData : randomPeptides)
+            for(int i = 0; i < randomPeptides.size(); ++i)
             {
-                double score = BindScorer.calcScore(matrix, mFlankScores, peptideData.Peptide, peptideData.UpFlank, peptideData.DownFlank);
-                double rank = getScoreRank(mAlleleScoreDistributions, mAllele, matrix.PeptideLength, score);
+                PeptideData peptideData = randomPeptides.Peptides.get(i);
+                double score = randomPeptides.calcScore(matrix, i);
+                double rank = getScoreRank(mAlleleScoreRanks, mAllele, matrix.PeptideLength, score);
                 double likelihood = mBindingLikelihood.getBindingLikelihood(mAllele, peptideData.Peptide, rank);
 
                 if(likelihood > 0 && mExpressionLikelihood != null && mExpressionLikelihood.hasData())
@@ -185,18 +170,28 @@ public class RandomDistributionTask implements Callable
                     likelihood *= expLikelihood;
                 }
 
-                VectorUtils.optimisedAdd(likelihoodScores, likelihood, false);
+                likelihoodScores[likelihoodCount++] = likelihood;
+            }
+        }
 
-                ++count;
+        mLikelihoodDistributions.addAll(generateDistribution(
+                mAllele, PAN_PEPTIDE_LENGTH, sortDescending(likelihoodScores, likelihoodCount)));
+    }
 
-                if(count > 0 && (count % 500000) == 0)
-                {
-                    NE_LOGGER.debug("added {} sorted random peptide likelihood scores", count);
-                }
-            }
+    // sorts the scores from highest to lowest, as the distribution is generated from the best score down
+    private static List<Double> sortDescending(final double[] scores, int count)
+    {
+        double[] sortedScores = Arrays.copyOf(scores, count);
+        Arrays.sort(sortedScores);
+
+        List<Double> scoreList = Lists.newArrayListWithExpectedSize(count);
+
+        for(int i = count - 1; i >= 0; --i)
+        {
+            scoreList.add(sortedScores[i]);
         }
 
-        mLikelihoodDistributions.addAll(generateDistribution(mAllele, PAN_PEPTIDE_LENGTH, likelihoodScores));
+        return scoreList;
     }
 
     private List<ScoreDistributionData> generateDistribution(final String allele, final int peptideLength, final List<Double> peptideScores)
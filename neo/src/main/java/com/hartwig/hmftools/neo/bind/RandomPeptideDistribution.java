@@ -28,7 +28,6 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.hartwig.hmftools.common.utils.TaskExecutor;
-import com.hartwig.hmftools.common.utils.Doubles;
 import com.hartwig.hmftools.neo.PeptideData;
 
 public class RandomPeptideDistribution
@@ -47,6 +46,11 @@ public class RandomPeptideDistribution
     // allele to distribution of expression likelihoods
     private final Map<String,List<ScoreDistributionData>> mAlleleExpressionLikelihoodDistributions;
 
+    // the same distributions prepared for rank lookups
+    private final Map<String,Map<Integer,ScoreDistribution>> mAlleleScoreRanks;
+    private final Map<String,ScoreDistribution> mAlleleLikelihoodRanks;
+    private final Map<String,ScoreDistribution> mAlleleExpressionLikelihoodRanks;
+
     public RandomPeptideDistribution(final RandomPeptideConfig config)
     {
         mConfig = config;
@@ -54,6 +58,9 @@ public class RandomPeptideDistribution
         mAlleleScoreDistributions = Maps.newHashMap();
         mAlleleLikelihoodDistributions = Maps.newHashMap();
         mAlleleExpressionLikelihoodDistributions = Maps.newHashMap();
+        mAlleleScoreRanks = Maps.newHashMap();
+        mAlleleLikelihoodRanks = Maps.newHashMap();
+        mAlleleExpressionLikelihoodRanks = Maps.newHashMap();
         mRandomPeptideMap = Maps.newHashMap();
         mDataLoaded = false;
     }
@@ -63,6 +70,11 @@ public class RandomPeptideDistribution
         mDataLoaded = loadDistribution()
                 && loadLikelihoodDistribution(mConfig.LikelihoodDistributionFile, mAlleleLikelihoodDistributions, true)
                 && loadLikelihoodDistribution(mConfig.ExpressionLikelihoodDistributionFile, mAlleleExpressionLikelihoodDistributions, false);
+
+        buildScoreRanks();
+        buildLikelihoodRanks(mAlleleLikelihoodDistributions, mAlleleLikelihoodRanks);
+        buildLikelihoodRanks(mAlleleExpressionLikelihoodDistributions, mAlleleExpressionLikelihoodRanks);
+
         return mDataLoaded;
     }
 
@@ -72,91 +84,69 @@ public class RandomPeptideDistribution
 
     public double getScoreRank(final String allele, final int peptideLength, double score)
     {
-        return getScoreRank(mAlleleScoreDistributions, allele, peptideLength, score);
+        return getScoreRank(mAlleleScoreRanks, allele, peptideLength, score);
     }
 
     public static double getScoreRank(
-            final Map<String,Map<Integer,List<ScoreDistributionData>>> scoresMap, final String allele, final int peptideLength, double score)
+            final Map<String,Map<Integer,ScoreDistribution>> scoreRanks, final String allele, final int peptideLength, double score)
     {
-        Map<Integer,List<ScoreDistributionData>> peptideLengthMap = scoresMap.get(allele);
+        Map<Integer,ScoreDistribution> peptideLengthMap = scoreRanks.get(allele);
 
         if(peptideLengthMap == null)
             return INVALID_SCORE;
 
-        List<ScoreDistributionData> scores = peptideLengthMap.get(peptideLength);
+        ScoreDistribution scoreDistribution = peptideLengthMap.get(peptideLength);
 
-        if(scores == null || scores.size() < 2)
+        if(scoreDistribution == null)
             return INVALID_SCORE;
 
-        return getRank(scores, score);
+        return scoreDistribution.getRank(score);
     }
 
     public double getLikelihoodRank(final String allele, double likelihood)
     {
-        List<ScoreDistributionData> likelihoodDist = mAlleleLikelihoodDistributions.get(allele);
-
-        if(likelihoodDist == null || likelihoodDist.size() < 2)
-            return INVALID_SCORE;
-
-        return getRank(likelihoodDist, likelihood);
+        ScoreDistribution likelihoodDist = mAlleleLikelihoodRanks.get(allele);
+        return likelihoodDist != null ? likelihoodDist.getRank(likelihood) : INVALID_SCORE;
     }
 
     public double getExpressionLikelihoodRank(final String allele, double likelihood)
     {
-        List<ScoreDistributionData> likelihoodDist = mAlleleExpressionLikelihoodDistributions.get(allele);
-
-        if(likelihoodDist == null || likelihoodDist.size() < 2)
-            return INVALID_SCORE;
-
-        return getRank(likelihoodDist, likelihood);
+        ScoreDistribution likelihoodDist = mAlleleExpressionLikelihoodRanks.get(allele);
+        return likelihoodDist != null ? likelihoodDist.getRank(likelihood) : INVALID_SCORE;
     }
 
-    private static double getRank(final List<ScoreDistributionData> distribution, double score)
+    private void buildScoreRanks()
     {
-        boolean isAscending = distribution.get(0).Score < distribution.get(1).Score;
+        mAlleleScoreRanks.clear();
 
-        if((isAscending && score < distribution.get(0).Score) || (!isAscending && score > distribution.get(0).Score))
-            return 0; // zero-th percentile if the score is better than any in the random distribution
-
-        int distSize = distribution.size();
-        if((isAscending && score > distribution.get(distSize - 1).Score) || (!isAscending && score < distribution.get(distSize - 1).Score))
-            return 1; // return the 100th percentile if outside the distribution
-
-        for(int i = 0; i < distribution.size(); ++i)
+        for(Map.Entry<String,Map<Integer,List<ScoreDistributionData>>> alleleEntry : mAlleleScoreDistributions.entrySet())
         {
-            ScoreDistributionData scoreData = distribution.get(i);
-
-            if(Doubles.equal(score, scoreData.Score))
-                return scoreData.ScoreBucket;
-
-            ScoreDistributionData nextScoreData = i < distribution.size() - 1 ? distribution.get(i + 1) : null;
-
-            if(nextScoreData != null && Doubles.equal(score, nextScoreData.Score))
-                return nextScoreData.ScoreBucket;
+            Map<Integer,ScoreDistribution> peptideLengthMap = Maps.newHashMap();
 
-            if((isAscending && score > scoreData.Score) || (!isAscending && score < scoreData.Score))
+            for(Map.Entry<Integer,List<ScoreDistributionData>> pepLenEntry : alleleEntry.getValue().entrySet())
             {
-                if(nextScoreData == null)
-                    break;
+                ScoreDistribution scoreDistribution = ScoreDistribution.from(pepLenEntry.getValue());
 
-                if((isAscending && score < nextScoreData.Score) || (!isAscending && score > nextScoreData.Score))
-                {
-                    // interpolate between the distribution to set the rank
-                    if(isAscending)
-                    {
-                        double upperPerc = (score - scoreData.Score) / (nextScoreData.Score - scoreData.Score);
-                        return upperPerc * nextScoreData.ScoreBucket + (1 - upperPerc) * scoreData.ScoreBucket;
-                    }
-                    else
-                    {
-                        double upperPerc = (score - nextScoreData.Score) / (scoreData.Score - nextScoreData.Score);
-                        return upperPerc * scoreData.ScoreBucket + (1 - upperPerc) * nextScoreData.ScoreBucket;
-                    }
-                }
+                if(scoreDistribution != null)
+                    peptideLengthMap.put(pepLenEntry.getKey(), scoreDistribution);
             }
+
+            mAlleleScoreRanks.put(alleleEntry.getKey(), peptideLengthMap);
         }
+    }
 
-        return 1;
+    private static void buildLikelihoodRanks(
+            final Map<String,List<ScoreDistributionData>> alleleDistributions, final Map<String,ScoreDistribution> alleleRanks)
+    {
+        alleleRanks.clear();
+
+        for(Map.Entry<String,List<ScoreDistributionData>> alleleEntry : alleleDistributions.entrySet())
+        {
+            ScoreDistribution scoreDistribution = ScoreDistribution.from(alleleEntry.getValue());
+
+            if(scoreDistribution != null)
+                alleleRanks.put(alleleEntry.getKey(), scoreDistribution);
+        }
     }
 
     public void buildDistribution(final Map<String,Map<Integer,BindScoreMatrix>> alleleBindMatrixMap, final FlankScores flankScores)
@@ -174,6 +164,9 @@ public class RandomPeptideDistribution
 
         mAlleleScoreDistributions.clear();
 
+        // encode and flank-score the random peptides once for all alleles
+        Map<Integer,EncodedPeptides> encodedPeptides = encodePeptides(flankScores);
+
         List<RandomDistributionTask> alleleTasks = Lists.newArrayList();
 
         for(Map.Entry<String,Map<Integer,BindScoreMatrix>> alleleEntry : alleleBindMatrixMap.entrySet())
@@ -187,7 +180,7 @@ public class RandomPeptideDistribution
 
             final Map<Integer, BindScoreMatrix> peptideLengthMatrixMap = alleleEntry.getValue();
 
-            alleleTasks.add(new RandomDistributionTask(allele, peptideLengthMatrixMap, mRandomPeptideMap, flankScores));
+            alleleTasks.add(new RandomDistributionTask(allele, peptideLengthMatrixMap, encodedPeptides));
         }
 
         NE_LOGGER.info("building distribution for {} allele(s)", alleleTasks.size());
@@ -203,6 +196,7 @@ public class RandomPeptideDistribution
         }
 
         alleleTasks.forEach(x -> mAlleleScoreDistributions.put(x.allele(), x.getPeptideLengthScoreDistributions()));
+        buildScoreRanks();
 
         if(mConfig.WriteRandomDistribution)
             writeDistribution();
@@ -217,6 +211,8 @@ public class RandomPeptideDistribution
 
         mAlleleLikelihoodDistributions.clear();
 
+        Map<Integer,EncodedPeptides> encodedPeptides = encodePeptides(flankScores);
+
         List<RandomDistributionTask> alleleTasks = Lists.newArrayList();
 
         for(Map.Entry<String,Map<Integer,BindScoreMatrix>> alleleEntry : alleleBindMatrixMap.entrySet())
@@ -229,8 +225,7 @@ public class RandomPeptideDistribution
             final Map<Integer, BindScoreMatrix> peptideLengthMatrixMap = alleleEntry.getValue();
 
             alleleTasks.add(new RandomDistributionTask(
-                    allele, peptideLengthMatrixMap, mRandomPeptideMap, flankScores, mAlleleScoreDistributions,
-                    bindingLikelihood, expressionLikelihood));
+                    allele, peptideLengthMatrixMap, encodedPeptides, mAlleleScoreRanks, bindingLikelihood, expressionLikelihood));
         }
 
         NE_LOGGER.info("building likelihood distribution for {} allele(s)", alleleTasks.size());
@@ -246,11 +241,24 @@ public class RandomPeptideDistribution
         }
 
         alleleTasks.forEach(x -> mAlleleLikelihoodDistributions.put(x.allele(), x.getLikelihoodDistributions()));
+        buildLikelihoodRanks(mAlleleLikelihoodDistributions, mAlleleLikelihoodRanks);
 
         if(mConfig.WriteRandomDistribution)
             writeLikelihoodDistribution();
     }
 
+    private Map<Integer,EncodedPeptides> encodePeptides(final FlankScores flankScores)
+    {
+        Map<Integer,EncodedPeptides> encodedPeptides = Maps.newHashMap();
+
+        for(Map.Entry<Integer,List<PeptideData>> entry : mRandomPeptideMap.entrySet())
+        {
+            encodedPeptides.put(entry.getKey(), new EncodedPeptides(entry.getValue(), flankScores));
+        }
+
+        return encodedPeptides;
+    }
+
     public static BufferedWriter initialiseWriter(final String filename)
     {
         try
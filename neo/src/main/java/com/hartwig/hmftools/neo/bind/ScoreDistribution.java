@@ -0,0 +1,88 @@
+package com.hartwig.hmftools.neo.bind;
+
+import java.util.List;
+
+import com.hartwig.hmftools.common.utils.Doubles;
+
+// a score or likelihood distribution as primitive arrays, ranking a score by binary search
+public class ScoreDistribution
+{
+    private final double[] mScores;
+    private final double[] mBuckets;
+    private final boolean mIsAscending;
+
+    public ScoreDistribution(final List<ScoreDistributionData> distribution)
+    {
+        mScores = new double[distribution.size()];
+        mBuckets = new double[distribution.size()];
+
+        for(int i = 0; i < distribution.size(); ++i)
+        {
+            mScores[i] = distribution.get(i).Score;
+            mBuckets[i] = distribution.get(i).ScoreBucket;
+        }
+
+        mIsAscending = mScores[0] < mScores[1];
+    }
+
+    // returns null if the distribution is too small to rank against
+    public static ScoreDistribution from(final List<ScoreDistributionData> distribution)
+    {
+        return distribution != null && distribution.size() >= 2 ? new ScoreDistribution(distribution) : null;
+    }
+
+    public double getRank(double score)
+    {
+        int distSize = mScores.length;
+
+        if((mIsAscending && score < mScores[0]) || (!mIsAscending && score > mScores[0]))
+            return 0; // zero-th percentile if the score is better than any in the random distribution
+
+        if((mIsAscending && score > mScores[distSize - 1]) || (!mIsAscending && score < mScores[distSize - 1]))
+            return 1; // return the 100th percentile if outside the distribution
+
+        // find the first entry which is not before the score, allowing for the equality tolerance
+        int low = 0;
+        int high = distSize;
+
+        while(low < high)
+        {
+            int mid = (low + high) >>> 1;
+
+            if(isBefore(mScores[mid], score))
+                low = mid + 1;
+            else
+                high = mid;
+        }
+
+        if(low < distSize && Doubles.equal(score, mScores[low]))
+            return mBuckets[low];
+
+        if(low == 0 || low == distSize)
+            return 1;
+
+        // interpolate between the distribution to set the rank
+        double score1 = mScores[low - 1];
+        double score2 = mScores[low];
+
+        if(mIsAscending)
+        {
+            double upperPerc = (score - score1) / (score2 - score1);
+            return upperPerc * mBuckets[low] + (1 - upperPerc) * mBuckets[low - 1];
+        }
+        else
+        {
+            double upperPerc = (score - score2) / (score1 - score2);
+            return upperPerc * mBuckets[low - 1] + (1 - upperPerc) * mBuckets[low];
+        }
+    }
+
+    // whether a distribution score precedes the score and is not equal to it
+    private boolean isBefore(double distScore, double score)
+    {
+        if(Doubles.equal(distScore, score))
+            return false;
+
+        return mIsAscending ? distScore < score : distScore > score;
+    }
+}
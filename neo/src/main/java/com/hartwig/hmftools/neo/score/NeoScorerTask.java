@@ -22,7 +22,6 @@ import com.google.common.collect.Maps;
 import com.hartwig.hmftools.common.isofox.TranscriptExpressionLoader;
 import com.hartwig.hmftools.common.neo.RnaNeoEpitope;
 import com.hartwig.hmftools.common.purple.PurityContext;
-import com.hartwig.hmftools.neo.bind.BindData;
 
 public class NeoScorerTask implements Callable
 {
@@ -193,11 +192,8 @@ public class NeoScorerTask implements Callable
                 {
                     uniqueAlleles.forEach(x -> peptideScoreData.addAllele(x));
 
-                    for(BindData bindData : peptideScoreData.alleleScoreData())
-                    {
-                        mReferenceData.PeptideScorer.calcScoreData(bindData);
-                        ++scoreCount;
-                    }
+                    mReferenceData.PeptideScorer.calcScoreData(peptideScoreData.alleleScoreData());
+                    scoreCount += peptideScoreData.alleleScoreData().size();
                 }
 
                 ++i;
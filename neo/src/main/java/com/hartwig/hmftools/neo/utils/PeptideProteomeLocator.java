@@ -50,6 +50,7 @@ public class PeptideProteomeLocator
     private final boolean mFindRepeats;
 
     private final Map<String,TranscriptAminoAcids> mTransAminoAcidMap;
+    private final ProteomePeptideIndex mProteomeIndex;
     private final TranscriptExpression mTranscriptExpression;
 
     private final List<String> mPeptides;
@@ -59,6 +60,7 @@ public class PeptideProteomeLocator
     private static final String FLANK_LENGTH = "flank_length";
     private static final String PEPTIDE_FILE = "peptide_file";
     private static final String FIND_REPEATS = "find_repeats";
+    public static final String PROTEOME_INDEX_FILE = "proteome_index_file";
 
     public PeptideProteomeLocator(final ConfigBuilder configBuilder)
     {
@@ -67,6 +69,9 @@ public class PeptideProteomeLocator
         mTransAminoAcidMap = Maps.newHashMap();
         EnsemblDataLoader.loadTranscriptAminoAcidData(configBuilder.getValue(ENSEMBL_DATA_DIR), mTransAminoAcidMap, Lists.newArrayList(), false);
 
+        mProteomeIndex = ProteomePeptideIndex.loadOrBuild(
+                Lists.newArrayList(mTransAminoAcidMap.values()), configBuilder.getValue(PROTEOME_INDEX_FILE));
+
         mTranscriptExpression = new TranscriptExpression(configBuilder.getValue(IMMUNE_EXPRESSION_FILE));
 
         mFlankLength = Integer.parseInt(configBuilder.getValue(FLANK_LENGTH));
@@ -100,7 +105,7 @@ public class PeptideProteomeLocator
                 taskPeptideLists.add(peptideList);
 
                 searchTasks.add(new PeptideSearchTask(
-                        i, mTransAminoAcidMap, mTranscriptExpression, peptideList, mFindRepeats, mFlankLength, mWriter));
+                        i, mProteomeIndex, mTranscriptExpression, peptideList, mFindRepeats, mFlankLength, mWriter));
             }
 
             int taskIndex = 0;
@@ -119,7 +124,7 @@ public class PeptideProteomeLocator
         else
         {
             PeptideSearchTask searchTask = new PeptideSearchTask(
-                    0, mTransAminoAcidMap, mTranscriptExpression, mPeptides, mFindRepeats, mFlankLength, mWriter);
+                    0, mProteomeIndex, mTranscriptExpression, mPeptides, mFindRepeats, mFlankLength, mWriter);
 
             searchTasks.add(searchTask);
             searchTask.run();
@@ -177,7 +182,7 @@ public class PeptideProteomeLocator
     private class PeptideSearchTask implements Callable
     {
         private final int mTaskId;
-        private final Map<String,TranscriptAminoAcids> mTransAminoAcidMap;
+        private final ProteomePeptideIndex mProteomeIndex;
         private final TranscriptExpression mTranscriptExpression;
         private final List<String> mPeptides;
         private final int mFlankLength;
@@ -186,12 +191,12 @@ public class PeptideProteomeLocator
         private int mFound;
 
         public PeptideSearchTask(
-                int taskId, final Map<String,TranscriptAminoAcids> transAminoAcidMap, final TranscriptExpression transcriptExpression,
+                int taskId, final ProteomePeptideIndex proteomeIndex, final TranscriptExpression transcriptExpression,
                 final List<String> peptides, boolean findRepeats, final int flankLength, final BufferedWriter writer)
         {
             mTaskId = taskId;
             mFlankLength = flankLength;
-            mTransAminoAcidMap = transAminoAcidMap;
+            mProteomeIndex = proteomeIndex;
             mTranscriptExpression = transcriptExpression;
             mPeptides = peptides;
             mFindRepeats = findRepeats;
@@ -237,11 +242,11 @@ public class PeptideProteomeLocator
             Set<String> geneNames = Sets.newHashSet();
             List<String> transNames = Lists.newArrayList();
 
-            for(TranscriptAminoAcids transAminoAcids : mTransAminoAcidMap.values())
+            // matches are in the order of the transcript map, as a scan of its transcripts would find them
+            for(ProteomePeptideIndex.PeptideMatch match : mProteomeIndex.findTranscriptMatches(peptide))
             {
-                int aaIndex = transAminoAcids.AminoAcids.indexOf(peptide);
-                if(aaIndex < 0)
-                    continue;
+                TranscriptAminoAcids transAminoAcids = match.Transcript;
+                int aaIndex = match.AminoAcidIndex;
 
                 ++matches;
 
@@ -310,6 +315,7 @@ public class PeptideProteomeLocator
         configBuilder.addPath(PEPTIDE_FILE, true, "Peptides to search for");
         configBuilder.addInteger(FLANK_LENGTH, "Number of amino acid flanks to retrieve", 0);
         configBuilder.addFlag(FIND_REPEATS, "Look for repeated matches");
+        configBuilder.addConfigItem(PROTEOME_INDEX_FILE, "Proteome index file, written if absent and reused if present");
         configBuilder.addPath(IMMUNE_EXPRESSION_FILE, true, IMMUNE_EXPRESSION_FILE_CFG);
         addEnsemblDir(configBuilder);
         addLoggingOptions(configBuilder);
@@ -17,11 +17,11 @@ import static com.hartwig.hmftools.common.utils.TaskExecutor.addThreadOptions;
 import static com.hartwig.hmftools.common.utils.TaskExecutor.parseThreads;
 import static com.hartwig.hmftools.neo.NeoCommon.APP_NAME;
 import static com.hartwig.hmftools.neo.NeoCommon.NE_LOGGER;
-import static com.hartwig.hmftools.neo.bind.BindCommon.AMINO_ACID_21ST;
 import static com.hartwig.hmftools.neo.bind.BindCommon.BIND_DELIM;
 import static com.hartwig.hmftools.neo.bind.BindCommon.FLD_ALLELE;
 import static com.hartwig.hmftools.neo.bind.BindCommon.FLD_PEPTIDE;
 import static com.hartwig.hmftools.neo.bind.BindCommon.cleanAllele;
+import static com.hartwig.hmftools.neo.utils.PeptideProteomeLocator.PROTEOME_INDEX_FILE;
 import static com.hartwig.hmftools.neo.utils.RankProteomePeptides.RANKED_PROTEOME_PEPTIDE_LENGTHS;
 import static com.hartwig.hmftools.neo.utils.RankedProteomePeptides.PROTEOME_RANKS_FILE;
 
@@ -31,13 +31,11 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Sets;
 import com.hartwig.hmftools.common.aminoacid.BlosumMapping;
 import com.hartwig.hmftools.common.ensemblcache.EnsemblDataLoader;
 import com.hartwig.hmftools.common.gene.TranscriptAminoAcids;
@@ -55,6 +53,7 @@ public class PeptideProteomeSimilarity
     private final List<PeptideSimilarity> mPeptideSimilarities;
 
     private final Map<String,List<TranscriptAminoAcids>> mTransAminoAcidMap;
+    private final ProteomePeptideIndex mProteomeIndex;
     private final RankedProteomePeptides mRankedProteomePeptides;
     private final BindScorer mScorer;
 
@@ -74,10 +73,16 @@ public class PeptideProteomeSimilarity
             Map<String, TranscriptAminoAcids> transAminoAcidMap = Maps.newHashMap();
             EnsemblDataLoader.loadTranscriptAminoAcidData(configBuilder.getValue(ENSEMBL_DATA_DIR), transAminoAcidMap, Lists.newArrayList(), false);
             mTransAminoAcidMap = convertAminoAcidsToGeneMap(transAminoAcidMap);
+
+            // indexed in the order the gene map is iterated, so ties resolve as a scan of it would
+            List<TranscriptAminoAcids> transcripts = Lists.newArrayList();
+            mTransAminoAcidMap.values().forEach(transcripts::addAll);
+            mProteomeIndex = ProteomePeptideIndex.loadOrBuild(transcripts, configBuilder.getValue(PROTEOME_INDEX_FILE));
         }
         else
         {
             mTransAminoAcidMap = null;
+            mProteomeIndex = null;
         }
 
         if(configBuilder.hasValue(PROTEOME_RANKS_FILE))
@@ -126,7 +131,7 @@ public class PeptideProteomeSimilarity
 
             for(int i = 0; i < threads; ++i)
             {
-                searchTasks.add(new PeptideSearchTask(i, mTransAminoAcidMap, mRankedProteomePeptides));
+                searchTasks.add(new PeptideSearchTask(i, mProteomeIndex, mRankedProteomePeptides));
             }
 
             int taskIndex = 0;
@@ -144,7 +149,7 @@ public class PeptideProteomeSimilarity
         }
         else
         {
-            PeptideSearchTask searchTask = new PeptideSearchTask(0, mTransAminoAcidMap, mRankedProteomePeptides);
+            PeptideSearchTask searchTask = new PeptideSearchTask(0, mProteomeIndex, mRankedProteomePeptides);
             searchTask.getPeptides().addAll(mPeptideSimilarities);
             searchTasks.add(searchTask);
             searchTask.run();
@@ -289,7 +294,7 @@ public class PeptideProteomeSimilarity
     private class PeptideSearchTask implements Callable
     {
         private final int mTaskId;
-        private final Map<String,List<TranscriptAminoAcids>> mTransAminoAcidMap;
+        private final ProteomePeptideIndex mProteomeIndex;
         private final RankedProteomePeptides mRankedProteomePeptides;
 
         private final List<PeptideSimilarity> mPeptideSimilarities;
@@ -297,11 +302,10 @@ public class PeptideProteomeSimilarity
         private final BlosumMapping mBlosumMapping;
 
         public PeptideSearchTask(
-                int taskId, final Map<String,List<TranscriptAminoAcids>> transAminoAcidMap,
-                final RankedProteomePeptides rankedProteomePeptides)
+                int taskId, final ProteomePeptideIndex proteomeIndex, final RankedProteomePeptides rankedProteomePeptides)
         {
             mTaskId = taskId;
-            mTransAminoAcidMap = transAminoAcidMap;
+            mProteomeIndex = proteomeIndex;
             mRankedProteomePeptides = rankedProteomePeptides;
 
             mPeptideSimilarities = Lists.newArrayList();
@@ -416,81 +420,26 @@ public class PeptideProteomeSimilarity
 
         private void findTopSimilarity(final PeptideSimilarity peptideSim)
         {
-            if(mTransAminoAcidMap == null)
+            if(mProteomeIndex == null)
                 return;
 
-            // search the proteome for the nearest peptide
-            String topPeptide = "";
-            double topSimiliarity = 0;
-            TranscriptAminoAcids topTrans = null;
-
+            // search the proteome for the nearest peptide, taking an exact match in the first transcript which has one
             String peptide = peptideSim.Peptide;
 
-            int peptideLength = peptide.length();
+            int[] exactMatches = mProteomeIndex.findPeptide(peptide);
 
-            for(List<TranscriptAminoAcids> transAaList : mTransAminoAcidMap.values())
+            if(exactMatches.length > 0)
             {
-                Set<String> uniquePeptides = Sets.newHashSet();
-
-                for(TranscriptAminoAcids transAminoAcids : transAaList)
-                {
-                    final String aminoAcids = transAminoAcids.AminoAcids;
-
-                    if(aminoAcids.contains(peptide))
-                    {
-                        peptideSim.setTopSimilarity(peptide, 0, transAminoAcids);
-                        return;
-                    }
-
-                    int aaLength = aminoAcids.length();
-
-                    for(int startIndex = 0; startIndex < aaLength - peptideLength; ++startIndex)
-                    {
-                        String aaPeptide = aminoAcids.substring(startIndex, startIndex + peptideLength);
-
-                        if(uniquePeptides.contains(aaPeptide))
-                            continue;
-
-                        uniquePeptides.add(aaPeptide);
-
-                        if(aaPeptide.contains(AMINO_ACID_21ST))
-                            continue;
-
-                        double similarity = 0;
-                        boolean skip = false;
-
-                        for(int i = 0; i < peptide.length(); ++i)
-                        {
-                            char aa1 = peptide.charAt(i);
-                            char aa2 = aaPeptide.charAt(i);
-
-                            int bs1 = mBlosumMapping.selfMapping(aa1);
-                            int bs2 = mBlosumMapping.selfMapping(aa2);
-                            int map = mBlosumMapping.map(aa1, aa2);
-
-                            similarity += (bs1 + bs2) * 0.5 - map;
-
-                            if(topTrans != null && similarity >= topSimiliarity) // skip if cannot be better
-                            {
-                                skip = true;
-                                break;
-                            }
-                        }
-
-                        if(skip)
-                            continue;
-
-                        if(topTrans == null || similarity < topSimiliarity)
-                        {
-                            topPeptide = aaPeptide;
-                            topSimiliarity = similarity;
-                            topTrans = transAminoAcids;
-                        }
-                    }
-                }
+                peptideSim.setTopSimilarity(peptide, 0, mProteomeIndex.transcriptAt(exactMatches[0]));
+                return;
             }
 
-            peptideSim.setTopSimilarity(topPeptide, topSimiliarity, topTrans);
+            ProteomePeptideIndex.PeptideMatch nearestMatch = mProteomeIndex.findNearestPeptide(peptide, mBlosumMapping);
+
+            if(nearestMatch != null)
+                peptideSim.setTopSimilarity(nearestMatch.Peptide, nearestMatch.Similarity, nearestMatch.Transcript);
+            else
+                peptideSim.setTopSimilarity("", 0, null);
         }
     }
 
@@ -498,6 +447,7 @@ public class PeptideProteomeSimilarity
     {
         ConfigBuilder configBuilder = new ConfigBuilder(APP_NAME);
         addEnsemblDir(configBuilder);
+        configBuilder.addConfigItem(PROTEOME_INDEX_FILE, "Proteome index file, written if absent and reused if present");
         configBuilder.addPath(PEPTIDES_FILE, true, "Peptides file");
         configBuilder.addPath(PROTEOME_RANKS_FILE, true, "Proteome ranks file");
         ScoreConfig.registerConfig(configBuilder);
@@ -0,0 +1,633 @@
+package com.hartwig.hmftools.neo.utils;
+
+import static java.lang.Math.min;
+
+import static com.hartwig.hmftools.neo.NeoCommon.NE_LOGGER;
+import static com.hartwig.hmftools.neo.bind.BindCommon.AMINO_ACID_21ST;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.aminoacid.BlosumMapping;
+import com.hartwig.hmftools.common.gene.TranscriptAminoAcids;
+
+// a suffix array over the concatenated amino acids of a set of transcripts, sorted to a fixed depth, so that a peptide's
+// occurrences are found by binary search rather than by scanning every transcript
+// the transcripts are concatenated in the order given, so the lowest text offset is the first match in that order
+public class ProteomePeptideIndex
+{
+    private final List<TranscriptAminoAcids> mTranscripts;
+    private final int[] mTranscriptStarts; // text offset of each transcript's first amino acid
+    private final byte[] mText; // amino acids with a separator after each transcript, padded with separators to the sort depth
+    private final int mSortDepth;
+    private int[] mSuffixes; // text offsets ordered by their first amino acids up to the sort depth
+
+    public static final int DEFAULT_SORT_DEPTH = 16;
+
+    private static final byte SEPARATOR = 0;
+    private static final int INSERTION_SORT_SIZE = 16;
+    private static final int FILE_VERSION = 1;
+
+    public static class PeptideMatch
+    {
+        public final TranscriptAminoAcids Transcript;
+        public final int AminoAcidIndex;
+        public final String Peptide;
+        public final double Similarity;
+
+        public PeptideMatch(final TranscriptAminoAcids transcript, int aminoAcidIndex, final String peptide, double similarity)
+        {
+            Transcript = transcript;
+            AminoAcidIndex = aminoAcidIndex;
+            Peptide = peptide;
+            Similarity = similarity;
+        }
+    }
+
+    public ProteomePeptideIndex(final List<TranscriptAminoAcids> transcripts)
+    {
+        this(transcripts, DEFAULT_SORT_DEPTH);
+    }
+
+    public ProteomePeptideIndex(final List<TranscriptAminoAcids> transcripts, int sortDepth)
+    {
+        this(transcripts, sortDepth, true);
+    }
+
+    private ProteomePeptideIndex(final List<TranscriptAminoAcids> transcripts, int sortDepth, boolean buildSuffixes)
+    {
+        mTranscripts = transcripts;
+        mSortDepth = sortDepth;
+        mTranscriptStarts = new int[transcripts.size()];
+
+        long textLength = mSortDepth;
+
+        for(TranscriptAminoAcids transAminoAcids : transcripts)
+        {
+            textLength += transAminoAcids.AminoAcids.length() + 1;
+        }
+
+        if(textLength > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("proteome too large to index: " + textLength);
+
+        mText = new byte[(int)textLength];
+
+        int offset = 0;
+
+        for(int t = 0; t < transcripts.size(); ++t)
+        {
+            final String aminoAcids = transcripts.get(t).AminoAcids;
+            mTranscriptStarts[t] = offset;
+
+            for(int i = 0; i < aminoAcids.length(); ++i)
+            {
+                mText[offset++] = (byte)aminoAcids.charAt(i);
+            }
+
+            mText[offset++] = SEPARATOR;
+        }
+
+        mSuffixes = null;
+
+        if(buildSuffixes)
+            buildSuffixes();
+    }
+
+    public int sortDepth() { return mSortDepth; }
+    public int suffixCount() { return mSuffixes.length; }
+    public List<TranscriptAminoAcids> transcripts() { return mTranscripts; }
+
+    public TranscriptAminoAcids transcriptAt(int textOffset) { return mTranscripts.get(transcriptIndex(textOffset)); }
+
+    public int aminoAcidIndex(int textOffset) { return textOffset - mTranscriptStarts[transcriptIndex(textOffset)]; }
+
+    public int transcriptIndex(int textOffset)
+    {
+        int index = Arrays.binarySearch(mTranscriptStarts, textOffset);
+
+        if(index >= 0)
+        {
+            // skip any empty transcripts sharing this start
+            while(index + 1 < mTranscriptStarts.length && mTranscriptStarts[index + 1] == textOffset)
+            {
+                ++index;
+            }
+
+            return index;
+        }
+
+        return -index - 2;
+    }
+
+    // returns the text offsets of every occurrence of the peptide, in ascending order
+    public int[] findPeptide(final String peptide)
+    {
+        int length = peptide.length();
+
+        if(length == 0)
+            return new int[0];
+
+        byte[] peptideBytes = toBytes(peptide);
+        int prefixLength = min(length, mSortDepth);
+
+        int lower = lowerBound(peptideBytes, prefixLength);
+        int upper = upperBound(peptideBytes, prefixLength, lower);
+
+        int[] offsets = new int[upper - lower];
+        int count = 0;
+
+        for(int i = lower; i < upper; ++i)
+        {
+            int offset = mSuffixes[i];
+
+            // beyond the sort depth each candidate is checked directly
+            if(length > prefixLength && !matchesFrom(peptideBytes, offset, prefixLength))
+                continue;
+
+            offsets[count++] = offset;
+        }
+
+        offsets = count < offsets.length ? Arrays.copyOf(offsets, count) : offsets;
+        Arrays.sort(offsets);
+        return offsets;
+    }
+
+    // the first occurrence of the peptide in each transcript which contains it, in transcript order
+    public List<PeptideMatch> findTranscriptMatches(final String peptide)
+    {
+        List<PeptideMatch> matches = Lists.newArrayList();
+        int lastTranscriptIndex = -1;
+
+        for(int offset : findPeptide(peptide))
+        {
+            int transcriptIndex = transcriptIndex(offset);
+
+            if(transcriptIndex == lastTranscriptIndex)
+                continue;
+
+            lastTranscriptIndex = transcriptIndex;
+            matches.add(new PeptideMatch(
+                    mTranscripts.get(transcriptIndex), offset - mTranscriptStarts[transcriptIndex], peptide, 0));
+        }
+
+        return matches;
+    }
+
+    private static class NearestSearch
+    {
+        final int Length;
+        final double[][] Terms; // per peptide position, the similarity term for each amino acid, NaN if not permitted
+
+        boolean Found = false;
+        double BestSimilarity = 0;
+        int BestOffset = -1;
+
+        NearestSearch(int length, final double[][] terms)
+        {
+            Length = length;
+            Terms = terms;
+        }
+
+        void register(double similarity, int offset)
+        {
+            if(!Found || similarity < BestSimilarity || (similarity == BestSimilarity && offset < BestOffset))
+            {
+                Found = true;
+                BestSimilarity = similarity;
+                BestOffset = offset;
+            }
+        }
+    }
+
+    // finds the proteome peptide with the lowest BLOSUM-based distance, taking the first in transcript order on ties, and with
+    // the same candidate windows as a scan of each transcript: those without the 21st amino acid and excluding each
+    // transcript's last window
+    // all distance terms are non-negative, so the suffix array is walked as a trie and any prefix already worse than the best
+    // is abandoned, while identical prefixes are scored only once
+    public PeptideMatch findNearestPeptide(final String peptide, final BlosumMapping blosumMapping)
+    {
+        int length = peptide.length();
+
+        if(length == 0 || mSuffixes.length == 0)
+            return null;
+
+        double[][] terms = new double[length][256];
+        byte excludedAminoAcid = (byte)AMINO_ACID_21ST.charAt(0);
+
+        for(int i = 0; i < length; ++i)
+        {
+            char aa1 = peptide.charAt(i);
+            int bs1 = blosumMapping.selfMapping(aa1);
+
+            Arrays.fill(terms[i], Double.NaN);
+
+            for(int b = 1; b < 128; ++b)
+            {
+                char aa2 = (char)b;
+
+                if(b == excludedAminoAcid || BlosumMapping.aminoAcidIndex(aa2) == BlosumMapping.INVALID_AMINO_ACID)
+                    continue;
+
+                int bs2 = blosumMapping.selfMapping(aa2);
+                int map = blosumMapping.map(aa1, aa2);
+                terms[i][b] = (bs1 + bs2) * 0.5 - map;
+            }
+        }
+
+        NearestSearch search = new NearestSearch(length, terms);
+        searchNearest(search, 0, mSuffixes.length, 0, 0);
+
+        if(!search.Found)
+            return null;
+
+        int transcriptIndex = transcriptIndex(search.BestOffset);
+
+        return new PeptideMatch(
+                mTranscripts.get(transcriptIndex), search.BestOffset - mTranscriptStarts[transcriptIndex],
+                new String(mText, search.BestOffset, length), search.BestSimilarity);
+    }
+
+    private void searchNearest(final NearestSearch search, int lower, int upper, int depth, double similarity)
+    {
+        if(depth == search.Length)
+        {
+            // every suffix in range is the same peptide, so the earliest permitted window represents them all
+            int minOffset = -1;
+
+            for(int i = lower; i < upper; ++i)
+            {
+                int offset = mSuffixes[i];
+
+                if(mText[offset + depth] != SEPARATOR && (minOffset < 0 || offset < minOffset))
+                    minOffset = offset;
+            }
+
+            if(minOffset >= 0)
+                search.register(similarity, minOffset);
+
+            return;
+        }
+
+        if(depth >= mSortDepth)
+        {
+            // the range is not ordered beyond the sort depth, so score its suffixes individually
+            for(int i = lower; i < upper; ++i)
+            {
+                scoreSuffix(search, mSuffixes[i], depth, similarity);
+            }
+
+            return;
+        }
+
+        int index = lower;
+
+        while(index < upper)
+        {
+            int aminoAcid = byteAt(mSuffixes[index], depth);
+            int runEnd = upperBoundByte(index, upper, depth, aminoAcid);
+
+            double term = search.Terms[depth][aminoAcid];
+
+            if(!Double.isNaN(term))
+            {
+                double newSimilarity = similarity + term;
+
+                // ties are kept since an earlier transcript position wins them
+                if(!search.Found || newSimilarity <= search.BestSimilarity)
+                    searchNearest(search, index, runEnd, depth + 1, newSimilarity);
+            }
+
+            index = runEnd;
+        }
+    }
+
+    private void scoreSuffix(final NearestSearch search, int offset, int depth, double similarity)
+    {
+        for(int i = depth; i < search.Length; ++i)
+        {
+            double term = search.Terms[i][byteAt(offset, i)];
+
+            if(Double.isNaN(term))
+                return;
+
+            similarity += term;
+
+            if(search.Found && similarity > search.BestSimilarity)
+                return;
+        }
+
+        if(mText[offset + search.Length] != SEPARATOR)
+            search.register(similarity, offset);
+    }
+
+    // persistence of the sorted suffixes, which are only reused if the transcripts' amino acids are unchanged
+    public void write(final String filename) throws IOException
+    {
+        try(DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename), 1 << 20)))
+        {
+            output.writeInt(FILE_VERSION);
+            output.writeInt(mSortDepth);
+            output.writeInt(mText.length);
+            output.writeLong(textChecksum());
+            output.writeInt(mSuffixes.length);
+
+            for(int offset : mSuffixes)
+            {
+                output.writeInt(offset);
+            }
+        }
+    }
+
+    private boolean read(final String filename) throws IOException
+    {
+        try(DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(filename), 1 << 20)))
+        {
+            if(input.readInt() != FILE_VERSION || input.readInt() != mSortDepth || input.readInt() != mText.length)
+                return false;
+
+            if(input.readLong() != textChecksum())
+                return false;
+
+            int suffixCount = input.readInt();
+            int[] suffixes = new int[suffixCount];
+
+            for(int i = 0; i < suffixCount; ++i)
+            {
+                suffixes[i] = input.readInt();
+            }
+
+            mSuffixes = suffixes;
+            return true;
+        }
+    }
+
+    // builds the index, using a previously written one if it matches these transcripts, and otherwise writing it if a file is given
+    public static ProteomePeptideIndex loadOrBuild(final List<TranscriptAminoAcids> transcripts, final String indexFile)
+    {
+        long startTime = System.currentTimeMillis();
+        ProteomePeptideIndex index = new ProteomePeptideIndex(transcripts, DEFAULT_SORT_DEPTH, false);
+
+        boolean loaded = false;
+
+        if(indexFile != null && Files.exists(Paths.get(indexFile)))
+        {
+            try
+            {
+                loaded = index.read(indexFile);
+
+                if(!loaded)
+                    NE_LOGGER.warn("proteome index file({}) does not match transcripts, rebuilding", indexFile);
+            }
+            catch(IOException e)
+            {
+                NE_LOGGER.warn("failed to read proteome index file({}): {}", indexFile, e.toString());
+            }
+        }
+
+        if(!loaded)
+        {
+            index.buildSuffixes();
+
+            if(indexFile != null)
+            {
+                try
+                {
+                    index.write(indexFile);
+                    NE_LOGGER.info("wrote proteome index file({})", indexFile);
+                }
+                catch(IOException e)
+                {
+                    NE_LOGGER.error("failed to write proteome index file({}): {}", indexFile, e.toString());
+                }
+            }
+        }
+
+        NE_LOGGER.info("proteome index with {} transcripts and {} suffixes {} in {}ms",
+                transcripts.size(), index.suffixCount(), loaded ? "loaded" : "built", System.currentTimeMillis() - startTime);
+
+        return index;
+    }
+
+    private long textChecksum()
+    {
+        CRC32 crc = new CRC32();
+        crc.update(mText, 0, mText.length);
+        return crc.getValue();
+    }
+
+    private void buildSuffixes()
+    {
+        // every amino acid starts a suffix
+        mSuffixes = new int[mText.length - mSortDepth - mTranscripts.size()];
+        int index = 0;
+
+        for(int offset = 0; offset < mText.length - mSortDepth; ++offset)
+        {
+            if(mText[offset] != SEPARATOR)
+                mSuffixes[index++] = offset;
+        }
+
+        sortSuffixes(0, mSuffixes.length, 0);
+    }
+
+    private int byteAt(int offset, int depth) { return mText[offset + depth] & 0xFF; }
+
+    // multikey quicksort, partitioning on one amino acid at a time so shared prefixes are not re-compared
+    private void sortSuffixes(int lower, int upper, int depth)
+    {
+        while(upper - lower > 1 && depth < mSortDepth)
+        {
+            if(upper - lower < INSERTION_SORT_SIZE)
+            {
+                insertionSort(lower, upper, depth);
+                return;
+            }
+
+            int pivot = medianOfThree(
+                    byteAt(mSuffixes[lower], depth), byteAt(mSuffixes[(lower + upper) >>> 1], depth),
+                    byteAt(mSuffixes[upper - 1], depth));
+
+            int lessEnd = lower;
+            int greaterStart = upper - 1;
+            int index = lower;
+
+            while(index <= greaterStart)
+            {
+                int value = byteAt(mSuffixes[index], depth);
+
+                if(value < pivot)
+                    swap(lessEnd++, index++);
+                else if(value > pivot)
+                    swap(index, greaterStart--);
+                else
+                    ++index;
+            }
+
+            sortSuffixes(lower, lessEnd, depth);
+            sortSuffixes(greaterStart + 1, upper, depth);
+
+            // suffixes which have reached a separator are equal from here on
+            if(pivot == SEPARATOR)
+                return;
+
+            lower = lessEnd;
+            upper = greaterStart + 1;
+            ++depth;
+        }
+    }
+
+    private void insertionSort(int lower, int upper, int depth)
+    {
+        for(int i = lower + 1; i < upper; ++i)
+        {
+            int offset = mSuffixes[i];
+            int j = i;
+
+            while(j > lower && compareSuffixes(mSuffixes[j - 1], offset, depth) > 0)
+            {
+                mSuffixes[j] = mSuffixes[j - 1];
+                --j;
+            }
+
+            mSuffixes[j] = offset;
+        }
+    }
+
+    private int compareSuffixes(int offset1, int offset2, int depth)
+    {
+        for(int d = depth; d < mSortDepth; ++d)
+        {
+            int value1 = byteAt(offset1, d);
+            int value2 = byteAt(offset2, d);
+
+            if(value1 != value2)
+                return value1 < value2 ? -1 : 1;
+
+            if(value1 == SEPARATOR)
+                return 0;
+        }
+
+        return 0;
+    }
+
+    private static int medianOfThree(int a, int b, int c)
+    {
+        if(a < b)
+            return b < c ? b : (a < c ? c : a);
+        else
+            return a < c ? a : (b < c ? c : b);
+    }
+
+    private void swap(int i, int j)
+    {
+        int temp = mSuffixes[i];
+        mSuffixes[i] = mSuffixes[j];
+        mSuffixes[j] = temp;
+    }
+
+    private static byte[] toBytes(final String peptide)
+    {
+        byte[] bytes = new byte[peptide.length()];
+
+        for(int i = 0; i < bytes.length; ++i)
+        {
+            bytes[i] = (byte)peptide.charAt(i);
+        }
+
+        return bytes;
+    }
+
+    private int comparePrefix(int offset, final byte[] peptide, int length)
+    {
+        for(int d = 0; d < length; ++d)
+        {
+            int value1 = byteAt(offset, d);
+            int value2 = peptide[d] & 0xFF;
+
+            if(value1 != value2)
+                return value1 < value2 ? -1 : 1;
+        }
+
+        return 0;
+    }
+
+    private boolean matchesFrom(final byte[] peptide, int offset, int start)
+    {
+        if(offset + peptide.length > mText.length)
+            return false;
+
+        for(int d = start; d < peptide.length; ++d)
+        {
+            if(mText[offset + d] != peptide[d])
+                return false;
+        }
+
+        return true;
+    }
+
+    private int lowerBound(final byte[] peptide, int length)
+    {
+        int low = 0;
+        int high = mSuffixes.length;
+
+        while(low < high)
+        {
+            int mid = (low + high) >>> 1;
+
+            if(comparePrefix(mSuffixes[mid], peptide, length) < 0)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+
+        return low;
+    }
+
+    private int upperBound(final byte[] peptide, int length, int lower)
+    {
+        int low = lower;
+        int high = mSuffixes.length;
+
+        while(low < high)
+        {
+            int mid = (low + high) >>> 1;
+
+            if(comparePrefix(mSuffixes[mid], peptide, length) <= 0)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+
+        return low;
+    }
+
+    // first index in the range whose amino acid at this depth is greater than the value
+    private int upperBoundByte(int lower, int upper, int depth, int value)
+    {
+        int low = lower;
+        int high = upper;
+
+        while(low < high)
+        {
+            int mid = (low + high) >>> 1;
+
+            if(byteAt(mSuffixes[mid], depth) <= value)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+
+        return low;
+    }
+}
@@ -1,8 +1,11 @@
 package com.hartwig.hmftools.neo.bind;
 
+import static com.hartwig.hmftools.neo.bind.BindConstants.AMINO_ACID_COUNT;
+import static com.hartwig.hmftools.neo.bind.BindConstants.encodeAminoAcids;
 import static com.hartwig.hmftools.neo.bind.RandomDistributionTask.generateDistribution;
 
 import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
 
 import java.util.List;
 
@@ -45,4 +48,79 @@ public class BindUtilsTest
         assertEquals(peptideScores.get(peptideScores.size() - 1), data.Score);
         assertEquals(peptideScores.size(), data.CumulativeCount);
     }
+
+    @Test
+    public void testScoreDistributionRanks()
+    {
+        // scores from best to worst as generated from random peptides
+        ScoreDistribution distribution = new ScoreDistribution(createDistribution(
+                new double[] { 10, 8, 6, 6, 2 }, new double[] { 0, 0.1, 0.2, 0.3, 1 }));
+
+        assertEquals(0.0, distribution.getRank(11));
+        assertEquals(1.0, distribution.getRank(1));
+        assertEquals(0.0, distribution.getRank(10));
+        assertEquals(0.1, distribution.getRank(8));
+        assertEquals(0.2, distribution.getRank(6)); // the first of equal scores
+        assertEquals(1.0, distribution.getRank(2));
+        assertEquals(0.05, distribution.getRank(9), 1e-10);
+        assertEquals(0.15, distribution.getRank(7), 1e-10);
+        assertEquals(0.65, distribution.getRank(4), 1e-10);
+
+        // likelihoods ascending
+        distribution = new ScoreDistribution(createDistribution(
+                new double[] { 0.001, 0.01, 0.1, 0.5 }, new double[] { 0, 0.1, 0.5, 1 }));
+
+        assertEquals(0.0, distribution.getRank(0.0001));
+        assertEquals(1.0, distribution.getRank(0.6));
+        assertEquals(0.1, distribution.getRank(0.01));
+        assertEquals(0.3, distribution.getRank(0.055), 1e-10);
+        assertEquals(0.75, distribution.getRank(0.3), 1e-10);
+    }
+
+    @Test
+    public void testEncodedPeptideScoring()
+    {
+        BindScoreMatrix matrix = new BindScoreMatrix("A0101", 9);
+        double[][] weights = matrix.getBindScores();
+
+        for(int aa = 0; aa < AMINO_ACID_COUNT; ++aa)
+        {
+            for(int pos = 0; pos < 9; ++pos)
+            {
+                weights[aa][pos] = aa * 0.1 - pos * 0.01;
+            }
+        }
+
+        String peptide = "ACDEFGHIK";
+        double expectedScore = 0;
+
+        for(int pos = 0; pos < peptide.length(); ++pos)
+        {
+            expectedScore += weights[BindConstants.aminoAcidIndex(peptide.charAt(pos))][pos];
+        }
+
+        assertEquals(expectedScore, matrix.calcScore(peptide));
+        assertEquals(expectedScore, matrix.calcScore(encodeAminoAcids(peptide)));
+
+        // invalid amino acids and lengths
+        assertEquals(matrix.calcScore("ACDEFGHIX"), matrix.calcScore(encodeAminoAcids("ACDEFGHI*")));
+        assertTrue(matrix.calcScore("ACDEFGHIX") < -100);
+        assertTrue(matrix.calcScore(encodeAminoAcids("ACDEFGHI")) < -100);
+
+        // changes to the weights are picked up
+        matrix.getBindScores()[0][0] += 1;
+        assertEquals(expectedScore + 1, matrix.calcScore(encodeAminoAcids(peptide)), 1e-10);
+    }
+
+    private static List<ScoreDistributionData> createDistribution(final double[] scores, final double[] buckets)
+    {
+        List<ScoreDistributionData> distribution = Lists.newArrayList();
+
+        for(int i = 0; i < scores.length; ++i)
+        {
+            distribution.add(new ScoreDistributionData("A0101", 9, buckets[i], scores[i], 0, 0));
+        }
+
+        return distribution;
+    }
 }
@@ -0,0 +1,301 @@
+package com.hartwig.hmftools.neo.utils;
+
+import static com.hartwig.hmftools.neo.bind.BindCommon.AMINO_ACID_21ST;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.hartwig.hmftools.common.aminoacid.BlosumMapping;
+import com.hartwig.hmftools.common.gene.TranscriptAminoAcids;
+
+import org.junit.Test;
+
+public class ProteomePeptideIndexTest
+{
+    private static final String AMINO_ACIDS = "ACDEFGHIKLMNPQRSTVWY";
+
+    @Test
+    public void testExactSearch()
+    {
+        List<TranscriptAminoAcids> transcripts = Lists.newArrayList(
+                new TranscriptAminoAcids("G1", "GENE1", "T1", true, "MAAAKLLLPEPTIDEQQQ"),
+                new TranscriptAminoAcids("G2", "GENE2", "T2", true, "PEPTIDEWWWPEPTIDE"),
+                new TranscriptAminoAcids("G3", "GENE3", "T3", true, ""),
+                new TranscriptAminoAcids("G4", "GENE4", "T4", true, "YYYPEPTID"));
+
+        ProteomePeptideIndex index = new ProteomePeptideIndex(transcripts, 4);
+
+        List<ProteomePeptideIndex.PeptideMatch> matches = index.findTranscriptMatches("PEPTIDE");
+        assertEquals(2, matches.size());
+        assertEquals("T1", matches.get(0).Transcript.TransName);
+        assertEquals(8, matches.get(0).AminoAcidIndex);
+        assertEquals("T2", matches.get(1).Transcript.TransName);
+        assertEquals(0, matches.get(1).AminoAcidIndex);
+
+        assertEquals(4, index.findPeptide("PEPTID").length);
+        assertEquals(0, index.findPeptide("DEWWWPEPTIDEX").length);
+        assertEquals(0, index.findPeptide("QQQPEP").length); // cannot span transcripts
+        assertEquals("T4", index.transcriptAt(index.findPeptide("YYY")[0]).TransName);
+    }
+
+    @Test
+    public void testMatchesTranscriptScan()
+    {
+        Random random = new Random(1);
+        List<TranscriptAminoAcids> transcripts = generateProteome(random, 60, 150);
+
+        // a shallow sort depth to also exercise lookups beyond it
+        ProteomePeptideIndex index = new ProteomePeptideIndex(transcripts, 6);
+        ProteomePeptideIndex defaultIndex = new ProteomePeptideIndex(transcripts);
+
+        for(String peptide : generatePeptides(random, transcripts, 300))
+        {
+            List<ProteomePeptideIndex.PeptideMatch> expected = scanTranscripts(transcripts, peptide);
+
+            for(ProteomePeptideIndex peptideIndex : Lists.newArrayList(index, defaultIndex))
+            {
+                List<ProteomePeptideIndex.PeptideMatch> matches = peptideIndex.findTranscriptMatches(peptide);
+                assertEquals(expected.size(), matches.size());
+
+                for(int i = 0; i < expected.size(); ++i)
+                {
+                    assertEquals(expected.get(i).Transcript, matches.get(i).Transcript);
+                    assertEquals(expected.get(i).AminoAcidIndex, matches.get(i).AminoAcidIndex);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testNearestMatchesTranscriptScan()
+    {
+        BlosumMapping blosumMapping = new BlosumMapping();
+
+        // the trie search relies on every distance term being non-negative
+        for(char aa1 : AMINO_ACIDS.toCharArray())
+        {
+            for(char aa2 : AMINO_ACIDS.toCharArray())
+            {
+                double term = (blosumMapping.selfMapping(aa1) + blosumMapping.selfMapping(aa2)) * 0.5 - blosumMapping.map(aa1, aa2);
+                assertTrue(term >= 0);
+            }
+        }
+
+        Random random = new Random(2);
+        List<TranscriptAminoAcids> transcripts = generateProteome(random, 40, 120);
+
+        ProteomePeptideIndex index = new ProteomePeptideIndex(transcripts, 6);
+        ProteomePeptideIndex defaultIndex = new ProteomePeptideIndex(transcripts);
+
+        for(String peptide : generatePeptides(random, transcripts, 150))
+        {
+            if(!index.findTranscriptMatches(peptide).isEmpty())
+                continue;
+
+            ProteomePeptideIndex.PeptideMatch expected = scanNearest(transcripts, peptide, blosumMapping);
+
+            for(ProteomePeptideIndex peptideIndex : Lists.newArrayList(index, defaultIndex))
+            {
+                ProteomePeptideIndex.PeptideMatch nearest = peptideIndex.findNearestPeptide(peptide, blosumMapping);
+                assertNotNull(nearest);
+                assertEquals(expected.Peptide, nearest.Peptide);
+                assertEquals(expected.Transcript, nearest.Transcript);
+                assertEquals(expected.AminoAcidIndex, nearest.AminoAcidIndex);
+                assertEquals(Double.doubleToLongBits(expected.Similarity), Double.doubleToLongBits(nearest.Similarity));
+            }
+        }
+
+        assertNull(new ProteomePeptideIndex(Lists.newArrayList()).findNearestPeptide("PEPTIDE", blosumMapping));
+    }
+
+    @Test
+    public void testIndexFile() throws IOException
+    {
+        Random random = new Random(3);
+        List<TranscriptAminoAcids> transcripts = generateProteome(random, 20, 100);
+
+        File indexFile = File.createTempFile("proteome_index", ".bin");
+        indexFile.delete();
+        indexFile.deleteOnExit();
+
+        ProteomePeptideIndex builtIndex = ProteomePeptideIndex.loadOrBuild(transcripts, indexFile.getAbsolutePath());
+        assertTrue(indexFile.exists());
+
+        ProteomePeptideIndex loadedIndex = ProteomePeptideIndex.loadOrBuild(transcripts, indexFile.getAbsolutePath());
+        assertEquals(builtIndex.suffixCount(), loadedIndex.suffixCount());
+
+        for(String peptide : generatePeptides(random, transcripts, 50))
+        {
+            assertEquals(builtIndex.findTranscriptMatches(peptide).size(), loadedIndex.findTranscriptMatches(peptide).size());
+        }
+
+        // a changed proteome does not reuse the file
+        transcripts.remove(0);
+        ProteomePeptideIndex rebuiltIndex = ProteomePeptideIndex.loadOrBuild(transcripts, indexFile.getAbsolutePath());
+        assertEquals(new ProteomePeptideIndex(transcripts).suffixCount(), rebuiltIndex.suffixCount());
+    }
+
+    // random proteins, each with a few isoforms sharing most of their sequence, and an occasional 21st amino acid
+    public static List<TranscriptAminoAcids> generateProteome(final Random random, int geneCount, int meanLength)
+    {
+        List<TranscriptAminoAcids> transcripts = Lists.newArrayList();
+
+        for(int g = 0; g < geneCount; ++g)
+        {
+            StringBuilder protein = new StringBuilder();
+            int length = meanLength / 2 + random.nextInt(meanLength);
+
+            for(int i = 0; i < length; ++i)
+            {
+                protein.append(random.nextInt(200) == 0 ? AMINO_ACID_21ST.charAt(0) : AMINO_ACIDS.charAt(random.nextInt(AMINO_ACIDS.length())));
+            }
+
+            String geneName = "GENE" + g;
+            int isoformCount = 1 + random.nextInt(3);
+
+            for(int t = 0; t < isoformCount; ++t)
+            {
+                String aminoAcids = protein.toString();
+
+                if(t > 0)
+                {
+                    int start = random.nextInt(length / 4);
+                    int end = length - random.nextInt(length / 4);
+                    aminoAcids = aminoAcids.substring(start, end);
+                }
+
+                transcripts.add(new TranscriptAminoAcids("ENSG" + g, geneName, geneName + "_T" + t, t == 0, aminoAcids));
+            }
+        }
+
+        return transcripts;
+    }
+
+    // neoepitope-like peptides of 8-11 amino acids: proteome peptides with a point mutation, unchanged ones and random ones
+    public static List<String> generatePeptides(final Random random, final List<TranscriptAminoAcids> transcripts, int count)
+    {
+        List<String> peptides = Lists.newArrayList();
+
+        while(peptides.size() < count)
+        {
+            int length = 8 + random.nextInt(4);
+            String aminoAcids = transcripts.get(random.nextInt(transcripts.size())).AminoAcids;
+
+            if(aminoAcids.length() <= length)
+                continue;
+
+            int start = random.nextInt(aminoAcids.length() - length);
+            StringBuilder peptide = new StringBuilder(aminoAcids.substring(start, start + length));
+
+            int type = random.nextInt(4);
+
+            if(type <= 1)
+            {
+                peptide.setCharAt(random.nextInt(length), AMINO_ACIDS.charAt(random.nextInt(AMINO_ACIDS.length())));
+            }
+            else if(type == 2)
+            {
+                for(int i = 0; i < length; ++i)
+                {
+                    peptide.setCharAt(i, AMINO_ACIDS.charAt(random.nextInt(AMINO_ACIDS.length())));
+                }
+            }
+
+            if(peptide.indexOf(AMINO_ACID_21ST) < 0)
+                peptides.add(peptide.toString());
+        }
+
+        return peptides;
+    }
+
+    // the previous search, scanning each transcript in turn
+    public static List<ProteomePeptideIndex.PeptideMatch> scanTranscripts(
+            final List<TranscriptAminoAcids> transcripts, final String peptide)
+    {
+        List<ProteomePeptideIndex.PeptideMatch> matches = Lists.newArrayList();
+
+        for(TranscriptAminoAcids transAminoAcids : transcripts)
+        {
+            int aaIndex = transAminoAcids.AminoAcids.indexOf(peptide);
+
+            if(aaIndex >= 0)
+                matches.add(new ProteomePeptideIndex.PeptideMatch(transAminoAcids, aaIndex, peptide, 0));
+        }
+
+        return matches;
+    }
+
+    // the previous nearest peptide search, scoring every window of each transcript with an early exit
+    public static ProteomePeptideIndex.PeptideMatch scanNearest(
+            final List<TranscriptAminoAcids> transcripts, final String peptide, final BlosumMapping blosumMapping)
+    {
+        String topPeptide = "";
+        double topSimiliarity = 0;
+        TranscriptAminoAcids topTrans = null;
+        int topIndex = -1;
+
+        int peptideLength = peptide.length();
+        Set<String> uniquePeptides = Sets.newHashSet();
+        String lastGeneId = "";
+
+        for(TranscriptAminoAcids transAminoAcids : transcripts)
+        {
+            if(!transAminoAcids.GeneId.equals(lastGeneId))
+            {
+                uniquePeptides.clear();
+                lastGeneId = transAminoAcids.GeneId;
+            }
+
+            final String aminoAcids = transAminoAcids.AminoAcids;
+            int aaLength = aminoAcids.length();
+
+            for(int startIndex = 0; startIndex < aaLength - peptideLength; ++startIndex)
+            {
+                String aaPeptide = aminoAcids.substring(startIndex, startIndex + peptideLength);
+
+                if(!uniquePeptides.add(aaPeptide))
+                    continue;
+
+                if(aaPeptide.contains(AMINO_ACID_21ST))
+                    continue;
+
+                double similarity = 0;
+                boolean skip = false;
+
+                for(int i = 0; i < peptideLength; ++i)
+                {
+                    char aa1 = peptide.charAt(i);
+                    char aa2 = aaPeptide.charAt(i);
+
+                    similarity += (blosumMapping.selfMapping(aa1) + blosumMapping.selfMapping(aa2)) * 0.5 - blosumMapping.map(aa1, aa2);
+
+                    if(topTrans != null && similarity >= topSimiliarity)
+                    {
+                        skip = true;
+                        break;
+                    }
+                }
+
+                if(skip)
+                    continue;
+
+                topPeptide = aaPeptide;
+                topSimiliarity = similarity;
+                topTrans = transAminoAcids;
+                topIndex = startIndex;
+            }
+        }
+
+        return new ProteomePeptideIndex.PeptideMatch(topTrans, topIndex, topPeptide, topSimiliarity);
+    }
+}
@@ -1,6 +1,9 @@
 package com.hartwig.hmftools.orange;
 
 import java.io.IOException;
+import java.util.List;
+
+import com.google.common.collect.Lists;
 
 import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
 import com.hartwig.hmftools.datamodel.orange.OrangeRecord;
@@ -27,6 +30,12 @@ public class OrangeApplication
 
         configBuilder.checkAndParseCommandLine(args);
 
+        if(configBuilder.hasValue(OrangeConfig.SAMPLE_BATCH_FILE))
+        {
+            runBatch(configBuilder);
+            return;
+        }
+
         OrangeConfig config = OrangeConfig.createConfig(configBuilder);
         new OrangeApplication(config).run();
     }
@@ -43,11 +52,65 @@ public class OrangeApplication
         LOGGER.info("Generating ORANGE report data");
 
         OrangeAlgo algo = OrangeAlgo.fromConfig(config);
+        runSample(algo, config);
+
+        LOGGER.info("Done!");
+    }
+
+    private static void runSample(final OrangeAlgo algo, final OrangeConfig config) throws IOException
+    {
         OrangeRecord report = algo.run(config);
 
         ReportWriter writer = ReportWriterFactory.createToDiskWriter(config);
         writer.write(report);
+    }
+
+    // loads the reference data once and then runs each sample in turn, continuing past any which fail
+    private static void runBatch(final ConfigBuilder configBuilder) throws IOException
+    {
+        OrangeSampleBatch sampleBatch = OrangeSampleBatch.loadFile(configBuilder.getValue(OrangeConfig.SAMPLE_BATCH_FILE), configBuilder);
+
+        if(sampleBatch.sampleCount() == 0)
+        {
+            LOGGER.warn("No samples in batch file");
+            return;
+        }
+
+        LOGGER.info("Generating ORANGE report data for {} samples", sampleBatch.sampleCount());
+
+        OrangeAlgo algo = null;
+        List<String> failedSamples = Lists.newArrayList();
+
+        for(int i = 0; i < sampleBatch.sampleCount(); ++i)
+        {
+            String sampleId = sampleBatch.sampleId(i);
+
+            try
+            {
+                sampleBatch.applySample(i, configBuilder);
+                OrangeConfig config = OrangeConfig.createConfig(configBuilder);
+
+                if(algo == null)
+                {
+                    algo = OrangeAlgo.fromConfig(config);
+                }
+
+                LOGGER.info("Generating ORANGE report data for sample({}) {} of {}", sampleId, i + 1, sampleBatch.sampleCount());
+                runSample(algo, config);
+            }
+            catch(Exception e)
+            {
+                LOGGER.error("sample({}) failed: {}", sampleId, e.toString());
+                failedSamples.add(sampleId);
+            }
+        }
+
+        if(!failedSamples.isEmpty())
+        {
+            LOGGER.error("{} of {} samples failed: {}", failedSamples.size(), sampleBatch.sampleCount(), failedSamples);
+            System.exit(1);
+        }
 
         LOGGER.info("Done!");
     }
-}
\ No newline at end of file
+}
@@ -20,6 +20,8 @@ import static com.hartwig.hmftools.common.pipeline.PipelineToolDirectories.SAGE_
 import static com.hartwig.hmftools.common.pipeline.PipelineToolDirectories.SAGE_SOMATIC_DIR;
 import static com.hartwig.hmftools.common.pipeline.PipelineToolDirectories.SIGS_DIR;
 import static com.hartwig.hmftools.common.pipeline.PipelineToolDirectories.VIRUS_INTERPRETER_DIR;
+import static com.hartwig.hmftools.common.utils.TaskExecutor.addThreadOptions;
+import static com.hartwig.hmftools.common.utils.TaskExecutor.parseThreads;
 import static com.hartwig.hmftools.common.utils.config.CommonConfig.CHORD_DIR_CFG;
 import static com.hartwig.hmftools.common.utils.config.CommonConfig.CHORD_DIR_DESC;
 import static com.hartwig.hmftools.common.utils.config.CommonConfig.CUPPA_DIR_CFG;
@@ -113,15 +115,18 @@ public interface OrangeConfig
     String LIMIT_JSON_OUTPUT = "limit_json_output";
     String ADD_DISCLAIMER = "add_disclaimer";
 
+    // runs a set of samples against reference data loaded once
+    String SAMPLE_BATCH_FILE = "sample_batch_file";
+
     static void registerConfig(@NotNull ConfigBuilder configBuilder)
     {
-        configBuilder.addConfigItem(TUMOR_SAMPLE_ID, true, "The sample ID for which ORANGE will run.");
+        configBuilder.addConfigItem(TUMOR_SAMPLE_ID, false, "The sample ID for which ORANGE will run, required unless using a sample batch file.");
         configBuilder.addConfigItem(REFERENCE_SAMPLE_ID,
                 false,
                 "(Optional) The reference sample of the tumor sample for which ORANGE will run.");
         configBuilder.addConfigItem(PRIMARY_TUMOR_DOIDS,
-                true,
-                "A semicolon-separated list of DOIDs representing the primary tumor of patient.");
+                false,
+                "A semicolon-separated list of DOIDs representing the primary tumor of patient, required unless using a sample batch file.");
         configBuilder.addConfigItem(SAMPLING_DATE, false, "Optional, if provided represents the sampling date in YYMMDD format.");
 
         addRefGenomeVersion(configBuilder);
@@ -164,6 +169,12 @@ public interface OrangeConfig
         configBuilder.addFlag(CONVERT_GERMLINE_TO_SOMATIC, "If set, germline events are converted to somatic events.");
         configBuilder.addFlag(LIMIT_JSON_OUTPUT, "If set, limits every list in the json output to 1 entry.");
         configBuilder.addFlag(ADD_DISCLAIMER, "If set, prints a disclaimer on each page.");
+
+        configBuilder.addPath(SAMPLE_BATCH_FILE, false,
+                "TSV of samples to run with shared reference data, with a header of config names per sample, eg "
+                        + TUMOR_SAMPLE_ID + ", " + PRIMARY_TUMOR_DOIDS + ", " + PIPELINE_SAMPLE_ROOT_DIR + " and output_dir");
+
+        addThreadOptions(configBuilder);
         addLoggingOptions(configBuilder);
 
         OrangeRnaConfig.registerConfig(configBuilder);
@@ -283,6 +294,12 @@ public interface OrangeConfig
 
     boolean addDisclaimer();
 
+    @Value.Default
+    default int threads()
+    {
+        return 1;
+    }
+
     default boolean tumorOnlyMode()
     {
         return referenceSampleId() == null || referenceSampleId().isEmpty();
@@ -332,6 +349,11 @@ public interface OrangeConfig
             samplingDate = LocalDate.now();
         }
 
+        if(!configBuilder.hasValue(TUMOR_SAMPLE_ID) || !configBuilder.hasValue(PRIMARY_TUMOR_DOIDS))
+        {
+            throw new IllegalArgumentException(String.format("Missing %s or %s", TUMOR_SAMPLE_ID, PRIMARY_TUMOR_DOIDS));
+        }
+
         String tumorSampleId = configBuilder.getValue(TUMOR_SAMPLE_ID);
         String pipelineSampleRootDir = checkAddDirSeparator(configBuilder.getValue(PIPELINE_SAMPLE_ROOT_DIR));
         String sampleDataDir = checkAddDirSeparator(configBuilder.getValue(SAMPLE_DATA_DIR_CFG));
@@ -362,7 +384,8 @@ public interface OrangeConfig
                 .linxPlotDirectory(getToolPlotsDirectory(configBuilder, pipelineSampleRootDir, LINX_PLOT_DIR_CFG, LINX_SOMATIC_DIR))
                 .convertGermlineToSomatic(convertGermlineToSomatic)
                 .limitJsonOutput(limitJsonOutput)
-                .addDisclaimer(addDisclaimer);
+                .addDisclaimer(addDisclaimer)
+                .threads(parseThreads(configBuilder));
 
         String sageSomaticDir = getToolDirectory(configBuilder, pipelineSampleRootDir, sampleDataDir, SAGE_DIR_CFG, SAGE_SOMATIC_DIR);
         builder.sageSomaticTumorSampleBQRPlot(fileIfExists(SageCommon.generateBqrPlotFilename(sageSomaticDir, tumorSampleId)));
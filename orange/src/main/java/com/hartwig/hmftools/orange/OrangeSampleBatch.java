@@ -0,0 +1,121 @@
+package com.hartwig.hmftools.orange;
+
+import static com.hartwig.hmftools.common.drivercatalog.panel.DriverGenePanelConfig.DRIVER_GENE_PANEL_OPTION;
+import static com.hartwig.hmftools.common.ensemblcache.EnsemblDataCache.ENSEMBL_DATA_DIR;
+import static com.hartwig.hmftools.common.fusion.KnownFusionCache.KNOWN_FUSIONS_FILE;
+import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion.REF_GENOME_VERSION;
+import static com.hartwig.hmftools.common.utils.file.FileDelimiters.TSV_DELIM;
+import static com.hartwig.hmftools.orange.OrangeApplication.LOGGER;
+import static com.hartwig.hmftools.orange.OrangeConfig.COHORT_MAPPING_TSV;
+import static com.hartwig.hmftools.orange.OrangeConfig.COHORT_PERCENTILES_TSV;
+import static com.hartwig.hmftools.orange.OrangeConfig.DOID_JSON;
+import static com.hartwig.hmftools.orange.OrangeConfig.SAMPLE_BATCH_FILE;
+import static com.hartwig.hmftools.orange.OrangeConfig.TUMOR_SAMPLE_ID;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Set;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+
+import org.jetbrains.annotations.NotNull;
+
+// the per-sample config of a batch run, taken from a TSV whose header names the config items set for each sample
+public final class OrangeSampleBatch
+{
+    // reference data is loaded once for the batch so cannot vary by sample
+    private static final Set<String> SHARED_CONFIG = Sets.newHashSet(
+            DOID_JSON, COHORT_MAPPING_TSV, COHORT_PERCENTILES_TSV, DRIVER_GENE_PANEL_OPTION, KNOWN_FUSIONS_FILE, ENSEMBL_DATA_DIR,
+            REF_GENOME_VERSION, SAMPLE_BATCH_FILE);
+
+    @NotNull
+    private final List<String> configNames;
+    @NotNull
+    private final List<String[]> sampleValues;
+
+    private OrangeSampleBatch(@NotNull List<String> configNames, @NotNull List<String[]> sampleValues)
+    {
+        this.configNames = configNames;
+        this.sampleValues = sampleValues;
+    }
+
+    @NotNull
+    public static OrangeSampleBatch loadFile(@NotNull String filename, @NotNull ConfigBuilder configBuilder) throws IOException
+    {
+        List<String> lines = Files.readAllLines(Paths.get(filename));
+
+        if(lines.isEmpty())
+        {
+            throw new IOException("Empty sample batch file: " + filename);
+        }
+
+        List<String> configNames = Lists.newArrayList(lines.get(0).split(TSV_DELIM, -1));
+
+        if(!configNames.contains(TUMOR_SAMPLE_ID))
+        {
+            throw new IOException(String.format("Sample batch file %s is missing column %s", filename, TUMOR_SAMPLE_ID));
+        }
+
+        for(String configName : configNames)
+        {
+            if(SHARED_CONFIG.contains(configName) || !configBuilder.isRegistered(configName))
+            {
+                throw new IOException(String.format("Sample batch file %s has invalid per-sample config: %s", filename, configName));
+            }
+        }
+
+        List<String[]> sampleValues = Lists.newArrayList();
+
+        for(String line : lines.subList(1, lines.size()))
+        {
+            if(line.isEmpty())
+            {
+                continue;
+            }
+
+            String[] values = line.split(TSV_DELIM, -1);
+
+            if(values.length != configNames.size())
+            {
+                throw new IOException(String.format("Sample batch file %s has invalid line: %s", filename, line));
+            }
+
+            sampleValues.add(values);
+        }
+
+        LOGGER.info("Loaded {} samples from batch file {}", sampleValues.size(), filename);
+
+        return new OrangeSampleBatch(configNames, sampleValues);
+    }
+
+    public int sampleCount()
+    {
+        return sampleValues.size();
+    }
+
+    @NotNull
+    public String sampleId(int index)
+    {
+        return sampleValues.get(index)[configNames.indexOf(TUMOR_SAMPLE_ID)];
+    }
+
+    // replaces the batch's per-sample config items with this sample's values, an empty value leaving the item unset
+    public void applySample(int index, @NotNull ConfigBuilder configBuilder)
+    {
+        String[] values = sampleValues.get(index);
+
+        for(int i = 0; i < configNames.size(); ++i)
+        {
+            configBuilder.getItem(configNames.get(i)).clearValue();
+
+            if(!values[i].isEmpty())
+            {
+                configBuilder.getItem(configNames.get(i)).setValue(values[i]);
+            }
+        }
+    }
+}
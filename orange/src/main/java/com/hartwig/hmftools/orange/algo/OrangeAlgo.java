@@ -11,6 +11,7 @@ import java.text.DecimalFormat;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Future;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
@@ -93,6 +94,7 @@ import com.hartwig.hmftools.orange.cohort.percentile.CohortPercentilesFile;
 import com.hartwig.hmftools.orange.cohort.percentile.CohortPercentilesModel;
 import com.hartwig.hmftools.orange.conversion.ConversionUtil;
 import com.hartwig.hmftools.orange.conversion.OrangeConversion;
+import com.hartwig.hmftools.orange.util.ParallelLoader;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -111,54 +113,78 @@ public class OrangeAlgo
     private final KnownFusionCache knownFusionCache;
     @NotNull
     private final EnsemblDataCache ensemblDataCache;
-    @NotNull
-    private final PlotManager plotManager;
 
     private boolean suppressGeneWarnings;
 
     @NotNull
     public static OrangeAlgo fromConfig(@NotNull OrangeConfig config) throws IOException
     {
-        LOGGER.info("Loading DOID database from {}", config.doidJsonFile());
-        DoidEntry doidEntry = DiseaseOntology.readDoidOwlEntryFromDoidJson(config.doidJsonFile());
-        DoidParents doidParentModel = DoidParents.fromEdges(doidEntry.edges());
-
-        LOGGER.info("Reading cohort mappings from {}", config.cohortMappingTsv());
-        List<CohortMapping> mappings = CohortMappingFile.read(config.cohortMappingTsv());
-        LOGGER.info(" Reading {} cohort mappings", mappings.size());
-        CohortMapper mapper = new DoidCohortMapper(doidParentModel, mappings);
+        // the reference data is independent so is loaded concurrently, and can then be re-used across samples
+        try(ParallelLoader loader = new ParallelLoader(config.threads()))
+        {
+            Future<DoidEntry> doidEntryFuture = loader.submit(() ->
+            {
+                LOGGER.info("Loading DOID database from {}", config.doidJsonFile());
+                return DiseaseOntology.readDoidOwlEntryFromDoidJson(config.doidJsonFile());
+            });
 
-        LOGGER.info("Reading percentiles from {}", config.cohortPercentilesTsv());
-        Multimap<PercentileType, CohortPercentiles> percentilesMap = CohortPercentilesFile.read(config.cohortPercentilesTsv());
-        LOGGER.info(" Read {} percentiles", percentilesMap.values().size());
-        CohortPercentilesModel percentilesModel = new CohortPercentilesModel(mapper, percentilesMap);
+            Future<List<CohortMapping>> mappingsFuture = loader.submit(() ->
+            {
+                LOGGER.info("Reading cohort mappings from {}", config.cohortMappingTsv());
+                List<CohortMapping> mappings = CohortMappingFile.read(config.cohortMappingTsv());
+                LOGGER.info(" Reading {} cohort mappings", mappings.size());
+                return mappings;
+            });
 
-        LOGGER.info("Reading driver genes from {}", config.driverGenePanelTsv());
-        List<DriverGene> driverGenes = DriverGeneFile.read(config.driverGenePanelTsv());
-        LOGGER.info(" Read {} driver genes", driverGenes.size());
+            Future<Multimap<PercentileType, CohortPercentiles>> percentilesFuture = loader.submit(() ->
+            {
+                LOGGER.info("Reading percentiles from {}", config.cohortPercentilesTsv());
+                Multimap<PercentileType, CohortPercentiles> percentilesMap = CohortPercentilesFile.read(config.cohortPercentilesTsv());
+                LOGGER.info(" Read {} percentiles", percentilesMap.values().size());
+                return percentilesMap;
+            });
 
-        LOGGER.info("Reading known fusions from {}", config.knownFusionFile());
-        KnownFusionCache knownFusionCache = new KnownFusionCache();
-        if(!knownFusionCache.loadFile(config.knownFusionFile()))
-        {
-            throw new IOException("Could not load known fusions from " + config.knownFusionFile());
-        }
-        LOGGER.info(" Read {} known fusion entries", knownFusionCache.getData().size());
+            Future<List<DriverGene>> driverGenesFuture = loader.submit(() ->
+            {
+                LOGGER.info("Reading driver genes from {}", config.driverGenePanelTsv());
+                List<DriverGene> driverGenes = DriverGeneFile.read(config.driverGenePanelTsv());
+                LOGGER.info(" Read {} driver genes", driverGenes.size());
+                return driverGenes;
+            });
 
-        LOGGER.info("Reading ensembl data cache from {}", config.ensemblDataDirectory());
-        EnsemblDataCache ensemblDataCache = loadEnsemblDataCache(config);
-        LOGGER.info(" Read ensembl data dir");
+            Future<KnownFusionCache> knownFusionCacheFuture = loader.submit(() ->
+            {
+                LOGGER.info("Reading known fusions from {}", config.knownFusionFile());
+                KnownFusionCache knownFusionCache = new KnownFusionCache();
+                if(!knownFusionCache.loadFile(config.knownFusionFile()))
+                {
+                    throw new IOException("Could not load known fusions from " + config.knownFusionFile());
+                }
+                LOGGER.info(" Read {} known fusion entries", knownFusionCache.getData().size());
+                return knownFusionCache;
+            });
+
+            Future<EnsemblDataCache> ensemblDataCacheFuture = loader.submit(() ->
+            {
+                LOGGER.info("Reading ensembl data cache from {}", config.ensemblDataDirectory());
+                EnsemblDataCache ensemblDataCache = loadEnsemblDataCache(config);
+                LOGGER.info(" Read ensembl data dir");
+                return ensemblDataCache;
+            });
 
-        String outputDir = config.outputDir();
-        PlotManager plotManager = !outputDir.isEmpty() ? new FileBasedPlotManager(outputDir) : new DummyPlotManager();
+            DoidEntry doidEntry = ParallelLoader.get(doidEntryFuture);
+            DoidParents doidParentModel = DoidParents.fromEdges(doidEntry.edges());
+            CohortMapper mapper = new DoidCohortMapper(doidParentModel, ParallelLoader.get(mappingsFuture));
+            CohortPercentilesModel percentilesModel = new CohortPercentilesModel(mapper, ParallelLoader.get(percentilesFuture));
 
-        return new OrangeAlgo(doidEntry, mapper, percentilesModel, driverGenes, knownFusionCache, ensemblDataCache, plotManager);
+            return new OrangeAlgo(doidEntry, mapper, percentilesModel, ParallelLoader.get(driverGenesFuture),
+                    ParallelLoader.get(knownFusionCacheFuture), ParallelLoader.get(ensemblDataCacheFuture));
+        }
     }
 
     private OrangeAlgo(@NotNull final DoidEntry doidEntry, @NotNull final CohortMapper cohortMapper,
             @NotNull final CohortPercentilesModel percentilesModel, @NotNull final List<DriverGene> driverGenes,
-            @NotNull final KnownFusionCache knownFusionCache, @NotNull final EnsemblDataCache ensemblDataCache,
-            @NotNull final PlotManager plotManager)
+            @NotNull final KnownFusionCache knownFusionCache, @NotNull final EnsemblDataCache ensemblDataCache)
     {
         this.doidEntry = doidEntry;
         this.cohortMapper = cohortMapper;
@@ -166,7 +192,6 @@ public class OrangeAlgo
         this.driverGenes = driverGenes;
         this.knownFusionCache = knownFusionCache;
         this.ensemblDataCache = ensemblDataCache;
-        this.plotManager = plotManager;
         suppressGeneWarnings = false;
     }
 
@@ -175,19 +200,49 @@ public class OrangeAlgo
     {
         Set<DoidNode> configuredPrimaryTumor = loadConfiguredPrimaryTumor(config);
         String platinumVersion = determinePlatinumVersion(config);
-        OrangeSample refSample = loadSampleData(config, false);
-        OrangeSample tumorSample = loadSampleData(config, true);
-
-        PurpleData purpleData = loadPurpleData(config);
-        LinxData linxData = loadLinxData(config);
-        Map<String, Double> mvlhPerGene = loadGermlineMVLHPerGene(config);
-        ChordData chord = loadChordAnalysis(config);
-        LilacSummaryData lilac = loadLilacData(config);
-        VirusInterpreterData virusInterpreter = loadVirusInterpreterData(config);
-        CuppaData cuppa = loadCuppaData(config);
-        List<PeachGenotype> peach = loadPeachData(config);
-        List<SignatureAllocation> sigAllocations = loadSigAllocations(config);
-        IsofoxData isofoxData = loadIsofoxData(config);
+
+        OrangeSample refSample;
+        OrangeSample tumorSample;
+        PurpleData purpleData;
+        LinxData linxData;
+        Map<String, Double> mvlhPerGene;
+        ChordData chord;
+        LilacSummaryData lilac;
+        VirusInterpreterData virusInterpreter;
+        CuppaData cuppa;
+        List<PeachGenotype> peach;
+        List<SignatureAllocation> sigAllocations;
+        IsofoxData isofoxData;
+
+        // each tool's output is independent of the others
+        try(ParallelLoader loader = new ParallelLoader(config.threads()))
+        {
+            Future<OrangeSample> refSampleFuture = loader.submit(() -> loadSampleData(config, false));
+            Future<OrangeSample> tumorSampleFuture = loader.submit(() -> loadSampleData(config, true));
+            Future<PurpleData> purpleDataFuture = loader.submit(() -> loadPurpleData(config));
+            Future<LinxData> linxDataFuture = loader.submit(() -> loadLinxData(config));
+            Future<Map<String, Double>> mvlhPerGeneFuture = loader.submit(() -> loadGermlineMVLHPerGene(config));
+            Future<ChordData> chordFuture = loader.submit(() -> loadChordAnalysis(config));
+            Future<LilacSummaryData> lilacFuture = loader.submit(() -> loadLilacData(config));
+            Future<VirusInterpreterData> virusInterpreterFuture = loader.submit(() -> loadVirusInterpreterData(config));
+            Future<CuppaData> cuppaFuture = loader.submit(() -> loadCuppaData(config));
+            Future<List<PeachGenotype>> peachFuture = loader.submit(() -> loadPeachData(config));
+            Future<List<SignatureAllocation>> sigAllocationsFuture = loader.submit(() -> loadSigAllocations(config));
+            Future<IsofoxData> isofoxDataFuture = loader.submit(() -> loadIsofoxData(config));
+
+            refSample = ParallelLoader.get(refSampleFuture);
+            tumorSample = ParallelLoader.get(tumorSampleFuture);
+            purpleData = ParallelLoader.get(purpleDataFuture);
+            linxData = ParallelLoader.get(linxDataFuture);
+            mvlhPerGene = ParallelLoader.get(mvlhPerGeneFuture);
+            chord = ParallelLoader.get(chordFuture);
+            lilac = ParallelLoader.get(lilacFuture);
+            virusInterpreter = ParallelLoader.get(virusInterpreterFuture);
+            cuppa = ParallelLoader.get(cuppaFuture);
+            peach = ParallelLoader.get(peachFuture);
+            sigAllocations = ParallelLoader.get(sigAllocationsFuture);
+            isofoxData = ParallelLoader.get(isofoxDataFuture);
+        }
 
         ExperimentType experimentType = purpleData.purityContext().targeted() ? ExperimentType.TARGETED : ExperimentType.WHOLE_GENOME;
         LOGGER.info("Determined experiment type to be '{}'", experimentType);
@@ -667,10 +722,14 @@ public class OrangeAlgo
     }
 
     @NotNull
-    private OrangePlots buildPlots(@NotNull OrangeConfig config) throws IOException
+    private static OrangePlots buildPlots(@NotNull OrangeConfig config) throws IOException
     {
         LOGGER.info("Loading plots");
 
+        // created per sample since each has its own output directory in batch mode
+        String outputDir = config.outputDir();
+        PlotManager plotManager = !outputDir.isEmpty() ? new FileBasedPlotManager(outputDir) : new DummyPlotManager();
+
         plotManager.createPlotDirectory();
 
         String linxPlotDir = config.linxPlotDirectory();
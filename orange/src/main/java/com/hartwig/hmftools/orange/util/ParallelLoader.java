@@ -0,0 +1,83 @@
+package com.hartwig.hmftools.orange.util;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+public final class ParallelLoader implements AutoCloseable
+{
+    // null when single-threaded, in which case each loader runs as soon as it is submitted
+    @Nullable
+    private final ExecutorService executor;
+
+    public ParallelLoader(int threads)
+    {
+        executor = threads > 1
+                ? Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("OrangeLoader-%d").setDaemon(true).build())
+                : null;
+    }
+
+    @NotNull
+    public <T> Future<T> submit(@NotNull Callable<T> loader)
+    {
+        if(executor != null)
+        {
+            return executor.submit(loader);
+        }
+
+        FutureTask<T> task = new FutureTask<>(loader);
+        task.run();
+        return task;
+    }
+
+    @Nullable
+    public static <T> T get(@NotNull Future<T> future) throws IOException
+    {
+        try
+        {
+            return future.get();
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading ORANGE input", e);
+        }
+        catch(ExecutionException e)
+        {
+            // rethrow the loader's own exception so failures surface as they would when loaded sequentially
+            Throwable cause = e.getCause();
+            if(cause instanceof IOException)
+            {
+                throw (IOException) cause;
+            }
+            else if(cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            else if(cause instanceof Error)
+            {
+                throw (Error) cause;
+            }
+
+            throw new IOException(cause);
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        if(executor != null)
+        {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.hartwig.hmftools.orange.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import com.google.common.collect.Lists;
+
+import org.junit.Test;
+
+public class ParallelLoaderTest
+{
+    @Test
+    public void canLoadInSubmittedOrder() throws IOException
+    {
+        for(int threads : new int[] { 1, 4 })
+        {
+            try(ParallelLoader loader = new ParallelLoader(threads))
+            {
+                List<Future<Integer>> futures = Lists.newArrayList();
+                for(int i = 0; i < 10; ++i)
+                {
+                    int value = i;
+                    futures.add(loader.submit(() -> value));
+                }
+
+                for(int i = 0; i < 10; ++i)
+                {
+                    assertEquals(i, (int) ParallelLoader.get(futures.get(i)));
+                }
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void rethrowsLoaderException() throws IOException
+    {
+        try(ParallelLoader loader = new ParallelLoader(2))
+        {
+            Future<Object> future = loader.submit(() -> { throw new IOException("missing file"); });
+            ParallelLoader.get(future);
+        }
+    }
+}
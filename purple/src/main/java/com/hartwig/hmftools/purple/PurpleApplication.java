@@ -42,6 +42,8 @@ import com.hartwig.hmftools.common.drivercatalog.DriverCatalogFile;
 import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
 import com.hartwig.hmftools.common.genome.chromosome.CobaltChromosomes;
 import com.hartwig.hmftools.common.purple.Gender;
+import com.hartwig.hmftools.common.utils.MetricsRegistry;
+import com.hartwig.hmftools.common.utils.PerformanceCounter;
 import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
 import com.hartwig.hmftools.purple.fitting.PeakModelData;
 import com.hartwig.hmftools.purple.fitting.SomaticPurityFitter;
@@ -146,8 +148,14 @@ public class PurpleApplication
                 if(!mConfig.SampleFiles.hasValidSampleNames(mConfig))
                     System.exit(1);
 
+                PerformanceCounter loadPerf = new PerformanceCounter("LoadSampleData");
+                loadPerf.start();
+
                 final SampleData sampleData = loadSampleData();
 
+                loadPerf.stop();
+                MetricsRegistry.register(loadPerf);
+
                 if(sampleData == null)
                     System.exit(1);
 
@@ -263,8 +271,14 @@ public class PurpleApplication
         {
             PPL_LOGGER.info("fitting purity");
 
+            PerformanceCounter fitPerf = new PerformanceCounter("PurityFit");
+            fitPerf.start();
+
             BestFitFactory bestFitFactory = fitPurity(sampleData, observedRegions, regionFitCalculator, sampleData.SvCache.variants());
 
+            fitPerf.stop();
+            MetricsRegistry.register(fitPerf);
+
             boolean testSomaticFit = bestFitFactory.somaticFit() != null;
             bestFit = bestFitFactory.somaticFit() != null ? bestFitFactory.somaticFit() : bestFitFactory.bestNormalFit();
 
@@ -301,7 +315,7 @@ public class PurpleApplication
             sampleData.SvCache.inferMissingVariant(copyNumbers);
 
             geneCopyNumbers.addAll(GeneCopyNumberBuilder.createGeneCopyNumbers(
-                    mReferenceData.RefGenVersion, mReferenceData.GeneTransCache, copyNumbers));
+                    mReferenceData.RefGenVersion, mReferenceData.GeneTransCache, copyNumbers, mConfig.Threads));
 
             final List<PeakModelData> somaticPeaks = Lists.newArrayList();
 
@@ -319,10 +333,16 @@ public class PurpleApplication
             // if the read and write process were split then so could the fitting and enriching steps
             PPL_LOGGER.info("enriching somatic variants");
 
+            PerformanceCounter somaticPerf = new PerformanceCounter("SomaticEnrichment");
+            somaticPerf.start();
+
             somaticStream = new SomaticStream(mConfig, mReferenceData, somaticCache, somaticPeaks);
 
             somaticStream.processAndWrite(purityAdjuster);
 
+            somaticPerf.stop();
+            MetricsRegistry.register(somaticPerf);
+
             sampleData.SvCache.write(purityAdjuster, copyNumbers, mConfig.tumorOnlyMode());
 
             reportedGenes.addAll(somaticStream.reportedGenes());
@@ -353,9 +373,15 @@ public class PurpleApplication
 
         if(mConfig.runGermline())
         {
+            PerformanceCounter germlinePerf = new PerformanceCounter("GermlineEnrichment");
+            germlinePerf.start();
+
             mGermlineVariants.processAndWrite(
                     referenceId, tumorId, sampleDataFiles.GermlineVcfFile, purityAdjuster, copyNumbers, reportedGenes);
 
+            germlinePerf.stop();
+            MetricsRegistry.register(germlinePerf);
+
             GermlineSvCache germlineSvCache;
 
             if(!sampleDataFiles.GermlineSvVcfFile.isEmpty())
@@ -383,6 +409,9 @@ public class PurpleApplication
         {
             PPL_LOGGER.info("generating charts");
 
+            PerformanceCounter chartPerf = new PerformanceCounter("Charts");
+            chartPerf.start();
+
             try
             {
                 Charts charts = new Charts(mConfig, mExecutorService, mReferenceData.RefGenVersion.is38());
@@ -401,6 +430,9 @@ public class PurpleApplication
                 e.printStackTrace();
                 System.exit(1);
             }
+
+            chartPerf.stop();
+            MetricsRegistry.register(chartPerf);
         }
 
         if(mConfig.RunDrivers)
@@ -417,7 +449,9 @@ public class PurpleApplication
         CobaltChromosomes cobaltChromosomes = sampleData.Cobalt.CobaltChromosomes;
 
         List<SomaticVariant> fittingVariants = !mConfig.tumorOnlyMode() ?
-                SomaticPurityFitter.findFittingVariants(sampleData.SomaticCache.variants(), observedRegions) : Lists.newArrayList();
+                SomaticPurityFitter.findFittingVariants(
+                        sampleData.SomaticCache.variants(), observedRegions, sampleData.SomaticCache.candidateFilter())
+                : Lists.newArrayList();
 
         if(!fittingVariants.isEmpty())
         {
@@ -599,9 +633,12 @@ public class PurpleApplication
         PurpleConfig.addOptions(configBuilder);
 
         addLoggingOptions(configBuilder);
+        MetricsRegistry.addConfig(configBuilder);
 
         configBuilder.checkAndParseCommandLine(args);
 
+        MetricsRegistry.initialise(configBuilder, "Purple");
+
         PurpleApplication purpleApplication = new PurpleApplication(configBuilder);
         purpleApplication.run();
     }
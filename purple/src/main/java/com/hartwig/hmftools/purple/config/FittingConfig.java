@@ -12,6 +12,7 @@ public class FittingConfig
     public final double PurityIncrement;
     public final double MinPloidy;
     public final double MaxPloidy;
+    public final PuritySearchMode SearchMode;
 
     public final int MinDiploidTumorRatioCount;
     public final int MinDiploidTumorRatioCountAtCentromere;
@@ -31,6 +32,7 @@ public class FittingConfig
     private static final String PURITY_INCREMENT = "purity_increment";
     private static final String MIN_PLOIDY = "min_ploidy";
     private static final String MAX_PLOIDY = "max_ploidy";
+    private static final String PURITY_SEARCH_MODE = "purity_search_mode";
     private static final String MIN_DIPLOID_TUMOR_RATIO_COUNT = "min_diploid_tumor_ratio_count";
     private static final String MIN_DIPLOID_TUMOR_RATIO_COUNT_AT_CENTROMERE = "min_diploid_tumor_ratio_count_centromere";
 
@@ -68,6 +70,7 @@ public class FittingConfig
         PurityIncrement = configBuilder.getDecimal(PURITY_INCREMENT);
         MinPloidy = configBuilder.getDecimal(MIN_PLOIDY);
         MaxPloidy = configBuilder.getDecimal(MAX_PLOIDY);
+        SearchMode = PuritySearchMode.valueOf(configBuilder.getValue(PURITY_SEARCH_MODE));
 
         MinDiploidTumorRatioCount = configBuilder.getInteger(MIN_DIPLOID_TUMOR_RATIO_COUNT);
 
@@ -94,6 +97,10 @@ public class FittingConfig
         configBuilder.addDecimal(MIN_PLOIDY, "Minimum ploidy", MIN_PLOIDY_DEFAULT);
         configBuilder.addDecimal(MAX_PLOIDY, "Maximum ploidy", MAX_PLOIDY_DEFAULT);
 
+        configBuilder.addConfigItem(
+                PURITY_SEARCH_MODE, false, "Purity and ploidy search: EXHAUSTIVE, ADAPTIVE or VERIFY (adaptive checked against exhaustive)",
+                PuritySearchMode.EXHAUSTIVE.toString());
+
         configBuilder.addInteger(
                 MIN_DIPLOID_TUMOR_RATIO_COUNT,
                 "Minimum ratio count while smoothing before diploid regions become suspect",
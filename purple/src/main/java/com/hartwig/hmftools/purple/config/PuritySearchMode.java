@@ -0,0 +1,8 @@
+package com.hartwig.hmftools.purple.config;
+
+public enum PuritySearchMode
+{
+    EXHAUSTIVE, // every purity and ploidy combination is scored
+    ADAPTIVE, // a coarse grid is scored, then refined around its best-scoring basins
+    VERIFY; // the adaptive search is checked against the exhaustive one, whose results are used if they differ
+}
@@ -202,7 +202,7 @@ public class BestFitFactory
         return purities.stream().filter(inRangeOfLowest(lowestScore)).collect(toList());
     }
 
-    private static Predicate<FittedPurity> inRangeOfLowest(final double score)
+    public static Predicate<FittedPurity> inRangeOfLowest(final double score)
     {
         return fittedPurity ->
         {
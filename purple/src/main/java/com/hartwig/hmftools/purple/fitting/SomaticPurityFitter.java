@@ -56,7 +56,7 @@ public class SomaticPurityFitter
         mMaxPurity = maxPurity;
     }
 
-    private enum FilterReason
+    public enum FilterReason
     {
         FILTERED,
         NON_SNV,
@@ -69,35 +69,62 @@ public class SomaticPurityFitter
         MAPPABILITY;
     }
 
-    public static List<SomaticVariant> findFittingVariants(final List<SomaticVariant> variants, final List<ObservedRegion> observedRegions)
+    // applies the fitting checks which don't depend on copy number regions, so streamed variants can be screened as they're loaded
+    public static class CandidateFilter
     {
-        List<SomaticVariant> fittingVariants = Lists.newArrayList();
+        private final CompoundFilter mFilter;
+        private final int[] mFilterCounts;
+        private int mTestedCount;
 
-        CompoundFilter filter = new CompoundFilter(true);
-        filter.add(new SGTFilter());
-        filter.add(new HumanChromosomeFilter());
-        filter.add(new NTFilter());
+        public CandidateFilter()
+        {
+            mFilter = new CompoundFilter(true);
+            mFilter.add(new SGTFilter());
+            mFilter.add(new HumanChromosomeFilter());
+            mFilter.add(new NTFilter());
 
-        GenomeRegionSelector<ObservedRegion> observedRegionSelector = GenomeRegionSelectorFactory.createImproved(
-                Multimaps.fromRegions(observedRegions));
+            mFilterCounts = new int[FilterReason.values().length];
+            mTestedCount = 0;
+        }
 
-        final int[] filterCounts = new int[FilterReason.values().length];
+        public int testedCount() { return mTestedCount; }
+        public int filterCount(final FilterReason reason) { return mFilterCounts[reason.ordinal()]; }
 
-        for(SomaticVariant variant : variants)
+        public boolean test(final SomaticVariant variant)
         {
+            ++mTestedCount;
+
             if(variant.type() != VariantType.SNP)
             {
-                ++filterCounts[FilterReason.NON_SNV.ordinal()];
-                continue;
+                ++mFilterCounts[FilterReason.NON_SNV.ordinal()];
+                return false;
             }
 
-            if(!variant.isPass() || !filter.test(variant.context()))
+            if(!variant.isPass() || !mFilter.test(variant.context()))
             {
-                ++filterCounts[FilterReason.FILTERED.ordinal()];
-                continue;
+                ++mFilterCounts[FilterReason.FILTERED.ordinal()];
+                return false;
             }
 
-            if(!isFittingCandidate(variant, filterCounts))
+            return isFittingCandidate(variant, mFilterCounts);
+        }
+    }
+
+    // the candidate filter carries the counts of any variants already screened as they were loaded
+    public static List<SomaticVariant> findFittingVariants(
+            final List<SomaticVariant> variants, final List<ObservedRegion> observedRegions, final CandidateFilter candidateFilter)
+    {
+        List<SomaticVariant> fittingVariants = Lists.newArrayList();
+
+        GenomeRegionSelector<ObservedRegion> observedRegionSelector = GenomeRegionSelectorFactory.createImproved(
+                Multimaps.fromRegions(observedRegions));
+
+        final int[] filterCounts = candidateFilter.mFilterCounts;
+
+        for(SomaticVariant variant : variants)
+        {
+            // variants retained without their context have already passed the candidate filter on load
+            if(variant.hasContext() && !candidateFilter.test(variant))
                 continue;
 
             Optional<ObservedRegion> region = observedRegionSelector.select(variant);
@@ -126,7 +153,7 @@ public class SomaticPurityFitter
             filterCountsStr.add(format("%s=%d", reason, filterCounts[reason.ordinal()]));
         }
 
-        PPL_LOGGER.debug("variants({}) fitting({}) filters: {}", variants.size(), fittingVariants.size(), filterCountsStr);
+        PPL_LOGGER.debug("variants({}) fitting({}) filters: {}", candidateFilter.testedCount(), fittingVariants.size(), filterCountsStr);
 
         return fittingVariants;
     }
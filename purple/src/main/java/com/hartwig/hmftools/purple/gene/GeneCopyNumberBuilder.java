@@ -2,10 +2,15 @@ package com.hartwig.hmftools.purple.gene;
 
 import static java.lang.Math.min;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.annotations.VisibleForTesting;
 import com.hartwig.hmftools.common.ensemblcache.EnsemblDataCache;
 import com.hartwig.hmftools.common.gene.ExonData;
 import com.hartwig.hmftools.common.gene.GeneData;
@@ -18,6 +23,7 @@ import com.hartwig.hmftools.common.purple.ImmutableGeneCopyNumber;
 import com.hartwig.hmftools.common.purple.PurpleCopyNumber;
 import com.hartwig.hmftools.common.purple.SegmentSupport;
 import com.hartwig.hmftools.common.utils.Doubles;
+import com.hartwig.hmftools.common.utils.TaskExecutor;
 
 public class GeneCopyNumberBuilder
 {
@@ -33,8 +39,6 @@ public class GeneCopyNumberBuilder
     private PurpleCopyNumber mPrevious;
 
     private double mPreviousCopyNumber;
-    private ExonData mExon;
-    private PurpleCopyNumber mCopyNumber;
 
     private int mMinRegions;
     private int mMinRegionStart;
@@ -47,7 +51,17 @@ public class GeneCopyNumberBuilder
     public static List<GeneCopyNumber> createGeneCopyNumbers(
             final RefGenomeVersion refGenomeVersion, final EnsemblDataCache geneTransCache, final List<PurpleCopyNumber> copyNumbers)
     {
-        final List<GeneCopyNumber> result = Lists.newArrayList();
+        return createGeneCopyNumbers(refGenomeVersion, geneTransCache, copyNumbers, 1);
+    }
+
+    public static List<GeneCopyNumber> createGeneCopyNumbers(
+            final RefGenomeVersion refGenomeVersion, final EnsemblDataCache geneTransCache, final List<PurpleCopyNumber> copyNumbers,
+            int threads)
+    {
+        final Map<String,List<PurpleCopyNumber>> chrCopyNumbers = Maps.newHashMap();
+        copyNumbers.forEach(x -> chrCopyNumbers.computeIfAbsent(x.chromosome(), k -> Lists.newArrayList()).add(x));
+
+        final List<ChromosomeGeneCopyNumbers> chromosomeTasks = Lists.newArrayList();
 
         for(HumanChromosome chromosome : HumanChromosome.values())
         {
@@ -55,25 +69,60 @@ public class GeneCopyNumberBuilder
 
             List<GeneData> geneDataList = geneTransCache.getChrGeneDataMap().get(chrString);
 
-            List<PurpleCopyNumber> chromosomeCopyNumbers = copyNumbers.stream()
-                    .filter(x -> x.chromosome().equals(chrString)).collect(Collectors.toList());
+            if(geneDataList == null)
+                continue;
+
+            chromosomeTasks.add(new ChromosomeGeneCopyNumbers(
+                    geneTransCache, geneDataList, chrCopyNumbers.getOrDefault(chrString, Collections.emptyList())));
+        }
 
-            for(GeneData geneData : geneDataList)
+        final List<Callable> callableList = chromosomeTasks.stream().collect(Collectors.toList());
+        TaskExecutor.executeTasks(callableList, threads);
+
+        // combine in chromosome order so the output matches a sequential run
+        final List<GeneCopyNumber> result = Lists.newArrayList();
+        chromosomeTasks.forEach(x -> result.addAll(x.geneCopyNumbers()));
+
+        return result;
+    }
+
+    private static class ChromosomeGeneCopyNumbers implements Callable
+    {
+        private final EnsemblDataCache mGeneTransCache;
+        private final List<GeneData> mGeneDataList;
+        private final List<PurpleCopyNumber> mCopyNumbers;
+        private final List<GeneCopyNumber> mGeneCopyNumbers;
+
+        public ChromosomeGeneCopyNumbers(
+                final EnsemblDataCache geneTransCache, final List<GeneData> geneDataList, final List<PurpleCopyNumber> copyNumbers)
+        {
+            mGeneTransCache = geneTransCache;
+            mGeneDataList = geneDataList;
+            mCopyNumbers = copyNumbers;
+            mGeneCopyNumbers = Lists.newArrayList();
+        }
+
+        public List<GeneCopyNumber> geneCopyNumbers() { return mGeneCopyNumbers; }
+
+        @Override
+        public Long call()
+        {
+            for(GeneData geneData : mGeneDataList)
             {
-                List<TranscriptData> transDataList = geneTransCache.getTranscripts(geneData.GeneId);
+                List<TranscriptData> transDataList = mGeneTransCache.getTranscripts(geneData.GeneId);
 
                 for(TranscriptData tranData : transDataList)
                 {
-                    final GeneCopyNumberBuilder builder = new GeneCopyNumberBuilder(geneData, tranData, chromosomeCopyNumbers);
-                    GeneCopyNumber geneCopyNumber2 = builder.create();
+                    final GeneCopyNumberBuilder builder = new GeneCopyNumberBuilder(geneData, tranData, mCopyNumbers);
+                    GeneCopyNumber geneCopyNumber = builder.create();
 
-                    if(geneCopyNumber2.totalRegions() > 0)
-                        result.add(geneCopyNumber2);
+                    if(geneCopyNumber.totalRegions() > 0)
+                        mGeneCopyNumbers.add(geneCopyNumber);
                 }
             }
-        }
 
-        return result;
+            return (long)0;
+        }
     }
 
     public GeneCopyNumberBuilder(final GeneData geneData, final TranscriptData transData, final List<PurpleCopyNumber> copyNumbers)
@@ -89,8 +138,6 @@ public class GeneCopyNumberBuilder
         mPrevious = null;
 
         mPreviousCopyNumber = -Double.MAX_VALUE;
-        mExon = null;
-        mCopyNumber = null;
 
         mMinRegions = 0;
         mMinRegionStart = 0;
@@ -117,26 +164,69 @@ public class GeneCopyNumberBuilder
 
     public GeneCopyNumber create()
     {
-        int cnIndex = 0;
-        int exonIndex = 0;
+        // sweep forward over the exons and only the copy number regions around them, visiting each exon's overlapping regions
+        // in the same order as zipping the full sorted lists did: first the region containing the exon's start, then any
+        // starting within the exon before the next exon begins
+        final List<ExonData> exons = mTransData.exons();
 
-        while(cnIndex < mCopyNumbers.size() || exonIndex < mTransData.exons().size())
+        int cnIndex = exons.isEmpty() ? -1 : lastRegionStartingBy(exons.get(0).Start);
+
+        for(int exonIndex = 0; exonIndex < exons.size(); ++exonIndex)
         {
-            PurpleCopyNumber copyNumber = cnIndex < mCopyNumbers.size() ? mCopyNumbers.get(cnIndex) : null;
-            ExonData exonData = exonIndex < mTransData.exons().size() ? mTransData.exons().get(exonIndex) : null;
+            ExonData exon = exons.get(exonIndex);
 
-            if(copyNumber == null || (exonData != null && exonData.Start < copyNumber.start()))
+            while(cnIndex < mCopyNumbers.size() - 1 && mCopyNumbers.get(cnIndex + 1).start() <= exon.Start)
             {
-                handleExon(exonData);
-                ++exonIndex;
+                ++cnIndex;
+            }
+
+            if(cnIndex >= 0)
+                addOverlap(exon, mCopyNumbers.get(cnIndex));
+
+            int nextExonStart = exonIndex < exons.size() - 1 ? exons.get(exonIndex + 1).Start : Integer.MAX_VALUE;
+
+            for(int i = cnIndex + 1; i < mCopyNumbers.size(); ++i)
+            {
+                PurpleCopyNumber copyNumber = mCopyNumbers.get(i);
+
+                if(copyNumber.start() > exon.End || copyNumber.start() > nextExonStart)
+                    break;
+
+                addOverlap(exon, copyNumber);
+            }
+        }
+
+        return buildGeneCopyNumber();
+    }
+
+    private int lastRegionStartingBy(int position)
+    {
+        // binary search for the last region starting at or before the position, or -1 if none do
+        int low = 0;
+        int high = mCopyNumbers.size() - 1;
+        int index = -1;
+
+        while(low <= high)
+        {
+            int mid = (low + high) >>> 1;
+
+            if(mCopyNumbers.get(mid).start() <= position)
+            {
+                index = mid;
+                low = mid + 1;
             }
             else
             {
-                handleCopyNumber(copyNumber);
-                ++cnIndex;
+                high = mid - 1;
             }
         }
 
+        return index;
+    }
+
+    @VisibleForTesting
+    GeneCopyNumber buildGeneCopyNumber()
+    {
         return mBuilder.maxCopyNumber(mMaxCopyNumber)
                 .minRegionStartSupport(mMinRegionStartSupport)
                 .minRegionEndSupport(mMinRegionEndSupport)
@@ -151,25 +241,8 @@ public class GeneCopyNumberBuilder
                 .build();
     }
 
-    private void handleCopyNumber(final PurpleCopyNumber copyNumber)
-    {
-        mCopyNumber = copyNumber;
-        if(mExon != null)
-        {
-            addOverlap(mExon, this.mCopyNumber);
-        }
-    }
-
-    private void handleExon(final ExonData exon)
-    {
-        mExon = exon;
-        if(mCopyNumber != null)
-        {
-            addOverlap(mExon, mCopyNumber);
-        }
-    }
-
-    private void addOverlap(final ExonData exon, final PurpleCopyNumber copyNumber)
+    @VisibleForTesting
+    void addOverlap(final ExonData exon, final PurpleCopyNumber copyNumber)
     {
         int minEnd = min(exon.End, copyNumber.end());
         int maxStart = Math.max(exon.Start, copyNumber.start());
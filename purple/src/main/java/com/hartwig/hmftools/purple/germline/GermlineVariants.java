@@ -104,7 +104,8 @@ public class GermlineVariants
 
         final String outputVCF = PurpleCommon.purpleGermlineVcfFile(mConfig.OutputDir, tumorSample);
 
-        loadGermlineVariants(germlineVcf, false);
+        if(!mConfig.StreamVariants)
+            loadGermlineVariants(germlineVcf, false);
 
         VCFFileReader vcfReader = new VCFFileReader(new File(germlineVcf), false);
 
@@ -119,14 +120,48 @@ public class GermlineVariants
         VCFHeader header = enrichment.enrichHeader(vcfReader.getFileHeader());
         writer.writeHeader(header);
 
-        for(GermlineVariant variant : mVariants)
+        if(mConfig.StreamVariants)
+        {
+            // reportable status only depends on other variants in the same gene, so each chromosome can be enriched and written in turn
+            List<GermlineVariant> chromosomeVariants = Lists.newArrayList();
+            int variantCount = 0;
+
+            for(VariantContext context : vcfReader)
+            {
+                if(!chromosomeVariants.isEmpty() && !chromosomeVariants.get(0).chromosome().equals(context.getContig()))
+                {
+                    enrichAndWrite(chromosomeVariants, enrichment, writer);
+                    chromosomeVariants.clear();
+                }
+
+                chromosomeVariants.add(new GermlineVariant(context));
+                ++variantCount;
+            }
+
+            enrichAndWrite(chromosomeVariants, enrichment, writer);
+
+            PPL_LOGGER.info("streamed {} germline variants from {}", variantCount, germlineVcf);
+        }
+        else
+        {
+            enrichAndWrite(mVariants, enrichment, writer);
+        }
+
+        vcfReader.close();
+        writer.close();
+    }
+
+    private void enrichAndWrite(
+            final List<GermlineVariant> variants, final GermlineVariantEnrichment enrichment, final VariantContextWriter writer)
+    {
+        for(GermlineVariant variant : variants)
         {
             enrichment.enrichVariant(variant);
         }
 
         enrichment.flush();
 
-        for(GermlineVariant variant : mVariants)
+        for(GermlineVariant variant : variants)
         {
             VariantContext newContext = new VariantContextBuilder(variant.context()).filters(variant.filters()).make();
 
@@ -135,7 +170,5 @@ public class GermlineVariants
 
             writer.add(newContext);
         }
-
-        writer.close();
     }
 }
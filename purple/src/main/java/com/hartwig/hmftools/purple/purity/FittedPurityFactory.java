@@ -7,13 +7,9 @@ import static com.hartwig.hmftools.common.utils.Doubles.positiveOrZero;
 import static com.hartwig.hmftools.purple.PurpleUtils.PPL_LOGGER;
 
 import java.util.Collection;
-import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.Lists;
@@ -23,24 +19,21 @@ import com.hartwig.hmftools.common.genome.position.GenomePositionSelector;
 import com.hartwig.hmftools.common.genome.position.GenomePositionSelectorFactory;
 import com.hartwig.hmftools.common.purple.FittedPurity;
 import com.hartwig.hmftools.common.purple.GermlineStatus;
-import com.hartwig.hmftools.common.purple.ImmutableFittedPurity;
 import com.hartwig.hmftools.purple.config.FittingConfig;
 import com.hartwig.hmftools.purple.config.PurpleConfig;
+import com.hartwig.hmftools.purple.config.PuritySearchMode;
 import com.hartwig.hmftools.purple.region.ObservedRegion;
 import com.hartwig.hmftools.common.utils.Doubles;
 import com.hartwig.hmftools.common.utils.collection.Downsample;
+import com.hartwig.hmftools.common.variant.AllelicDepth;
 import com.hartwig.hmftools.purple.somatic.SomaticVariant;
 
 public class FittedPurityFactory
 {
     private final PurpleConfig mConfig;
-    private final double mSomaticPenaltyWeight;
-    private final Map<String,Double> mObservedRatioMap;
-
-    private final int mTotalBAFCount;
     private final double mAverageFittingRatio;
 
-    private final RegionFitCalculator mRegionFitCalculator;
+    private final RegionFitKernel mRegionFitKernel;
     private final ExecutorService mExecutorService;
 
     private final List<FittedPurity> mFittedPurities;
@@ -57,12 +50,6 @@ public class FittedPurityFactory
         mConfig = config;
         mExecutorService = executorService;
 
-        mSomaticPenaltyWeight = config.SomaticFitting.SomaticPenaltyWeight;
-
-        mRegionFitCalculator = regionFitCalculator;
-        mObservedRatioMap = cobaltChromosomes.chromosomes().stream()
-                .collect(Collectors.toMap(CobaltChromosome::contig, CobaltChromosome::actualRatio));
-
         mPloidyRange = ploidyRange(mConfig.Fitting.MinPloidy, mConfig.Fitting.MaxPloidy);
 
         mFittedPurities = Lists.newArrayList();
@@ -89,7 +76,6 @@ public class FittedPurityFactory
             }
         }
 
-        mTotalBAFCount = accumulatedBafCount;
         mAverageFittingRatio = accumulatedWeightedRatio / accumulatedBafCount;
 
         List<SomaticVariant> downsampleVariants = Downsample.downsample(MAX_SOMATICS_TO_FIT, filteredVariants);
@@ -101,6 +87,16 @@ public class FittedPurityFactory
         {
             filteredVariantSelector.select(regionData.Region, regionData::addVariant);
         }
+
+        // pack the regions and their variants' depths for repeated scoring
+        List<ObservedRegion> fitRegions = mFilteredObservedRegions.stream().map(x -> x.Region).collect(Collectors.toList());
+
+        List<List<AllelicDepth>> fitVariantDepths = mFilteredObservedRegions.stream()
+                .map(x -> x.Variants.stream().map(SomaticVariant::tumorAlleleDepth).collect(Collectors.toList()))
+                .collect(Collectors.toList());
+
+        mRegionFitKernel = new RegionFitKernel(
+                regionFitCalculator, fitRegions, fitVariantDepths, config.SomaticFitting.SomaticPenaltyWeight);
     }
 
     public List<FittedPurity> getFittedPurities() { return mFittedPurities; }
@@ -109,104 +105,39 @@ public class FittedPurityFactory
     {
         FittingConfig config = mConfig.Fitting;
 
-        if(mConfig.Threads <= 1)
+        List<Double> purities = Lists.newArrayList();
+
+        for(double purity = config.MinPurity; lessOrEqual(purity, config.MaxPurity); purity += config.PurityIncrement)
         {
-            for(double purity = config.MinPurity; lessOrEqual(purity, config.MaxPurity); purity += config.PurityIncrement)
-            {
-                mFittedPurities.addAll(fitPurity(purity));
-            }
+            purities.add(purity);
         }
-        else
-        {
-            final List<Future<List<FittedPurity>>> futures = Lists.newArrayList();
-            for(double purity = config.MinPurity; lessOrEqual(purity, config.MaxPurity); purity += config.PurityIncrement)
-            {
-                futures.add(mExecutorService.submit(callableFitPurity(purity)));
-            }
 
-            for(Future<List<FittedPurity>> future : futures)
-            {
-                List<FittedPurity> fittedPurities = future.get();
+        PurityPloidySearch search = new PurityPloidySearch(
+                purities, mPloidyRange, this::fitPurity, mConfig.Threads > 1 ? mExecutorService : null);
 
-                if(!fittedPurities.isEmpty())
-                {
-                    mFittedPurities.addAll(fittedPurities);
-                }
-            }
-        }
+        mFittedPurities.addAll(search.search(config.SearchMode));
 
-        Collections.sort(mFittedPurities);
-    }
+        if(config.SearchMode != PuritySearchMode.EXHAUSTIVE)
+        {
+            int adaptiveCells = search.adaptiveCellCount();
+            int totalCells = search.totalCellCount();
+            int regionCount = mFilteredObservedRegions.size();
 
-    private Callable<List<FittedPurity>> callableFitPurity(final double purity)
-    {
-        return () -> fitPurity(purity);
+            PPL_LOGGER.info(format("adaptive purity search scored %d of %d fits, region fit calls(%d vs %d exhaustive) saving(%.1f%%)",
+                    adaptiveCells, totalCells, (long)adaptiveCells * regionCount, (long)totalCells * regionCount,
+                    100.0 * (totalCells - adaptiveCells) / totalCells));
+        }
     }
 
-    private List<FittedPurity> fitPurity(final double purity)
+    private FittedPurity fitPurity(final double purity, final double ploidy)
     {
-        final List<FittedPurity> fittedPurities = Lists.newArrayList();
-        for(Double ploidy : mPloidyRange)
-        {
-            double impliedNormFactor = PurityAdjuster.impliedNormFactor(mAverageFittingRatio, purity, ploidy);
-            fittedPurities.add(fitPurity(purity, impliedNormFactor));
-        }
-
-        return fittedPurities;
+        double impliedNormFactor = PurityAdjuster.impliedNormFactor(mAverageFittingRatio, purity, ploidy);
+        return fitPurityNormFactor(purity, impliedNormFactor);
     }
 
-    private FittedPurity fitPurity(final double purity, final double normFactor)
+    private FittedPurity fitPurityNormFactor(final double purity, final double normFactor)
     {
-        ImmutableFittedPurity.Builder builder = ImmutableFittedPurity.builder().purity(purity).normFactor(normFactor);
-        double eventPenalty = 0;
-        double deviationPenalty = 0;
-        double diploidProportion = 0;
-        double averagePloidy = 0;
-
-        double somaticPenaltyTotal = 0;
-        int somaticVariantCount = 0;
-        final SomaticDeviation somaticDeviation = SomaticDeviation.INSTANCE;
-        PurityAdjuster purityAdjuster = new PurityAdjuster(mObservedRatioMap, purity, normFactor);
-
-        for(ObservedRegionData regionData : mFilteredObservedRegions)
-        {
-            ObservedRegion region = regionData.Region;
-            RegionFitCalcs regionFitCalcs = mRegionFitCalculator.calculateRegionFit(purity, normFactor, region);
-
-            int bafCount = region.bafCount();
-            eventPenalty += weightWithBaf(regionFitCalcs.EventPenalty, bafCount);
-            deviationPenalty += weightWithBaf(regionFitCalcs.DeviationPenalty, bafCount);
-            averagePloidy += weightWithBaf(regionFitCalcs.TumorCopyNumber, bafCount);
-
-            if(regionFitCalcs.isDiploid())
-            {
-                diploidProportion += weightWithBaf(1, bafCount);
-            }
-
-            for(SomaticVariant variant : regionData.Variants)
-            {
-                ++somaticVariantCount;
-
-                double variantPenalty = somaticDeviation.deviationFromMax(
-                        purityAdjuster, region.chromosome(), regionFitCalcs.majorAlleleCopyNumber(), regionFitCalcs.TumorCopyNumber, variant);
-
-                somaticPenaltyTotal += mSomaticPenaltyWeight * variantPenalty;
-            }
-
-            /*
-            PPL_LOGGER.trace(format("region(%s:%d-%d) fit(purity=%.2f norm=%.4f) somaticPenTotal(%.4f) devPen(%.4f) eventPen(%.4f) avgPloidy(%.4f)",
-                    region.chromosome(), region.start(), region.end(),
-                    purity, normFactor, somaticPenaltyTotal, deviationPenalty, eventPenalty, averagePloidy));
-            */
-        }
-
-        double somaticPenalty = mSomaticPenaltyWeight > 0 && somaticVariantCount > 0 ? somaticPenaltyTotal / somaticVariantCount : 0;
-
-        return builder.score(eventPenalty * deviationPenalty + somaticPenalty)
-                .diploidProportion(diploidProportion)
-                .ploidy(averagePloidy)
-                .somaticPenalty(somaticPenalty)
-                .build();
+        return mRegionFitKernel.fit(purity, normFactor);
     }
 
     public static RegionFitCalculator createFittedRegionFactory(
@@ -239,11 +170,6 @@ public class FittedPurityFactory
         return chromosome.isNormal() && chromosome.isDiploid();
     }
 
-    private double weightWithBaf(double value, int bafCount)
-    {
-        return 1d * value * bafCount / mTotalBAFCount;
-    }
-
     protected static List<Double> ploidyRange(double minPloidy, double maxPloidy)
     {
         List<Double> results = Lists.newArrayList();
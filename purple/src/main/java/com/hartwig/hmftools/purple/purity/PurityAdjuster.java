@@ -62,7 +62,12 @@ public class PurityAdjuster
 
     public double purityAdjustedCopyNumber(final double tumorRatio, final double normalRatio)
     {
-        return Doubles.isZero(tumorRatio) ? 0 : 2 * normalRatio + 2 * (tumorRatio - normalRatio * mNormFactor) / mPurity / mNormFactor;
+        return purityAdjustedCopyNumber(mPurity, mNormFactor, tumorRatio, normalRatio);
+    }
+
+    public static double purityAdjustedCopyNumber(double purity, double normFactor, double tumorRatio, double normalRatio)
+    {
+        return Doubles.isZero(tumorRatio) ? 0 : 2 * normalRatio + 2 * (tumorRatio - normalRatio * normFactor) / purity / normFactor;
     }
 
     public double purityAdjustedVAF(final String chromosome, final double copyNumber, final double observedFrequency)
@@ -79,12 +84,16 @@ public class PurityAdjuster
 
     public double purityAdjustedBAFSimple(final String chromosome, final double copyNumber, final double observedFrequency)
     {
-        double typicalCopyNumber = germlineCopyNumber(chromosome);
+        return purityAdjustedBAFSimple(mPurity, germlineCopyNumber(chromosome), copyNumber, observedFrequency);
+    }
+
+    public static double purityAdjustedBAFSimple(double purity, double typicalCopyNumber, double copyNumber, double observedFrequency)
+    {
         if(typicalCopyNumber < 2 || Doubles.lessOrEqual(copyNumber, 1))
         {
             return 1;
         }
-        return purityAdjustedFrequency(2, 1, copyNumber, observedFrequency);
+        return purityAdjustedPloidy(purity, 2, 1, copyNumber, observedFrequency) / copyNumber;
     }
 
     private double germlineRatio(final String chromosome)
@@ -101,22 +110,34 @@ public class PurityAdjuster
     public double purityAdjustedPloidy(final double normalCopyNumber, final double normalPloidy, final double tumorCopyNumber,
             final double observedFrequency)
     {
-        double totalObservations = mPurity * tumorCopyNumber + normalCopyNumber * (1 - mPurity);
-        double normalObservations = normalPloidy * (1 - mPurity);
-        return (observedFrequency * totalObservations - normalObservations) / mPurity;
+        return purityAdjustedPloidy(mPurity, normalCopyNumber, normalPloidy, tumorCopyNumber, observedFrequency);
+    }
+
+    public static double purityAdjustedPloidy(
+            double purity, double normalCopyNumber, double normalPloidy, double tumorCopyNumber, double observedFrequency)
+    {
+        double totalObservations = purity * tumorCopyNumber + normalCopyNumber * (1 - purity);
+        double normalObservations = normalPloidy * (1 - purity);
+        return (observedFrequency * totalObservations - normalObservations) / purity;
     }
 
     public double expectedFrequency(final double normalCopyNumber, final int normalPloidy, final double tumorCopyNumber,
             final double tumorPloidy)
+    {
+        return expectedFrequency(mPurity, normalCopyNumber, normalPloidy, tumorCopyNumber, tumorPloidy);
+    }
+
+    public static double expectedFrequency(
+            double purity, double normalCopyNumber, int normalPloidy, double tumorCopyNumber, double tumorPloidy)
     {
         if(Doubles.lessOrEqual(tumorCopyNumber, 0))
         {
             return 0;
         }
 
-        double totalObservations = mPurity * tumorCopyNumber + normalCopyNumber * (1 - mPurity);
-        double normalObservations = normalPloidy * (1 - mPurity);
-        double tumorObservations = tumorPloidy * mPurity;
+        double totalObservations = purity * tumorCopyNumber + normalCopyNumber * (1 - purity);
+        double normalObservations = normalPloidy * (1 - purity);
+        double tumorObservations = tumorPloidy * purity;
 
         return (normalObservations + tumorObservations) / totalObservations;
     }
@@ -0,0 +1,457 @@
+package com.hartwig.hmftools.purple.purity;
+
+import static java.lang.Math.abs;
+import static java.lang.String.format;
+
+import static com.hartwig.hmftools.purple.PurpleUtils.PPL_LOGGER;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.purple.BestFit;
+import com.hartwig.hmftools.common.purple.FittedPurity;
+import com.hartwig.hmftools.purple.config.PuritySearchMode;
+import com.hartwig.hmftools.purple.fitting.BestFitFactory;
+
+import org.jetbrains.annotations.Nullable;
+
+// scores a grid of purity and ploidy combinations, either exhaustively or adaptively: a coarse grid is scored first, then each
+// basin close to the best score is refined at the configured increments and expanded until its edges score clearly worse
+public class PurityPloidySearch
+{
+    public interface CellFitter
+    {
+        FittedPurity fit(double purity, double ploidy);
+    }
+
+    private final List<Double> mPurities;
+    private final List<Double> mPloidies;
+    private final CellFitter mCellFitter;
+    @Nullable
+    private final ExecutorService mExecutorService;
+
+    private final FittedPurity[][] mGrid;
+    private int mAdaptiveCellCount;
+    private int mEvaluatedCellCount;
+
+    // coarse grid spacing in purity and ploidy steps
+    protected static final int COARSE_STEP = 5;
+
+    // the number of coarse basins refined regardless of their score
+    protected static final int COARSE_BASIN_COUNT = 5;
+
+    // cells scoring within this range of the best have their neighbours scored, set wider than the best-fit candidate range
+    private static final double REFINE_PERCENT_RANGE = 0.25;
+    private static final double REFINE_ABS_RANGE = 0.002;
+
+    private static final double DIPLOID_PLOIDY = 2;
+
+    public PurityPloidySearch(
+            final List<Double> purities, final List<Double> ploidies, final CellFitter cellFitter,
+            @Nullable final ExecutorService executorService)
+    {
+        mPurities = purities;
+        mPloidies = ploidies;
+        mCellFitter = cellFitter;
+        mExecutorService = executorService;
+
+        mGrid = new FittedPurity[purities.size()][ploidies.size()];
+        mAdaptiveCellCount = 0;
+        mEvaluatedCellCount = 0;
+    }
+
+    public int totalCellCount() { return mPurities.size() * mPloidies.size(); }
+    public int evaluatedCellCount() { return mEvaluatedCellCount; }
+    public int adaptiveCellCount() { return mAdaptiveCellCount; }
+
+    public List<FittedPurity> search(final PuritySearchMode mode) throws ExecutionException, InterruptedException
+    {
+        if(mode == PuritySearchMode.EXHAUSTIVE)
+        {
+            evaluateAll();
+            return evaluatedFits();
+        }
+
+        searchAdaptive();
+        mAdaptiveCellCount = mEvaluatedCellCount;
+
+        List<FittedPurity> adaptiveFits = evaluatedFits();
+
+        if(mode == PuritySearchMode.ADAPTIVE)
+            return adaptiveFits;
+
+        evaluateAll();
+        List<FittedPurity> exhaustiveFits = evaluatedFits();
+
+        String mismatch = compareFits(adaptiveFits, exhaustiveFits);
+
+        if(mismatch != null)
+        {
+            PPL_LOGGER.warn("adaptive purity search differs from exhaustive search: {}, using exhaustive results", mismatch);
+            return exhaustiveFits;
+        }
+
+        PPL_LOGGER.info("adaptive purity search matches exhaustive search");
+        return adaptiveFits;
+    }
+
+    private void searchAdaptive() throws ExecutionException, InterruptedException
+    {
+        int purityCount = mPurities.size();
+        int ploidyCount = mPloidies.size();
+
+        // coarse grid, always including the last purity and ploidy
+        List<int[]> coarseCells = Lists.newArrayList();
+
+        for(int i = 0; i < purityCount; ++i)
+        {
+            if(!onCoarseGrid(i, purityCount))
+                continue;
+
+            for(int j = 0; j < ploidyCount; ++j)
+            {
+                if(onCoarseGrid(j, ploidyCount))
+                    coarseCells.add(new int[] { i, j });
+            }
+        }
+
+        evaluate(coarseCells);
+
+        // refine the best coarse basins at full resolution, covering the gaps to the neighbouring coarse cells
+        Predicate<FittedPurity> inRefineRange = inRefineRange(lowestScore());
+        coarseCells.sort((first, second) -> Double.compare(cell(first).score(), cell(second).score()));
+
+        boolean[][] pending = new boolean[purityCount][ploidyCount];
+        int basinCount = 0;
+
+        for(int[] coarseCell : coarseCells)
+        {
+            boolean inRange = inRefineRange.test(cell(coarseCell));
+
+            if(!inRange && (basinCount >= COARSE_BASIN_COUNT || !isCoarseLocalMinimum(coarseCell)))
+                continue;
+
+            ++basinCount;
+            addNeighbours(pending, coarseCell[0], coarseCell[1], COARSE_STEP - 1);
+        }
+
+        evaluate(pendingCells(pending));
+
+        // expand the refined basins until every cell within range of the best score has all its neighbours scored
+        while(true)
+        {
+            inRefineRange = inRefineRange(lowestScore());
+            pending = new boolean[purityCount][ploidyCount];
+
+            for(int i = 0; i < purityCount; ++i)
+            {
+                for(int j = 0; j < ploidyCount; ++j)
+                {
+                    if(mGrid[i][j] != null && inRefineRange.test(mGrid[i][j]))
+                        addNeighbours(pending, i, j, 1);
+                }
+            }
+
+            List<int[]> cells = pendingCells(pending);
+
+            if(cells.isEmpty())
+                break;
+
+            evaluate(cells);
+        }
+
+        // the fitted ploidy rises with the candidate ploidy, so the fit closest to diploid for each purity is found by
+        // walking from the diploid candidate towards it
+        if(mExecutorService == null)
+        {
+            for(int i = 0; i < purityCount; ++i)
+            {
+                mEvaluatedCellCount += searchClosestToDiploid(i);
+            }
+
+            return;
+        }
+
+        List<Callable<Integer>> diploidSearches = Lists.newArrayList();
+
+        for(int i = 0; i < purityCount; ++i)
+        {
+            int purityIndex = i;
+            diploidSearches.add(() -> searchClosestToDiploid(purityIndex));
+        }
+
+        for(Future<Integer> future : mExecutorService.invokeAll(diploidSearches))
+        {
+            mEvaluatedCellCount += future.get();
+        }
+    }
+
+    // returns the number of cells scored, and only writes to the given purity's cells so purities can be searched in parallel
+    private int searchClosestToDiploid(int purityIndex)
+    {
+        FittedPurity[] purityCells = mGrid[purityIndex];
+        double purity = mPurities.get(purityIndex);
+        int evaluated = 0;
+
+        int j = closestPloidyIndex(DIPLOID_PLOIDY);
+
+        if(purityCells[j] == null)
+        {
+            purityCells[j] = mCellFitter.fit(purity, mPloidies.get(j));
+            ++evaluated;
+        }
+
+        int direction = purityCells[j].ploidy() < DIPLOID_PLOIDY ? 1 : -1;
+
+        while(j + direction >= 0 && j + direction < purityCells.length)
+        {
+            int next = j + direction;
+
+            if(purityCells[next] == null)
+            {
+                purityCells[next] = mCellFitter.fit(purity, mPloidies.get(next));
+                ++evaluated;
+            }
+
+            if(distanceFromDiploid(purityCells[next]) >= distanceFromDiploid(purityCells[j]))
+                break;
+
+            j = next;
+        }
+
+        return evaluated;
+    }
+
+    private static boolean onCoarseGrid(int index, int count)
+    {
+        return index % COARSE_STEP == 0 || index == count - 1;
+    }
+
+    private boolean isCoarseLocalMinimum(final int[] coarseCell)
+    {
+        double score = cell(coarseCell).score();
+
+        for(int i = coarseCell[0] - COARSE_STEP; i <= coarseCell[0] + COARSE_STEP; i += COARSE_STEP)
+        {
+            for(int j = coarseCell[1] - COARSE_STEP; j <= coarseCell[1] + COARSE_STEP; j += COARSE_STEP)
+            {
+                if(i < 0 || j < 0 || i >= mPurities.size() || j >= mPloidies.size() || mGrid[i][j] == null)
+                    continue;
+
+                if(mGrid[i][j].score() < score)
+                    return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void addNeighbours(final boolean[][] pending, int purityIndex, int ploidyIndex, int distance)
+    {
+        for(int i = Math.max(0, purityIndex - distance); i <= Math.min(mPurities.size() - 1, purityIndex + distance); ++i)
+        {
+            for(int j = Math.max(0, ploidyIndex - distance); j <= Math.min(mPloidies.size() - 1, ploidyIndex + distance); ++j)
+            {
+                if(mGrid[i][j] == null)
+                    pending[i][j] = true;
+            }
+        }
+    }
+
+    private static List<int[]> pendingCells(final boolean[][] pending)
+    {
+        List<int[]> cells = Lists.newArrayList();
+
+        for(int i = 0; i < pending.length; ++i)
+        {
+            for(int j = 0; j < pending[i].length; ++j)
+            {
+                if(pending[i][j])
+                    cells.add(new int[] { i, j });
+            }
+        }
+
+        return cells;
+    }
+
+    private void evaluateAll() throws ExecutionException, InterruptedException
+    {
+        List<int[]> cells = Lists.newArrayList();
+
+        for(int i = 0; i < mPurities.size(); ++i)
+        {
+            for(int j = 0; j < mPloidies.size(); ++j)
+            {
+                if(mGrid[i][j] == null)
+                    cells.add(new int[] { i, j });
+            }
+        }
+
+        evaluate(cells);
+    }
+
+    // cells are scored in parallel by purity, as in the original exhaustive search
+    private void evaluate(final List<int[]> cells) throws ExecutionException, InterruptedException
+    {
+        if(mExecutorService == null)
+        {
+            for(int[] cell : cells)
+            {
+                mGrid[cell[0]][cell[1]] = mCellFitter.fit(mPurities.get(cell[0]), mPloidies.get(cell[1]));
+                ++mEvaluatedCellCount;
+            }
+
+            return;
+        }
+
+        List<List<Integer>> ploidyIndicesByPurity = Lists.newArrayList();
+
+        for(int i = 0; i < mPurities.size(); ++i)
+        {
+            ploidyIndicesByPurity.add(Lists.newArrayList());
+        }
+
+        cells.forEach(x -> ploidyIndicesByPurity.get(x[0]).add(x[1]));
+
+        List<Future<List<FittedPurity>>> futures = Lists.newArrayList();
+
+        for(int i = 0; i < mPurities.size(); ++i)
+        {
+            double purity = mPurities.get(i);
+            List<Integer> ploidyIndices = ploidyIndicesByPurity.get(i);
+
+            if(ploidyIndices.isEmpty())
+            {
+                futures.add(null);
+                continue;
+            }
+
+            futures.add(mExecutorService.submit(() ->
+            {
+                List<FittedPurity> fits = Lists.newArrayListWithCapacity(ploidyIndices.size());
+                ploidyIndices.forEach(x -> fits.add(mCellFitter.fit(purity, mPloidies.get(x))));
+                return fits;
+            }));
+        }
+
+        for(int i = 0; i < mPurities.size(); ++i)
+        {
+            if(futures.get(i) == null)
+                continue;
+
+            List<Integer> ploidyIndices = ploidyIndicesByPurity.get(i);
+            List<FittedPurity> fits = futures.get(i).get();
+
+            for(int k = 0; k < ploidyIndices.size(); ++k)
+            {
+                if(mGrid[i][ploidyIndices.get(k)] == null)
+                {
+                    mGrid[i][ploidyIndices.get(k)] = fits.get(k);
+                    ++mEvaluatedCellCount;
+                }
+            }
+        }
+    }
+
+    // scored cells in purity then ploidy order, sorted by score as the exhaustive search has always returned them
+    private List<FittedPurity> evaluatedFits()
+    {
+        List<FittedPurity> fits = Lists.newArrayList();
+
+        for(FittedPurity[] purityCells : mGrid)
+        {
+            for(FittedPurity fit : purityCells)
+            {
+                if(fit != null)
+                    fits.add(fit);
+            }
+        }
+
+        Collections.sort(fits);
+        return fits;
+    }
+
+    // returns a description of the first difference which would change the best fit or its candidate scoring, or null if none
+    @Nullable
+    protected static String compareFits(final List<FittedPurity> adaptiveFits, final List<FittedPurity> exhaustiveFits)
+    {
+        FittedPurity adaptiveBest = adaptiveFits.get(0);
+        FittedPurity exhaustiveBest = exhaustiveFits.get(0);
+
+        if(!adaptiveBest.equals(exhaustiveBest))
+            return format("best fit(%s) vs exhaustive(%s)", fitStr(adaptiveBest), fitStr(exhaustiveBest));
+
+        Predicate<FittedPurity> inRange = BestFitFactory.inRangeOfLowest(exhaustiveBest.score());
+
+        for(FittedPurity fit : exhaustiveFits)
+        {
+            if(inRange.test(fit) && !adaptiveFits.contains(fit))
+                return format("candidate fit(%s) not scored", fitStr(fit));
+        }
+
+        List<FittedPurity> adaptiveDiploid = BestFit.mostDiploidPerPurity(adaptiveFits);
+        List<FittedPurity> exhaustiveDiploid = BestFit.mostDiploidPerPurity(exhaustiveFits);
+
+        for(int i = 0; i < exhaustiveDiploid.size(); ++i)
+        {
+            if(i >= adaptiveDiploid.size() || !Objects.equals(adaptiveDiploid.get(i), exhaustiveDiploid.get(i)))
+                return format("most diploid fit(%s) not found", fitStr(exhaustiveDiploid.get(i)));
+        }
+
+        return null;
+    }
+
+    private static String fitStr(final FittedPurity fit)
+    {
+        return format("purity=%.2f ploidy=%.2f score=%.4f", fit.purity(), fit.ploidy(), fit.score());
+    }
+
+    private FittedPurity cell(final int[] cell) { return mGrid[cell[0]][cell[1]]; }
+
+    private double lowestScore()
+    {
+        double lowestScore = Double.MAX_VALUE;
+
+        for(FittedPurity[] purityCells : mGrid)
+        {
+            for(FittedPurity fit : purityCells)
+            {
+                if(fit != null)
+                    lowestScore = Math.min(lowestScore, fit.score());
+            }
+        }
+
+        return lowestScore;
+    }
+
+    private static Predicate<FittedPurity> inRefineRange(double lowestScore)
+    {
+        return fit ->
+        {
+            double absDifference = abs(fit.score() - lowestScore);
+            return absDifference <= REFINE_ABS_RANGE || absDifference <= abs(lowestScore) * REFINE_PERCENT_RANGE;
+        };
+    }
+
+    private int closestPloidyIndex(double ploidy)
+    {
+        int closestIndex = 0;
+
+        for(int j = 1; j < mPloidies.size(); ++j)
+        {
+            if(abs(mPloidies.get(j) - ploidy) < abs(mPloidies.get(closestIndex) - ploidy))
+                closestIndex = j;
+        }
+
+        return closestIndex;
+    }
+
+    private static double distanceFromDiploid(final FittedPurity fit) { return abs(DIPLOID_PLOIDY - fit.ploidy()); }
+}
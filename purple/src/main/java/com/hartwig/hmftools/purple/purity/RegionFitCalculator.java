@@ -78,14 +78,18 @@ public class RegionFitCalculator
 
     public RegionFitCalcs calculateRegionFit(final double purity, final double normFactor, final ObservedRegion observedRegion)
     {
-        final PurityAdjuster purityAdjuster = new PurityAdjuster(purity, normFactor, mCobaltChromosomes);
+        String chromosome = observedRegion.chromosome();
+        double germlineRatio = germlineRatio(chromosome);
 
         double observedTumorRatio = observedRegion.observedTumorRatio();
-        double impliedCopyNumber = purityAdjuster.purityAdjustedCopyNumber(observedRegion.chromosome(), observedTumorRatio);
+        double impliedCopyNumber = PurityAdjuster.purityAdjustedCopyNumber(purity, normFactor, observedTumorRatio, germlineRatio);
         double observedBAF = observedRegion.observedBAF();
-        double impliedBAF = impliedBaf(purityAdjuster, observedRegion.chromosome(), impliedCopyNumber, observedBAF);
 
-        double refNormalisedCopyNumber = purityAdjuster.purityAdjustedCopyNumber(observedTumorRatio, observedRegion.observedNormalRatio());
+        double impliedBAF = impliedBaf(
+                purity, normFactor, isNormalDiploid(chromosome), germlineRatio, impliedCopyNumber, observedBAF);
+
+        double refNormalisedCopyNumber = PurityAdjuster.purityAdjustedCopyNumber(
+                purity, normFactor, observedTumorRatio, observedRegion.observedNormalRatio());
 
         double majorAllelePloidy = impliedBAF * impliedCopyNumber;
         double minorAllelePloidy = impliedCopyNumber - majorAllelePloidy;
@@ -109,29 +113,51 @@ public class RegionFitCalculator
         return 1 + eventPenaltyFactor * min(singleEventDistance, wholeGenomeDoublingDistance);
     }
 
-    private static final double MIN_CN_THRESHOLD = 0.1;
+    public PloidyDeviation ploidyDeviation() { return mPloidyDeviation; }
+    public double ploidyPenaltyFactor() { return mPloidyPenaltyFactor; }
+
+    public double germlineRatio(final String chromosome)
+    {
+        return mCobaltChromosomes.hasChromosome(chromosome) ? mCobaltChromosomes.get(chromosome).actualRatio() : 0;
+    }
 
-    private double impliedBaf(final PurityAdjuster purityAdjuster, final String chromosome, double copyNumber, double observedBAF)
+    public boolean isNormalDiploid(final String chromosome)
     {
         if(!mCobaltChromosomes.hasChromosome(chromosome))
-            return 1;
+            return false;
 
         CobaltChromosome cobaltChromosome = mCobaltChromosomes.get(chromosome);
+        return cobaltChromosome.isNormal() && cobaltChromosome.isDiploid();
+    }
 
-        if(!cobaltChromosome.isNormal() || !cobaltChromosome.isDiploid() || Doubles.lessOrEqual(copyNumber, MIN_CN_THRESHOLD))
+    private static final double MIN_CN_THRESHOLD = 0.1;
+
+    public double impliedBaf(
+            double purity, double normFactor, boolean isNormalDiploid, double germlineRatio, double copyNumber, double observedBAF)
+    {
+        if(!isNormalDiploid || Doubles.lessOrEqual(copyNumber, MIN_CN_THRESHOLD))
             return 1;
 
+        double germlineCopyNumber = germlineRatio * 2;
+
         if(Doubles.lessOrEqual(observedBAF, mAmbiguousBaf))
-            return bafToMinimiseDeviation(purityAdjuster, chromosome, copyNumber, observedBAF);
+            return bafToMinimiseDeviation(purity, normFactor, germlineCopyNumber, copyNumber, observedBAF);
         else
-            return purityAdjuster.purityAdjustedBAFSimple(chromosome, copyNumber, observedBAF);
+            return PurityAdjuster.purityAdjustedBAFSimple(purity, germlineCopyNumber, copyNumber, observedBAF);
     }
 
     @VisibleForTesting
     public double bafToMinimiseDeviation(final PurityAdjuster purityAdjuster, final String chromosome, double copyNumber, double observedBAF)
     {
-        double minBAF = max(0, min(1, purityAdjuster.purityAdjustedBAFSimple(chromosome, copyNumber, BAF_PNT_5)));
-        double maxBAF = max(0, min(1, purityAdjuster.purityAdjustedBAFSimple(chromosome, copyNumber, observedBAF)));
+        return bafToMinimiseDeviation(
+                purityAdjuster.purity(), purityAdjuster.normFactor(), purityAdjuster.germlineCopyNumber(chromosome), copyNumber, observedBAF);
+    }
+
+    private double bafToMinimiseDeviation(
+            double purity, double normFactor, double germlineCopyNumber, double copyNumber, double observedBAF)
+    {
+        double minBAF = max(0, min(1, PurityAdjuster.purityAdjustedBAFSimple(purity, germlineCopyNumber, copyNumber, BAF_PNT_5)));
+        double maxBAF = max(0, min(1, PurityAdjuster.purityAdjustedBAFSimple(purity, germlineCopyNumber, copyNumber, observedBAF)));
 
         double estimatedBaf = estimateMinMaxBaf(copyNumber, minBAF, maxBAF);
 
@@ -179,9 +205,6 @@ public class RegionFitCalculator
         double minorAcnMin = copyNumber - majorAcnMin;
         double minorAcnMax = copyNumber - majorAcnMax;
 
-        double purity = purityAdjuster.purity();
-        double normFactor = purityAdjuster.normFactor();
-
         // minimise
         double minBAFTotalDeviation = mPloidyDeviation.majorAlleleDeviation(purity, normFactor, majorAcnMin)
                         + mPloidyDeviation.minorAlleleDeviation(purity, normFactor, minorAcnMin);
@@ -0,0 +1,170 @@
+package com.hartwig.hmftools.purple.purity;
+
+import static com.hartwig.hmftools.purple.purity.RegionFitCalculator.calculateEventPenalty;
+
+import java.util.List;
+
+import com.hartwig.hmftools.common.purple.FittedPurity;
+import com.hartwig.hmftools.common.purple.ImmutableFittedPurity;
+import com.hartwig.hmftools.common.variant.AllelicDepth;
+import com.hartwig.hmftools.purple.region.ObservedRegion;
+import com.hartwig.hmftools.purple.region.PloidyDeviation;
+
+// scores purity and norm factor candidates over the fitting regions and their somatic variants, which are packed into
+// primitive arrays once so each candidate is a single allocation-free pass - the calculations match those of
+// RegionFitCalculator.calculateRegionFit and SomaticDeviation step for step, so scores are identical to the per-object path
+public class RegionFitKernel
+{
+    private final RegionFitCalculator mRegionFitCalculator;
+    private final PloidyDeviation mPloidyDeviation;
+    private final double mPloidyPenaltyFactor;
+    private final double mSomaticPenaltyWeight;
+
+    private final int mRegionCount;
+    private final int mTotalBAFCount;
+
+    private final double[] mTumorRatios;
+    private final double[] mGermlineRatios;
+    private final double[] mObservedBAFs;
+    private final int[] mBafCounts;
+    private final boolean[] mNormalDiploid;
+
+    // variants for region i are at indices from mVariantOffsets[i] up to mVariantOffsets[i + 1]
+    private final int[] mVariantOffsets;
+    private final double[] mVariantAlleleFrequencies;
+    private final int[] mVariantReadCounts;
+
+    public RegionFitKernel(
+            final RegionFitCalculator regionFitCalculator, final List<ObservedRegion> regions,
+            final List<List<AllelicDepth>> regionVariantDepths, double somaticPenaltyWeight)
+    {
+        mRegionFitCalculator = regionFitCalculator;
+        mPloidyDeviation = regionFitCalculator.ploidyDeviation();
+        mPloidyPenaltyFactor = regionFitCalculator.ploidyPenaltyFactor();
+        mSomaticPenaltyWeight = somaticPenaltyWeight;
+
+        mRegionCount = regions.size();
+        mTumorRatios = new double[mRegionCount];
+        mGermlineRatios = new double[mRegionCount];
+        mObservedBAFs = new double[mRegionCount];
+        mBafCounts = new int[mRegionCount];
+        mNormalDiploid = new boolean[mRegionCount];
+        mVariantOffsets = new int[mRegionCount + 1];
+
+        int totalBafCount = 0;
+        int variantCount = 0;
+
+        for(int i = 0; i < mRegionCount; ++i)
+        {
+            ObservedRegion region = regions.get(i);
+
+            mTumorRatios[i] = region.observedTumorRatio();
+            mGermlineRatios[i] = regionFitCalculator.germlineRatio(region.chromosome());
+            mObservedBAFs[i] = region.observedBAF();
+            mBafCounts[i] = region.bafCount();
+            mNormalDiploid[i] = regionFitCalculator.isNormalDiploid(region.chromosome());
+
+            totalBafCount += region.bafCount();
+
+            mVariantOffsets[i] = variantCount;
+            variantCount += regionVariantDepths.get(i).size();
+        }
+
+        mVariantOffsets[mRegionCount] = variantCount;
+        mTotalBAFCount = totalBafCount;
+
+        mVariantAlleleFrequencies = new double[variantCount];
+        mVariantReadCounts = new int[variantCount];
+
+        int variantIndex = 0;
+
+        for(List<AllelicDepth> depths : regionVariantDepths)
+        {
+            for(AllelicDepth depth : depths)
+            {
+                mVariantAlleleFrequencies[variantIndex] = depth.alleleFrequency();
+                mVariantReadCounts[variantIndex] = depth.totalReadCount();
+                ++variantIndex;
+            }
+        }
+    }
+
+    public int regionCount() { return mRegionCount; }
+    public int variantCount() { return mVariantAlleleFrequencies.length; }
+
+    public FittedPurity fit(double purity, double normFactor)
+    {
+        final SomaticDeviation somaticDeviation = SomaticDeviation.INSTANCE;
+
+        double eventPenalty = 0;
+        double deviationPenalty = 0;
+        double diploidProportion = 0;
+        double averagePloidy = 0;
+
+        double somaticPenaltyTotal = 0;
+
+        for(int i = 0; i < mRegionCount; ++i)
+        {
+            double germlineRatio = mGermlineRatios[i];
+            double observedBAF = mObservedBAFs[i];
+
+            double copyNumber = PurityAdjuster.purityAdjustedCopyNumber(purity, normFactor, mTumorRatios[i], germlineRatio);
+
+            double baf = mRegionFitCalculator.impliedBaf(purity, normFactor, mNormalDiploid[i], germlineRatio, copyNumber, observedBAF);
+
+            double majorAllelePloidy = baf * copyNumber;
+            double minorAllelePloidy = copyNumber - majorAllelePloidy;
+
+            double majorAllelePloidyDeviation = mPloidyDeviation.majorAlleleDeviation(purity, normFactor, majorAllelePloidy);
+            double minorAllelePloidyDeviation = mPloidyDeviation.minorAlleleDeviation(purity, normFactor, minorAllelePloidy);
+
+            double regionEventPenalty = calculateEventPenalty(mPloidyPenaltyFactor, majorAllelePloidy, minorAllelePloidy);
+            double regionDeviationPenalty = (minorAllelePloidyDeviation + majorAllelePloidyDeviation) * observedBAF;
+
+            int bafCount = mBafCounts[i];
+            eventPenalty += weightWithBaf(regionEventPenalty, bafCount);
+            deviationPenalty += weightWithBaf(regionDeviationPenalty, bafCount);
+            averagePloidy += weightWithBaf(copyNumber, bafCount);
+
+            if(RegionFitCalcs.isDiploid(majorAllelePloidy, minorAllelePloidy))
+            {
+                diploidProportion += weightWithBaf(1, bafCount);
+            }
+
+            int variantEnd = mVariantOffsets[i + 1];
+
+            if(mVariantOffsets[i] == variantEnd)
+                continue;
+
+            double normalCopyNumber = germlineRatio * 2;
+            double constrainedMajorAllelePloidy = Math.max(0, majorAllelePloidy);
+            double constrainedTumorCopyNumber = Math.max(0, copyNumber);
+
+            for(int v = mVariantOffsets[i]; v < variantEnd; ++v)
+            {
+                double variantPenalty = somaticDeviation.deviationFromMax(
+                        purity, normalCopyNumber, mVariantAlleleFrequencies[v], mVariantReadCounts[v],
+                        constrainedTumorCopyNumber, constrainedMajorAllelePloidy);
+
+                somaticPenaltyTotal += mSomaticPenaltyWeight * variantPenalty;
+            }
+        }
+
+        int somaticVariantCount = mVariantAlleleFrequencies.length;
+        double somaticPenalty = mSomaticPenaltyWeight > 0 && somaticVariantCount > 0 ? somaticPenaltyTotal / somaticVariantCount : 0;
+
+        return ImmutableFittedPurity.builder()
+                .purity(purity)
+                .normFactor(normFactor)
+                .score(eventPenalty * deviationPenalty + somaticPenalty)
+                .diploidProportion(diploidProportion)
+                .ploidy(averagePloidy)
+                .somaticPenalty(somaticPenalty)
+                .build();
+    }
+
+    private double weightWithBaf(double value, int bafCount)
+    {
+        return 1d * value * bafCount / mTotalBAFCount;
+    }
+}
@@ -29,26 +29,13 @@ public class SomaticPeakStream
 
         final List<ModifiableWeightedPloidy> weightedPloidies = newArrayList();
 
-        for(SomaticVariant variant : somaticVariants.variants())
+        if(somaticVariants.isStreamed())
         {
-            if(!variant.isPass())
-                continue;
-
-            if(variant.copyNumber() >= CLONALITY_MAX_PLOIDY)
-                continue;
-
-            if(!HumanChromosome.contains(variant.chromosome()) || !HumanChromosome.fromString(variant.chromosome()).isAutosome())
-                continue;
-
-            AllelicDepth depth = variant.tumorAlleleDepth();
-
-            if(depth != null)
-            {
-                weightedPloidies.add(ModifiableWeightedPloidy.create()
-                        .from(depth)
-                        .setPloidy(variant.copyNumber())
-                        .setWeight(1));
-            }
+            somaticVariants.streamVariants(x -> x.forEach(variant -> addWeightedPloidy(variant, weightedPloidies)));
+        }
+        else
+        {
+            somaticVariants.variants().forEach(x -> addWeightedPloidy(x, weightedPloidies));
         }
 
         PPL_LOGGER.debug("somatic peak uses {} variants", weightedPloidies.size());
@@ -68,4 +55,26 @@ public class SomaticPeakStream
 
         return peakModels;
     }
+
+    private static void addWeightedPloidy(final SomaticVariant variant, final List<ModifiableWeightedPloidy> weightedPloidies)
+    {
+        if(!variant.isPass())
+            return;
+
+        if(variant.copyNumber() >= CLONALITY_MAX_PLOIDY)
+            return;
+
+        if(!HumanChromosome.contains(variant.chromosome()) || !HumanChromosome.fromString(variant.chromosome()).isAutosome())
+            return;
+
+        AllelicDepth depth = variant.tumorAlleleDepth();
+
+        if(depth != null)
+        {
+            weightedPloidies.add(ModifiableWeightedPloidy.create()
+                    .from(depth)
+                    .setPloidy(variant.copyNumber())
+                    .setWeight(1));
+        }
+    }
 }
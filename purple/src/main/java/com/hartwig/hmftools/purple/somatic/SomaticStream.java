@@ -183,86 +183,117 @@ public class SomaticStream
 
             mVcfWriter.writeHeader(header);
 
-            boolean tumorOnly = mConfig.tumorOnlyMode();
             AtomicInteger kataegisId = new AtomicInteger();
 
-            if(mConfig.Threads > 1)
+            if(mSomaticVariants.isStreamed())
             {
-                List<SomaticVariantEnrichment> enrichers = Lists.newArrayList();
+                // process a chromosome per thread at a time, so only that batch of variants is held in memory
+                final List<SomaticVariant> batchVariants = Lists.newArrayList();
+                final Set<String> batchChromosomes = Sets.newHashSet();
 
-                for(int i = 0; i < mConfig.Threads; ++i)
+                mSomaticVariants.streamVariants(chromosomeVariants ->
                 {
-                    enrichers.add(new SomaticVariantEnrichment(i, mConfig, mReferenceData, mPeakModel, kataegisId));
-                }
-
-                int taskIndex = 0;
-                String currentChr = !mSomaticVariants.variants().isEmpty() ? mSomaticVariants.variants().get(0).chromosome() : "";
+                    batchVariants.addAll(chromosomeVariants);
+                    batchChromosomes.add(chromosomeVariants.get(0).chromosome());
 
-                for(SomaticVariant variant : mSomaticVariants.variants())
-                {
-                    if(!currentChr.equals(variant.chromosome()))
+                    if(batchChromosomes.size() >= mConfig.Threads)
                     {
-                        currentChr = variant.chromosome();
-                        ++taskIndex;
-
-                        if(taskIndex >= enrichers.size())
-                            taskIndex = 0;
+                        processVariants(batchVariants, purityAdjuster, kataegisId);
+                        batchVariants.clear();
+                        batchChromosomes.clear();
                     }
+                });
 
-                    enrichers.get(taskIndex).addVariant(variant);
-                }
-
-                final List<Callable> callableList = enrichers.stream().collect(Collectors.toList());
-                TaskExecutor.executeTasks(callableList, mConfig.Threads);
+                if(!batchVariants.isEmpty())
+                    processVariants(batchVariants, purityAdjuster, kataegisId);
             }
             else
             {
-                SomaticVariantEnrichment enricher = new SomaticVariantEnrichment(0, mConfig, mReferenceData, mPeakModel, kataegisId);
-                mSomaticVariants.variants().forEach(x -> enricher.addVariant(x));
-                enricher.call();
+                processVariants(mSomaticVariants.variants(), purityAdjuster, kataegisId);
             }
 
-            // various processing for charting, TMB/L calcs, drivers
-            for(SomaticVariant variant : mSomaticVariants.variants())
+            mVcfWriter.close();
+            mRChartData.write();
+
+            calculateVariantLoadValues();
+
+            PPL_LOGGER.debug("charting variants: total(snvs={} indels={}) downsampled({} snvMod={} indelMod={})",
+                    mSnpCount, mIndelCount, mDownsampledVariants.size(), mSnpMod, mIndelMod);
+        }
+        catch(IOException e)
+        {
+            PPL_LOGGER.error("failed to enrich somatic variants: {}", e.toString());
+        }
+    }
+
+    private void processVariants(final List<SomaticVariant> variants, final PurityAdjuster purityAdjuster, final AtomicInteger kataegisId)
+    {
+        boolean tumorOnly = mConfig.tumorOnlyMode();
+
+        if(mConfig.Threads > 1)
+        {
+            List<SomaticVariantEnrichment> enrichers = Lists.newArrayList();
+
+            for(int i = 0; i < mConfig.Threads; ++i)
             {
-                if(!HumanChromosome.contains(variant.chromosome()))
-                    continue;
+                enrichers.add(new SomaticVariantEnrichment(i, mConfig, mReferenceData, mPeakModel, kataegisId));
+            }
 
-                if(variant.isPass() || mConfig.WriteAllSomatics)
-                    mSomaticGermlineLikelihood.processVariant(variant, purityAdjuster.purity());
+            int taskIndex = 0;
+            String currentChr = !variants.isEmpty() ? variants.get(0).chromosome() : "";
 
-                if(variant.isPass())
+            for(SomaticVariant variant : variants)
+            {
+                if(!currentChr.equals(variant.chromosome()))
                 {
-                    mTumorMutationalLoad.processVariant(variant);
-                    mMicrosatelliteIndels.processVariant(variant);
-                    checkDrivers(variant, true); // sets reportable flag if applicable
+                    currentChr = variant.chromosome();
+                    ++taskIndex;
 
-                    mRChartData.processVariant(variant);
-                    checkChartDownsampling(variant);
+                    if(taskIndex >= enrichers.size())
+                        taskIndex = 0;
                 }
+
+                enrichers.get(taskIndex).addVariant(variant);
             }
 
-            // should not be required if coding effects have been set correctly for phased variants in Pave
-            checkPhasedReportableVariants();
+            final List<Callable> callableList = enrichers.stream().collect(Collectors.toList());
+            TaskExecutor.executeTasks(callableList, mConfig.Threads);
+        }
+        else
+        {
+            SomaticVariantEnrichment enricher = new SomaticVariantEnrichment(0, mConfig, mReferenceData, mPeakModel, kataegisId);
+            variants.forEach(x -> enricher.addVariant(x));
+            enricher.call();
+        }
+
+        // various processing for charting, TMB/L calcs, drivers
+        for(SomaticVariant variant : variants)
+        {
+            if(!HumanChromosome.contains(variant.chromosome()))
+                continue;
+
+            if(variant.isPass() || mConfig.WriteAllSomatics)
+                mSomaticGermlineLikelihood.processVariant(variant, purityAdjuster.purity());
 
-            // write enriched variants to VCF
-            for(SomaticVariant variant : mSomaticVariants.variants())
+            if(variant.isPass())
             {
-                if(!tumorOnly || variant.isPass() || mConfig.WriteAllSomatics)
-                    mVcfWriter.add(variant.context());
-            }
+                mTumorMutationalLoad.processVariant(variant);
+                mMicrosatelliteIndels.processVariant(variant);
+                checkDrivers(variant, true); // sets reportable flag if applicable
 
-            mVcfWriter.close();
-            mRChartData.write();
+                mRChartData.processVariant(variant);
+                checkChartDownsampling(variant);
+            }
+        }
 
-            calculateVariantLoadValues();
+        // should not be required if coding effects have been set correctly for phased variants in Pave
+        checkPhasedReportableVariants(variants);
 
-            PPL_LOGGER.debug("charting variants: total(snvs={} indels={}) downsampled({} snvMod={} indelMod={})",
-                    mSnpCount, mIndelCount, mDownsampledVariants.size(), mSnpMod, mIndelMod);
-        }
-        catch(IOException e)
+        // write enriched variants to VCF
+        for(SomaticVariant variant : variants)
         {
-            PPL_LOGGER.error("failed to enrich somatic variants: {}", e.toString());
+            if(!tumorOnly || variant.isPass() || mConfig.WriteAllSomatics)
+                mVcfWriter.add(variant.context());
         }
     }
 
@@ -301,14 +332,23 @@ public class SomaticStream
 
     public void registerReportedVariants()
     {
-        for(SomaticVariant variant : mSomaticVariants.variants())
+        if(mSomaticVariants.isStreamed())
+        {
+            mSomaticVariants.streamVariants(x -> x.forEach(variant -> registerReportedVariant(variant)));
+        }
+        else
         {
-            boolean isValidChromosome = HumanChromosome.contains(variant.chromosome());
+            mSomaticVariants.variants().forEach(x -> registerReportedVariant(x));
+        }
+    }
 
-            if(isValidChromosome && variant.isPass())
-            {
-                checkDrivers(variant, false);
-            }
+    private void registerReportedVariant(final SomaticVariant variant)
+    {
+        boolean isValidChromosome = HumanChromosome.contains(variant.chromosome());
+
+        if(isValidChromosome && variant.isPass())
+        {
+            checkDrivers(variant, false);
         }
     }
 
@@ -319,12 +359,12 @@ public class SomaticStream
             || variant.variantImpact().CanonicalEffect.contains(PHASED_MISSENSE.effect());
     }
 
-    private void checkPhasedReportableVariants()
+    private void checkPhasedReportableVariants(final List<SomaticVariant> variants)
     {
         // any non-reportable variant that forms a phased inframe INDEL with a reportable variant is marked as reportable too
-        for(int i = 0; i < mSomaticVariants.variants().size(); ++i)
+        for(int i = 0; i < variants.size(); ++i)
         {
-            SomaticVariant variant = mSomaticVariants.variants().get(i);
+            SomaticVariant variant = variants.get(i);
 
             // first find any reportable phased inframe INDEL
             if(!variant.context().hasAttribute(REPORTED_FLAG) || !hasPhasedEffect(variant))
@@ -348,10 +388,10 @@ public class SomaticStream
                     else
                         ++j;
 
-                    if(j < 0 || j >= mSomaticVariants.variants().size())
+                    if(j < 0 || j >= variants.size())
                         break;
 
-                    SomaticVariant nextVariant = mSomaticVariants.variants().get(j);
+                    SomaticVariant nextVariant = variants.get(j);
 
                     if(!nextVariant.isPass() || nextVariant.context().hasAttribute(REPORTED_FLAG) || !hasPhasedEffect(variant))
                         continue;
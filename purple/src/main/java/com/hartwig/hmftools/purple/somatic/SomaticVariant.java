@@ -20,6 +20,11 @@ public class SomaticVariant implements GenomePosition
     private final AllelicDepth mTumorAllelicDepth;
     private final AllelicDepth mReferenceAllelicDepth;
 
+    // retained once the context is released, for variants only kept for purity fitting when streaming
+    private VariantType mType;
+    private boolean mIsPass;
+    private boolean mIsHotspot;
+
     public SomaticVariant(final VariantContext context, final String sampleId, final String referenceId)
     {
         mContext = context;
@@ -29,6 +34,10 @@ public class SomaticVariant implements GenomePosition
         mPosition = mContext.getStart();
         mTumorAllelicDepth = sampleId != null ? mDecorator.allelicDepth(sampleId) :  null;
         mReferenceAllelicDepth = referenceId != null ? mDecorator.allelicDepth(referenceId) :  null;
+
+        mType = null;
+        mIsPass = false;
+        mIsHotspot = false;
     }
 
     public VariantContext context() { return mContext; }
@@ -39,6 +48,18 @@ public class SomaticVariant implements GenomePosition
         mDecorator = new VariantContextDecorator(mContext);
     }
 
+    public boolean hasContext() { return mContext != null; }
+
+    public void releaseContext()
+    {
+        mType = mDecorator.type();
+        mIsPass = mDecorator.isPass();
+        mIsHotspot = isHotspot();
+
+        mContext = null;
+        mDecorator = null;
+    }
+
     @Override
     public String chromosome() { return mChromosome; }
 
@@ -49,14 +70,14 @@ public class SomaticVariant implements GenomePosition
     public VariantContextDecorator decorator() { return mDecorator; }
     public VariantImpact variantImpact() { return mDecorator.variantImpact(); }
 
-    public VariantType type() { return mDecorator.type(); }
+    public VariantType type() { return mContext != null ? mDecorator.type() : mType; }
 
-    public boolean isPass() { return mDecorator.isPass(); }
+    public boolean isPass() { return mContext != null ? mDecorator.isPass() : mIsPass; }
     public boolean isFiltered() { return !isPass(); }
 
     public double copyNumber() { return mDecorator.variantCopyNumber(); }
 
-    public boolean isHotspot() { return mContext.hasAttribute(HOTSPOT_FLAG); }
+    public boolean isHotspot() { return mContext != null ? mContext.hasAttribute(HOTSPOT_FLAG) : mIsHotspot; }
     public boolean biallelic() { return mDecorator.biallelic(); }
     public String gene() { return mDecorator.variantImpact().CanonicalGeneName; }
 
@@ -70,6 +91,9 @@ public class SomaticVariant implements GenomePosition
 
     public String toString()
     {
+        if(mContext == null)
+            return String.format("%s %s:%d pass(%s)", mType, mChromosome, mPosition, mIsPass);
+
         return String.format("%s %s:%d %s>%s filter(%s) tier(%s) codingEffect(%s)",
                 type(), chromosome(), position(), mDecorator.ref(), mDecorator.alt(), mDecorator.filter(), mDecorator.tier(),
                 mDecorator.variantImpact().CanonicalCodingEffect);
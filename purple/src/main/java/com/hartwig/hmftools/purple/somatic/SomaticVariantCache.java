@@ -3,6 +3,7 @@ package com.hartwig.hmftools.purple.somatic;
 import static com.hartwig.hmftools.purple.PurpleUtils.PPL_LOGGER;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
@@ -13,6 +14,7 @@ import com.hartwig.hmftools.common.variant.VariantType;
 import com.hartwig.hmftools.common.variant.VcfFileReader;
 import com.hartwig.hmftools.common.variant.hotspot.VariantHotspot;
 import com.hartwig.hmftools.purple.config.PurpleConfig;
+import com.hartwig.hmftools.purple.fitting.SomaticPurityFitter;
 
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.vcf.VCFHeader;
@@ -30,6 +32,16 @@ public class SomaticVariantCache
     private int mIndelCount;
     private int mSnpCount;
 
+    // when streaming, only fitting candidates are retained without their contexts and the VCF is re-read for enrichment
+    private final boolean mStreamVariants;
+    private String mSomaticVcf;
+    private ListMultimap<Chromosome,VariantHotspot> mSomaticHotspots;
+    private SomaticPurityEnrichment mPurityEnrichment;
+    private int mVariantCount;
+
+    // screens streamed variants on load, and so holds their filter counts for fitting
+    private final SomaticPurityFitter.CandidateFilter mCandidateFilter;
+
     public SomaticVariantCache(final PurpleConfig config)
     {
         mConfig = config;
@@ -39,10 +51,21 @@ public class SomaticVariantCache
         mSnpCount = 0;
         mVcfHeader = null;
         mGenotypeIds = null;
+
+        mStreamVariants = config.StreamVariants;
+        mSomaticVcf = null;
+        mSomaticHotspots = null;
+        mPurityEnrichment = null;
+        mVariantCount = 0;
+        mCandidateFilter = new SomaticPurityFitter.CandidateFilter();
     }
 
-    public boolean hasData() { return !mVariants.isEmpty(); }
+    public boolean hasData() { return mVariantCount > 0; }
+    public boolean isStreamed() { return mStreamVariants; }
+
+    // all variants when held in memory, otherwise only the purity fitting candidates
     public List<SomaticVariant> variants() { return mVariants; }
+    public SomaticPurityFitter.CandidateFilter candidateFilter() { return mCandidateFilter; }
     public GenotypeIds genotypeIds() { return mGenotypeIds; }
 
     public int snpCount() { return mSnpCount; }
@@ -60,52 +83,128 @@ public class SomaticVariantCache
 
         mGenotypeIds = GenotypeIds.fromVcfHeader(mVcfHeader, mConfig.ReferenceId, mConfig.TumorId);
 
-        boolean tumorOnly = mConfig.tumorOnlyMode();
+        mSomaticVcf = somaticVcf;
+        mSomaticHotspots = somaticHotspots;
+
+        // fitting is skipped in tumor-only mode so no streamed variants need to be retained
+        boolean retainCandidates = mStreamVariants && !mConfig.tumorOnlyMode();
 
         for(VariantContext variantContext : vcfReader.iterator())
         {
-            SomaticVariant variant = new SomaticVariant(variantContext, mConfig.TumorId, mConfig.ReferenceId);
+            SomaticVariant variant = loadVariant(variantContext, hotspotEnrichment);
 
-            if(tumorOnly && HlaCommon.containsPosition(variant)) // ignore these completely
+            if(variant == null)
                 continue;
 
-            if(!mConfig.TierQualFilters.isEmpty())
+            ++mVariantCount;
+
+            if(variant.isPass())
             {
-                Integer qualThreshold = mConfig.TierQualFilters.get(variant.decorator().tier());
-                if(qualThreshold != null && variant.decorator().qual() < qualThreshold)
-                    continue;
+                if(variant.type() == VariantType.INDEL)
+                    mIndelCount++;
+                else
+                    mSnpCount++;
             }
 
-            if(mConfig.FilterSomaticsOnGene)
+            if(!mStreamVariants)
             {
-                if(variant.variantImpact() == null || variant.variantImpact().CanonicalGeneName.isEmpty())
-                    continue;
+                mVariants.add(variant);
             }
+            else if(retainCandidates && mCandidateFilter.test(variant))
+            {
+                variant.releaseContext();
+                mVariants.add(variant);
+            }
+        }
 
-            if(mConfig.excludeOnSpecificRegion(variant.chromosome(), variant.position()))
-                continue;
+        if(mStreamVariants)
+        {
+            PPL_LOGGER.info("read {} somatic variants from {}, retained {} fitting candidates",
+                    mVariantCount, somaticVcf, mVariants.size());
+        }
+        else
+        {
+            PPL_LOGGER.info("loaded {} somatic variants from {}", mVariants.size(), somaticVcf);
+        }
+    }
 
-            mVariants.add(variant);
+    private SomaticVariant loadVariant(final VariantContext variantContext, final HotspotEnrichment hotspotEnrichment)
+    {
+        SomaticVariant variant = new SomaticVariant(variantContext, mConfig.TumorId, mConfig.ReferenceId);
 
-            // hotspot status is used in fitting as well as during and for enrichment
-            hotspotEnrichment.processVariant(variantContext);
+        if(mConfig.tumorOnlyMode() && HlaCommon.containsPosition(variant)) // ignore these completely
+            return null;
 
-            if(variant.isPass())
-            {
-                if(variant.type() == VariantType.INDEL)
-                    mIndelCount++;
-                else
-                    mSnpCount++;
-            }
+        if(!mConfig.TierQualFilters.isEmpty())
+        {
+            Integer qualThreshold = mConfig.TierQualFilters.get(variant.decorator().tier());
+            if(qualThreshold != null && variant.decorator().qual() < qualThreshold)
+                return null;
         }
 
-        PPL_LOGGER.info("loaded {} somatic variants from {}", mVariants.size(), somaticVcf);
+        if(mConfig.FilterSomaticsOnGene)
+        {
+            if(variant.variantImpact() == null || variant.variantImpact().CanonicalGeneName.isEmpty())
+                return null;
+        }
+
+        if(mConfig.excludeOnSpecificRegion(variant.chromosome(), variant.position()))
+            return null;
+
+        // hotspot status is used in fitting as well as during and for enrichment
+        hotspotEnrichment.processVariant(variantContext);
+
+        return variant;
     }
 
     public VCFHeader getVcfHeader() { return mVcfHeader; }
 
     public void purityEnrich(final SomaticPurityEnrichment purityEnrichment)
     {
+        if(mStreamVariants)
+        {
+            // applied to each variant as it is re-read
+            mPurityEnrichment = purityEnrichment;
+            return;
+        }
+
         mVariants.forEach(x -> purityEnrichment.processVariant(x));
     }
+
+    public void streamVariants(final Consumer<List<SomaticVariant>> chromosomeConsumer)
+    {
+        // re-reads the VCF applying the same filters and enrichment as on load, passing on each chromosome's variants in turn
+        if(mSomaticVcf == null)
+            return;
+
+        final HotspotEnrichment hotspotEnrichment = new HotspotEnrichment(mSomaticHotspots, true);
+
+        VcfFileReader vcfReader = new VcfFileReader(mSomaticVcf);
+
+        List<SomaticVariant> chromosomeVariants = Lists.newArrayList();
+
+        for(VariantContext variantContext : vcfReader.iterator())
+        {
+            SomaticVariant variant = loadVariant(variantContext, hotspotEnrichment);
+
+            if(variant == null)
+                continue;
+
+            if(!chromosomeVariants.isEmpty() && !chromosomeVariants.get(0).chromosome().equals(variant.chromosome()))
+            {
+                chromosomeConsumer.accept(chromosomeVariants);
+                chromosomeVariants = Lists.newArrayList();
+            }
+
+            if(mPurityEnrichment != null)
+                mPurityEnrichment.processVariant(variant);
+
+            chromosomeVariants.add(variant);
+        }
+
+        if(!chromosomeVariants.isEmpty())
+            chromosomeConsumer.accept(chromosomeVariants);
+
+        vcfReader.close();
+    }
 }
@@ -0,0 +1,476 @@
+package com.hartwig.hmftools.purple;
+
+import static java.lang.String.format;
+
+import static com.hartwig.hmftools.common.drivercatalog.DriverCategory.TSG;
+import static com.hartwig.hmftools.common.drivercatalog.panel.DriverGeneGermlineReporting.ANY;
+import static com.hartwig.hmftools.common.drivercatalog.panel.DriverGeneGermlineReporting.NONE;
+import static com.hartwig.hmftools.common.drivercatalog.panel.DriverGenePanelConfig.DRIVER_GENE_PANEL_OPTION;
+import static com.hartwig.hmftools.common.ensemblcache.EnsemblDataCache.ENSEMBL_DATA_DIR;
+import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeSource.REF_GENOME;
+import static com.hartwig.hmftools.common.pathogenic.PathogenicSummaryFactory.CLNSIG;
+import static com.hartwig.hmftools.common.purple.PurpleTestUtils.createCopyNumber;
+import static com.hartwig.hmftools.common.utils.config.CommonConfig.REFERENCE;
+import static com.hartwig.hmftools.common.utils.config.CommonConfig.TUMOR;
+import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.OUTPUT_DIR;
+import static com.hartwig.hmftools.common.variant.CommonVcfTags.REPORTED_FLAG;
+import static com.hartwig.hmftools.common.variant.PaveVcfTags.GNOMAD_FREQ;
+import static com.hartwig.hmftools.common.variant.SageVcfTags.LOCAL_PHASE_SET;
+import static com.hartwig.hmftools.common.variant.SageVcfTags.TIER;
+import static com.hartwig.hmftools.common.variant.impact.VariantImpactSerialiser.VAR_IMPACT;
+import static com.hartwig.hmftools.common.variant.impact.VariantImpactSerialiser.toVcfData;
+import static com.hartwig.hmftools.purple.TestUtils.REF_SAMPLE_ID;
+import static com.hartwig.hmftools.purple.TestUtils.SAMPLE_ID;
+import static com.hartwig.hmftools.purple.TestUtils.buildPurityAdjuster;
+import static com.hartwig.hmftools.purple.TestUtils.createDefaultFittedRegion;
+import static com.hartwig.hmftools.purple.config.PurpleConfig.STREAM_VARIANTS;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.hartwig.hmftools.common.drivercatalog.panel.DriverGene;
+import com.hartwig.hmftools.common.drivercatalog.panel.DriverGeneFile;
+import com.hartwig.hmftools.common.drivercatalog.panel.ImmutableDriverGene;
+import com.hartwig.hmftools.common.purple.Gender;
+import com.hartwig.hmftools.common.purple.PurpleCommon;
+import com.hartwig.hmftools.common.purple.PurpleCopyNumber;
+import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+import com.hartwig.hmftools.common.variant.CodingEffect;
+import com.hartwig.hmftools.common.variant.impact.VariantImpact;
+import com.hartwig.hmftools.purple.config.PurpleConfig;
+import com.hartwig.hmftools.purple.config.ReferenceData;
+import com.hartwig.hmftools.purple.fitting.PeakModelData;
+import com.hartwig.hmftools.purple.fitting.SomaticPurityFitter;
+import com.hartwig.hmftools.purple.fitting.SomaticPurityFitter.FilterReason;
+import com.hartwig.hmftools.purple.germline.GermlineVariant;
+import com.hartwig.hmftools.purple.germline.GermlineVariants;
+import com.hartwig.hmftools.purple.purity.PurityAdjuster;
+import com.hartwig.hmftools.purple.region.ObservedRegion;
+import com.hartwig.hmftools.purple.somatic.SomaticPeakStream;
+import com.hartwig.hmftools.purple.somatic.SomaticPurityEnrichment;
+import com.hartwig.hmftools.purple.somatic.SomaticStream;
+import com.hartwig.hmftools.purple.somatic.SomaticVariant;
+import com.hartwig.hmftools.purple.somatic.SomaticVariantCache;
+
+import org.junit.Test;
+
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFFileReader;
+
+public class StreamVariantsTest
+{
+    private static final List<String> CHROMOSOMES = Lists.newArrayList("1", "2", "3");
+    private static final int CHROMOSOME_LENGTH = 5000;
+
+    private static final String DRIVER_GENE = "GENE_01";
+    private static final String PHASED_GENE = "GENE_02";
+    private static final String OTHER_GENE = "GENE_03";
+
+    private static final int SOMATIC_COUNT = 40;
+    private static final int SOMATIC_SPACING = 100;
+    private static final int MSI_INDEL_INDEX = 25;
+    private static final int HOMOPOLYMER_LENGTH = 10;
+    private static final int GERMLINE_COUNT = 10;
+    private static final int GERMLINE_SPACING = 400;
+
+    @Test
+    public void testStreamedVariantsMatchInMemory() throws IOException
+    {
+        Path tempDir = Files.createTempDirectory("purple_stream_test");
+
+        try
+        {
+            Map<String,String> refBases = writeRefGenome(tempDir);
+            writeSomaticVcf(tempDir, refBases);
+            writeGermlineVcf(tempDir, refBases);
+            writeReferenceFiles(tempDir);
+
+            VariantResults inMemory = processVariants(tempDir, "in_memory", false);
+            VariantResults streamed = processVariants(tempDir, "streamed", true);
+
+            // check the fixture exercises each output before comparing them
+            assertFalse(inMemory.FittingCandidates.isEmpty());
+            assertTrue(inMemory.FilterCounts.get(FilterReason.NON_SNV.ordinal()) > 0);
+            assertFalse(inMemory.PeakModel.isEmpty());
+            assertTrue(inMemory.TumorMutationalLoad > 0);
+            assertTrue(inMemory.MsiIndelsPerMb > 0);
+            assertTrue(inMemory.ReportedGenes.contains(DRIVER_GENE));
+            assertTrue(inMemory.ReportedSomatics.contains(DRIVER_GENE));
+            assertTrue(inMemory.ReportedSomatics.contains(PHASED_GENE));
+            assertEquals(Lists.newArrayList("1:" + germlinePosition(2)), inMemory.ReportableGermline);
+
+            assertEquals(CHROMOSOMES.size() * SOMATIC_COUNT, inMemory.SomaticRecords.size());
+            assertEquals(CHROMOSOMES.size() * GERMLINE_COUNT, inMemory.GermlineRecords.size());
+
+            assertEquals(inMemory.SomaticRecords, streamed.SomaticRecords);
+            assertEquals(inMemory.GermlineRecords, streamed.GermlineRecords);
+            assertEquals(inMemory.FittingCandidates, streamed.FittingCandidates);
+            assertEquals(inMemory.FilterCounts, streamed.FilterCounts);
+            assertEquals(inMemory.PeakModel, streamed.PeakModel);
+            assertEquals(inMemory.TumorMutationalLoad, streamed.TumorMutationalLoad);
+            assertEquals(inMemory.TumorMutationalBurdenPerMb, streamed.TumorMutationalBurdenPerMb, 1e-10);
+            assertEquals(inMemory.MsiIndelsPerMb, streamed.MsiIndelsPerMb, 1e-10);
+            assertEquals(inMemory.ReportedGenes, streamed.ReportedGenes);
+            assertEquals(inMemory.ReportedSomatics, streamed.ReportedSomatics);
+            assertEquals(inMemory.ReportableGermline, streamed.ReportableGermline);
+        }
+        finally
+        {
+            try(Stream<Path> paths = Files.walk(tempDir))
+            {
+                paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    private static class VariantResults
+    {
+        public final List<String> SomaticRecords = Lists.newArrayList();
+        public final List<String> GermlineRecords = Lists.newArrayList();
+        public final List<String> FittingCandidates = Lists.newArrayList();
+        public final List<Integer> FilterCounts = Lists.newArrayList();
+        public final List<String> PeakModel = Lists.newArrayList();
+        public final Set<String> ReportedGenes = new TreeSet<>();
+        public final Set<String> ReportedSomatics = new TreeSet<>();
+        public final List<String> ReportableGermline = Lists.newArrayList();
+        public int TumorMutationalLoad;
+        public double TumorMutationalBurdenPerMb;
+        public double MsiIndelsPerMb;
+    }
+
+    private VariantResults processVariants(final Path tempDir, final String outputDir, boolean streamVariants)
+    {
+        // follows the application's order: load, select fitting candidates, purity enrich, model peaks, then enrich and write
+        ConfigBuilder configBuilder = new ConfigBuilder();
+        PurpleConfig.addOptions(configBuilder);
+
+        List<String> args = Lists.newArrayList(
+                "-" + REFERENCE, REF_SAMPLE_ID, "-" + TUMOR, SAMPLE_ID,
+                "-" + OUTPUT_DIR, tempDir.resolve(outputDir).toString(),
+                "-" + REF_GENOME, tempDir.resolve("ref.fasta").toString(),
+                "-" + ENSEMBL_DATA_DIR, tempDir.resolve("ensembl").toString(),
+                "-" + DRIVER_GENE_PANEL_OPTION, tempDir.resolve("driver_genes.tsv").toString(),
+                "-somatic_hotspots", tempDir.resolve("hotspots.vcf").toString(),
+                "-no_charts");
+
+        if(streamVariants)
+            args.add("-" + STREAM_VARIANTS);
+
+        assertTrue(configBuilder.parseCommandLine(args.toArray(new String[0])));
+
+        PurpleConfig config = new PurpleConfig("1.0", configBuilder);
+        assertTrue(config.isValid());
+        assertEquals(streamVariants, config.StreamVariants);
+
+        ReferenceData referenceData = new ReferenceData(configBuilder, config);
+
+        List<PurpleCopyNumber> copyNumbers = Lists.newArrayList();
+        List<ObservedRegion> fittedRegions = Lists.newArrayList();
+
+        for(String chromosome : CHROMOSOMES)
+        {
+            copyNumbers.add(createCopyNumber(chromosome, 1, CHROMOSOME_LENGTH, 2).build());
+            fittedRegions.add(createDefaultFittedRegion(chromosome, 1, CHROMOSOME_LENGTH));
+        }
+
+        PurityAdjuster purityAdjuster = buildPurityAdjuster(Gender.FEMALE, 0.8, 1.0);
+
+        VariantResults results = new VariantResults();
+
+        SomaticVariantCache somaticCache = new SomaticVariantCache(config);
+        somaticCache.loadSomatics(tempDir.resolve("somatic.vcf").toString(), referenceData.SomaticHotspots);
+
+        SomaticPurityFitter.CandidateFilter candidateFilter = somaticCache.candidateFilter();
+
+        for(SomaticVariant variant : SomaticPurityFitter.findFittingVariants(somaticCache.variants(), fittedRegions, candidateFilter))
+        {
+            results.FittingCandidates.add(variant.chromosome() + ":" + variant.position());
+        }
+
+        // streamed variants are screened on load, so the counts must carry through to fitting
+        results.FilterCounts.add(candidateFilter.testedCount());
+
+        for(FilterReason reason : FilterReason.values())
+        {
+            results.FilterCounts.add(candidateFilter.filterCount(reason));
+        }
+
+        somaticCache.purityEnrich(new SomaticPurityEnrichment(purityAdjuster, copyNumbers, fittedRegions));
+
+        List<PeakModelData> peakModel = new SomaticPeakStream().somaticPeakModel(somaticCache);
+
+        for(PeakModelData peak : peakModel)
+        {
+            results.PeakModel.add(format("%s:%s:%s:%s:%s:%s",
+                    peak.Peak, peak.PeakAvgWeight, peak.Bucket, peak.BucketWeight, peak.IsValid, peak.IsSubclonal));
+        }
+
+        SomaticStream somaticStream = new SomaticStream(config, referenceData, somaticCache, peakModel);
+        somaticStream.processAndWrite(purityAdjuster);
+
+        results.TumorMutationalLoad = somaticStream.tumorMutationalLoad();
+        results.TumorMutationalBurdenPerMb = somaticStream.tumorMutationalBurdenPerMb();
+        results.MsiIndelsPerMb = somaticStream.msiIndelsPerMb();
+        results.ReportedGenes.addAll(somaticStream.reportedGenes());
+
+        for(VariantContext context : readVcf(PurpleCommon.purpleSomaticVcfFile(config.OutputDir, SAMPLE_ID)))
+        {
+            results.SomaticRecords.add(recordString(context));
+
+            if(context.getAttributeAsBoolean(REPORTED_FLAG, false))
+                results.ReportedSomatics.add(context.getAttributeAsStringList(VAR_IMPACT, "").get(0));
+        }
+
+        GermlineVariants germlineVariants = new GermlineVariants(config, referenceData, "1.0");
+
+        germlineVariants.processAndWrite(
+                REF_SAMPLE_ID, SAMPLE_ID, tempDir.resolve("germline.vcf").toString(), purityAdjuster, copyNumbers,
+                somaticStream.reportedGenes());
+
+        for(GermlineVariant variant : germlineVariants.reportableVariants())
+        {
+            results.ReportableGermline.add(variant.chromosome() + ":" + variant.context().getStart());
+        }
+
+        for(VariantContext context : readVcf(PurpleCommon.purpleGermlineVcfFile(config.OutputDir, SAMPLE_ID)))
+        {
+            results.GermlineRecords.add(recordString(context));
+        }
+
+        return results;
+    }
+
+    private static List<VariantContext> readVcf(final String filename)
+    {
+        List<VariantContext> contexts = Lists.newArrayList();
+
+        try(VCFFileReader vcfReader = new VCFFileReader(new File(filename), false))
+        {
+            vcfReader.forEach(contexts::add);
+        }
+
+        return contexts;
+    }
+
+    private static String recordString(final VariantContext context)
+    {
+        // order-independent views of the filters and attributes, which may be held differently once written and re-read
+        return format("%s:%d %s filters(%s) info(%s) genotypes(%s)",
+                context.getContig(), context.getStart(), context.getAlleles(), new TreeSet<>(context.getFilters()),
+                new TreeMap<>(context.getAttributes()), context.getGenotypes());
+    }
+
+    private static Map<String,String> writeRefGenome(final Path tempDir) throws IOException
+    {
+        Random random = new Random(0);
+        Map<String,String> refBases = Maps.newLinkedHashMap();
+
+        StringBuilder fasta = new StringBuilder();
+        StringBuilder index = new StringBuilder();
+        StringBuilder dictionary = new StringBuilder("@HD\tVN:1.5\n");
+
+        for(String chromosome : CHROMOSOMES)
+        {
+            char[] bases = new char[CHROMOSOME_LENGTH];
+
+            for(int i = 0; i < bases.length; ++i)
+            {
+                bases[i] = "ACGT".charAt(random.nextInt(4));
+            }
+
+            // a homopolymer after the MSI INDEL so its repeat context is relevant
+            int indelPosition = somaticPosition(MSI_INDEL_INDEX);
+            bases[indelPosition - 1] = 'C';
+
+            for(int i = 0; i < HOMOPOLYMER_LENGTH; ++i)
+            {
+                bases[indelPosition + i] = 'A';
+            }
+
+            String sequence = new String(bases);
+            refBases.put(chromosome, sequence);
+
+            fasta.append('>').append(chromosome).append('\n');
+            int offset = fasta.length();
+            fasta.append(sequence).append('\n');
+
+            index.append(format("%s\t%d\t%d\t%d\t%d\n", chromosome, CHROMOSOME_LENGTH, offset, CHROMOSOME_LENGTH, CHROMOSOME_LENGTH + 1));
+            dictionary.append(format("@SQ\tSN:%s\tLN:%d\n", chromosome, CHROMOSOME_LENGTH));
+        }
+
+        Files.writeString(tempDir.resolve("ref.fasta"), fasta.toString());
+        Files.writeString(tempDir.resolve("ref.fasta.fai"), index.toString());
+        Files.writeString(tempDir.resolve("ref.dict"), dictionary.toString());
+
+        return refBases;
+    }
+
+    private static void writeReferenceFiles(final Path tempDir) throws IOException
+    {
+        Files.createDirectory(tempDir.resolve("ensembl"));
+
+        Files.writeString(tempDir.resolve("hotspots.vcf"), vcfHeader(false));
+
+        DriverGene driverGene = ImmutableDriverGene.builder()
+                .gene(DRIVER_GENE)
+                .reportMissenseAndInframe(true)
+                .reportNonsenseAndFrameshift(true)
+                .reportSplice(false)
+                .reportDeletion(false)
+                .reportDisruption(false)
+                .reportAmplification(false)
+                .reportSomaticHotspot(false)
+                .reportGermlineVariant(ANY)
+                .reportGermlineHotspot(ANY)
+                .likelihoodType(TSG)
+                .reportPGX(false)
+                .reportGermlineDisruption(NONE)
+                .reportGermlineDeletion(NONE)
+                .build();
+
+        DriverGeneFile.write(tempDir.resolve("driver_genes.tsv").toString(), Lists.newArrayList(driverGene));
+    }
+
+    private static int somaticPosition(int index) { return 200 + index * SOMATIC_SPACING; }
+
+    private static void writeSomaticVcf(final Path tempDir, final Map<String,String> refBases) throws IOException
+    {
+        Random random = new Random(1);
+        StringBuilder vcf = new StringBuilder(vcfHeader(true));
+
+        for(String chromosome : CHROMOSOMES)
+        {
+            String sequence = refBases.get(chromosome);
+
+            for(int i = 0; i < SOMATIC_COUNT; ++i)
+            {
+                int position = somaticPosition(i);
+                String ref = String.valueOf(sequence.charAt(position - 1));
+                String alt = i == MSI_INDEL_INDEX ? ref + "A" : altBase(ref);
+
+                // a mix of fitting candidates and variants excluded from fitting by tier, gnomAD, germline support or filter
+                String filter = i % 7 == 6 ? "min_tumor_qual" : "PASS";
+                StringJoiner info = new StringJoiner(";");
+                info.add(TIER + "=" + (i % 4 == 3 ? "LOW_CONFIDENCE" : "HIGH_CONFIDENCE"));
+
+                if(i % 9 == 8)
+                    info.add(GNOMAD_FREQ + "=0.01");
+
+                if(chromosome.equals("1") && i == 10)
+                {
+                    // a reportable missense, and an unreported missense in the same phase set which is then reported with it
+                    info.add(LOCAL_PHASE_SET + "=1");
+                    info.add(impactInfo(DRIVER_GENE, "missense_variant&phased_missense", CodingEffect.MISSENSE));
+                }
+                else if(chromosome.equals("1") && i == 11)
+                {
+                    info.add(LOCAL_PHASE_SET + "=1");
+                    info.add(impactInfo(PHASED_GENE, "missense_variant&phased_missense", CodingEffect.MISSENSE));
+                }
+                else if(i % 6 == 0)
+                {
+                    info.add(impactInfo(OTHER_GENE, "missense_variant", CodingEffect.MISSENSE));
+                }
+
+                int tumorAlt = 20 + random.nextInt(30);
+                int refSampleAlt = i % 5 == 4 ? 2 : 0;
+
+                vcf.append(format("%s\t%d\t.\t%s\t%s\t%d\t%s\t%s\tGT:AD:DP\t0/0:%d,%d:%d\t0/1:%d,%d:%d\n",
+                        chromosome, position, ref, alt, 100 + random.nextInt(200), filter, info,
+                        40 - refSampleAlt, refSampleAlt, 40, 100 - tumorAlt, tumorAlt, 100));
+            }
+        }
+
+        Files.writeString(tempDir.resolve("somatic.vcf"), vcf.toString());
+    }
+
+    private static int germlinePosition(int index) { return 250 + index * GERMLINE_SPACING; }
+
+    private static void writeGermlineVcf(final Path tempDir, final Map<String,String> refBases) throws IOException
+    {
+        StringBuilder vcf = new StringBuilder(vcfHeader(true));
+
+        for(String chromosome : CHROMOSOMES)
+        {
+            String sequence = refBases.get(chromosome);
+
+            for(int i = 0; i < GERMLINE_COUNT; ++i)
+            {
+                int position = germlinePosition(i);
+                String ref = String.valueOf(sequence.charAt(position - 1));
+                String filter = i == 5 ? "min_germline_depth" : "PASS";
+                String info = TIER + "=HIGH_CONFIDENCE";
+
+                // a pathogenic variant on each chromosome, only reportable on the first where it is in the driver gene
+                if(i == 2)
+                {
+                    String gene = chromosome.equals("1") ? DRIVER_GENE : OTHER_GENE;
+                    info += ";" + CLNSIG + "=Pathogenic;" + impactInfo(gene, "stop_gained", CodingEffect.NONSENSE_OR_FRAMESHIFT);
+                }
+
+                vcf.append(format("%s\t%d\t.\t%s\t%s\t1000\t%s\t%s\tGT:AD:DP\t0/1:20,20:40\t0/1:30,30:60\n",
+                        chromosome, position, ref, altBase(ref), filter, info));
+            }
+        }
+
+        Files.writeString(tempDir.resolve("germline.vcf"), vcf.toString());
+    }
+
+    private static String altBase(final String ref)
+    {
+        return ref.equals("A") ? "G" : "A";
+    }
+
+    private static String impactInfo(final String gene, final String effect, final CodingEffect codingEffect)
+    {
+        VariantImpact impact = new VariantImpact(
+                gene, "ENST00000000001", effect, codingEffect, "c.100A>G", "p.Lys34Glu", false, "", codingEffect, 1);
+
+        return VAR_IMPACT + "=" + String.join(",", toVcfData(impact));
+    }
+
+    private static String vcfHeader(boolean withSamples)
+    {
+        StringBuilder header = new StringBuilder("##fileformat=VCFv4.2\n");
+        header.append("##FILTER=<ID=PASS,Description=\"All filters passed\">\n");
+        header.append("##FILTER=<ID=min_tumor_qual,Description=\"Insufficient tumor quality\">\n");
+        header.append("##FILTER=<ID=min_germline_depth,Description=\"Insufficient germline depth\">\n");
+        header.append(format("##INFO=<ID=%s,Number=1,Type=String,Description=\"Tier\">\n", TIER));
+        header.append(format("##INFO=<ID=%s,Number=.,Type=String,Description=\"Variant impact\">\n", VAR_IMPACT));
+        header.append(format("##INFO=<ID=%s,Number=.,Type=Integer,Description=\"Local phase set\">\n", LOCAL_PHASE_SET));
+        header.append(format("##INFO=<ID=%s,Number=1,Type=Float,Description=\"Gnomad frequency\">\n", GNOMAD_FREQ));
+        header.append(format("##INFO=<ID=%s,Number=.,Type=String,Description=\"Clinvar significance\">\n", CLNSIG));
+        header.append("##FORMAT=<ID=GT,Number=1,Type=String,Description=\"Genotype\">\n");
+        header.append("##FORMAT=<ID=AD,Number=R,Type=Integer,Description=\"Allelic depths\">\n");
+        header.append("##FORMAT=<ID=DP,Number=1,Type=Integer,Description=\"Read depth\">\n");
+
+        for(String chromosome : CHROMOSOMES)
+        {
+            header.append(format("##contig=<ID=%s,length=%d>\n", chromosome, CHROMOSOME_LENGTH));
+        }
+
+        header.append("#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO");
+
+        if(withSamples)
+            header.append("\tFORMAT\t").append(REF_SAMPLE_ID).append('\t').append(SAMPLE_ID);
+
+        return header.append('\n').toString();
+    }
+}
@@ -8,12 +8,18 @@ import static com.hartwig.hmftools.common.test.GeneTestUtils.TRANS_ID_1;
 import static com.hartwig.hmftools.common.test.GeneTestUtils.TRANS_ID_2;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.util.List;
+import java.util.Random;
 
 import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.ensemblcache.EnsemblDataCache;
+import com.hartwig.hmftools.common.gene.ExonData;
 import com.hartwig.hmftools.common.gene.GeneData;
 import com.hartwig.hmftools.common.gene.TranscriptData;
+import com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion;
+import com.hartwig.hmftools.common.purple.CopyNumberMethod;
 import com.hartwig.hmftools.common.purple.PurpleTestUtils;
 import com.hartwig.hmftools.common.purple.PurpleCopyNumber;
 import com.hartwig.hmftools.common.purple.GeneCopyNumber;
@@ -104,6 +110,146 @@ public class GeneCopyNumberBuilderTest
         assertCopyNumber(geneCopyNumber, 1, 0, 0);
     }
 
+    @Test
+    public void testSweepMatchesZip()
+    {
+        Random random = new Random(0);
+        List<PurpleCopyNumber> copyNumbers = createRandomCopyNumbers(random, CHROMOSOME, 500);
+        int regionEnd = copyNumbers.get(copyNumbers.size() - 1).end();
+
+        for(int t = 0; t < 500; ++t)
+        {
+            TranscriptData transData = createRandomTranscript(random, GENE_ID_1, t, copyNumbers, regionEnd);
+
+            GeneCopyNumber expected = createByZip(new GeneCopyNumberBuilder(mGeneData, transData, copyNumbers), transData, copyNumbers);
+            GeneCopyNumber actual = new GeneCopyNumberBuilder(mGeneData, transData, copyNumbers).create();
+
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void testParallelMatchesSequential()
+    {
+        Random random = new Random(1);
+        EnsemblDataCache geneTransCache = GeneTestUtils.createGeneDataCache();
+        List<PurpleCopyNumber> copyNumbers = Lists.newArrayList();
+        int transId = 0;
+
+        for(int c = 1; c <= 3; ++c)
+        {
+            String chromosome = String.valueOf(c);
+            List<PurpleCopyNumber> chrCopyNumbers = createRandomCopyNumbers(random, chromosome, 200);
+            copyNumbers.addAll(chrCopyNumbers);
+
+            int regionEnd = chrCopyNumbers.get(chrCopyNumbers.size() - 1).end();
+            List<GeneData> geneDataList = Lists.newArrayList();
+
+            for(int g = 0; g < 20; ++g)
+            {
+                String geneId = String.format("ENSG%d%03d", c, g);
+
+                // several transcripts per gene, as with the full Ensembl transcript set
+                List<TranscriptData> transDataList = Lists.newArrayList();
+
+                for(int t = 0; t < 5; ++t)
+                {
+                    transDataList.add(createRandomTranscript(random, geneId, ++transId, chrCopyNumbers, regionEnd));
+                }
+
+                int geneStart = transDataList.stream().mapToInt(x -> x.TransStart).min().orElse(0);
+                int geneEnd = transDataList.stream().mapToInt(x -> x.TransEnd).max().orElse(0);
+                geneDataList.add(GeneTestUtils.createEnsemblGeneData(geneId, geneId, chromosome, POS_STRAND, geneStart, geneEnd));
+                GeneTestUtils.addTransExonData(geneTransCache, geneId, transDataList);
+            }
+
+            GeneTestUtils.addGeneData(geneTransCache, chromosome, geneDataList);
+        }
+
+        List<GeneCopyNumber> sequential = GeneCopyNumberBuilder.createGeneCopyNumbers(
+                RefGenomeVersion.V37, geneTransCache, copyNumbers, 1);
+
+        List<GeneCopyNumber> parallel = GeneCopyNumberBuilder.createGeneCopyNumbers(
+                RefGenomeVersion.V37, geneTransCache, copyNumbers, 3);
+
+        assertTrue(sequential.size() > 250);
+        assertEquals(sequential, parallel);
+    }
+
+    // the previous merge of every copy number region with the exons, retained to verify the sweep
+    private static GeneCopyNumber createByZip(
+            final GeneCopyNumberBuilder builder, final TranscriptData transData, final List<PurpleCopyNumber> copyNumbers)
+    {
+        int cnIndex = 0;
+        int exonIndex = 0;
+        ExonData currentExon = null;
+        PurpleCopyNumber currentCopyNumber = null;
+
+        while(cnIndex < copyNumbers.size() || exonIndex < transData.exons().size())
+        {
+            PurpleCopyNumber copyNumber = cnIndex < copyNumbers.size() ? copyNumbers.get(cnIndex) : null;
+            ExonData exonData = exonIndex < transData.exons().size() ? transData.exons().get(exonIndex) : null;
+
+            if(copyNumber == null || (exonData != null && exonData.Start < copyNumber.start()))
+            {
+                currentExon = exonData;
+                ++exonIndex;
+            }
+            else
+            {
+                currentCopyNumber = copyNumber;
+                ++cnIndex;
+            }
+
+            if(currentExon != null && currentCopyNumber != null)
+                builder.addOverlap(currentExon, currentCopyNumber);
+        }
+
+        return builder.buildGeneCopyNumber();
+    }
+
+    private static List<PurpleCopyNumber> createRandomCopyNumbers(final Random random, final String chromosome, int regionCount)
+    {
+        // contiguous regions with repeated copy numbers, so adjacent regions are sometimes merged into the minimum region
+        final double[] copyNumberValues = { 0, 1, 2, 2, 3, 4 };
+        final CopyNumberMethod[] methods = { CopyNumberMethod.BAF_WEIGHTED, CopyNumberMethod.GERMLINE_HOM_DELETION };
+
+        List<PurpleCopyNumber> copyNumbers = Lists.newArrayList();
+        int start = 1;
+
+        for(int i = 0; i < regionCount; ++i)
+        {
+            int end = start + 50 + random.nextInt(3000);
+
+            copyNumbers.add(PurpleTestUtils.createCopyNumber(chromosome, start, end, copyNumberValues[random.nextInt(copyNumberValues.length)])
+                    .method(methods[random.nextInt(10) == 0 ? 1 : 0])
+                    .depthWindowCount(1 + random.nextInt(10))
+                    .averageActualBAF(0.5 + random.nextDouble() * 0.5)
+                    .build());
+
+            start = end + 1;
+        }
+
+        return copyNumbers;
+    }
+
+    private static TranscriptData createRandomTranscript(
+            final Random random, final String geneId, int transId, final List<PurpleCopyNumber> copyNumbers, int regionEnd)
+    {
+        int exonCount = 1 + random.nextInt(12);
+        int exonLength = 50 + random.nextInt(400);
+        int intronLength = 10 + random.nextInt(2500);
+
+        // some transcripts start exactly on a region boundary, and some extend beyond the last region
+        int startBase = random.nextInt(4) == 0 ?
+                copyNumbers.get(random.nextInt(copyNumbers.size())).start() : 1 + random.nextInt(regionEnd);
+
+        int[] exonStarts = GeneTestUtils.generateExonStarts(startBase, exonCount, exonLength, intronLength);
+
+        return GeneTestUtils.createTransExons(
+                geneId, transId, POS_STRAND, exonStarts, exonLength, null, null, transId % 5 == 0, "");
+    }
+
     private void assertCopyNumber(final GeneCopyNumber geneCopyNumber, int somaticCount, double expectedMin, double expectedMax)
     {
         assertEquals(somaticCount, geneCopyNumber.somaticRegions());
@@ -0,0 +1,105 @@
+package com.hartwig.hmftools.purple.purity;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.purple.FittedPurity;
+import com.hartwig.hmftools.common.purple.ImmutableFittedPurity;
+import com.hartwig.hmftools.purple.config.PuritySearchMode;
+
+import org.junit.Test;
+
+public class PurityPloidySearchTest
+{
+    private static final List<Double> PURITIES = Lists.newArrayList();
+    private static final List<Double> PLOIDIES = FittedPurityFactory.ploidyRange(1, 8);
+
+    static
+    {
+        for(double purity = 0.08; purity <= 1.0 + 1e-10; purity += 0.01)
+        {
+            PURITIES.add(purity);
+        }
+    }
+
+    @Test
+    public void testAdaptiveSearchMatchesExhaustive() throws ExecutionException, InterruptedException
+    {
+        // a main basin near diploid plus a shallower one at a whole-genome duplicated ploidy
+        PurityPloidySearch.CellFitter cellFitter = (purity, ploidy) -> createFit(purity, ploidy,
+                Math.min(basin(purity, ploidy, 0.63, 3.1, 0.3), 0.05 + basin(purity, ploidy, 0.32, 6.2, 0.5)));
+
+        PurityPloidySearch exhaustiveSearch = new PurityPloidySearch(PURITIES, PLOIDIES, cellFitter, null);
+        List<FittedPurity> exhaustiveFits = exhaustiveSearch.search(PuritySearchMode.EXHAUSTIVE);
+        assertEquals(exhaustiveSearch.totalCellCount(), exhaustiveFits.size());
+
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+
+        try
+        {
+            PurityPloidySearch adaptiveSearch = new PurityPloidySearch(PURITIES, PLOIDIES, cellFitter, executorService);
+            List<FittedPurity> adaptiveFits = adaptiveSearch.search(PuritySearchMode.ADAPTIVE);
+
+            assertEquals(exhaustiveFits.get(0), adaptiveFits.get(0));
+            assertNull(PurityPloidySearch.compareFits(adaptiveFits, exhaustiveFits));
+            assertTrue(adaptiveSearch.adaptiveCellCount() < adaptiveSearch.totalCellCount() / 4);
+        }
+        finally
+        {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    public void testVerifyFallsBackToExhaustive() throws ExecutionException, InterruptedException
+    {
+        // a narrow minimum between coarse cells and away from the broad basin is missed by the adaptive search
+        PurityPloidySearch.CellFitter cellFitter = (purity, ploidy) ->
+        {
+            boolean isSpike = Math.abs(purity - 0.91) < 0.005 && Math.abs(ploidy - 7.3) < 0.05;
+            return createFit(purity, ploidy, isSpike ? 0.01 : 0.2 + basin(purity, ploidy, 0.4, 2.0, 0.2));
+        };
+
+        PurityPloidySearch adaptiveSearch = new PurityPloidySearch(PURITIES, PLOIDIES, cellFitter, null);
+        List<FittedPurity> adaptiveFits = adaptiveSearch.search(PuritySearchMode.ADAPTIVE);
+        assertTrue(adaptiveFits.get(0).score() > 0.01);
+
+        PurityPloidySearch verifySearch = new PurityPloidySearch(PURITIES, PLOIDIES, cellFitter, null);
+        List<FittedPurity> verifiedFits = verifySearch.search(PuritySearchMode.VERIFY);
+
+        assertEquals(0.01, verifiedFits.get(0).score(), 1e-10);
+        assertEquals(verifySearch.totalCellCount(), verifiedFits.size());
+        assertEquals(adaptiveSearch.adaptiveCellCount(), verifySearch.adaptiveCellCount());
+        assertNotNull(PurityPloidySearch.compareFits(adaptiveFits, verifiedFits));
+    }
+
+    private static double basin(double purity, double ploidy, double centrePurity, double centrePloidy, double width)
+    {
+        double purityDistance = (purity - centrePurity) / 0.2;
+        double ploidyDistance = (ploidy - centrePloidy) / (width * 4);
+        return 0.1 * (purityDistance * purityDistance + ploidyDistance * ploidyDistance);
+    }
+
+    private static FittedPurity createFit(double purity, double ploidy, double score)
+    {
+        // the fitted ploidy rises with the candidate ploidy, more slowly at low purity
+        double fittedPloidy = 2 + (ploidy - 2.2) * (0.5 + purity);
+
+        return ImmutableFittedPurity.builder()
+                .purity(purity)
+                .normFactor(1 / ploidy)
+                .ploidy(fittedPloidy)
+                .score(score)
+                .diploidProportion(0)
+                .somaticPenalty(0)
+                .build();
+    }
+}
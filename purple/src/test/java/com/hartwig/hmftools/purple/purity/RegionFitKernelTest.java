@@ -0,0 +1,137 @@
+package com.hartwig.hmftools.purple.purity;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.cobalt.CobaltTestUtils;
+import com.hartwig.hmftools.common.genome.chromosome.CobaltChromosomes;
+import com.hartwig.hmftools.common.purple.FittedPurity;
+import com.hartwig.hmftools.common.purple.GermlineStatus;
+import com.hartwig.hmftools.common.purple.ImmutableFittedPurity;
+import com.hartwig.hmftools.common.purple.SegmentSupport;
+import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+import com.hartwig.hmftools.common.variant.AllelicDepth;
+import com.hartwig.hmftools.common.variant.ImmutableAllelicDepthImpl;
+import com.hartwig.hmftools.purple.config.FittingConfig;
+import com.hartwig.hmftools.purple.region.ObservedRegion;
+
+import org.junit.Test;
+
+public class RegionFitKernelTest
+{
+    private static final double SOMATIC_PENALTY_WEIGHT = 1;
+
+    @Test
+    public void testKernelMatchesRegionFitCalculator()
+    {
+        ConfigBuilder configBuilder = new ConfigBuilder();
+        FittingConfig.addConfig(configBuilder);
+        FittingConfig fittingConfig = new FittingConfig(configBuilder);
+
+        // the male X and Y are not normal diploid, so their regions take the fixed BAF path
+        CobaltChromosomes cobaltChromosomes = CobaltTestUtils.male();
+        RegionFitCalculator regionFitCalculator = new RegionFitCalculator(cobaltChromosomes, fittingConfig, 60);
+
+        Random random = new Random(0);
+        List<ObservedRegion> regions = Lists.newArrayList();
+        List<List<AllelicDepth>> regionVariantDepths = Lists.newArrayList();
+
+        for(int i = 0; i < 400; ++i)
+        {
+            String chromosome = i % 40 == 0 ? "X" : String.valueOf(1 + random.nextInt(22));
+            int bafCount = 1 + random.nextInt(500);
+            double observedBAF = 0.5 + random.nextDouble() * 0.5;
+            double tumorRatio = i % 50 == 0 ? 0 : 0.2 + random.nextDouble() * 2;
+
+            regions.add(new ObservedRegion(
+                    chromosome, i * 1000 + 1, i * 1000 + 1000, true, SegmentSupport.NONE, bafCount, observedBAF, 10,
+                    tumorRatio, 1, 1, GermlineStatus.DIPLOID, false, 0.45, 0, 0));
+
+            List<AllelicDepth> depths = Lists.newArrayList();
+            int variantCount = random.nextInt(4);
+
+            for(int v = 0; v < variantCount; ++v)
+            {
+                int totalReadCount = 20 + random.nextInt(100);
+                int alleleReadCount = 1 + random.nextInt(totalReadCount);
+                depths.add(ImmutableAllelicDepthImpl.builder().alleleReadCount(alleleReadCount).totalReadCount(totalReadCount).build());
+            }
+
+            regionVariantDepths.add(depths);
+        }
+
+        RegionFitKernel kernel = new RegionFitKernel(regionFitCalculator, regions, regionVariantDepths, SOMATIC_PENALTY_WEIGHT);
+
+        for(double purity = 0.08; purity <= 1.0; purity += 0.07)
+        {
+            for(double normFactor = 0.3; normFactor <= 1.2; normFactor += 0.11)
+            {
+                FittedPurity expected = fitRegions(
+                        regionFitCalculator, cobaltChromosomes, regions, regionVariantDepths, purity, normFactor);
+
+                FittedPurity actual = kernel.fit(purity, normFactor);
+
+                // exact equality, since the kernel must select the same fits as the per-region path
+                assertEquals(expected.score(), actual.score(), 0);
+                assertEquals(expected.ploidy(), actual.ploidy(), 0);
+                assertEquals(expected.diploidProportion(), actual.diploidProportion(), 0);
+                assertEquals(expected.somaticPenalty(), actual.somaticPenalty(), 0);
+            }
+        }
+    }
+
+    // scores a candidate with the per-region objects, as the purity fitting did before packing regions for the kernel
+    private static FittedPurity fitRegions(
+            final RegionFitCalculator regionFitCalculator, final CobaltChromosomes cobaltChromosomes, final List<ObservedRegion> regions,
+            final List<List<AllelicDepth>> regionVariantDepths, double purity, double normFactor)
+    {
+        int totalBafCount = regions.stream().mapToInt(ObservedRegion::bafCount).sum();
+        PurityAdjuster purityAdjuster = new PurityAdjuster(purity, normFactor, cobaltChromosomes);
+
+        double eventPenalty = 0;
+        double deviationPenalty = 0;
+        double diploidProportion = 0;
+        double averagePloidy = 0;
+        double somaticPenaltyTotal = 0;
+        int somaticVariantCount = 0;
+
+        for(int i = 0; i < regions.size(); ++i)
+        {
+            ObservedRegion region = regions.get(i);
+            RegionFitCalcs regionFitCalcs = regionFitCalculator.calculateRegionFit(purity, normFactor, region);
+
+            int bafCount = region.bafCount();
+            eventPenalty += 1d * regionFitCalcs.EventPenalty * bafCount / totalBafCount;
+            deviationPenalty += 1d * regionFitCalcs.DeviationPenalty * bafCount / totalBafCount;
+            averagePloidy += 1d * regionFitCalcs.TumorCopyNumber * bafCount / totalBafCount;
+
+            if(regionFitCalcs.isDiploid())
+                diploidProportion += 1d * bafCount / totalBafCount;
+
+            for(AllelicDepth depth : regionVariantDepths.get(i))
+            {
+                ++somaticVariantCount;
+
+                double variantPenalty = SomaticDeviation.INSTANCE.deviationFromMax(
+                        purityAdjuster, purityAdjuster.germlineCopyNumber(region.chromosome()), depth,
+                        Math.max(0, regionFitCalcs.TumorCopyNumber), Math.max(0, regionFitCalcs.majorAlleleCopyNumber()));
+
+                somaticPenaltyTotal += SOMATIC_PENALTY_WEIGHT * variantPenalty;
+            }
+        }
+
+        double somaticPenalty = somaticVariantCount > 0 ? somaticPenaltyTotal / somaticVariantCount : 0;
+
+        return ImmutableFittedPurity.builder()
+                .purity(purity)
+                .normFactor(normFactor)
+                .score(eventPenalty * deviationPenalty + somaticPenalty)
+                .diploidProportion(diploidProportion)
+                .ploidy(averagePloidy)
+                .somaticPenalty(somaticPenalty)
+                .build();
+    }
+}
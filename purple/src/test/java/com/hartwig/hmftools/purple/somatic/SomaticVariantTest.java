@@ -0,0 +1,46 @@
+package com.hartwig.hmftools.purple.somatic;
+
+import static com.hartwig.hmftools.common.variant.Hotspot.HOTSPOT;
+import static com.hartwig.hmftools.common.variant.Hotspot.NON_HOTSPOT;
+import static com.hartwig.hmftools.purple.TestUtils.createVariant;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.hartwig.hmftools.common.variant.CodingEffect;
+import com.hartwig.hmftools.common.variant.VariantType;
+
+import org.junit.Test;
+
+public class SomaticVariantTest
+{
+    @Test
+    public void testReleaseContextRetainsFittingFields()
+    {
+        SomaticVariant variant = createVariant(VariantType.SNP, CodingEffect.MISSENSE, 0, HOTSPOT, 0.5);
+
+        assertTrue(variant.hasContext());
+        int totalReadCount = variant.totalReadCount();
+        double alleleFrequency = variant.alleleFrequency();
+
+        variant.releaseContext();
+
+        assertFalse(variant.hasContext());
+        assertNull(variant.context());
+        assertEquals(VariantType.SNP, variant.type());
+        assertTrue(variant.isPass());
+        assertTrue(variant.isHotspot());
+        assertEquals("1", variant.chromosome());
+        assertEquals(1000, variant.position());
+        assertEquals(totalReadCount, variant.totalReadCount());
+        assertEquals(alleleFrequency, variant.alleleFrequency(), 1e-10);
+
+        SomaticVariant indel = createVariant(VariantType.INDEL, CodingEffect.NONE, 0, NON_HOTSPOT, 0.2);
+        indel.releaseContext();
+
+        assertEquals(VariantType.INDEL, indel.type());
+        assertFalse(indel.isHotspot());
+    }
+}
@@ -19,6 +19,7 @@ import com.hartwig.hmftools.common.region.BaseRegion;
 import com.hartwig.hmftools.common.region.ChrBaseRegion;
 import com.hartwig.hmftools.common.samtools.BamSampler;
 import com.hartwig.hmftools.common.utils.MemoryCalcs;
+import com.hartwig.hmftools.common.utils.MetricsRegistry;
 import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
 import com.hartwig.hmftools.common.utils.version.VersionInfo;
 import com.hartwig.hmftools.sage.coverage.Coverage;
@@ -181,6 +182,7 @@ public class SageApplication implements AutoCloseable
         SageCallConfig.registerConfig(configBuilder);
 
         configBuilder.checkAndParseCommandLine(args);
+        MetricsRegistry.initialise(configBuilder, APP_NAME);
 
         SageApplication application = new SageApplication(configBuilder);
         application.run();
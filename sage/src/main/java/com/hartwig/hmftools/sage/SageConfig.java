@@ -30,6 +30,7 @@ import com.hartwig.hmftools.common.genome.chromosome.MitochondrialChromosome;
 import com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion;
 import com.hartwig.hmftools.common.region.SpecificRegions;
 import com.hartwig.hmftools.common.samtools.BamUtils;
+import com.hartwig.hmftools.common.utils.MetricsRegistry;
 import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
 import com.hartwig.hmftools.sage.filter.FilterConfig;
 import com.hartwig.hmftools.sage.quality.QualityConfig;
@@ -275,6 +276,7 @@ public class SageConfig
 
         addLoggingOptions(configBuilder);
         addThreadOptions(configBuilder);
+        MetricsRegistry.addConfig(configBuilder);
     }
 
     public SageConfig()
@@ -22,6 +22,7 @@ import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
 import com.hartwig.hmftools.common.genome.chromosome.MitochondrialChromosome;
 import com.hartwig.hmftools.common.region.BaseRegion;
 import com.hartwig.hmftools.common.region.ChrBaseRegion;
+import com.hartwig.hmftools.common.utils.MetricsRegistry;
 import com.hartwig.hmftools.common.variant.hotspot.VariantHotspot;
 import com.hartwig.hmftools.sage.ReferenceData;
 import com.hartwig.hmftools.sage.SageCallConfig;
@@ -136,6 +137,8 @@ public class ChromosomePipeline implements AutoCloseable
 
         mVcfWriter.flushChromosome();
 
+        MetricsRegistry.register(mRegionResults.perfCounters());
+
         if(mConfig.Common.logPerfStats())
         {
             mRegionResults.logPerfCounters();
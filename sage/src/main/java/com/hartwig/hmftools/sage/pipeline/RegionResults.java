@@ -84,6 +84,8 @@ public class RegionResults
     public int totalVariants() { return mTotaVariants; }
     public int maxMemoryUsage() { return mMaxMemoryUsage; }
 
+    public List<PerformanceCounter> perfCounters() { return mPerfCounters; }
+
     public void logPerfCounters()
     {
         mPerfCounters.forEach(x -> x.logStats());
@@ -12,6 +12,7 @@ import com.google.common.collect.Sets;
 import com.hartwig.hmftools.common.gene.TranscriptData;
 import com.hartwig.hmftools.common.genome.refgenome.RefGenomeInterface;
 import com.hartwig.hmftools.common.utils.MemoryCalcs;
+import com.hartwig.hmftools.common.utils.MetricsRegistry;
 import com.hartwig.hmftools.common.utils.PerformanceCounter;
 import com.hartwig.hmftools.common.region.BaseRegion;
 import com.hartwig.hmftools.common.region.ChrBaseRegion;
@@ -192,7 +193,7 @@ public class RegionTask
 
         mPerfCounters.add(mEvidenceStage.getVariantPhaser().getPerfCounter());
 
-        if(mConfig.Common.logPerfStats())
+        if(mConfig.Common.logPerfStats() || MetricsRegistry.isEnabled())
             mResults.addPerfCounters(mPerfCounters);
 
         mResults.addMaxMemory(MemoryCalcs.calcMemoryUsage());
@@ -19,6 +19,7 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
 import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+import com.hartwig.hmftools.common.utils.MetricsRegistry;
 import com.hartwig.hmftools.common.utils.r.RExecutor;
 import com.hartwig.hmftools.common.region.BaseRegion;
 import com.hartwig.hmftools.common.region.ChrBaseRegion;
@@ -111,6 +112,9 @@ public class BaseQualityRecalibration
         if(mConfig.logPerfStats())
             mResults.logPerfStats();
 
+        if(mResults.perfCounter() != null)
+            MetricsRegistry.register(mResults.perfCounter());
+
         SG_LOGGER.info("base quality recalibration cache generated");
     }
 
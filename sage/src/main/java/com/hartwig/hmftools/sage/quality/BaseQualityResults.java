@@ -45,6 +45,8 @@ public class BaseQualityResults
 
     public Map<BaseQualityKey,Integer> getCombinedQualityCounts() { return mCombinedQualityCounts; }
 
+    public PerformanceCounter perfCounter() { return mPerfCounter; }
+
     public void logPerfStats()
     {
         if(mPerfCounter != null)
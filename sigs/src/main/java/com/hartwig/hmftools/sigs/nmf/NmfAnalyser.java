@@ -16,8 +16,11 @@ import static com.hartwig.hmftools.common.utils.MatrixUtils.extractNonZeros;
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.hartwig.hmftools.common.utils.PerformanceCounter;
 import com.hartwig.hmftools.common.utils.GenericDataLoader;
 import com.hartwig.hmftools.common.utils.GenericDataCollection;
@@ -124,6 +127,16 @@ public class NmfAnalyser
     {
         mPerfCounter.start("NMF");
 
+        ExecutorService executor = null;
+
+        if(mConfig.Threads > 1)
+        {
+            executor = Executors.newFixedThreadPool(
+                    mConfig.Threads, new ThreadFactoryBuilder().setNameFormat("Nmf-%d").setDaemon(true).build());
+
+            mNmfCalculator.setExecutor(executor);
+        }
+
         int startSigCount = mConfig.SigCount;
         int maxSigCount = max(mConfig.SigExpansionCount, mConfig.SigCount);
 
@@ -150,6 +163,12 @@ public class NmfAnalyser
             mRuns.add(nmfRun);
         }
 
+        if(executor != null)
+        {
+            mNmfCalculator.setExecutor(null);
+            executor.shutdown();
+        }
+
         mPerfCounter.stop();
 
         if (!mRuns.isEmpty())
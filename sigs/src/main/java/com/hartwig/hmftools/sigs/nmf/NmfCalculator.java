@@ -10,8 +10,11 @@ import static com.hartwig.hmftools.common.utils.VectorUtils.sumVector;
 
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
 
 import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.utils.FlatMatrix;
+import com.hartwig.hmftools.common.utils.FlatMatrixUtils;
 import com.hartwig.hmftools.common.utils.Matrix;
 import com.hartwig.hmftools.common.utils.MatrixUtils;
 
@@ -44,6 +47,18 @@ public class NmfCalculator
     private Matrix mPrevV;
     private boolean mIsValid;
 
+    // flat working copies used by the iterations, with buffers re-used by each adjustment rather than re-allocated
+    private FlatMatrix mFlatSampleCounts;
+    private FlatMatrix mFlatW;
+    private FlatMatrix mFlatH;
+    private FlatMatrix mFlatV;
+    private FlatMatrix mContribAdj; // sig x sample
+    private FlatMatrix mContribDenom;
+    private FlatMatrix mSigAdj; // bucket x sig
+    private FlatMatrix mSigDenom;
+    private FlatMatrix mSigFit; // bucket x sample
+    private ExecutorService mExecutor; // optional, splits the matrix products across threads
+
     private Matrix mRefSignatures;
     private Matrix mRefContributions;
     private List<Matrix> mStartSigs;
@@ -100,6 +115,7 @@ public class NmfCalculator
         mStartSigs = Lists.newArrayList();
 
         mIsValid = false;
+        mExecutor = null;
 
         // could seed from config instead
         mRandom = new Random(123456);
@@ -116,6 +132,8 @@ public class NmfCalculator
 
     public void setRandomSignatures(final Matrix randomSigs) { mRandomStartSignatures = randomSigs; }
 
+    public void setExecutor(final ExecutorService executor) { mExecutor = executor; }
+
     public final Matrix getSignatures() { return mW; }
     public final Matrix getContributions() { return mH; }
     public final Matrix getFit() { return mV; }
@@ -324,9 +342,38 @@ public class NmfCalculator
         }
     }
 
+    private void initFlatMatrices()
+    {
+        mFlatSampleCounts = new FlatMatrix(mSampleCounts);
+        mFlatW = new FlatMatrix(mW);
+        mFlatH = new FlatMatrix(mH);
+        mFlatV = new FlatMatrix(mBucketCount, mSampleCount);
+        mContribAdj = new FlatMatrix(mSigCount, mSampleCount);
+        mContribDenom = new FlatMatrix(mSigCount, mSampleCount);
+        mSigAdj = new FlatMatrix(mBucketCount, mSigCount);
+        mSigDenom = new FlatMatrix(mBucketCount, mSigCount);
+        mSigFit = new FlatMatrix(mBucketCount, mSampleCount);
+    }
+
+    private void syncToMatrices()
+    {
+        mFlatW.copyTo(mW);
+        mFlatH.copyTo(mH);
+        mFlatV.copyTo(mV);
+    }
+
+    private void syncFromMatrices()
+    {
+        mFlatW.copyFrom(mW);
+        mFlatH.copyFrom(mH);
+        mFlatV.copyFrom(mV);
+        mFlatSampleCounts.copyFrom(mSampleCounts);
+    }
+
     private void calculate()
     {
         mIsValid = true;
+        initFlatMatrices();
 
         double currentCost = 0;
         double prevCost = 0;
@@ -345,15 +392,18 @@ public class NmfCalculator
         for(; i < maxIterations; i++)
         {
             // compute the fit
-            produceFit();
+            FlatMatrixUtils.multiply(mFlatW, mFlatH, mFlatV, mExecutor);
 
-            if(mConfig.LogVerbose && i > 0)
+            if(mConfig.LogVerbose)
             {
-                logMatrixDiffs();
+                syncToMatrices();
+
+                if(i > 0)
+                    logMatrixDiffs();
             }
 
             // compare the original counts to the calculated matrix
-            currentCost = MatrixUtils.sumDiffSq(mSampleCounts, mV);
+            currentCost = FlatMatrixUtils.sumDiffSq(mFlatSampleCounts, mFlatV);
 
             if(i == 0)
                 initCost = currentCost;
@@ -464,6 +514,8 @@ public class NmfCalculator
             }
         }
 
+        syncToMatrices();
+
         if(!mIsValid || !mW.hasValidData(false) || !mH.hasValidData(false) || !mV.hasValidData(false))
             return;
 
@@ -492,7 +544,9 @@ public class NmfCalculator
         switch(mConfig.Model)
         {
             case BRUNET:
+                syncToMatrices();
                 modelBrunet();
+                syncFromMatrices();
                 break;
 
             case STANDARD:
@@ -507,31 +561,29 @@ public class NmfCalculator
         // the multiplicative update method (described by Lee and Seund, 2001)
         // https://papers.nips.cc/paper/1861-algorithms-for-non-negative-matrix-factorization.pdf
 
-        // update contribution matrix
-        Matrix wt = mW.transpose();
-        Matrix hAdj = MatrixUtils.multiply(wt, mSampleCounts);
-        Matrix hd = MatrixUtils.multiply(wt, mV);
+        // update contribution matrix: H *= (Wt.V) / (Wt.WH)
+        FlatMatrixUtils.multiplyTransposeA(mFlatW, mFlatSampleCounts, mContribAdj, mExecutor);
+        FlatMatrixUtils.multiplyTransposeA(mFlatW, mFlatV, mContribDenom, mExecutor);
 
-        MatrixUtils.scalarDivide(hAdj, hd, true);
-        MatrixUtils.scalarMultiply(mH, hAdj);
+        FlatMatrixUtils.scalarDivide(mContribAdj, mContribDenom, true);
+        FlatMatrixUtils.scalarMultiply(mFlatH, mContribAdj);
 
         if(mConfig.SigFloatRate > 0)
         {
-            // update signatures matrix
-            Matrix ht = mH.transpose();
-            Matrix wAdj = MatrixUtils.multiply(mSampleCounts, ht);
-            Matrix wd1 = MatrixUtils.multiply(mW, mH);
-            Matrix wd = MatrixUtils.multiply(wd1, ht);
+            // update signatures matrix using the new H: W *= (V.Ht) / (WH.Ht)
+            FlatMatrixUtils.multiplyTransposeB(mFlatSampleCounts, mFlatH, mSigAdj, mExecutor);
+            FlatMatrixUtils.multiply(mFlatW, mFlatH, mSigFit, mExecutor);
+            FlatMatrixUtils.multiplyTransposeB(mSigFit, mFlatH, mSigDenom, mExecutor);
 
-            MatrixUtils.scalarDivide(wAdj, wd, true);
+            FlatMatrixUtils.scalarDivide(mSigAdj, mSigDenom, true);
 
             if(mConfig.SigFloatRate == 1)
             {
-                MatrixUtils.scalarMultiply(mW, wAdj);
+                FlatMatrixUtils.scalarMultiply(mFlatW, mSigAdj);
             }
             else
             {
-                MatrixUtils.scalarMultiplyRateAdjusted(mW, wAdj, mConfig.SigFloatRate, mRefSignatures.Cols);
+                FlatMatrixUtils.scalarMultiplyRateAdjusted(mFlatW, mSigAdj, mConfig.SigFloatRate, mRefSignatures.Cols);
             }
         }
     }
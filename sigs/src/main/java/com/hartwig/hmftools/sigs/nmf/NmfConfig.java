@@ -37,6 +37,9 @@ public class NmfConfig {
 
     final public boolean LogVerbose;
 
+    // threads used for the matrix products within each NMF iteration
+    final public int Threads;
+
     // command line args
     public static final String NMF_SIG_COUNT = "nmf_sig_count";
     public static final String NMF_RUN_COUNT = "nmf_run_count";
@@ -53,6 +56,7 @@ public class NmfConfig {
     public static final String NMF_SIG_EXPANSION = "nmf_sig_exp_count";
 
     public static final String NMF_LOG_VERBOSE = "nmf_log_verbose";
+    public static final String NMF_THREADS = "nmf_threads";
 
     public static final String NMF_MODEL = "nmf_model";
 
@@ -81,6 +85,7 @@ public class NmfConfig {
         options.addOption(NMF_FIT_RESTRICTED, false, "Fit to input ref sigs if has ref contribution");
 
         options.addOption(NMF_LOG_VERBOSE, false, "All NMF details logged");
+        options.addOption(NMF_THREADS, true, "Threads for NMF matrix calculations, default 1");
     }
 
     public NmfConfig(final CommandLine cmd)
@@ -119,6 +124,7 @@ public class NmfConfig {
         SigFloatRate = cmd.hasOption(NMF_SIG_FLOAT_RATE) ? Double.parseDouble(cmd.getOptionValue(NMF_SIG_FLOAT_RATE)) : 1.0;
 
         LogVerbose = cmd.hasOption(NMF_LOG_VERBOSE);
+        Threads = Integer.parseInt(cmd.getOptionValue(NMF_THREADS, "1"));
     }
 
     public NmfConfig(double exitLevel, int maxIterations)
@@ -131,6 +137,7 @@ public class NmfConfig {
         FitOnly = true;
         UseRefSigs = true;
         LogVerbose = false;
+        Threads = 1;
         SigFloatRate = 0;
         SigExpansionCount = 0;
         FitRestrictToContribs = false;
@@ -15,11 +15,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
-import com.google.common.collect.Sets;
 import com.hartwig.hmftools.common.utils.TaskExecutor;
 import com.hartwig.hmftools.svprep.reads.ReadGroup;
 import com.hartwig.hmftools.svprep.reads.ReadGroupStatus;
@@ -46,9 +45,10 @@ public class CandidateBamWriter
     public CandidateBamWriter(final SvConfig config)
     {
         mConfig = config;
-        mCandidatesWriters = Maps.newHashMap();
-        mCandidatesWriterBamFiles = Maps.newHashMap();
-        mChrJunctionReadIds = Maps.newHashMap();
+        // populated concurrently by partition threads
+        mCandidatesWriters = new ConcurrentHashMap<>();
+        mCandidatesWriterBamFiles = new ConcurrentHashMap<>();
+        mChrJunctionReadIds = new ConcurrentHashMap<>();
         mReadIdTrimmer = new ReadIdTrimmer(mConfig.TrimReadId);
     }
 
@@ -58,14 +58,7 @@ public class CandidateBamWriter
         {
             String chromosome = chrFromChrPartition(remotePartition);
 
-            Set<String> readIds = mChrJunctionReadIds.get(chromosome);
-
-            if(readIds == null)
-            {
-                readIds = Sets.newHashSet();
-                mChrJunctionReadIds.put(chromosome, readIds);
-            }
-
+            Set<String> readIds = mChrJunctionReadIds.computeIfAbsent(chromosome, k -> ConcurrentHashMap.newKeySet());
             readIds.add(readId);
         }
     }
@@ -75,22 +68,25 @@ public class CandidateBamWriter
         if(!mConfig.UseCacheBam)
             return;
 
-        SAMFileWriter writer = mCandidatesWriters.get(read.Chromosome);
+        SAMFileWriter writer = mCandidatesWriters.computeIfAbsent(read.Chromosome, k -> createCandidateWriter(read.Chromosome));
 
-        if(writer == null)
+        // each chromosome's writer is shared by the threads processing its partitions
+        synchronized(writer)
         {
-            SamReader samReader = SamReaderFactory.makeDefault().referenceSequence(new File(mConfig.RefGenomeFile)).open(new File(mConfig.BamFile));
-            String bamFile = format("%s_%s.bam", mConfig.formFilename(CACHE_BAM), read.Chromosome);
-            mCandidatesWriterBamFiles.put(read.Chromosome, bamFile);
+            writer.addAlignment(read.record());
+        }
+    }
 
-            SAMFileHeader fileHeader = samReader.getFileHeader().clone();
-            fileHeader.setSortOrder(SAMFileHeader.SortOrder.unsorted);
+    private SAMFileWriter createCandidateWriter(final String chromosome)
+    {
+        SamReader samReader = SamReaderFactory.makeDefault().referenceSequence(new File(mConfig.RefGenomeFile)).open(new File(mConfig.BamFile));
+        String bamFile = format("%s_%s.bam", mConfig.formFilename(CACHE_BAM), chromosome);
+        mCandidatesWriterBamFiles.put(chromosome, bamFile);
 
-            writer = new SAMFileWriterFactory().makeBAMWriter(fileHeader, false, new File(bamFile));
-            mCandidatesWriters.put(read.Chromosome, writer);
-        }
+        SAMFileHeader fileHeader = samReader.getFileHeader().clone();
+        fileHeader.setSortOrder(SAMFileHeader.SortOrder.unsorted);
 
-        writer.addAlignment(read.record());
+        return new SAMFileWriterFactory().makeBAMWriter(fileHeader, false, new File(bamFile));
     }
 
     public void assignCandidateReads(final ResultsWriter resultsWriter)
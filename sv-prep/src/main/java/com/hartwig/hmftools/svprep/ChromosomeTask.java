@@ -6,17 +6,14 @@ import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeFunctions.st
 import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion.V37;
 import static com.hartwig.hmftools.svprep.SvCommon.SV_LOGGER;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.genome.refgenome.RefGenomeCoordinates;
 import com.hartwig.hmftools.common.region.ChrBaseRegion;
 import com.hartwig.hmftools.svprep.reads.PartitionTask;
-import com.hartwig.hmftools.svprep.reads.PartitionThread;
 import com.hartwig.hmftools.svprep.reads.ReadFilterType;
 
 public class ChromosomeTask
@@ -24,33 +21,32 @@ public class ChromosomeTask
     private final String mChromosome;
     private final SvConfig mConfig;
     private final SpanningReadCache mSpanningReadCache;
-    private final ExistingJunctionCache mExistingJunctionCache;
-    private final ResultsWriter mWriter;
-    private final Queue<PartitionTask> mPartitions;
+    private final List<PartitionTask> mPartitions;
+
+    // partitions from all chromosomes are processed from a single queue, so the last one completed logs the chromosome's stats
+    private final AtomicInteger mRemainingPartitions;
 
     private final CombinedStats mCombinedStats;
 
-    public ChromosomeTask(
-            final String chromosome, final SvConfig config, final SpanningReadCache spanningReadCache,
-            final ExistingJunctionCache existingJunctionCache, final ResultsWriter writer)
+    public ChromosomeTask(final String chromosome, final SvConfig config, final SpanningReadCache spanningReadCache)
     {
         mChromosome = chromosome;
         mConfig = config;
         mSpanningReadCache = spanningReadCache;
-        mExistingJunctionCache = existingJunctionCache;
-        mWriter = writer;
 
         mCombinedStats = new CombinedStats();
 
-        mPartitions = new ConcurrentLinkedQueue<>();
+        mPartitions = Lists.newArrayList();
         List<ChrBaseRegion> partitions = partition(chromosome);
 
         int taskId = 0;
         for(int i = 0; i < partitions.size(); ++i)
         {
             ChrBaseRegion region = partitions.get(i);
-            mPartitions.add(new PartitionTask(region, taskId++));
+            mPartitions.add(new PartitionTask(region, taskId++, this));
         }
+
+        mRemainingPartitions = new AtomicInteger(mPartitions.size());
     }
 
     public String chromosome()
@@ -58,35 +54,18 @@ public class ChromosomeTask
         return mChromosome;
     }
     public CombinedStats combinedStats() { return mCombinedStats; }
+    public List<PartitionTask> partitions() { return mPartitions; }
 
-    public void process()
+    public void partitionComplete()
     {
-        int regionCount = mPartitions.size();
-        SV_LOGGER.debug("chromosome({}) executing {} regions", mChromosome, regionCount);
-
-        List<Thread> workers = new ArrayList<>();
-
-        for(int i = 0; i < min(mPartitions.size(), mConfig.Threads); ++i)
-        {
-            workers.add(new PartitionThread(mChromosome, mConfig, mPartitions, mSpanningReadCache, mExistingJunctionCache, mWriter, mCombinedStats));
-        }
-
-        for(Thread worker : workers)
-        {
-            try
-            {
-                worker.join();
-            }
-            catch(InterruptedException e)
-            {
-                SV_LOGGER.error("task execution error: {}", e.toString());
-                e.printStackTrace();
-                System.exit(1);
-            }
-        }
+        if(mRemainingPartitions.decrementAndGet() == 0)
+            logComplete();
+    }
 
+    private void logComplete()
+    {
         SV_LOGGER.info("chromosome({}) {} regions complete, stats: {}",
-                mChromosome, regionCount, mCombinedStats.ReadStats.toString());
+                mChromosome, mPartitions.size(), mCombinedStats.ReadStats.toString());
 
         if(Arrays.stream(mCombinedStats.ReadStats.ReadFilterCounts).anyMatch(x -> x > 0))
         {
@@ -6,6 +6,7 @@ import static java.lang.String.format;
 
 import static com.hartwig.hmftools.common.samtools.CigarUtils.leftSoftClipped;
 import static com.hartwig.hmftools.common.samtools.CigarUtils.rightSoftClipped;
+import static com.hartwig.hmftools.common.utils.PerformanceCounter.NANOS_IN_SECOND;
 import static com.hartwig.hmftools.common.utils.file.FileDelimiters.ITEM_DELIM;
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.closeBufferedWriter;
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.createBufferedWriter;
@@ -29,7 +30,12 @@ import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 import java.util.StringJoiner;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.samtools.SupplementaryReadData;
 import com.hartwig.hmftools.svprep.reads.JunctionData;
 import com.hartwig.hmftools.svprep.reads.ReadFilterType;
@@ -46,28 +52,116 @@ public class ResultsWriter
     private final BufferedWriter mJunctionWriter;
     private final BamWriter mBamWriter;
 
+    // partition threads hand their reads and junctions to a bounded queue, drained by a single writer thread which owns all
+    // the output files - so partition threads only wait when the writer falls behind
+    private final BlockingQueue<Runnable> mWriteQueue;
+    private final Thread mWriterThread;
+    private final AtomicInteger mMaxQueueDepth;
+    private final AtomicInteger mBlockedWrites;
+    private final AtomicLong mBlockedNanos;
+
+    private static final int WRITE_QUEUE_TASKS_PER_THREAD = 4;
+    private static final Runnable WRITE_QUEUE_END = () -> {};
+
     public ResultsWriter(final SvConfig config)
     {
         mConfig = config;
+        mMaxQueueDepth = new AtomicInteger();
+        mBlockedWrites = new AtomicInteger();
+        mBlockedNanos = new AtomicLong();
 
         if(mConfig.OutputDir == null)
         {
             mReadWriter = null;
             mJunctionWriter = null;
             mBamWriter = null;
+            mWriteQueue = null;
+            mWriterThread = null;
             return;
         }
 
         mJunctionWriter = initialiseJunctionWriter();
         mReadWriter = initialiseReadWriter();
         mBamWriter = new BamWriter(config);
+
+        mWriteQueue = new ArrayBlockingQueue<>(Math.max(config.Threads, 1) * WRITE_QUEUE_TASKS_PER_THREAD);
+        mWriterThread = new Thread(this::drainWriteQueue, "SvPrepWriter");
+        mWriterThread.start();
     }
 
     public void close()
     {
+        if(mWriterThread != null)
+        {
+            addWriteTask(WRITE_QUEUE_END);
+
+            try
+            {
+                mWriterThread.join();
+            }
+            catch(InterruptedException e)
+            {
+                SV_LOGGER.error("writer thread interrupted: {}", e.toString());
+            }
+
+            String queueStats = format("write queue capacity(%d) maxDepth(%d) blockedWrites(%d) blockedTime(%.3fs)",
+                    mWriteQueue.remainingCapacity() + mWriteQueue.size(), mMaxQueueDepth.get(), mBlockedWrites.get(),
+                    mBlockedNanos.get() / NANOS_IN_SECOND);
+
+            if(mConfig.PerfDebug)
+                SV_LOGGER.info(queueStats);
+            else
+                SV_LOGGER.debug(queueStats);
+        }
+
         closeBufferedWriter(mReadWriter);
         closeBufferedWriter(mJunctionWriter);
-        mBamWriter.close();
+
+        if(mBamWriter != null)
+            mBamWriter.close();
+    }
+
+    private void addWriteTask(final Runnable task)
+    {
+        try
+        {
+            if(!mWriteQueue.offer(task))
+            {
+                // the queue is full, so record how long the calling thread waits for the writer
+                long startTime = System.nanoTime();
+                mWriteQueue.put(task);
+                mBlockedNanos.addAndGet(System.nanoTime() - startTime);
+                mBlockedWrites.incrementAndGet();
+            }
+
+            mMaxQueueDepth.accumulateAndGet(mWriteQueue.size(), Math::max);
+        }
+        catch(InterruptedException e)
+        {
+            SV_LOGGER.error("interrupted adding write task: {}", e.toString());
+        }
+    }
+
+    private void drainWriteQueue()
+    {
+        try
+        {
+            while(true)
+            {
+                Runnable task = mWriteQueue.take();
+
+                if(task == WRITE_QUEUE_END)
+                    break;
+
+                task.run();
+            }
+        }
+        catch(Throwable e)
+        {
+            SV_LOGGER.error("writer thread error: {}", e.toString());
+            e.printStackTrace();
+            System.exit(1);
+        }
     }
 
     private BufferedWriter initialiseReadWriter()
@@ -96,7 +190,18 @@ public class ResultsWriter
         return null;
     }
 
-    public synchronized void writeReadGroup(final List<ReadGroup> readGroups)
+    public void writeReadGroup(final List<ReadGroup> readGroups)
+    {
+        if(mWriterThread == null || readGroups.isEmpty())
+            return;
+
+        // callers may re-use their list once it has been queued
+        List<ReadGroup> queuedReadGroups = Lists.newArrayList(readGroups);
+        addWriteTask(() -> writeReadGroups(queuedReadGroups));
+    }
+
+    // only called on the writer thread, which is also the only reader or setter of each read's written status
+    private void writeReadGroups(final List<ReadGroup> readGroups)
     {
         for(ReadGroup readGroup : readGroups)
         {
@@ -191,11 +296,17 @@ public class ResultsWriter
         return null;
     }
 
-    public synchronized void writeJunctionData(final String chromosome, final List<JunctionData> junctions)
+    public void writeJunctionData(final String chromosome, final List<JunctionData> junctions)
     {
-        if(mJunctionWriter == null)
+        if(mJunctionWriter == null || junctions.isEmpty())
             return;
 
+        List<JunctionData> queuedJunctions = Lists.newArrayList(junctions);
+        addWriteTask(() -> writeJunctions(chromosome, queuedJunctions));
+    }
+
+    private void writeJunctions(final String chromosome, final List<JunctionData> junctions)
+    {
         try
         {
             for(JunctionData junctionData : junctions)
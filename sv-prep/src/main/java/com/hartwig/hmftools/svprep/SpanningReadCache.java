@@ -8,7 +8,8 @@ import static com.hartwig.hmftools.svprep.SvCommon.SV_LOGGER;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
@@ -26,7 +27,7 @@ public class SpanningReadCache
 
     // a cache of read groups found from each chr-partition to help retrieve complete fragments (ie expected reads within a group)
     // when a new chr-partition completes, the following steps are done:
-    // - record that the chr-partition has been processed (in mProcessedPartitions)
+    // - record that the chr-partition has been processed
     // for read groups that support a junction:
     // - pick up an cached candidate or supplementary reads, which then will be written to file
     // - for the group's unprocessed remote partitions, cache the readId to aid with identifying expected reads
@@ -34,27 +35,29 @@ public class SpanningReadCache
     // - if no unprocessed partitions then drop immediately
     // - otherwise cache as now (ie source partition and readId)
 
-    private final Map<String,Map<String, CachedReadGroup>> mCandidatePartitionGroups; // keyed by chromosome-partition then readId
-    private final Map<String,Set<String>> mJunctionPartitionReadIds;
+    // state is sharded by chromosome-partition so partition threads only contend when they touch the same partition - each
+    // shard's processed check and any additions to it are made under that shard's lock, and only one shard is locked at a time
+    private final Map<String,PartitionShard> mPartitionShards;
 
     private final PerformanceCounter mPerfCounter;
-    private final Set<String> mProcessedPartitions;
 
-    private int mLastSnapshotCount;
-    private int mMatchedCandidates;
-    private int mPurgedCandidates;
+    private final AtomicInteger mProcessedPartitions;
+    private final AtomicInteger mCachedCandidates;
+    private final AtomicInteger mLastSnapshotCount;
+    private final AtomicInteger mMatchedCandidates;
+    private final AtomicInteger mPurgedCandidates;
     private final CandidateBamWriter mCandidateBamWriter;
 
     public SpanningReadCache(final SvConfig config)
     {
         mConfig = config;
         mPartitionSize = config.PartitionSize;
-        mCandidatePartitionGroups = Maps.newHashMap();
-        mJunctionPartitionReadIds = Maps.newHashMap();
-        mProcessedPartitions = Sets.newHashSet();
-        mLastSnapshotCount = 0;
-        mMatchedCandidates = 0;
-        mPurgedCandidates = 0;
+        mPartitionShards = new ConcurrentHashMap<>();
+        mProcessedPartitions = new AtomicInteger();
+        mCachedCandidates = new AtomicInteger();
+        mLastSnapshotCount = new AtomicInteger();
+        mMatchedCandidates = new AtomicInteger();
+        mPurgedCandidates = new AtomicInteger();
         mCandidateBamWriter = new CandidateBamWriter(config);
         mPerfCounter = new PerformanceCounter("SpanningReads");
     }
@@ -77,53 +80,78 @@ public class SpanningReadCache
 
     private String chrPartition(final String chromosome, int position) { return formChromosomePartition(chromosome, position, mPartitionSize); }
 
-    public synchronized Set<String> getExpectedReadIds(final ChrBaseRegion partitionRegion)
+    private PartitionShard getShard(final String chrPartition)
     {
-        String chrPartition = chrPartition(partitionRegion.Chromosome, partitionRegion.start());
-        Set<String> expectedReadIds = mJunctionPartitionReadIds.get(chrPartition);
-        return expectedReadIds != null ? Sets.newHashSet(expectedReadIds) : Sets.newHashSet();
+        return mPartitionShards.computeIfAbsent(chrPartition, k -> new PartitionShard());
     }
 
-    public synchronized void processSpanningReadGroups(final ChrBaseRegion partitionRegion, final Map<String,ReadGroup> spanningGroups)
+    public Set<String> getExpectedReadIds(final ChrBaseRegion partitionRegion)
     {
-        mPerfCounter.start();
+        PartitionShard shard = mPartitionShards.get(chrPartition(partitionRegion.Chromosome, partitionRegion.start()));
+
+        if(shard == null)
+            return Sets.newHashSet();
+
+        synchronized(shard)
+        {
+            return Sets.newHashSet(shard.JunctionReadIds);
+        }
+    }
+
+    public void processSpanningReadGroups(final ChrBaseRegion partitionRegion, final Map<String,ReadGroup> spanningGroups)
+    {
+        PerformanceCounter perfCounter = new PerformanceCounter(mPerfCounter.getName());
+        perfCounter.start();
 
         String sourceChrPartition = chrPartition(partitionRegion.Chromosome, partitionRegion.start());
-        mProcessedPartitions.add(sourceChrPartition);
+        PartitionShard sourceShard = getShard(sourceChrPartition);
+
+        // once marked as processed no other thread will add to this partition's cached state
+        synchronized(sourceShard)
+        {
+            sourceShard.Processed = true;
+            sourceShard.JunctionReadIds.clear(); // no further value
+        }
+
+        mProcessedPartitions.incrementAndGet();
 
         // look for reads which have already been found (and therefore written)
         for(Map.Entry<String,ReadGroup> entry : spanningGroups.entrySet())
         {
             ReadGroup readGroup = entry.getValue();
 
-            List<String> unprocessedPartitions = readGroup.remotePartitions().stream()
-                    .filter(x -> !mProcessedPartitions.contains(x))
-                    .filter(x -> mConfig.SpecificChrRegions.Chromosomes.isEmpty() || !ignoreChromosome(chrFromChrPartition(x)))
-                    .collect(Collectors.toList());
-
             if(readGroup.conditionalOnRemoteReads())
             {
                 for(ReadRecord read : readGroup.reads())
                 {
-                    processCandidateRead(unprocessedPartitions, readGroup, read);
+                    processCandidateRead(readGroup, read);
                 }
             }
             else
             {
-                processJunctionRead(unprocessedPartitions, readGroup, sourceChrPartition);
+                processJunctionRead(readGroup, sourceShard);
             }
         }
 
-        // purge any cached candidate reads and junction readIds which are no longer relevant
-        purgePartition(sourceChrPartition);
+        // purge any cached candidate reads which are no longer relevant
+        purgePartition(sourceShard);
 
         logCacheCount(false);
 
-        mPerfCounter.stop();
+        perfCounter.stop();
+
+        synchronized(mPerfCounter)
+        {
+            mPerfCounter.merge(perfCounter);
+        }
+    }
+
+    private boolean includePartition(final String chrPartition)
+    {
+        return mConfig.SpecificChrRegions.Chromosomes.isEmpty() || !ignoreChromosome(chrFromChrPartition(chrPartition));
     }
 
-    private void processJunctionRead(
-            final List<String> unprocessedPartitions, final ReadGroup readGroup, final String sourceChrPartition)
+    private void processJunctionRead(final ReadGroup readGroup, final PartitionShard sourceShard)
     {
         final ReadRecord read = readGroup.reads().get(0);
 
@@ -136,147 +164,169 @@ public class SpanningReadCache
         }
         else
         {
-            Map<String,CachedReadGroup> cachedReadGroups = mCandidatePartitionGroups.get(sourceChrPartition);
+            // only the thread processing the source partition removes groups from it, so the group is claimed exactly once
+            CachedReadGroup cachedReadGroup = sourceShard.CandidateGroups.remove(readGroup.id());
 
-            if(cachedReadGroups != null)
+            if(cachedReadGroup != null)
             {
-                CachedReadGroup cachedReadGroup = cachedReadGroups.get(readGroup.id());
+                List<ReadRecord> cachedReads;
 
-                if(cachedReadGroup != null)
+                synchronized(cachedReadGroup)
                 {
-                    mMatchedCandidates += cachedReadGroup.Reads.size();
-                    cachedReadGroup.Reads.forEach(x -> readGroup.addRead(x));
+                    cachedReads = Lists.newArrayList(cachedReadGroup.Reads);
                     cachedReadGroup.Reads.clear();
+                    cachedReadGroup.Claimed = true;
 
-                    cachedReadGroups.remove(readGroup.id());
-
-                    // also purge from other remote partitions
-                    for(String otherRemotePartitions : cachedReadGroup.Partitions)
+                    if(!cachedReadGroup.Released)
                     {
-                        if(!otherRemotePartitions.equals(sourceChrPartition))
-                        {
-                            Map<String, CachedReadGroup> otherReadGroups = mCandidatePartitionGroups.get(otherRemotePartitions);
+                        cachedReadGroup.Released = true;
+                        mCachedCandidates.addAndGet(-cachedReads.size());
+                    }
+                }
 
-                            if(otherReadGroups == null)
-                                continue;
+                mMatchedCandidates.addAndGet(cachedReads.size());
+                cachedReads.forEach(x -> readGroup.addRead(x));
 
-                            otherReadGroups.remove(readGroup.id());
-                        }
-                    }
+                // also purge from other remote partitions
+                for(String otherRemotePartition : cachedReadGroup.partitions())
+                {
+                    PartitionShard otherShard = mPartitionShards.get(otherRemotePartition);
+
+                    if(otherShard != null && otherShard != sourceShard)
+                        otherShard.CandidateGroups.remove(readGroup.id(), cachedReadGroup);
                 }
             }
         }
 
-        // only store this junction readId if other remote unprocessed partitions within this same read group are expected
-        if(unprocessedPartitions.isEmpty())
-            return;
-
-        // store the junction group's readId against each unprocessed partition, to use to capture expected reads
-        for(String unprocessedPartition : unprocessedPartitions)
+        // store the junction group's readId against each unprocessed remote partition, to use to capture expected reads
+        for(String remotePartition : readGroup.remotePartitions())
         {
-            Set<String> readIds = mJunctionPartitionReadIds.get(unprocessedPartition);
+            if(!includePartition(remotePartition))
+                continue;
+
+            PartitionShard shard = getShard(remotePartition);
 
-            if(readIds == null)
+            synchronized(shard)
             {
-                readIds = Sets.newHashSet();
-                mJunctionPartitionReadIds.put(unprocessedPartition, readIds);
+                if(!shard.Processed)
+                    shard.JunctionReadIds.add(readGroup.id());
             }
-
-            readIds.add(readGroup.id());
         }
     }
 
-    private void processCandidateRead(
-            final List<String> unprocessedPartitions, final ReadGroup readGroup, final ReadRecord read)
+    private void processCandidateRead(final ReadGroup readGroup, final ReadRecord read)
     {
-        if(unprocessedPartitions.isEmpty())
-            return;
-
         if(ignoreChromosome(read.Chromosome))
             return;
 
         if(mConfig.UseCacheBam)
         {
-            mCandidateBamWriter.writeCandidateRead(read);
+            if(readGroup.remotePartitions().stream().anyMatch(x -> includePartition(x) && !isProcessed(x)))
+                mCandidateBamWriter.writeCandidateRead(read);
+
             return;
         }
 
-        CachedReadGroup cachedReadGroup = null;
-
-        // search all remote partitions for an existing group to add these reads to
-        List<String> matchedPartitions = Lists.newArrayList();
+        // ensure each remote unprocessed partition has a link to a cached group holding this read - any group already linked
+        // by another partition is reused, and if another thread has linked a different group concurrently then this read is
+        // added to that group as well, so whichever group a junction read later claims will hold every candidate read
+        CachedReadGroup newReadGroup = null;
+        List<CachedReadGroup> addedToGroups = Lists.newArrayListWithCapacity(1);
 
         for(String remotePartition : readGroup.remotePartitions())
         {
-            Map<String,CachedReadGroup> cachedReadGroups = mCandidatePartitionGroups.get(remotePartition);
-
-            if(cachedReadGroups == null)
+            if(!includePartition(remotePartition))
                 continue;
 
-            if(cachedReadGroup == null)
-            {
-                cachedReadGroup = cachedReadGroups.get(readGroup.id());
+            PartitionShard shard = getShard(remotePartition);
 
-                if(cachedReadGroup != null)
-                    matchedPartitions.add(remotePartition);
-            }
-            else
+            // the read is added while the shard is locked, so that the partition cannot be processed in between
+            synchronized(shard)
             {
-                if(cachedReadGroups.containsKey(readGroup.id()))
-                    matchedPartitions.add(remotePartition);
+                if(shard.Processed)
+                    continue;
+
+                CachedReadGroup cachedReadGroup = shard.CandidateGroups.get(readGroup.id());
+
+                if(cachedReadGroup == null || cachedReadGroup.isClaimed())
+                {
+                    if(newReadGroup == null)
+                        newReadGroup = new CachedReadGroup(readGroup.id());
+
+                    cachedReadGroup = newReadGroup;
+                    shard.CandidateGroups.put(readGroup.id(), cachedReadGroup);
+                }
+
+                if(addedToGroups.contains(cachedReadGroup))
+                    continue;
+
+                addedToGroups.add(cachedReadGroup);
+
+                synchronized(cachedReadGroup)
+                {
+                    cachedReadGroup.Reads.add(read);
+                    cachedReadGroup.Partitions.addAll(readGroup.remotePartitions());
+                }
             }
+
+            mCachedCandidates.incrementAndGet();
         }
+    }
+
+    private boolean isProcessed(final String chrPartition)
+    {
+        PartitionShard shard = mPartitionShards.get(chrPartition);
+
+        if(shard == null)
+            return false;
 
-        if(cachedReadGroup == null)
+        synchronized(shard)
         {
-            cachedReadGroup = new CachedReadGroup(readGroup.id());
+            return shard.Processed;
         }
+    }
 
-        cachedReadGroup.Reads.add(read);
-        cachedReadGroup.Partitions.addAll(readGroup.remotePartitions());
+    private void purgePartition(final PartitionShard shard)
+    {
+        if(shard.CandidateGroups.isEmpty())
+            return;
 
-        // finally ensure each remote unprocessed partition has a link to this cached group
-        for(String remotePartition : readGroup.remotePartitions())
-        {
-            if(!unprocessedPartitions.contains(remotePartition))
-                continue;
+        // groups not claimed by a junction read can only be matched via another unprocessed partition they are linked to
+        List<CachedReadGroup> cachedReadGroups = Lists.newArrayList(shard.CandidateGroups.values());
+        shard.CandidateGroups.clear();
 
-            if(matchedPartitions.contains(remotePartition))
+        for(CachedReadGroup cachedReadGroup : cachedReadGroups)
+        {
+            if(cachedReadGroup.partitions().stream().anyMatch(x -> !isProcessed(x)))
                 continue;
 
-            Map<String,CachedReadGroup> cachedReadGroups = mCandidatePartitionGroups.get(remotePartition);
-
-            if(cachedReadGroups == null)
+            // the group may still be claimed by a partition which is processed but has yet to reach its junction reads
+            synchronized(cachedReadGroup)
             {
-                cachedReadGroups = Maps.newHashMap();
-                mCandidatePartitionGroups.put(remotePartition, cachedReadGroups);
+                if(cachedReadGroup.Released)
+                    continue;
+
+                cachedReadGroup.Released = true;
+                mCachedCandidates.addAndGet(-cachedReadGroup.Reads.size());
             }
 
-            cachedReadGroups.put(readGroup.id(), cachedReadGroup);
+            mPurgedCandidates.incrementAndGet();
         }
     }
 
-    private void purgePartition(final String chrPartition)
+    private int junctionReadIdCount()
     {
-        mJunctionPartitionReadIds.remove(chrPartition); // no further value
-
-        Map<String,CachedReadGroup> cachedReadGroups = mCandidatePartitionGroups.get(chrPartition);
-
-        if(cachedReadGroups == null)
-            return;
+        int count = 0;
 
-        mCandidatePartitionGroups.remove(chrPartition);
-
-        // purge any group without unprocessed partitions
-        Set<String> purgedGroupReadIds = Sets.newHashSet();
-        for(CachedReadGroup cachedReadGroup : cachedReadGroups.values())
+        for(PartitionShard shard : mPartitionShards.values())
         {
-            if(cachedReadGroup.Partitions.stream().noneMatch(x -> !mProcessedPartitions.contains(x)))
-                purgedGroupReadIds.add(cachedReadGroup.ReadId);
+            synchronized(shard)
+            {
+                count += shard.JunctionReadIds.size();
+            }
         }
 
-        purgedGroupReadIds.forEach(x -> cachedReadGroups.remove(x));
-        mPurgedCandidates += purgedGroupReadIds.size();
+        return count;
     }
 
     private void logCacheCount(boolean forceLog)
@@ -286,24 +336,22 @@ public class SpanningReadCache
             if(!forceLog)
                 return;
 
-            int junctionReadIds = mJunctionPartitionReadIds.values().stream().mapToInt(x -> x.size()).sum();
-
-            SV_LOGGER.info("spanning cache partition processed({}) junctionIds({})", mProcessedPartitions.size(), junctionReadIds);
+            SV_LOGGER.info("spanning cache partition processed({}) junctionIds({})", mProcessedPartitions.get(), junctionReadIdCount());
             return;
         }
 
-        // read groups spanning multiple partitions will be double-counted, but ignore this
-        int newCount = mCandidatePartitionGroups.values().stream()
-                .mapToInt(x -> x.values().stream().mapToInt(y -> y.Reads.size()).sum()).sum();
+        int newCount = mCachedCandidates.get();
+        int lastCount = mLastSnapshotCount.get();
 
-        if(abs(newCount - mLastSnapshotCount) > LOG_CACH_DIFF || forceLog)
+        if(abs(newCount - lastCount) > LOG_CACH_DIFF || forceLog)
         {
-            int junctionReadIds = mJunctionPartitionReadIds.values().stream().mapToInt(x -> x.size()).sum();
+            // only one thread logs each change in the snapshot
+            if(!mLastSnapshotCount.compareAndSet(lastCount, newCount) && !forceLog)
+                return;
 
             SV_LOGGER.info("spanning cache partition processed({}) candidates cached({} -> {} matched={} purged={}) junctionIds({})",
-                    mProcessedPartitions.size(), mLastSnapshotCount, newCount, mMatchedCandidates, mPurgedCandidates, junctionReadIds);
-
-            mLastSnapshotCount = newCount;
+                    mProcessedPartitions.get(), lastCount, newCount, mMatchedCandidates.get(), mPurgedCandidates.get(),
+                    junctionReadIdCount());
         }
     }
 
@@ -316,52 +364,103 @@ public class SpanningReadCache
         return !mConfig.SpecificChrRegions.Chromosomes.contains(chromosome);
     }
 
-    public synchronized void logStats()
+    public void logStats()
     {
         if(!mConfig.PerfDebug)
             return;
 
         logCacheCount(true);
-        mPerfCounter.logStats();
+
+        synchronized(mPerfCounter)
+        {
+            mPerfCounter.logStats();
+        }
+    }
+
+    private class PartitionShard
+    {
+        public boolean Processed;
+        public final Set<String> JunctionReadIds; // guarded by the shard
+        public final Map<String,CachedReadGroup> CandidateGroups; // keyed by readId
+
+        public PartitionShard()
+        {
+            Processed = false;
+            JunctionReadIds = Sets.newHashSet();
+            CandidateGroups = new ConcurrentHashMap<>();
+        }
     }
 
     private class CachedReadGroup
     {
         public final String ReadId;
-        public final List<ReadRecord> Reads;
+        public final List<ReadRecord> Reads; // reads and partitions are guarded by the group
         public final Set<String> Partitions;
+        public boolean Claimed; // by a junction read
+        public boolean Released; // from the cached count, once claimed or purged
 
         public CachedReadGroup(final String readId)
         {
             ReadId = readId;
             Reads = Lists.newArrayList();
             Partitions = Sets.newHashSet();
+            Claimed = false;
+            Released = false;
         }
 
-        public String toString()
+        public synchronized boolean isClaimed() { return Claimed; }
+        public synchronized List<String> partitions() { return Lists.newArrayList(Partitions); }
+
+        public synchronized String toString()
         {
-            return format("reads(%s) partitions(%s) id(%s)", Reads.size(), ReadId, Partitions);
+            return format("reads(%s) partitions(%s) id(%s)", Reads.size(), Partitions, ReadId);
         }
     }
 
     @VisibleForTesting
-    public Map<String,Set<String>> junctionPartitionReadIdsMap() { return mJunctionPartitionReadIds; }
+    public Map<String,Set<String>> junctionPartitionReadIdsMap()
+    {
+        Map<String,Set<String>> junctionPartitionReadIds = Maps.newHashMap();
+
+        for(Map.Entry<String,PartitionShard> entry : mPartitionShards.entrySet())
+        {
+            synchronized(entry.getValue())
+            {
+                if(!entry.getValue().JunctionReadIds.isEmpty())
+                    junctionPartitionReadIds.put(entry.getKey(), Sets.newHashSet(entry.getValue().JunctionReadIds));
+            }
+        }
+
+        return junctionPartitionReadIds;
+    }
 
     public void reset()
     {
-        mCandidatePartitionGroups.clear();
-        mJunctionPartitionReadIds.clear();
-        mProcessedPartitions.clear();
+        mPartitionShards.clear();
+        mProcessedPartitions.set(0);
+        mCachedCandidates.set(0);
+        mLastSnapshotCount.set(0);
     }
 
     public int getCachedReadsCount(final String readId)
     {
-        Set<CachedReadGroup> cachedReadGroups = Sets.newHashSet();
+        Set<CachedReadGroup> cachedReadGroups = Sets.newIdentityHashSet();
 
-        mCandidatePartitionGroups.values().stream()
+        mPartitionShards.values().stream()
+                .map(x -> x.CandidateGroups)
                 .filter(x -> readId == null || x.containsKey(readId))
                 .forEach(x -> x.values().forEach(y -> cachedReadGroups.add(y)));
 
-        return cachedReadGroups.stream().mapToInt(x -> x.Reads.size()).sum();
+        int count = 0;
+
+        for(CachedReadGroup cachedReadGroup : cachedReadGroups)
+        {
+            synchronized(cachedReadGroup)
+            {
+                count += cachedReadGroup.Reads.size();
+            }
+        }
+
+        return count;
     }
 }
@@ -1,5 +1,6 @@
 package com.hartwig.hmftools.svprep;
 
+import static java.lang.Math.min;
 import static java.lang.String.format;
 
 import static com.hartwig.hmftools.common.utils.PerformanceCounter.runTimeMinsStr;
@@ -7,9 +8,17 @@ import static com.hartwig.hmftools.common.utils.config.ConfigUtils.setLogLevel;
 import static com.hartwig.hmftools.svprep.SvCommon.APP_NAME;
 import static com.hartwig.hmftools.svprep.SvCommon.SV_LOGGER;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
 import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
 import com.hartwig.hmftools.common.utils.version.VersionInfo;
+import com.hartwig.hmftools.svprep.reads.PartitionTask;
+import com.hartwig.hmftools.svprep.reads.PartitionThread;
 
 import org.jetbrains.annotations.NotNull;
 
@@ -42,7 +51,9 @@ public class SvPrepApplication
 
         mExistingJunctionCache.loadJunctions(mConfig.ExistingJunctionFile);
 
-        CombinedStats combinedStats = new CombinedStats();
+        // partitions from all chromosomes share a single queue, in chromosome order, so threads don't idle at the end of each chromosome
+        List<ChromosomeTask> chromosomeTasks = Lists.newArrayList();
+        Queue<PartitionTask> partitions = new ConcurrentLinkedQueue<>();
 
         for(HumanChromosome chromosome : HumanChromosome.values())
         {
@@ -51,10 +62,23 @@ public class SvPrepApplication
             if(mConfig.SpecificChrRegions.excludeChromosome(chromosomeStr))
                 continue;
 
-            SV_LOGGER.info("processing chromosome({})", chromosomeStr);
+            ChromosomeTask chromosomeTask = new ChromosomeTask(chromosomeStr, mConfig, mSpanningReadCache);
+
+            if(chromosomeTask.partitions().isEmpty())
+                continue;
+
+            chromosomeTasks.add(chromosomeTask);
+            partitions.addAll(chromosomeTask.partitions());
+        }
+
+        SV_LOGGER.info("processing {} chromosomes with {} partitions", chromosomeTasks.size(), partitions.size());
+
+        processPartitions(partitions);
+
+        CombinedStats combinedStats = new CombinedStats();
 
-            ChromosomeTask chromosomeTask = new ChromosomeTask(chromosomeStr, mConfig, mSpanningReadCache, mExistingJunctionCache, mWriter);
-            chromosomeTask.process();
+        for(ChromosomeTask chromosomeTask : chromosomeTasks)
+        {
             combinedStats.addPartitionStats(chromosomeTask.combinedStats().ReadStats);
 
             if(combinedStats.PerfCounters.isEmpty())
@@ -70,6 +94,7 @@ public class SvPrepApplication
             }
         }
 
+        // candidate reads cached to BAM are only matched to remote junctions once every partition has been processed
         if(mConfig.UseCacheBam)
         {
             mSpanningReadCache.reset(); // clear data before candidate assignment
@@ -93,6 +118,30 @@ public class SvPrepApplication
         SV_LOGGER.info("SvPrep complete, mins({})", runTimeMinsStr(startTimeMs));
     }
 
+    private void processPartitions(final Queue<PartitionTask> partitions)
+    {
+        List<Thread> workers = new ArrayList<>();
+
+        for(int i = 0; i < min(partitions.size(), mConfig.Threads); ++i)
+        {
+            workers.add(new PartitionThread(mConfig, partitions, mSpanningReadCache, mExistingJunctionCache, mWriter));
+        }
+
+        for(Thread worker : workers)
+        {
+            try
+            {
+                worker.join();
+            }
+            catch(InterruptedException e)
+            {
+                SV_LOGGER.error("task execution error: {}", e.toString());
+                e.printStackTrace();
+                System.exit(1);
+            }
+        }
+    }
+
     private void calcFragmentDistribution()
     {
         FragmentSizeDistribution fragSizeDistribution = new FragmentSizeDistribution(mConfig);
@@ -150,6 +150,7 @@ public class DepthAnnotator
 
         final List<Callable> callableList = depthTasks.stream().collect(Collectors.toList());
         TaskExecutor.executeTasks(callableList, mConfig.Threads);
+        depthTasks.forEach(x -> x.close());
 
         // write output VCF
         writeVcf(vcfHeader, depthTasks);
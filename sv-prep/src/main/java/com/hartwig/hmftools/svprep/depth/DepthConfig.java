@@ -40,6 +40,7 @@ public class DepthConfig
     public final int ProximityDistance;
     public final String VcfTagPrefix;
     public final ValidationStringency BamStringency;
+    public final boolean MergedSlice;
 
     public final int Threads;
     public final double PerfLogTime;
@@ -52,6 +53,7 @@ public class DepthConfig
     private static final String PROXIMITY_DISTANCE = "proximity_distance";
     private static final String VAF_CAP = "vaf_cap";
     private static final String PERF_LOG_TIME = "perf_log_time";
+    private static final String MERGED_SLICE = "merged_slice";
     public static final String VCF_TAG_PREFIX = "vcf_tag_prefix";
 
     private static final String DELIM = ",";
@@ -72,6 +74,7 @@ public class DepthConfig
         VafCap = configBuilder.getDecimal(VAF_CAP);
         ProximityDistance = configBuilder.getInteger(PROXIMITY_DISTANCE);
         BamStringency = BamUtils.validationStringency(configBuilder);
+        MergedSlice = configBuilder.hasFlag(MERGED_SLICE);
         PerfLogTime = configBuilder.getDecimal(PERF_LOG_TIME);
 
         Threads = parseThreads(configBuilder);
@@ -106,6 +109,7 @@ public class DepthConfig
 
         configBuilder.addDecimal(VAF_CAP, "Ref support depth limit as function of variant fragments", DEFAULT_VAF_CAP);
         configBuilder.addInteger(PROXIMITY_DISTANCE, "Proximity distance to group variants", DEFAULT_PROXIMITY_DISTANCE);
+        configBuilder.addFlag(MERGED_SLICE, "Slice all sample BAMs together in a single pass per variant region");
 
         addValidationStringencyOption(configBuilder);
         addSpecificChromosomesRegionsConfig(configBuilder);
@@ -129,6 +133,7 @@ public class DepthConfig
         VafCap = vcfCap;
         ProximityDistance = proximityDistance;
         BamStringency = ValidationStringency.STRICT;
+        MergedSlice = false;
         PerfLogTime = 0;
         Threads = 0;
 
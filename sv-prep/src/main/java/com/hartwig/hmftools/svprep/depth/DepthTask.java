@@ -22,6 +22,8 @@ import static com.hartwig.hmftools.svprep.SvCommon.SV_LOGGER;
 import static com.hartwig.hmftools.svprep.SvConstants.DEFAULT_MAX_FRAGMENT_LENGTH;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.StringJoiner;
@@ -52,9 +54,13 @@ public class DepthTask implements Callable
     private final List<SamReader> mSamReaders;
     private final BamSlicer mBamSlicer;
 
-    private final Map<String, ReadGroup> mReadGroups;
+    // state is kept per sample so that a merged slice can switch between samples on each read
+    private final List<Map<String,ReadGroup>> mSampleReadGroups;
+    private final SliceRegionState[] mSampleRegionStates;
+    private final int[] mSampleReadCounts; // per slice region
 
-    private final SliceRegionState mSliceRegionState;
+    private Map<String,ReadGroup> mReadGroups;
+    private SliceRegionState mSliceRegionState;
     private int mCurrentSampleIndex; // the sample / BAM being spliced
 
     private int mTotalReadCount;
@@ -71,9 +77,20 @@ public class DepthTask implements Callable
         mVariantInfoList = Lists.newArrayList();
         mTotalReadCount = 0;
         mCacheRecordCounter = 0;
-        mSliceRegionState = new SliceRegionState();
 
-        mReadGroups = Maps.newHashMap();
+        int sampleCount = max(mConfig.Samples.size(), 1);
+        mSampleReadGroups = Lists.newArrayListWithCapacity(sampleCount);
+        mSampleRegionStates = new SliceRegionState[sampleCount];
+        mSampleReadCounts = new int[sampleCount];
+
+        for(int i = 0; i < sampleCount; ++i)
+        {
+            mSampleReadGroups.add(Maps.newHashMap());
+            mSampleRegionStates[i] = new SliceRegionState();
+        }
+
+        setCurrentSample(0);
+
         mSamReaders = Lists.newArrayList();
         mBamSlicer = new BamSlicer(0, false, true, false);
 
@@ -87,9 +104,14 @@ public class DepthTask implements Callable
             }
         }
 
-        mCurrentSampleIndex = 0;
+        mPerfCounter = new PerformanceCounter(mConfig.MergedSlice ? "MergedSlice" : "Slice");
+    }
 
-        mPerfCounter = new PerformanceCounter("Slice");
+    private void setCurrentSample(int sampleIndex)
+    {
+        mCurrentSampleIndex = sampleIndex;
+        mReadGroups = mSampleReadGroups.get(sampleIndex);
+        mSliceRegionState = mSampleRegionStates[sampleIndex];
     }
 
     public String chromosome() { return mChromosome; }
@@ -109,6 +131,21 @@ public class DepthTask implements Callable
     public List<VariantContext> variants() { return mVariantsList; }
     public PerformanceCounter getPerfCounter() { return mPerfCounter; }
 
+    public void close()
+    {
+        for(SamReader samReader : mSamReaders)
+        {
+            try
+            {
+                samReader.close();
+            }
+            catch(IOException e)
+            {
+                SV_LOGGER.error("chr({}) failed to close BAM: {}", mChromosome, e.toString());
+            }
+        }
+    }
+
     @Override
     public Long call()
     {
@@ -123,8 +160,8 @@ public class DepthTask implements Callable
             VariantInfo variant = mVariantInfoList.get(index);
             int posStart = variant.Position;
 
-            mSliceRegionState.reset();
-            mSliceRegionState.addVariant(variant);
+            resetSliceRegions();
+            addSliceVariant(variant);
 
             int posEnd = posStart;
             int nextIndex = index + 1;
@@ -135,7 +172,7 @@ public class DepthTask implements Callable
                     break;
 
                 posEnd = nextVariant.Position;
-                mSliceRegionState.addVariant(nextVariant);
+                addSliceVariant(nextVariant);
                 ++nextIndex;
             }
 
@@ -150,8 +187,11 @@ public class DepthTask implements Callable
                 SV_LOGGER.debug("chr({}) processed {} variants", mChromosome, processed);
             }
 
-            mCacheRecordCounter += mReadGroups.size();
-            mReadGroups.clear();
+            for(Map<String,ReadGroup> readGroups : mSampleReadGroups)
+            {
+                mCacheRecordCounter += readGroups.size();
+                readGroups.clear();
+            }
 
             if(mCacheRecordCounter > READ_CACHE_CLEAR_COUNT)
             {
@@ -167,12 +207,11 @@ public class DepthTask implements Callable
         for(int i = 0; i < mVariantsList.size(); ++i)
         {
             VariantContext variant = mVariantsList.get(i);
-            VariantInfo variantInfo = mVariantInfoList.get(i);
+            RefSupportCounts supportCounts = mVariantInfoList.get(i).SupportCounts;
 
             for(int s = 0; s < mConfig.Samples.size(); ++s)
             {
                 String sampleId = mConfig.Samples.get(s);
-                RefSupportCounts sampleCounts = variantInfo.SampleSupportCounts[s];
                 int genotypeIndex = mSampleVcfGenotypeIds.get(sampleId);
 
                 Genotype genotype = variant.getGenotype(genotypeIndex);
@@ -180,31 +219,46 @@ public class DepthTask implements Callable
                 if(genotype.getExtendedAttributes() == null || genotype.getExtendedAttributes().isEmpty())
                     continue;
 
-                genotype.getExtendedAttributes().put(refVcfTag, sampleCounts.RefSupport);
-                genotype.getExtendedAttributes().put(refPairVcfTag, sampleCounts.RefPairSupport);
+                genotype.getExtendedAttributes().put(refVcfTag, supportCounts.RefSupport[s]);
+                genotype.getExtendedAttributes().put(refPairVcfTag, supportCounts.RefPairSupport[s]);
 
                 int variantFrags = getGenotypeAttributeAsInt(genotype, SV_FRAGMENT_COUNT, 0) +
                         getGenotypeAttributeAsInt(genotype, SGL_FRAGMENT_COUNT, 0);
 
-                double total = variantFrags + sampleCounts.total();
+                double total = variantFrags + supportCounts.total(s);
                 double af = variantFrags / total;
 
                 genotype.getExtendedAttributes().put(ALLELE_FRACTION, af);
             }
 
-            RefSupportCounts totalCounts = variantInfo.totalSupport();
-            setRefDepthValue(variant, totalCounts.RefSupport, refVcfTag);
-            setRefDepthValue(variant, totalCounts.RefPairSupport, refPairVcfTag);
+            setRefDepthValue(variant, supportCounts.totalRefSupport(), refVcfTag);
+            setRefDepthValue(variant, supportCounts.totalRefPairSupport(), refPairVcfTag);
         }
 
         SV_LOGGER.info("chr({}) complete for {} variants, total reads({})", mChromosome, processed, mTotalReadCount);
-        mReadGroups.clear();
+        mSampleReadGroups.forEach(x -> x.clear());
 
         return (long)0;
     }
 
     private static final int READ_CACHE_CLEAR_COUNT = 100000;
 
+    private void resetSliceRegions()
+    {
+        for(SliceRegionState sliceRegionState : mSampleRegionStates)
+        {
+            sliceRegionState.reset();
+        }
+    }
+
+    private void addSliceVariant(final VariantInfo variant)
+    {
+        for(SliceRegionState sliceRegionState : mSampleRegionStates)
+        {
+            sliceRegionState.addVariant(variant);
+        }
+    }
+
     private void sliceSampleBams()
     {
         mPerfCounter.start();
@@ -222,30 +276,44 @@ public class DepthTask implements Callable
 
         int readGroupTotal = 0;
 
+        for(int i = 0; i < mSampleRegionStates.length; ++i)
+        {
+            mSampleReadGroups.get(i).clear();
+            mSampleRegionStates[i].resetUncappedVariants();
+            mSampleReadCounts[i] = 0;
+        }
+
         List<Double> times = Lists.newArrayList();
-        List<Integer> readCounts = Lists.newArrayList();
-        long startTime = 0;
-        int readCount = 0;
 
-        for(int i = 0; i < mSamReaders.size(); ++i)
+        if(mConfig.MergedSlice)
         {
-            mCurrentSampleIndex = i;
+            // read all sample BAMs together, so each region is looked up and decoded in one pass rather than once per sample
+            SV_LOGGER.trace("samples({}) merged slice for {} variants", mSamReaders.size(), mSliceRegionState.variantCount());
+            mBamSlicer.sliceMerged(mSamReaders, region, this::processSampleRead);
 
-            SamReader samReader = mSamReaders.get(i);
+            for(int i = 0; i < mSamReaders.size(); ++i)
+            {
+                setCurrentSample(i);
+                mReadGroups.values().forEach(x -> processReadGroup(x));
+            }
+        }
+        else
+        {
+            for(int i = 0; i < mSamReaders.size(); ++i)
+            {
+                setCurrentSample(i);
 
-            mReadGroups.clear();
-            mSliceRegionState.resetUncappedVariants();
+                SamReader samReader = mSamReaders.get(i);
 
-            startTime = System.nanoTime();
-            readCount = mTotalReadCount;
+                long startTime = System.nanoTime();
 
-            SV_LOGGER.trace("sample({}) slice for {} variants", mConfig.Samples.get(i), mSliceRegionState.variantCount());
-            mBamSlicer.slice(samReader, region, this::processRead);
+                SV_LOGGER.trace("sample({}) slice for {} variants", mConfig.Samples.get(i), mSliceRegionState.variantCount());
+                mBamSlicer.slice(samReader, region, this::processRead);
 
-            times.add((System.nanoTime() - startTime)/NANOS_IN_SECOND);
-            readCounts.add(mTotalReadCount - readCount);
+                times.add((System.nanoTime() - startTime)/NANOS_IN_SECOND);
 
-            mReadGroups.values().forEach(x -> processReadGroup(x));
+                mReadGroups.values().forEach(x -> processReadGroup(x));
+            }
         }
 
         mPerfCounter.stop();
@@ -255,16 +323,25 @@ public class DepthTask implements Callable
             StringJoiner sjTimes = new StringJoiner(",");
             StringJoiner sjCounts = new StringJoiner(",");
             times.forEach(x -> sjTimes.add(format("%.3f", x)));
-            readCounts.forEach(x -> sjCounts.add(format("%d", x)));
+            Arrays.stream(mSampleReadCounts).forEach(x -> sjCounts.add(format("%d", x)));
             SV_LOGGER.debug("chr({}) slice({}) high depth retrieval time({}) totalFrags({}) times({}) readCounts({})",
                     mChromosome, mSliceRegionState, format("%.3f", mPerfCounter.getLastTime()), readGroupTotal,
-                    sjTimes.toString(), sjCounts.toString());
+                    mConfig.MergedSlice ? "merged" : sjTimes.toString(), sjCounts.toString());
         }
     }
 
+    private void processSampleRead(int sampleIndex, final SAMRecord read)
+    {
+        if(sampleIndex != mCurrentSampleIndex)
+            setCurrentSample(sampleIndex);
+
+        processRead(read);
+    }
+
     private void processRead(final SAMRecord read)
     {
         ++mTotalReadCount;
+        ++mSampleReadCounts[mCurrentSampleIndex];
 
         int maxSlicePosition = mSliceRegionState.PositionMax + DEFAULT_MAX_FRAGMENT_LENGTH;
 
@@ -311,9 +388,7 @@ public class DepthTask implements Callable
         {
             VariantInfo variantInfo = mSliceRegionState.UncappedVariants.get(index);
 
-            RefSupportCounts variantSampleCounts = variantInfo.SampleSupportCounts[mCurrentSampleIndex];
-
-            if(variantSampleCounts.exceedsMaxDepth())
+            if(variantInfo.SupportCounts.exceedsMaxDepth(mCurrentSampleIndex))
             {
                 mSliceRegionState.UncappedVariants.remove(index);
                 mSliceRegionState.MinPositionIndex = max(mSliceRegionState.MinPositionIndex - 1, 0);
@@ -338,7 +413,11 @@ public class DepthTask implements Callable
                     mChromosome, mSliceRegionState.variantCount(), mSliceRegionState.PositionMin, mSliceRegionState.PositionMax,
                     mCurrentSampleIndex);
 
-            mBamSlicer.haltProcessing();
+            if(mConfig.MergedSlice)
+                mBamSlicer.haltProcessing(mCurrentSampleIndex);
+            else
+                mBamSlicer.haltProcessing();
+
             return;
         }
 
@@ -421,8 +500,7 @@ public class DepthTask implements Callable
                 break;
             }
 
-            RefSupportCounts variantSampleCounts = variantInfo.SampleSupportCounts[mCurrentSampleIndex];
-            checkReadGroupSupport(variantInfo, variantSampleCounts, new ReadGroup(read, false));
+            checkReadGroupSupport(variantInfo, new ReadGroup(read, false));
         }
 
         // record the starting index for the set of current variants
@@ -442,13 +520,15 @@ public class DepthTask implements Callable
             else if(groupMaxPosition < variantInfo.PositionMin - READ_POSITION_MARGIN)
                 break;
 
-            RefSupportCounts variantSampleCounts = variantInfo.SampleSupportCounts[mCurrentSampleIndex];
-            checkReadGroupSupport(variantInfo, variantSampleCounts, readGroup);
+            checkReadGroupSupport(variantInfo, readGroup);
         }
     }
 
-    private void checkReadGroupSupport(final VariantInfo variant, RefSupportCounts supportCounts, final ReadGroup readGroup)
+    private void checkReadGroupSupport(final VariantInfo variant, final ReadGroup readGroup)
     {
+        RefSupportCounts supportCounts = variant.SupportCounts;
+        int sampleIndex = mCurrentSampleIndex;
+
         boolean readSupportsRef = false;
         boolean hasLowerPosRead = false;
         boolean hasUpperPosRead = false;
@@ -510,21 +590,21 @@ public class DepthTask implements Callable
 
         if(readSupportsRef)
         {
-            ++supportCounts.RefSupport;
+            ++supportCounts.RefSupport[sampleIndex];
         }
         else if(hasLowerPosRead && hasUpperPosRead && strandCount == 0)
         {
-            ++supportCounts.RefPairSupport;
+            ++supportCounts.RefPairSupport[sampleIndex];
 
             SV_LOGGER.trace("var({}) pos({}-{}) fragment(id={} {}-{}) has ref-pair support",
                     variant.Position, variant.PositionMin, variant.PositionMax, readGroup.id(), readGroupPosMin, readGroupPosMax);
         }
 
-        if(supportCounts.exceedsMaxDepth())
+        if(supportCounts.exceedsMaxDepth(sampleIndex))
         {
             SV_LOGGER.trace("var({}:{}) sampleIndex({}) ref limit({}) reached with support(ref={} pair={})",
-                    mChromosome, variant.Position, mCurrentSampleIndex,
-                    supportCounts.VafCap, supportCounts.RefSupport, supportCounts.RefPairSupport);
+                    mChromosome, variant.Position, sampleIndex, supportCounts.VafCap[sampleIndex],
+                    supportCounts.RefSupport[sampleIndex], supportCounts.RefPairSupport[sampleIndex]);
         }
     }
 
@@ -541,12 +621,11 @@ public class DepthTask implements Callable
     {
         mVariantInfoList.clear();
         mVariantsList.clear();
-        mReadGroups.clear();
-        mCurrentSampleIndex = 0;
+        mSampleReadGroups.forEach(x -> x.clear());
         mCacheRecordCounter = 0;
         mTotalReadCount = 0;
-        mSliceRegionState.reset();
-        mSliceRegionState.reset();
+        resetSliceRegions();
+        setCurrentSample(0);
     }
 
     @VisibleForTesting
@@ -555,6 +634,12 @@ public class DepthTask implements Callable
         processRead(read);
     }
 
+    @VisibleForTesting
+    public void processSamRecord(int sampleIndex, final SAMRecord read)
+    {
+        processSampleRead(sampleIndex, read);
+    }
+
     @VisibleForTesting
     public Map<String,ReadGroup> readGroups() { return mReadGroups; }
 
@@ -564,11 +649,18 @@ public class DepthTask implements Callable
     @VisibleForTesting
     public void addSliceVariants(final List<VariantInfo> variants)
     {
-        mSliceRegionState.reset();
-        variants.forEach(x -> mSliceRegionState.addVariant(x));
-        mSliceRegionState.resetUncappedVariants();
+        resetSliceRegions();
+        variants.forEach(x -> addSliceVariant(x));
+
+        for(SliceRegionState sliceRegionState : mSampleRegionStates)
+        {
+            sliceRegionState.resetUncappedVariants();
+        }
     }
 
     @VisibleForTesting
     public SliceRegionState sliceRegionState() { return mSliceRegionState; }
+
+    @VisibleForTesting
+    public SliceRegionState sliceRegionState(int sampleIndex) { return mSampleRegionStates[sampleIndex]; }
     }
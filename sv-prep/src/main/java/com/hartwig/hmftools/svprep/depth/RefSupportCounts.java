@@ -2,23 +2,61 @@ package com.hartwig.hmftools.svprep.depth;
 
 import static java.lang.String.format;
 
+import java.util.Arrays;
+
+// a variant's ref support held in arrays indexed by sample, so reads from any sample are counted in place
 public class RefSupportCounts
 {
-    public int RefSupport = 0;
-    public int RefPairSupport = 0;
-    public final int VafCap;
+    public final int[] RefSupport;
+    public final int[] RefPairSupport;
+    public final int[] VafCap;
+
+    public RefSupportCounts(final int[] vafCaps)
+    {
+        VafCap = vafCaps;
+        RefSupport = new int[vafCaps.length];
+        RefPairSupport = new int[vafCaps.length];
+    }
+
+    public int sampleCount() { return VafCap.length; }
+
+    public int total(int sampleIndex)
+    {
+        return RefSupport[sampleIndex] + RefPairSupport[sampleIndex];
+    }
 
-    public RefSupportCounts(final int vafCap) { VafCap = vafCap; }
+    public boolean exceedsMaxDepth(int sampleIndex)
+    {
+        return VafCap[sampleIndex] > 0 && RefSupport[sampleIndex] + RefPairSupport[sampleIndex] >= VafCap[sampleIndex];
+    }
 
-    public int total()
+    public int totalRefSupport()
     {
-        return RefSupport + RefPairSupport;
+        int total = 0;
+
+        for(int i = 0; i < RefSupport.length; ++i)
+        {
+            total += RefSupport[i];
+        }
+
+        return total;
     }
 
-    public boolean exceedsMaxDepth() { return VafCap > 0 && RefSupport + RefPairSupport >= VafCap; }
+    public int totalRefPairSupport()
+    {
+        int total = 0;
+
+        for(int i = 0; i < RefPairSupport.length; ++i)
+        {
+            total += RefPairSupport[i];
+        }
+
+        return total;
+    }
 
     public String toString()
     {
-        return format("support(ref=%d pair=%d) vafCap(%d)", RefSupport, RefPairSupport, VafCap);
+        return format("support(ref=%s pair=%s) vafCap(%s)",
+                Arrays.toString(RefSupport), Arrays.toString(RefPairSupport), Arrays.toString(VafCap));
     }
 }
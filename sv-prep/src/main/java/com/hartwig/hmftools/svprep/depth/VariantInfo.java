@@ -23,7 +23,7 @@ public class VariantInfo
     public final int PositionMax;
     public final byte Orientation;
 
-    public final RefSupportCounts[] SampleSupportCounts;
+    public final RefSupportCounts SupportCounts;
 
     public VariantInfo(final VariantContext variant, final List<Integer> genotypeIds, double vafCap)
     {
@@ -42,15 +42,16 @@ public class VariantInfo
         PositionMin = Position + homology[0];
         PositionMax = Position + homology[1];
 
-        SampleSupportCounts = new RefSupportCounts[genotypeIds.size()];
+        int[] refFragsCaps = new int[genotypeIds.size()];
 
         for(int i = 0; i < genotypeIds.size(); ++i)
         {
             Integer genotypeIndex = genotypeIds.get(i);
             int sampleFragments = genotypeFragments(variant, genotypeIndex);
-            int refFragsCap = vafCap > 0 ? (int) (max(sampleFragments, 1) / vafCap) : 0;
-            SampleSupportCounts[i] = new RefSupportCounts(refFragsCap);
+            refFragsCaps[i] = vafCap > 0 ? (int) (max(sampleFragments, 1) / vafCap) : 0;
         }
+
+        SupportCounts = new RefSupportCounts(refFragsCaps);
     }
 
     private static int genotypeFragments(final VariantContext variant, int genotypeIndex)
@@ -60,22 +61,6 @@ public class VariantInfo
         return max(sglFrags != null ? Integer.parseInt(sglFrags.toString()) : 0, svFrags != null ? Integer.parseInt(svFrags.toString()) : 0);
     }
 
-    public RefSupportCounts totalSupport()
-    {
-        if(SampleSupportCounts.length == 1)
-            return SampleSupportCounts[0];
-
-        RefSupportCounts totalCounts = new RefSupportCounts(0);
-
-        for(int i = 0; i < SampleSupportCounts.length; ++i)
-        {
-            totalCounts.RefSupport += SampleSupportCounts[i].RefSupport;
-            totalCounts.RefPairSupport += SampleSupportCounts[i].RefPairSupport;
-        }
-
-        return totalCounts;
-    }
-
     private static byte getOrientation(final VariantContext variant)
     {
         return isSingleBreakend(variant) ? parseSingleOrientation(variant) : parseSvOrientation(variant);
@@ -1,15 +1,18 @@
 package com.hartwig.hmftools.svprep.reads;
 
 import com.hartwig.hmftools.common.region.ChrBaseRegion;
+import com.hartwig.hmftools.svprep.ChromosomeTask;
 
 public class PartitionTask
 {
     public final ChrBaseRegion Region;
     public final int TaskId;
+    public final ChromosomeTask ChrTask;
 
-    public PartitionTask(final ChrBaseRegion region, final int taskId)
+    public PartitionTask(final ChrBaseRegion region, final int taskId, final ChromosomeTask chrTask)
     {
         Region = region;
         TaskId = taskId;
+        ChrTask = chrTask;
     }
 }
@@ -9,7 +9,6 @@ import java.util.NoSuchElementException;
 import java.util.Queue;
 
 import com.hartwig.hmftools.common.samtools.BamSlicer;
-import com.hartwig.hmftools.svprep.CombinedStats;
 import com.hartwig.hmftools.svprep.ExistingJunctionCache;
 import com.hartwig.hmftools.svprep.ResultsWriter;
 import com.hartwig.hmftools.svprep.SpanningReadCache;
@@ -21,11 +20,9 @@ import htsjdk.samtools.ValidationStringency;
 
 public class PartitionThread extends Thread
 {
-    private final String mChromosome;
     private final SvConfig mConfig;
     private final SpanningReadCache mSpanningReadCache;
     private final ResultsWriter mWriter;
-    private final CombinedStats mCombinedStats;
     private final ExistingJunctionCache mExistingJunctionCache;
 
     private final SamReader mSamReader;
@@ -33,16 +30,13 @@ public class PartitionThread extends Thread
     private final Queue<PartitionTask> mPartitions;
 
     public PartitionThread(
-            final String chromosome, final SvConfig config, final Queue<PartitionTask> partitions,
-            final SpanningReadCache spanningReadCache, final ExistingJunctionCache existingJunctionCache,
-            final ResultsWriter writer, final CombinedStats combinedStats)
+            final SvConfig config, final Queue<PartitionTask> partitions, final SpanningReadCache spanningReadCache,
+            final ExistingJunctionCache existingJunctionCache, final ResultsWriter writer)
     {
-        mChromosome = chromosome;
         mConfig = config;
         mSpanningReadCache = spanningReadCache;
         mExistingJunctionCache = existingJunctionCache;
         mWriter = writer;
-        mCombinedStats = combinedStats;
         mPartitions = partitions;
 
         mSamReader = mConfig.BamFile != null ?
@@ -65,15 +59,17 @@ public class PartitionThread extends Thread
 
                 PartitionSlicer slicer = new PartitionSlicer(
                         partition.TaskId, partition.Region, mConfig, mSamReader, mBamSlicer,
-                        mSpanningReadCache, mExistingJunctionCache, mWriter, mCombinedStats);
+                        mSpanningReadCache, mExistingJunctionCache, mWriter, partition.ChrTask.combinedStats());
 
                 if(partition.TaskId > 0 && (partition.TaskId % 10) == 0)
                 {
                     SV_LOGGER.debug("chromosome({}) processing partition({}), remaining({})",
-                            mChromosome, partition.TaskId, mPartitions.size());
+                            partition.Region.Chromosome, partition.TaskId, mPartitions.size());
                 }
 
                 slicer.run();
+
+                partition.ChrTask.partitionComplete();
             }
             catch(NoSuchElementException e)
             {
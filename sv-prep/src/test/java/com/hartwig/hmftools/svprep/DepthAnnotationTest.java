@@ -41,6 +41,7 @@ public class DepthAnnotationTest
     private final ReadIdGenerator mReadIdGen;
 
     private static final String TEST_SAMPLE_ID = "SAMPLE";
+    private static final String TEST_SAMPLE_ID_2 = "SAMPLE_2";
 
     public DepthAnnotationTest()
     {
@@ -211,13 +212,85 @@ public class DepthAnnotationTest
         assertEquals(variants.size() - 1, mDepthTask.sliceRegionState().UncappedVariants.size());
     }
 
+    @Test
+    public void testMultiSampleReadAttribution()
+    {
+        // reads from 2 samples arrive interleaved, as from a merged slice, and are counted and capped per sample
+        Map<String,Integer> sampleVcfGenotypeIds = Maps.newHashMap();
+        sampleVcfGenotypeIds.put(TEST_SAMPLE_ID, 0);
+        sampleVcfGenotypeIds.put(TEST_SAMPLE_ID_2, 0);
+        DepthConfig config = new DepthConfig(0.1, 1000);
+        config.Samples.add(TEST_SAMPLE_ID);
+        config.Samples.add(TEST_SAMPLE_ID_2);
+        DepthTask depthTask = new DepthTask(CHR_1, config, sampleVcfGenotypeIds);
+
+        List<VariantContext> variants = Lists.newArrayList(
+                createVariantContext(nextVariantId(), 1000), createVariantContext(nextVariantId(), 1100));
+
+        depthTask.addVariants(variants);
+        depthTask.addSliceVariants(depthTask.variantInfos());
+
+        VariantInfo var1 = depthTask.variantInfos().get(0);
+        VariantInfo var2 = depthTask.variantInfos().get(1);
+
+        // a fragment spanning both variants in the second sample, with its mate arriving after reads from the first
+        SAMRecord read = createSamRecord(
+                mReadIdGen.nextId(), CHR_1, 800, CHR_1, 1300, "100M", true, false,
+                false, "");
+
+        SAMRecord mate = createSamRecord(
+                read.getReadName(), CHR_1, 1300, CHR_1, 800, "100M", false, true,
+                false, "");
+        mate.setReadNegativeStrandFlag(true);
+
+        depthTask.processSamRecord(1, read);
+        assertEquals(1, depthTask.readGroups().size());
+
+        // enough ref reads in the first sample to reach the cap of 10 for the first variant
+        for(int i = 0; i < 10; ++i)
+        {
+            depthTask.processSamRecord(0, createSamRecord(
+                    mReadIdGen.nextId(), CHR_1, 950, CHR_2, 100, "100M", true, false,
+                    false, ""));
+        }
+
+        assertTrue(depthTask.readGroups().isEmpty());
+
+        depthTask.processSamRecord(1, mate);
+        assertTrue(depthTask.readGroups().isEmpty());
+
+        assertEquals(10, var1.SupportCounts.RefSupport[0]);
+        assertEquals(0, var1.SupportCounts.RefPairSupport[0]);
+        assertEquals(0, var1.SupportCounts.RefSupport[1]);
+        assertEquals(1, var1.SupportCounts.RefPairSupport[1]);
+        assertEquals(0, var2.SupportCounts.total(0));
+        assertEquals(1, var2.SupportCounts.RefPairSupport[1]);
+
+        // the next read caps out the first variant for the first sample only
+        depthTask.processSamRecord(0, createSamRecord(
+                mReadIdGen.nextId(), CHR_1, 1060, CHR_2, 100, "100M", true, false,
+                false, ""));
+
+        assertEquals(1, depthTask.sliceRegionState(0).UncappedVariants.size());
+        assertEquals(2, depthTask.sliceRegionState(1).UncappedVariants.size());
+        assertEquals(1, var2.SupportCounts.RefSupport[0]);
+
+        depthTask.processSamRecord(1, createSamRecord(
+                mReadIdGen.nextId(), CHR_1, 950, CHR_2, 100, "100M", true, false,
+                false, ""));
+
+        assertEquals(1, var1.SupportCounts.RefSupport[1]);
+        assertEquals(11, var1.SupportCounts.totalRefSupport());
+        assertEquals(1, var1.SupportCounts.totalRefPairSupport());
+    }
+
     private void checkRefSupport(int varPosition, int refSupport, int refPairSupport)
     {
         VariantInfo variant = mDepthTask.variantInfos().stream().filter(x -> x.Position == varPosition).findFirst().orElse(null);
         assertNotNull(variant);
 
-        assertEquals(refSupport, variant.SampleSupportCounts[0].RefSupport);
-        assertEquals(refPairSupport, variant.SampleSupportCounts[0].RefPairSupport);
+        assertEquals(refSupport, variant.SupportCounts.RefSupport[0]);
+        assertEquals(refPairSupport, variant.SupportCounts.RefPairSupport[0]);
     }
 
     private String nextVariantId() { return format("%03d", mNextVariantId++); }
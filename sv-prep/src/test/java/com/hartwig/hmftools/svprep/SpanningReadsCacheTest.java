@@ -14,9 +14,13 @@ import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertFalse;
 import static junit.framework.TestCase.assertTrue;
 
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.hartwig.hmftools.common.region.ChrBaseRegion;
 import com.hartwig.hmftools.svprep.reads.ReadGroup;
 import com.hartwig.hmftools.svprep.reads.ReadRecord;
 import com.hartwig.hmftools.svprep.reads.ReadType;
@@ -400,4 +404,101 @@ public class SpanningReadsCacheTest
         mSpanningReadCache.reset();
         spanningGroupsMap.clear();
     }
+
+    @Test
+    public void testConcurrentPartitions() throws InterruptedException
+    {
+        // candidate reads cached by partitions processed concurrently are all picked up by their junction reads
+        int partitionPairs = 20;
+        int groupsPerPartition = 50;
+
+        List<ChrBaseRegion> candidateRegions = Lists.newArrayList();
+        List<ChrBaseRegion> junctionRegions = Lists.newArrayList();
+        List<Map<String,ReadGroup>> candidatePartitionGroups = Lists.newArrayList();
+        List<Map<String,ReadGroup>> junctionPartitionGroups = Lists.newArrayList();
+
+        int readId = 0;
+
+        for(int p = 0; p < partitionPairs; ++p)
+        {
+            ChrBaseRegion candidateRegion = partitionRegion(2 * p);
+            ChrBaseRegion junctionRegion = partitionRegion(2 * p + 1);
+            candidateRegions.add(candidateRegion);
+            junctionRegions.add(junctionRegion);
+
+            Map<String,ReadGroup> candidateGroups = Maps.newHashMap();
+            Map<String,ReadGroup> junctionGroups = Maps.newHashMap();
+
+            for(int g = 0; g < groupsPerPartition; ++g)
+            {
+                int candidatePosition = candidateRegion.start() + 100 + g;
+                int junctionPosition = junctionRegion.start() + 100 + g;
+
+                ReadRecord candidateRead = ReadRecord.from(createSamRecord(
+                        readIdStr(++readId), CHR_1, candidatePosition, CHR_1, junctionPosition, true, false, ""));
+                candidateRead.setReadType(CANDIDATE_SUPPORT);
+
+                ReadGroup candidateGroup = new ReadGroup(candidateRead);
+                candidateGroup.setPartitionCount(candidateRegion, PARTITION_SIZE);
+                candidateGroups.put(candidateGroup.id(), candidateGroup);
+
+                ReadRecord junctionRead = ReadRecord.from(createSamRecord(
+                        readIdStr(readId), CHR_1, junctionPosition, CHR_1, candidatePosition, false, false, ""));
+                junctionRead.setReadType(JUNCTION);
+
+                ReadGroup junctionGroup = new ReadGroup(junctionRead);
+                junctionGroup.setPartitionCount(junctionRegion, PARTITION_SIZE);
+                junctionGroups.put(junctionGroup.id(), junctionGroup);
+            }
+
+            candidatePartitionGroups.add(candidateGroups);
+            junctionPartitionGroups.add(junctionGroups);
+        }
+
+        processConcurrently(candidateRegions, candidatePartitionGroups);
+        assertEquals(partitionPairs * groupsPerPartition, getCachedReadsCount(null));
+
+        processConcurrently(junctionRegions, junctionPartitionGroups);
+        assertEquals(0, getCachedReadsCount(null));
+        assertTrue(mSpanningReadCache.junctionPartitionReadIdsMap().isEmpty());
+
+        for(Map<String,ReadGroup> junctionGroups : junctionPartitionGroups)
+        {
+            for(ReadGroup readGroup : junctionGroups.values())
+            {
+                assertEquals(2, readGroup.reads().size());
+                assertTrue(readGroup.reads().stream().anyMatch(x -> x.readType() == CANDIDATE_SUPPORT));
+            }
+        }
+    }
+
+    private static ChrBaseRegion partitionRegion(int partition)
+    {
+        return new ChrBaseRegion(CHR_1, partition * PARTITION_SIZE + 1, (partition + 1) * PARTITION_SIZE - 1);
+    }
+
+    private void processConcurrently(final List<ChrBaseRegion> regions, final List<Map<String,ReadGroup>> partitionGroups)
+            throws InterruptedException
+    {
+        AtomicInteger nextPartition = new AtomicInteger();
+        List<Thread> threads = Lists.newArrayList();
+
+        for(int t = 0; t < 4; ++t)
+        {
+            threads.add(new Thread(() ->
+            {
+                for(int i = nextPartition.getAndIncrement(); i < regions.size(); i = nextPartition.getAndIncrement())
+                {
+                    mSpanningReadCache.processSpanningReadGroups(regions.get(i), partitionGroups.get(i));
+                }
+            }));
+        }
+
+        threads.forEach(Thread::start);
+
+        for(Thread thread : threads)
+        {
+            thread.join();
+        }
+    }
 }
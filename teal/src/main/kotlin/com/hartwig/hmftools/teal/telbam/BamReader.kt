@@ -1,9 +1,9 @@
 package com.hartwig.hmftools.teal.telbam
 
 import com.hartwig.hmftools.teal.TealUtils.openSamReader
-import com.hartwig.hmftools.teal.TealUtils.hasTelomericContent
 import java.lang.Runnable
 import com.hartwig.hmftools.common.region.ChrBaseRegion
+import com.hartwig.hmftools.teal.util.TelomereKmerScanner
 import htsjdk.samtools.SamReader
 import htsjdk.samtools.SAMRecord
 import org.apache.logging.log4j.LogManager
@@ -119,9 +119,10 @@ class BamReader(mConfig: TelbamParams,
         logger.info("processed {} unmapped reads", mReadCount)
     }
 
+    // this runs on every read in the BAM, so scan the raw bases rather than creating the read string
     private fun hasTelomericContent(record: SAMRecord): Boolean
     {
-        return hasTelomericContent(record.readString)
+        return TelomereKmerScanner.hasTelomericContent(record.readBases)
     }
 
     private fun processReadRecord(record: SAMRecord)
@@ -0,0 +1,74 @@
+package com.hartwig.hmftools.teal.util
+
+import com.hartwig.hmftools.teal.TealConstants
+
+// scans raw read bases for telomeric repeats without creating any strings
+// each base is packed into 2 bits and a rolling k-mer is compared against the
+// packed canonical telomere sequences, so one pass over the byte array is enough
+object TelomereKmerScanner
+{
+    private const val INVALID_BASE = -1
+
+    // lookup from ASCII base to 2 bit code, anything not ACGT breaks the rolling k-mer. Lowercase bases are invalid too, since
+    // the string search is case sensitive
+    private val BASE_CODES = IntArray(256) { INVALID_BASE }
+
+    init
+    {
+        BASE_CODES['A'.code] = 0
+        BASE_CODES['C'.code] = 1
+        BASE_CODES['G'.code] = 2
+        BASE_CODES['T'.code] = 3
+    }
+
+    private val HEXAMER_LENGTH = TealConstants.CANONICAL_TELOMERE_SEQ.length
+
+    // the telomeric content test looks for consecutive canonical hexamers, same as TealConstants.CANONICAL_TELOMERE_SEQUENCES
+    private val TELOMERIC_KMER_LENGTH = HEXAMER_LENGTH * TealConstants.DEFAULT_MIN_TELE_SEQ_COUNT
+    private val TELOMERIC_KMER_MASK = (1L shl (2 * TELOMERIC_KMER_LENGTH)) - 1
+    private val G_TELOMERIC_KMER = packSequence(TealConstants.CANONICAL_TELOMERE_SEQUENCES[0])
+    private val C_TELOMERIC_KMER = packSequence(TealConstants.CANONICAL_TELOMERE_SEQUENCES[1])
+
+    init
+    {
+        // the rolling k-mer is held in a long, so at most 32 bases
+        require(TELOMERIC_KMER_LENGTH <= 32)
+    }
+
+    // equivalent to TealUtils.hasTelomericContent(String) but works directly on the read bases
+    fun hasTelomericContent(readBases: ByteArray): Boolean
+    {
+        var kmer = 0L
+        var validLength = 0
+
+        for (base in readBases)
+        {
+            val code = BASE_CODES[base.toInt() and 0xFF]
+
+            if (code == INVALID_BASE)
+            {
+                kmer = 0
+                validLength = 0
+                continue
+            }
+
+            kmer = ((kmer shl 2) or code.toLong()) and TELOMERIC_KMER_MASK
+            ++validLength
+
+            if (validLength >= TELOMERIC_KMER_LENGTH && (kmer == G_TELOMERIC_KMER || kmer == C_TELOMERIC_KMER))
+                return true
+        }
+
+        return false
+    }
+
+    private fun packSequence(seq: String): Long
+    {
+        var packed = 0L
+        for (c in seq)
+        {
+            packed = (packed shl 2) or BASE_CODES[c.code].toLong()
+        }
+        return packed
+    }
+}
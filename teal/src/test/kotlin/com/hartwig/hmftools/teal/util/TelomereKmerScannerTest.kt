@@ -0,0 +1,71 @@
+package com.hartwig.hmftools.teal.util
+
+import com.hartwig.hmftools.teal.TealConstants
+import com.hartwig.hmftools.teal.TealUtils
+import kotlin.random.Random
+import kotlin.test.*
+
+class TelomereKmerScannerTest
+{
+    @Test
+    fun testTelomericContent()
+    {
+        var readBases = "AGCT" + TealConstants.CANONICAL_TELOMERE_SEQ + "AGCT" + TealConstants.CANONICAL_TELOMERE_SEQ + TealConstants.CANONICAL_TELOMERE_SEQ + "GG"
+        assertTrue(TelomereKmerScanner.hasTelomericContent(readBases.toByteArray()))
+
+        readBases = "AGCT" + TealConstants.CANONICAL_TELOMERE_SEQ + "AGCT" + TealConstants.CANONICAL_TELOMERE_SEQ + "GG"
+        assertFalse(TelomereKmerScanner.hasTelomericContent(readBases.toByteArray()))
+
+        readBases = "AGCT" + TealConstants.CANONICAL_TELOMERE_SEQ_REV + TealConstants.CANONICAL_TELOMERE_SEQ_REV + "AG"
+        assertTrue(TelomereKmerScanner.hasTelomericContent(readBases.toByteArray()))
+
+        // an N breaks the repeat
+        readBases = "AGCTTTAGGGTTNGGGTTAGGGAG"
+        assertFalse(TelomereKmerScanner.hasTelomericContent(readBases.toByteArray()))
+
+        assertFalse(TelomereKmerScanner.hasTelomericContent(ByteArray(0)))
+
+        // matching is case sensitive, as with the string search
+        readBases = "AG" + TealConstants.CANONICAL_TELOMERE_SEQUENCES[0].lowercase() + "AG"
+        assertFalse(TealUtils.hasTelomericContent(readBases))
+        assertFalse(TelomereKmerScanner.hasTelomericContent(readBases.toByteArray()))
+    }
+
+    @Test
+    fun testMatchesStringImplementation()
+    {
+        // synthetic read stream with telomeric fragments spliced into random bases
+        val random = Random(42)
+        val fragments = arrayOf(
+            TealConstants.CANONICAL_TELOMERE_SEQ, TealConstants.CANONICAL_TELOMERE_SEQ_REV,
+            TealConstants.CANONICAL_TELOMERE_SEQ.repeat(2), TealConstants.CANONICAL_TELOMERE_SEQ_REV.repeat(3), "TTAGG", "N",
+            TealConstants.CANONICAL_TELOMERE_SEQ.repeat(3).lowercase())
+
+        for (i in 0 until 10000)
+        {
+            val read = generateRead(random, 151, fragments)
+            val readBases = read.toByteArray()
+
+            assertEquals(TealUtils.hasTelomericContent(read), TelomereKmerScanner.hasTelomericContent(readBases), read)
+        }
+    }
+
+    companion object
+    {
+        private const val BASES = "ACGT"
+
+        fun generateRead(random: Random, length: Int, fragments: Array<String>): String
+        {
+            val builder = StringBuilder(length)
+            while (builder.length < length)
+            {
+                if (random.nextInt(4) == 0)
+                    builder.append(fragments[random.nextInt(fragments.size)])
+                else
+                    builder.append(BASES[random.nextInt(BASES.length)])
+            }
+            builder.setLength(length)
+            return builder.toString()
+        }
+    }
+}